@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.provider;
+
+import com.google.gson.stream.JsonReader;
+import com.meetingcpp.sched.R;
+import com.meetingcpp.sched.io.BlocksHandler;
+import com.meetingcpp.sched.io.HashtagsHandler;
+import com.meetingcpp.sched.io.JSONHandler;
+import com.meetingcpp.sched.io.MapPropertyHandler;
+import com.meetingcpp.sched.io.RoomsHandler;
+import com.meetingcpp.sched.io.SearchSuggestHandler;
+import com.meetingcpp.sched.io.SessionsHandler;
+import com.meetingcpp.sched.io.SpeakersHandler;
+import com.meetingcpp.sched.io.TagsHandler;
+import com.meetingcpp.sched.io.VideosHandler;
+import com.meetingcpp.sched.testutils.Benchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.RenamingDelegatingContext;
+import android.test.mock.MockContentResolver;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Measures what the {@link BulkInserter} saves when a sync imports the bootstrap data. The
+ * handlers of the sync build the operations of the import against an empty database, and a
+ * {@link ScheduleProvider} of its own, over a database file of this benchmark, applies them with
+ * its bulk inserts disabled and enabled, so the URI matching, the selections and the inserts
+ * that the provider does for each operation are all part of the times. The test only fails if
+ * both don't return the same results.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class BulkInserterBenchmark {
+
+    private static final int WARM_UPS = 3;
+
+    private static final int REPEATS = 20;
+
+    private ScheduleProvider mProvider;
+
+    private ArrayList<ContentProviderOperation> mBatch;
+
+    // The URIs of the operations, to empty them before each run
+    private final LinkedHashSet<Uri> mUris = new LinkedHashSet<Uri>();
+
+    @Before
+    public void setUp() throws Exception {
+        MockContentResolver resolver = new MockContentResolver();
+        Context context = new BenchmarkContext(InstrumentationRegistry.getTargetContext(),
+                resolver);
+        mProvider = new ScheduleProvider();
+        mProvider.attachInfo(context, null);
+        resolver.addProvider(ScheduleContract.CONTENT_AUTHORITY, mProvider);
+
+        // the handlers of the sync, in the order it builds their operations in
+        SessionsHandler sessionsHandler = new SessionsHandler(context);
+        TagsHandler tagsHandler = new TagsHandler(context);
+        SpeakersHandler speakersHandler = new SpeakersHandler(context);
+        LinkedHashMap<String, JSONHandler> handlerForKey = new LinkedHashMap<String, JSONHandler>();
+        handlerForKey.put("rooms", new RoomsHandler(context));
+        handlerForKey.put("blocks", new BlocksHandler(context));
+        handlerForKey.put("tags", tagsHandler);
+        handlerForKey.put("speakers", speakersHandler);
+        handlerForKey.put("sessions", sessionsHandler);
+        handlerForKey.put("search_suggestions", new SearchSuggestHandler(context));
+        handlerForKey.put("map", new MapPropertyHandler(context));
+        handlerForKey.put("hashtags", new HashtagsHandler(context));
+        handlerForKey.put("video_library", new VideosHandler(context));
+
+        String json = JSONHandler.parseResource(context, R.raw.bootstrap_data);
+        JsonReader reader = new JsonReader(new StringReader(json));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                JSONHandler handler = handlerForKey.get(reader.nextName());
+                if (handler != null) {
+                    handler.process(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+        sessionsHandler.setTagMap(tagsHandler.getTagMap());
+        sessionsHandler.setSpeakerMap(speakersHandler.getSpeakerMap());
+
+        mBatch = new ArrayList<ContentProviderOperation>();
+        for (JSONHandler handler : handlerForKey.values()) {
+            handler.makeContentProviderOperations(mBatch);
+        }
+        for (ContentProviderOperation operation : mBatch) {
+            mUris.add(operation.getUri());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        // closes and deletes the database file of this benchmark
+        mProvider.delete(ScheduleContract.BASE_CONTENT_URI, null, null);
+    }
+
+    @Test
+    public void applyBootstrapBatch_BulkInserterAgainstInsertOrThrow() throws Exception {
+        ApplyBatchTask insertOrThrow = new ApplyBatchTask("insertOrThrow", false);
+        ApplyBatchTask bulkInserter = new ApplyBatchTask("BulkInserter", true);
+        Benchmark.measure(mBatch.size() + " operations of the bootstrap data", WARM_UPS, REPEATS,
+                insertOrThrow, bulkInserter);
+
+        assertThat(describe(bulkInserter.mResults), is(describe(insertOrThrow.mResults)));
+    }
+
+    private static ArrayList<String> describe(ContentProviderResult[] results) {
+        ArrayList<String> descriptions = new ArrayList<String>();
+        for (ContentProviderResult result : results) {
+            descriptions.add(result.toString());
+        }
+        return descriptions;
+    }
+
+    private class ApplyBatchTask extends Benchmark.Task {
+
+        private final boolean mBulkInsertsEnabled;
+
+        // The results of the last run
+        ContentProviderResult[] mResults;
+
+        ApplyBatchTask(String name, boolean bulkInsertsEnabled) {
+            super(name);
+            mBulkInsertsEnabled = bulkInsertsEnabled;
+        }
+
+        @Override
+        protected void setUp() {
+            for (Uri uri : mUris) {
+                mProvider.delete(uri, null, null);
+            }
+            mProvider.setBulkInsertsEnabled(mBulkInsertsEnabled);
+        }
+
+        @Override
+        protected void run() throws Exception {
+            mResults = mProvider.applyBatch(mBatch);
+        }
+    }
+
+    /**
+     * Keeps the database of the benchmark apart from the app's, resolves the provider URIs to the
+     * provider of the benchmark and drops the widget refreshes.
+     */
+    private static class BenchmarkContext extends RenamingDelegatingContext {
+
+        private final ContentResolver mResolver;
+
+        BenchmarkContext(Context context, ContentResolver resolver) {
+            super(context, "benchmark.");
+            mResolver = resolver;
+        }
+
+        @Override
+        public ContentResolver getContentResolver() {
+            return mResolver;
+        }
+
+        @Override
+        public void sendBroadcast(Intent intent) {
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.provider;
+
+import com.meetingcpp.sched.provider.ScheduleContract.Blocks;
+import com.meetingcpp.sched.provider.ScheduleContract.Rooms;
+import com.meetingcpp.sched.provider.ScheduleDatabase.Tables;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests that {@link ConferenceDataCache} answers queries with the same rows as the database.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class ConferenceDataCacheTest {
+
+    private static final String[] BLOCKS_PROJECTION = {Blocks.BLOCK_ID, Blocks.BLOCK_START};
+
+    @Rule
+    public final ScheduleDatabaseRule mDatabase = new ScheduleDatabaseRule();
+
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void setUp() {
+        mDb = mDatabase.getDatabase();
+
+        // not inserted in the order of their start, and two start at the same time
+        mDatabase.insertBlock("BLOCK3", 3000);
+        mDatabase.insertBlock("BLOCK1", 1000);
+        mDatabase.insertBlock("BLOCK2A", 2000);
+        mDatabase.insertBlock("BLOCK2B", 2000);
+        mDatabase.insertBlock("BLOCK4", 4000);
+        mDatabase.insertRoom("ROOM1", "Room One");
+    }
+
+    @Test
+    public void queryBlocksBetween_SameAsDatabase() {
+        ConferenceDataCache cache = ConferenceDataCache.build(mDb, 1);
+        long[][] ranges = {{0, 5000}, {2000, 3000}, {2001, 2999}, {1000, 1000}, {5000, 6000}};
+        for (long[] range : ranges) {
+            Cursor expected = mDb.query(Tables.BLOCKS, BLOCKS_PROJECTION,
+                    Blocks.BLOCK_START + ">=? AND " + Blocks.BLOCK_START + "<=?",
+                    new String[]{String.valueOf(range[0]), String.valueOf(range[1])}, null, null,
+                    Blocks.BLOCK_START + "," + Blocks._ID);
+            Cursor actual = cache.queryBlocksBetween(range[0], range[1], BLOCKS_PROJECTION);
+            assertThat(readIds(actual), is(readIds(expected)));
+        }
+    }
+
+    @Test
+    public void queryById_ExistingAndMissingRoom() {
+        ConferenceDataCache cache = ConferenceDataCache.build(mDb, 1);
+
+        Cursor cursor = cache.queryById(ScheduleUriEnum.ROOMS_ID, "ROOM1",
+                new String[]{Rooms.ROOM_NAME});
+        assertThat(cursor.getCount(), is(1));
+        cursor.moveToFirst();
+        assertThat(cursor.getString(0), is("Room One"));
+        cursor.close();
+
+        cursor = cache.queryById(ScheduleUriEnum.ROOMS_ID, "ROOM2", null);
+        assertThat(cursor.getCount(), is(0));
+        cursor.close();
+    }
+
+    @Test
+    public void queryAll_UnknownColumn_NotAnswered() {
+        ConferenceDataCache cache = ConferenceDataCache.build(mDb, 1);
+
+        assertThat(cache.queryAll(ScheduleUriEnum.BLOCKS, new String[]{"COUNT(*)"}),
+                nullValue());
+    }
+
+    private static List<String> readIds(Cursor cursor) {
+        List<String> ids = new ArrayList<String>();
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.provider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsCollectionContaining.hasItem;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests that the queries of the provider look up their rows through indexes.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class QueryPlanAuditTest {
+
+    // Lookups by key that must never scan a whole table
+    private static final ScheduleUriEnum[] KEYED_LOOKUPS = {
+            ScheduleUriEnum.BLOCKS_BETWEEN,
+            ScheduleUriEnum.FEEDBACK_FOR_SESSION,
+            ScheduleUriEnum.ROOMS_ID_SESSIONS,
+            ScheduleUriEnum.SESSIONS_ID,
+            ScheduleUriEnum.SESSIONS_ID_SPEAKERS,
+            ScheduleUriEnum.SESSIONS_ID_TAGS,
+            ScheduleUriEnum.SPEAKERS_ID_SESSIONS
+    };
+
+    @Test
+    public void auditQueryPlans_KeyedLookups_UseIndexes() {
+        Bundle result = InstrumentationRegistry.getTargetContext().getContentResolver().call(
+                ScheduleContract.BASE_CONTENT_URI, ScheduleContract.METHOD_AUDIT_QUERY_PLANS,
+                null, null);
+        List<String> fullScans =
+                Arrays.asList(result.getStringArray(ScheduleContract.EXTRA_FULL_SCAN_URIS));
+        String report = result.getString(ScheduleContract.EXTRA_QUERY_PLANS);
+
+        for (ScheduleUriEnum uriEnum : KEYED_LOOKUPS) {
+            assertThat(report, fullScans, not(hasItem(uriEnum.name())));
+        }
+    }
+
+    @Test
+    public void isFullScan_ScansAndSearches() {
+        assertThat(QueryPlanAudit.isFullScan("SCAN TABLE sessions"), is(true));
+        assertThat(QueryPlanAudit.isFullScan("SCAN sessions USING INDEX sessions_start"),
+                is(true));
+        assertThat(QueryPlanAudit.isFullScan(
+                "SEARCH TABLE sessions USING INDEX sessions_start (session_start>?)"), is(false));
+        assertThat(QueryPlanAudit.isFullScan("SCAN TABLE sessions_search VIRTUAL TABLE INDEX 3:"),
+                is(false));
+    }
+}
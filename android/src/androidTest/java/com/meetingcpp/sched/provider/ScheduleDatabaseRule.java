@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.provider;
+
+import com.meetingcpp.sched.provider.ScheduleContract.Blocks;
+import com.meetingcpp.sched.provider.ScheduleContract.Rooms;
+import com.meetingcpp.sched.provider.ScheduleContract.Sessions;
+import com.meetingcpp.sched.provider.ScheduleContract.Speakers;
+import com.meetingcpp.sched.provider.ScheduleDatabase.SessionsSpeakers;
+import com.meetingcpp.sched.provider.ScheduleDatabase.Tables;
+
+import org.junit.rules.ExternalResource;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+
+/**
+ * A JUnit rule that opens the schedule database in memory before each test, so the app data is
+ * left alone, and closes it after. It also inserts the rows the tests of the provider need.
+ */
+public class ScheduleDatabaseRule extends ExternalResource {
+
+    private ScheduleDatabase mOpenHelper;
+
+    private SQLiteDatabase mDb;
+
+    @Override
+    protected void before() {
+        mOpenHelper = new ScheduleDatabase(InstrumentationRegistry.getTargetContext(), null);
+        mDb = mOpenHelper.getWritableDatabase();
+    }
+
+    @Override
+    protected void after() {
+        mOpenHelper.close();
+    }
+
+    public SQLiteDatabase getDatabase() {
+        return mDb;
+    }
+
+    public void insertSession(String id, String title, String sessionAbstract) {
+        insertSession(id, title, sessionAbstract, 0, 0);
+    }
+
+    public void insertSession(String id, String title, String sessionAbstract, long start,
+            long end) {
+        ContentValues values = new ContentValues();
+        values.put(Sessions.UPDATED, 0);
+        values.put(Sessions.SESSION_ID, id);
+        values.put(Sessions.SESSION_START, start);
+        values.put(Sessions.SESSION_END, end);
+        values.put(Sessions.SESSION_TITLE, title);
+        values.put(Sessions.SESSION_ABSTRACT, sessionAbstract);
+        mDb.insertOrThrow(Tables.SESSIONS, null, values);
+    }
+
+    public void insertSpeaker(String id, String name) {
+        ContentValues values = new ContentValues();
+        values.put(Speakers.UPDATED, 0);
+        values.put(Speakers.SPEAKER_ID, id);
+        values.put(Speakers.SPEAKER_NAME, name);
+        mDb.insertOrThrow(Tables.SPEAKERS, null, values);
+    }
+
+    public void insertSessionSpeaker(String sessionId, String speakerId) {
+        ContentValues values = new ContentValues();
+        values.put(SessionsSpeakers.SESSION_ID, sessionId);
+        values.put(SessionsSpeakers.SPEAKER_ID, speakerId);
+        mDb.insertOrThrow(Tables.SESSIONS_SPEAKERS, null, values);
+    }
+
+    public void insertBlock(String id, long start) {
+        ContentValues values = new ContentValues();
+        values.put(Blocks.BLOCK_ID, id);
+        values.put(Blocks.BLOCK_TITLE, id);
+        values.put(Blocks.BLOCK_START, start);
+        values.put(Blocks.BLOCK_END, start + 500);
+        mDb.insertOrThrow(Tables.BLOCKS, null, values);
+    }
+
+    public void insertRoom(String id, String name) {
+        ContentValues values = new ContentValues();
+        values.put(Rooms.ROOM_ID, id);
+        values.put(Rooms.ROOM_NAME, name);
+        mDb.insertOrThrow(Tables.ROOMS, null, values);
+    }
+}
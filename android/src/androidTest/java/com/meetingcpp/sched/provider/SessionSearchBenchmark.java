@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.provider;
+
+import com.meetingcpp.sched.provider.ScheduleContract.Sessions;
+import com.meetingcpp.sched.provider.ScheduleDatabase.Tables;
+import com.meetingcpp.sched.testutils.Benchmark;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Measures search as you type over the sessions of a large conference: the prefix queries a user
+ * enters, on the FTS4 session index with its prefix tables, ranked by the columns the terms are
+ * found in, against the single column FTS3 index it replaced, which neither ranks nor has prefix
+ * tables. The sessions have titles and abstracts of words whose frequencies are spread like those
+ * of real text. The test only fails if both indexes don't find as many sessions for each query.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class SessionSearchBenchmark {
+
+    private static final int SESSIONS = 10000;
+
+    private static final int WORDS_PER_ABSTRACT = 80;
+
+    private static final int VOCABULARY = 5000;
+
+    private static final int WARM_UPS = 2;
+
+    private static final int REPEATS = 20;
+
+    // Search as you type: the prefixes of a few words, as the user would enter them
+    private static final String[] QUERIES = {"te*", "tem*", "temp*", "co*", "con*", "conc*",
+            "wo1*", "wo12*", "wo3 wo4*", "wo10 wo2*"};
+
+    private static final String FTS3_TABLE = "sessions_search_fts3";
+
+    @Rule
+    public final ScheduleDatabaseRule mDatabase = new ScheduleDatabaseRule();
+
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void setUp() {
+        mDb = mDatabase.getDatabase();
+        // the same content in the index this version replaced
+        mDb.execSQL("CREATE VIRTUAL TABLE " + FTS3_TABLE + " USING fts3(body TEXT NOT NULL,"
+                + "session_id TEXT NOT NULL,tokenize=porter)");
+
+        Random random = new Random(42);
+        mDb.beginTransaction();
+        try {
+            for (int i = 0; i < SESSIONS; i++) {
+                String id = "SESSION" + i;
+                String title = randomWords(random, 4);
+                String sessionAbstract = randomWords(random, WORDS_PER_ABSTRACT);
+                mDatabase.insertSession(id, title, sessionAbstract);
+                mDb.execSQL("INSERT INTO " + FTS3_TABLE + " VALUES (?,?)",
+                        new Object[]{title + " " + sessionAbstract, id});
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+        ScheduleDatabase.updateSessionSearchIndex(mDb);
+    }
+
+    @Test
+    public void rankedPrefixSearch_Fts4AgainstFts3() throws Exception {
+        final int[][] counts = new int[2][QUERIES.length];
+        Benchmark.measure(SESSIONS + " sessions, the " + QUERIES.length + " queries", WARM_UPS,
+                REPEATS,
+                new Benchmark.Task("FTS3") {
+                    @Override
+                    protected void run() {
+                        for (int i = 0; i < QUERIES.length; i++) {
+                            counts[0][i] = count(mDb.rawQuery("SELECT " + Tables.SESSIONS + "."
+                                    + Sessions.SESSION_ID + " FROM " + Tables.SESSIONS + " JOIN "
+                                    + FTS3_TABLE + " ON " + FTS3_TABLE + ".session_id="
+                                    + Tables.SESSIONS + "." + Sessions.SESSION_ID + " WHERE "
+                                    + FTS3_TABLE + ".body MATCH ?", new String[]{QUERIES[i]}));
+                        }
+                    }
+                },
+                new Benchmark.Task("FTS4 ranked") {
+                    @Override
+                    protected void run() {
+                        for (int i = 0; i < QUERIES.length; i++) {
+                            // the join's first parameter is the account name
+                            counts[1][i] = count(mDb.rawQuery("SELECT " + Tables.SESSIONS + "."
+                                    + Sessions.SESSION_ID + " FROM "
+                                    + Tables.SESSIONS_SEARCH_JOIN_SESSIONS_ROOMS + " WHERE "
+                                    + Tables.SESSIONS_SEARCH + " MATCH ? ORDER BY "
+                                    + ScheduleProvider.buildSearchRank(QUERIES[i]) + " DESC",
+                                    new String[]{"", QUERIES[i]}));
+                        }
+                    }
+                });
+
+        assertThat(counts[1], is(counts[0]));
+    }
+
+    private static int count(Cursor cursor) {
+        try {
+            int count = 0;
+            while (cursor.moveToNext()) {
+                count++;
+            }
+            return count;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return Words of a Zipf-like vocabulary, so that a few words are very common.
+     */
+    private static String randomWords(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int rank = (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+            if (i > 0) {
+                words.append(' ');
+            }
+            if (rank < 3) {
+                words.append(rank == 0 ? "templates" : rank == 1 ? "concurrency" : "containers");
+            } else {
+                words.append("wo").append(rank);
+            }
+        }
+        return words.toString();
+    }
+}
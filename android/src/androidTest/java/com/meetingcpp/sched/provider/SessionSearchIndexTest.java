@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.provider;
+
+import com.meetingcpp.sched.provider.ScheduleContract.Sessions;
+import com.meetingcpp.sched.provider.ScheduleContract.Speakers;
+import com.meetingcpp.sched.provider.ScheduleDatabase.Tables;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests that {@link ScheduleDatabase#updateSessionSearchIndex} only writes the index rows of the
+ * sessions whose indexed text changed, and that search results are ranked by where they matched.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class SessionSearchIndexTest {
+
+    @Rule
+    public final ScheduleDatabaseRule mDatabase = new ScheduleDatabaseRule();
+
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void setUp() {
+        mDb = mDatabase.getDatabase();
+
+        mDatabase.insertSession("SESSION1", "Templates", "Generic programming");
+        mDatabase.insertSession("SESSION2", "Concurrency", "Threads and atomics");
+        mDatabase.insertSession("SESSION3", "Modules", "Faster builds");
+        mDatabase.insertSpeaker("SPEAKER1", "Speaker One");
+        mDatabase.insertSessionSpeaker("SESSION1", "SPEAKER1");
+        mDatabase.insertSpeaker("SPEAKER2", "Speaker Two");
+        mDatabase.insertSessionSpeaker("SESSION2", "SPEAKER2");
+    }
+
+    @Test
+    public void updateSessionSearchIndex_NewSessions_IndexesAll() {
+        assertThat(ScheduleDatabase.updateSessionSearchIndex(mDb), is(3));
+        assertThat(countMatches("templates"), is(1L));
+        assertThat(countMatches("two"), is(1L));
+    }
+
+    @Test
+    public void updateSessionSearchIndex_NoChanges_WritesNothing() {
+        ScheduleDatabase.updateSessionSearchIndex(mDb);
+
+        assertThat(ScheduleDatabase.updateSessionSearchIndex(mDb), is(0));
+    }
+
+    @Test
+    public void updateSessionSearchIndex_EditedSessionTitle_WritesOneRow() {
+        ScheduleDatabase.updateSessionSearchIndex(mDb);
+
+        ContentValues values = new ContentValues();
+        values.put(Sessions.SESSION_TITLE, "Coroutines");
+        mDb.update(Tables.SESSIONS, values, Sessions.SESSION_ID + "=?",
+                new String[]{"SESSION2"});
+
+        assertThat(ScheduleDatabase.updateSessionSearchIndex(mDb), is(1));
+        assertThat(countMatches("coroutines"), is(1L));
+        assertThat(countMatches("concurrency"), is(0L));
+    }
+
+    @Test
+    public void updateSessionSearchIndex_EditedUnindexedColumn_WritesNothing() {
+        ScheduleDatabase.updateSessionSearchIndex(mDb);
+
+        ContentValues values = new ContentValues();
+        values.put(Sessions.ROOM_ID, "ROOM2");
+        mDb.update(Tables.SESSIONS, values, Sessions.SESSION_ID + "=?",
+                new String[]{"SESSION3"});
+
+        assertThat(ScheduleDatabase.updateSessionSearchIndex(mDb), is(0));
+    }
+
+    @Test
+    public void updateSessionSearchIndex_RenamedSpeaker_WritesRowsOfTheirSessions() {
+        ScheduleDatabase.updateSessionSearchIndex(mDb);
+
+        ContentValues values = new ContentValues();
+        values.put(Speakers.SPEAKER_NAME, "Speaker Renamed");
+        mDb.update(Tables.SPEAKERS, values, Speakers.SPEAKER_ID + "=?",
+                new String[]{"SPEAKER1"});
+
+        assertThat(ScheduleDatabase.updateSessionSearchIndex(mDb), is(1));
+        assertThat(countMatches("renamed"), is(1L));
+    }
+
+    @Test
+    public void updateSessionSearchIndex_DeletedSession_RemovesItsRow() {
+        ScheduleDatabase.updateSessionSearchIndex(mDb);
+
+        mDb.delete(Tables.SESSIONS, Sessions.SESSION_ID + "=?", new String[]{"SESSION1"});
+
+        assertThat(ScheduleDatabase.updateSessionSearchIndex(mDb), is(0));
+        assertThat(countMatches("templates"), is(0L));
+        assertThat(DatabaseUtils.queryNumEntries(mDb, Tables.SESSIONS_SEARCH), is(2L));
+    }
+
+    @Test
+    public void searchRank_TitleAboveAbstractAboveSpeakers() {
+        mDatabase.insertSession("SESSION4", "Lambdas", "Templates and closures");
+        mDatabase.insertSpeaker("SPEAKER3", "Tempest");
+        mDatabase.insertSessionSpeaker("SESSION3", "SPEAKER3");
+        ScheduleDatabase.updateSessionSearchIndex(mDb);
+
+        // the join's first parameter is the account name
+        Cursor cursor = mDb.rawQuery("SELECT " + Tables.SESSIONS + "." + Sessions.SESSION_ID
+                + " FROM " + Tables.SESSIONS_SEARCH_JOIN_SESSIONS_ROOMS
+                + " WHERE " + Tables.SESSIONS_SEARCH + " MATCH ?"
+                + " ORDER BY " + ScheduleProvider.buildSearchRank("temp*") + " DESC",
+                new String[]{"", "temp*"});
+        try {
+            assertThat(cursor.getCount(), is(3));
+            cursor.moveToNext();
+            assertThat(cursor.getString(0), is("SESSION1"));
+            cursor.moveToNext();
+            assertThat(cursor.getString(0), is("SESSION4"));
+            cursor.moveToNext();
+            assertThat(cursor.getString(0), is("SESSION3"));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private long countMatches(String query) {
+        return DatabaseUtils.longForQuery(mDb, "SELECT COUNT(*) FROM " + Tables.SESSIONS_SEARCH
+                + " WHERE " + Tables.SESSIONS_SEARCH + " MATCH ?", new String[]{query});
+    }
+}
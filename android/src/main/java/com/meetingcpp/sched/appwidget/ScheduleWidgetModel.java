@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.appwidget;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.text.format.DateUtils;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+
+import com.meetingcpp.sched.Config;
+import com.meetingcpp.sched.model.ScheduleHelper;
+import com.meetingcpp.sched.model.ScheduleItem;
+import com.meetingcpp.sched.provider.ScheduleContract;
+import com.meetingcpp.sched.settings.SettingsUtils;
+import com.meetingcpp.sched.ui.SimpleSectionedListAdapter;
+import com.meetingcpp.sched.util.AccountUtils;
+import com.meetingcpp.sched.util.UIUtils;
+
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+
+import static com.meetingcpp.sched.util.LogUtils.LOGD;
+import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
+
+/**
+ * The rows of the schedule widget: the items of My Schedule that are not over yet, with a header
+ * for each day. The rows are only built again when the sessions in My Schedule or the conference
+ * data changed, as told by the data versions of the provider, when the settings they depend on
+ * changed, or when an item is over.
+ */
+class ScheduleWidgetModel {
+
+    private static final String TAG = makeLogTag(ScheduleWidgetModel.class);
+
+    private static ScheduleWidgetModel sInstance;
+
+    private final Context mContext;
+
+    // The rows last built, guarded by this
+    private Rows mRows;
+
+    ScheduleWidgetModel(Context context) {
+        mContext = context;
+    }
+
+    static synchronized ScheduleWidgetModel getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ScheduleWidgetModel(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the current rows, building them first if they're out of date. Called from the
+     * binder threads of the widget's factories.
+     */
+    synchronized Rows getRows() {
+        String key = getKey();
+        long now = getCurrentTime();
+        if (mRows != null && key != null && key.equals(mRows.key) && now < mRows.expiresAt) {
+            LOGD(TAG, "Widget rows are up to date.");
+            return mRows;
+        }
+        long start = System.currentTimeMillis();
+        mRows = buildRows(key, now);
+        LOGD(TAG, "Built " + mRows.items.size() + " widget rows in "
+                + (System.currentTimeMillis() - start) + " ms.");
+        return mRows;
+    }
+
+    /**
+     * @return What the rows depend on, besides time, or null if the data versions are unknown.
+     */
+    String getKey() {
+        Bundle versions = mContext.getContentResolver().call(ScheduleContract.BASE_CONTENT_URI,
+                ScheduleContract.METHOD_GET_DATA_VERSIONS, null, null);
+        if (versions == null) {
+            return null;
+        }
+        return versions.getLong(ScheduleContract.EXTRA_CONFERENCE_DATA_VERSION) + "|"
+                + versions.getLong(ScheduleContract.EXTRA_MY_SCHEDULE_VERSION) + "|"
+                + AccountUtils.getActiveAccountName(mContext) + "|"
+                + SettingsUtils.isAttendeeAtVenue(mContext) + "|"
+                + SettingsUtils.getDisplayTimeZone(mContext).getID();
+    }
+
+    long getCurrentTime() {
+        return UIUtils.getCurrentTime(mContext);
+    }
+
+    Rows buildRows(String key, long now) {
+        return new Rows(mContext, key, now);
+    }
+
+    /**
+     * The rows built at a given time. They're not modified once built.
+     */
+    static final class Rows {
+        final String key;
+        // Time at which an item is over, or the live sessions are no longer the only ones shown
+        final long expiresAt;
+        final ArrayList<ScheduleItem> items = new ArrayList<ScheduleItem>();
+        final List<SimpleSectionedListAdapter.Section> sections =
+                new ArrayList<SimpleSectionedListAdapter.Section>();
+        // Number of headers up to each position, including the header at that position
+        final SparseIntArray pMap = new SparseIntArray();
+        final SparseBooleanArray headerPositionMap = new SparseBooleanArray();
+
+        // Rows without items, until the given time
+        Rows(String key, long expiresAt) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+
+        private Rows(Context context, String key, long now) {
+            this.key = key;
+
+            //Fetch all sessions and blocks
+            List<ScheduleItem> allScheduleItems = new ScheduleHelper(context)
+                    .getScheduleData(Long.MIN_VALUE, Long.MAX_VALUE);
+
+            String displayTimeZone = SettingsUtils.getDisplayTimeZone(context).getID();
+            StringBuilder buffer = new StringBuilder();
+            Formatter formatter = new Formatter(buffer, Locale.getDefault());
+
+            long expiresAt = now < Config.CONFERENCE_END_MILLIS
+                    ? Config.CONFERENCE_END_MILLIS : Long.MAX_VALUE;
+            long previousTime = -1;
+            long time;
+            int offset = 0;
+            int globalPosition = 0;
+            int position = 0;
+            for (ScheduleItem item : allScheduleItems) {
+                if (item.endTime <= now) {
+                    continue;
+                }
+                expiresAt = Math.min(expiresAt, item.endTime);
+                items.add(item);
+                time = item.startTime;
+                if (!UIUtils.isSameDayDisplay(previousTime, time, context)) {
+                    buffer.setLength(0);
+                    sections.add(new SimpleSectionedListAdapter.Section(position,
+                            DateUtils.formatDateRange(
+                                    context, formatter,
+                                    time, time,
+                                    DateUtils.FORMAT_ABBREV_MONTH | DateUtils.FORMAT_SHOW_DATE,
+                                    displayTimeZone
+                            ).toString()
+                    ));
+                    ++offset;
+                    headerPositionMap.put(globalPosition, true);
+                    pMap.put(globalPosition, offset);
+                    ++globalPosition;
+                }
+                headerPositionMap.put(globalPosition, false);
+                pMap.put(globalPosition, offset);
+                ++globalPosition;
+                ++position;
+                previousTime = time;
+            }
+            this.expiresAt = expiresAt;
+        }
+    }
+}
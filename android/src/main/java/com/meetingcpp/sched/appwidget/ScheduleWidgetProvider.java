@@ -17,6 +17,7 @@
 package com.meetingcpp.sched.appwidget;
 
 import android.accounts.Account;
+import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
@@ -24,6 +25,8 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
 import android.widget.RemoteViews;
 
 import com.meetingcpp.sched.R;
@@ -46,6 +49,17 @@ public class ScheduleWidgetProvider extends AppWidgetProvider {
     private static final String EXTRA_PERFORM_SYNC =
             "com.meetingcpp.sched.appwidget.extra.PERFORM_SYNC";
 
+    // Refreshes of the list are at least this far apart, so that a burst of writes, e.g. while
+    // starring sessions or syncing, refreshes it once or twice
+    private static final long MIN_REFRESH_INTERVAL_MS = 2 * DateUtils.SECOND_IN_MILLIS;
+
+    // Request code of the alarm of a refresh put off by the limiter; the refresh button uses 0
+    private static final int REQUEST_CODE_DELAYED_REFRESH = 1;
+
+    // Only used on the main thread, where broadcasts are received
+    private static final RefreshLimiter sRefreshLimiter =
+            new RefreshLimiter(MIN_REFRESH_INTERVAL_MS);
+
     public static Intent getRefreshBroadcastIntent(Context context, boolean performSync) {
         return new Intent(REFRESH_ACTION)
                 .setComponent(new ComponentName(context, ScheduleWidgetProvider.class))
@@ -66,16 +80,37 @@ public class ScheduleWidgetProvider extends AppWidgetProvider {
                 SyncHelper.requestManualSync(chosenAccount);
             }
 
-            // Notify the widget that the list view needs to be updated.
-            final AppWidgetManager mgr = AppWidgetManager.getInstance(context);
-            final ComponentName cn = new ComponentName(context, ScheduleWidgetProvider.class);
-            mgr.notifyAppWidgetViewDataChanged(mgr.getAppWidgetIds(cn),
-                    R.id.widget_schedule_list);
-
+            refreshList(context.getApplicationContext());
         }
         super.onReceive(context, widgetIntent);
     }
 
+    /**
+     * Notifies the widgets that the list view needs to be updated, right away if the last
+     * refresh is old enough, or else once it is. A later refresh is sent by an alarm, so it's
+     * not lost if the process is killed in the meantime.
+     */
+    private static void refreshList(Context context) {
+        long now = SystemClock.elapsedRealtime();
+        long delay = sRefreshLimiter.requestRefresh(now);
+        if (delay == 0) {
+            notifyListChanged(context);
+        } else if (delay > 0) {
+            LOGD(TAG, "Refreshing the widget list in " + delay + " ms.");
+            PendingIntent pi = PendingIntent.getBroadcast(context, REQUEST_CODE_DELAYED_REFRESH,
+                    getRefreshBroadcastIntent(context, false), PendingIntent.FLAG_UPDATE_CURRENT);
+            AlarmManager am = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+            am.set(AlarmManager.ELAPSED_REALTIME, now + delay, pi);
+        }
+    }
+
+    private static void notifyListChanged(Context context) {
+        final AppWidgetManager mgr = AppWidgetManager.getInstance(context);
+        final ComponentName cn = new ComponentName(context, ScheduleWidgetProvider.class);
+        mgr.notifyAppWidgetViewDataChanged(mgr.getAppWidgetIds(cn),
+                R.id.widget_schedule_list);
+    }
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
         LOGD(TAG, "updating app widget");
@@ -116,4 +151,38 @@ public class ScheduleWidgetProvider extends AppWidgetProvider {
         }
         super.onUpdate(context, appWidgetManager, appWidgetIds);
     }
+
+    /**
+     * Keeps refreshes of the list at least an interval apart. A refresh requested too early is
+     * put off until the interval is over, and the requests made until then are merged into it.
+     */
+    static final class RefreshLimiter {
+        private final long mInterval;
+        private long mLastRefreshTime;
+        private boolean mRefreshPending;
+
+        RefreshLimiter(long interval) {
+            mInterval = interval;
+            mLastRefreshTime = -interval;
+        }
+
+        /**
+         * @param now The elapsed time since boot.
+         * @return 0 if the list must be refreshed now, the delay after which it must be refreshed,
+         * or -1 if a refresh is already planned.
+         */
+        long requestRefresh(long now) {
+            long delay = mLastRefreshTime + mInterval - now;
+            if (delay <= 0) {
+                mLastRefreshTime = now;
+                mRefreshPending = false;
+                return 0;
+            }
+            if (mRefreshPending) {
+                return -1;
+            }
+            mRefreshPending = true;
+            return delay;
+        }
+    }
 }
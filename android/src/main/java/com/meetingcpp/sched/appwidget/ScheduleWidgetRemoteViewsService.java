@@ -18,7 +18,6 @@ package com.meetingcpp.sched.appwidget;
 
 import android.content.Context;
 import android.content.Intent;
-import android.text.format.DateUtils;
 import android.util.SparseBooleanArray;
 import android.util.SparseIntArray;
 import android.view.View;
@@ -26,10 +25,8 @@ import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 
 import com.meetingcpp.sched.R;
-import com.meetingcpp.sched.model.ScheduleHelper;
 import com.meetingcpp.sched.model.ScheduleItem;
 import com.meetingcpp.sched.provider.ScheduleContract;
-import com.meetingcpp.sched.settings.SettingsUtils;
 import com.meetingcpp.sched.myschedule.MyScheduleActivity;
 import com.meetingcpp.sched.ui.SimpleSectionedListAdapter;
 import com.meetingcpp.sched.ui.TaskStackBuilderProxyActivity;
@@ -62,8 +59,6 @@ public class ScheduleWidgetRemoteViewsService extends RemoteViewsService {
         private List<SimpleSectionedListAdapter.Section> mSections;
         private SparseBooleanArray mHeaderPositionMap;
 
-        StringBuilder mBuffer = new StringBuilder();
-        Formatter mFormatter = new Formatter(mBuffer, Locale.getDefault());
         private ArrayList<ScheduleItem> mScheduleItems;
         private int mDefaultSessionColor;
         private int mDefaultStartEndTimeColor;
@@ -85,9 +80,6 @@ public class ScheduleWidgetRemoteViewsService extends RemoteViewsService {
             if (mScheduleItems == null || !AccountUtils.hasActiveAccount(mContext)) {
                 return 0;
             }
-            if (mScheduleItems.size() < 10) {
-                init();
-            }
             return mScheduleItems.size();
         }
 
@@ -246,49 +238,12 @@ public class ScheduleWidgetRemoteViewsService extends RemoteViewsService {
         }
 
         private void init() {
-            ScheduleHelper scheduleHelper = new ScheduleHelper(mContext);
-
-            //Fetch all sessions and blocks
-            List<ScheduleItem> allScheduleItems = scheduleHelper.getScheduleData(Long.MIN_VALUE, Long.MAX_VALUE);
-
-            String displayTimeZone = SettingsUtils.getDisplayTimeZone(mContext).getID();
-
-            mSections = new ArrayList<SimpleSectionedListAdapter.Section>();
-            long previousTime = -1;
-            long time;
-            mPMap = new SparseIntArray();
-            mHeaderPositionMap = new SparseBooleanArray();
-            int offset = 0;
-            int globalPosition = 0;
-            int position = 0;
-            mScheduleItems = new ArrayList<ScheduleItem>();
-            for (ScheduleItem item : allScheduleItems) {
-                if (item.endTime <= UIUtils.getCurrentTime(mContext)) {
-                    continue;
-                }
-                mScheduleItems.add(item);
-                time = item.startTime;
-                if (!UIUtils.isSameDayDisplay(previousTime, time, mContext)) {
-                    mBuffer.setLength(0);
-                    mSections.add(new SimpleSectionedListAdapter.Section(position,
-                            DateUtils.formatDateRange(
-                                    mContext, mFormatter,
-                                    time, time,
-                                    DateUtils.FORMAT_ABBREV_MONTH | DateUtils.FORMAT_SHOW_DATE,
-                                    displayTimeZone
-                            ).toString()
-                    ));
-                    ++offset;
-                    mHeaderPositionMap.put(globalPosition, true);
-                    mPMap.put(globalPosition, offset);
-                    ++globalPosition;
-                }
-                mHeaderPositionMap.put(globalPosition, false);
-                mPMap.put(globalPosition, offset);
-                ++globalPosition;
-                ++position;
-                previousTime = time;
-            }
+            // shared by the factories, and only built again when out of date
+            ScheduleWidgetModel.Rows rows = ScheduleWidgetModel.getInstance(mContext).getRows();
+            mScheduleItems = rows.items;
+            mSections = rows.sections;
+            mPMap = rows.pMap;
+            mHeaderPositionMap = rows.headerPositionMap;
         }
 
         private String formatTime(long now, ScheduleItem item) {
@@ -26,6 +26,7 @@ import com.meetingcpp.sched.debug.actions.ShowAllDriveFilesDebugAction;
 import com.meetingcpp.sched.debug.actions.ShowSessionNotificationDebugAction;
 import com.meetingcpp.sched.debug.actions.TestScheduleHelperAction;
 import com.meetingcpp.sched.explore.ExploreSessionsActivity;
+import com.meetingcpp.sched.provider.ScheduleContract;
 import com.meetingcpp.sched.service.SessionAlarmService;
 import com.meetingcpp.sched.settings.ConfMessageCardUtils;
 import com.meetingcpp.sched.settings.SettingsUtils;
@@ -78,6 +79,39 @@ public class DebugFragment extends Fragment {
         tests.addView(createTestAction(new ForceAppDataSyncNowAction()));
         tests.addView(createTestAction(new TestScheduleHelperAction()));
         tests.addView(createTestAction(new ScheduleStarredSessionAlarmsAction()));
+        tests.addView(createTestAction(new DebugAction() {
+            @Override
+            public void run(Context context, Callback callback) {
+                Bundle stats = context.getContentResolver().call(
+                        ScheduleContract.BASE_CONTENT_URI, ScheduleContract.METHOD_GET_CACHE_STATS,
+                        null, null);
+                callback.done(true, "Conference data cache hits: "
+                        + stats.getLong(ScheduleContract.EXTRA_CACHE_HITS) + ", misses: "
+                        + stats.getLong(ScheduleContract.EXTRA_CACHE_MISSES));
+            }
+
+            @Override
+            public String getLabel() {
+                return "Show conference data cache stats";
+            }
+        }));
+        tests.addView(createTestAction(new DebugAction() {
+            @Override
+            public void run(Context context, Callback callback) {
+                Bundle result = context.getContentResolver().call(
+                        ScheduleContract.BASE_CONTENT_URI,
+                        ScheduleContract.METHOD_AUDIT_QUERY_PLANS, null, null);
+                String[] fullScans = result.getStringArray(ScheduleContract.EXTRA_FULL_SCAN_URIS);
+                callback.done(fullScans.length == 0, fullScans.length
+                        + " URIs scan whole tables to answer lookups (marked with !):\n"
+                        + result.getString(ScheduleContract.EXTRA_QUERY_PLANS));
+            }
+
+            @Override
+            public String getLabel() {
+                return "Audit query plans";
+            }
+        }));
         tests.addView(createTestAction(new DebugAction() {
             @Override
             public void run(final Context context, final Callback callback) {
@@ -20,14 +20,16 @@ import com.meetingcpp.sched.io.model.Block;
 import com.meetingcpp.sched.provider.ScheduleContract;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 import com.meetingcpp.sched.util.ParserUtils;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 
 import android.content.ContentProviderOperation;
+import android.content.ContentValues;
 import android.content.Context;
 import android.net.Uri;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import static com.meetingcpp.sched.util.LogUtils.LOGW;
 import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
@@ -45,23 +47,32 @@ public class BlocksHandler extends JSONHandler {
     public void makeContentProviderOperations(ArrayList<ContentProviderOperation> list) {
         Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
                 ScheduleContract.Blocks.CONTENT_URI);
-        list.add(ContentProviderOperation.newDelete(uri).build());
+        HashMap<String, ContentValues> rows = new HashMap<String, ContentValues>();
         for (Block block : mBlocks) {
-            outputBlock(block, list);
+            ContentValues values = buildBlockValues(block);
+            rows.put(values.getAsString(ScheduleContract.Blocks.BLOCK_ID), values);
         }
+        makeIncrementalOperations(uri, ScheduleContract.Blocks.BLOCK_ID, rows, list);
     }
 
     @Override
     public void process(JsonElement element) {
-        for (Block block : new Gson().fromJson(element, Block[].class)) {
+        addBlocks(GSON.fromJson(element, Block[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        addBlocks(GSON.<Block[]>fromJson(reader, Block[].class));
+    }
+
+    private void addBlocks(Block[] blocks) {
+        for (Block block : blocks) {
             mBlocks.add(block);
         }
     }
 
-    private static void outputBlock(Block block, ArrayList<ContentProviderOperation> list) {
-        Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
-                ScheduleContract.Blocks.CONTENT_URI);
-        ContentProviderOperation.Builder builder = ContentProviderOperation.newInsert(uri);
+    private static ContentValues buildBlockValues(Block block) {
+        ContentValues values = new ContentValues();
         String title = block.title != null ? block.title : "";
         String meta = block.subtitle != null ? block.subtitle : "";
 
@@ -75,12 +86,12 @@ public class BlocksHandler extends JSONHandler {
         long startTimeL = ParserUtils.parseTime(block.start);
         long endTimeL = ParserUtils.parseTime(block.end);
         final String blockId = ScheduleContract.Blocks.generateBlockId(startTimeL, endTimeL);
-        builder.withValue(ScheduleContract.Blocks.BLOCK_ID, blockId);
-        builder.withValue(ScheduleContract.Blocks.BLOCK_TITLE, title);
-        builder.withValue(ScheduleContract.Blocks.BLOCK_START, startTimeL);
-        builder.withValue(ScheduleContract.Blocks.BLOCK_END, endTimeL);
-        builder.withValue(ScheduleContract.Blocks.BLOCK_TYPE, type);
-        builder.withValue(ScheduleContract.Blocks.BLOCK_SUBTITLE, meta);
-        list.add(builder.build());
+        values.put(ScheduleContract.Blocks.BLOCK_ID, blockId);
+        values.put(ScheduleContract.Blocks.BLOCK_TITLE, title);
+        values.put(ScheduleContract.Blocks.BLOCK_START, startTimeL);
+        values.put(ScheduleContract.Blocks.BLOCK_END, endTimeL);
+        values.put(ScheduleContract.Blocks.BLOCK_TYPE, type);
+        values.put(ScheduleContract.Blocks.BLOCK_SUBTITLE, meta);
+        return values;
     }
 }
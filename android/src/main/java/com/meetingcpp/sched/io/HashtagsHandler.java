@@ -17,14 +17,15 @@
 package com.meetingcpp.sched.io;
 
 import android.content.ContentProviderOperation;
+import android.content.ContentValues;
 import android.content.Context;
 import android.graphics.Color;
 import android.net.Uri;
 
 import com.meetingcpp.sched.io.model.Hashtag;
 import com.meetingcpp.sched.provider.ScheduleContract;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 
 import java.util.ArrayList;
@@ -45,7 +46,17 @@ public class HashtagsHandler extends JSONHandler {
     @Override
     public void process(JsonElement element) {
         LOGD(TAG, "process");
-        for (Hashtag hashtag : new Gson().fromJson(element, Hashtag[].class)) {
+        addHashtags(GSON.fromJson(element, Hashtag[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        LOGD(TAG, "process");
+        addHashtags(GSON.<Hashtag[]>fromJson(reader, Hashtag[].class));
+    }
+
+    private void addHashtags(Hashtag[] hashtags) {
+        for (Hashtag hashtag : hashtags) {
             mHashtags.put(hashtag.name, hashtag);
         }
     }
@@ -55,22 +66,21 @@ public class HashtagsHandler extends JSONHandler {
         LOGD(TAG, "makeContentProviderOperations");
         Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
                 ScheduleContract.Hashtags.CONTENT_URI);
-        // Remove all the current entries
-        list.add(ContentProviderOperation.newDelete(uri).build());
-        // Insert hashtags
+        HashMap<String, ContentValues> rows = new HashMap<String, ContentValues>();
         for (Hashtag hashtag : mHashtags.values()) {
-            ContentProviderOperation.Builder builder = ContentProviderOperation.newInsert(uri);
-            builder.withValue(ScheduleContract.Hashtags.HASHTAG_NAME, hashtag.name);
-            builder.withValue(ScheduleContract.Hashtags.HASHTAG_DESCRIPTION, hashtag.description);
+            ContentValues values = new ContentValues();
+            values.put(ScheduleContract.Hashtags.HASHTAG_NAME, hashtag.name);
+            values.put(ScheduleContract.Hashtags.HASHTAG_DESCRIPTION, hashtag.description);
             try {
-                builder.withValue(ScheduleContract.Hashtags.HASHTAG_COLOR,
+                values.put(ScheduleContract.Hashtags.HASHTAG_COLOR,
                         Color.parseColor(hashtag.color));
             } catch (IllegalArgumentException e) {
-                builder.withValue(ScheduleContract.Hashtags.HASHTAG_COLOR, Color.BLACK);
+                values.put(ScheduleContract.Hashtags.HASHTAG_COLOR, Color.BLACK);
             }
-            builder.withValue(ScheduleContract.Hashtags.HASHTAG_ORDER, hashtag.order);
-            list.add(builder.build());
+            values.put(ScheduleContract.Hashtags.HASHTAG_ORDER, hashtag.order);
+            rows.put(hashtag.name, values);
         }
+        makeIncrementalOperations(uri, ScheduleContract.Hashtags.HASHTAG_NAME, rows, list);
         LOGD(TAG, "Hashtags: " + mHashtags.size());
     }
 
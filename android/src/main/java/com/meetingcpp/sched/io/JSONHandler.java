@@ -17,10 +17,18 @@
 package com.meetingcpp.sched.io;
 
 import com.google.common.base.Charsets;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 
 import android.content.ContentProviderOperation;
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.text.TextUtils;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -30,11 +38,28 @@ import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import static com.meetingcpp.sched.util.LogUtils.*;
 
 public abstract class JSONHandler {
+    private static final String TAG = makeLogTag(JSONHandler.class);
 
     protected static Context mContext;
 
+    // Gson with the streaming adapters of the data model, shared by all handlers
+    protected static final Gson GSON = ModelTypeAdapters.createGson();
+
+    // Whether this handler is applying a delta instead of the full collection. In that case,
+    // entities that were not given to processDelta must be left alone.
+    protected boolean mIsDelta = false;
+
+    // IDs of the entities that a delta removes
+    protected ArrayList<String> mRemovedIds = new ArrayList<String>();
+
     public JSONHandler(Context context) {
         mContext = context;
     }
@@ -43,6 +68,187 @@ public abstract class JSONHandler {
 
     public abstract void process(JsonElement element);
 
+    /**
+     * Processes the collection of this handler straight from a reader positioned at it, so that
+     * handlers can read their model objects without building a tree of the whole collection
+     * first. By default, the tree is built and passed to {@link #process(JsonElement)}.
+     *
+     * @param reader The reader, positioned at the value of this handler's key.
+     * @throws IOException If there is an error reading the data.
+     */
+    public void process(JsonReader reader) throws IOException {
+        process(new JsonParser().parse(reader));
+    }
+
+    /**
+     * Returns whether this handler can apply deltas. Handlers that do must not touch the
+     * entities they didn't get when {@link #mIsDelta} is set.
+     */
+    protected boolean supportsDelta() {
+        return false;
+    }
+
+    /**
+     * Switches this handler to delta mode.
+     *
+     * @throws HandlerException If this handler can't apply deltas.
+     */
+    public void beginDelta() throws HandlerException {
+        if (!supportsDelta()) {
+            throw new HandlerException(getClass().getSimpleName() + " can't apply deltas.");
+        }
+        mIsDelta = true;
+    }
+
+    /**
+     * Processes the changes that a delta file has for this handler's collection.
+     *
+     * @param upserted The added and changed entities, in the same format as the full collection.
+     * @param removedIds The IDs of the removed entities.
+     * @throws HandlerException If this handler can't apply the delta, so a full sync is needed.
+     */
+    public void processDelta(JsonArray upserted, JsonArray removedIds) throws HandlerException {
+        beginDelta();
+        if (upserted != null) {
+            process(upserted);
+        }
+        if (removedIds != null) {
+            for (JsonElement id : removedIds) {
+                mRemovedIds.add(id.getAsString());
+            }
+        }
+    }
+
+    /**
+     * Builds the operations that turn the rows stored in a table into the given ones, touching
+     * only the rows that are new, changed or gone. Rows are matched by their value of
+     * {@code keyColumn} and compared on the columns of the new rows, so handlers don't need to
+     * store a hashcode. When applying a delta, only the rows in {@link #mRemovedIds} are deleted.
+     *
+     * @param contentUri The URI of the table, as called from the sync adapter.
+     * @param keyColumn The column that identifies a row.
+     * @param rows The new rows by their key. All of them must have the same columns.
+     * @param list The list to add the operations to.
+     */
+    protected void makeIncrementalOperations(Uri contentUri, String keyColumn,
+            HashMap<String, ContentValues> rows, ArrayList<ContentProviderOperation> list) {
+        LinkedHashSet<String> columnSet = new LinkedHashSet<String>();
+        columnSet.add(keyColumn);
+        for (ContentValues values : rows.values()) {
+            columnSet.addAll(values.keySet());
+            break;
+        }
+        String[] columns = columnSet.toArray(new String[columnSet.size()]);
+        String table = contentUri.getLastPathSegment();
+
+        HashMap<String, String[]> storedRows = loadStoredRows(contentUri, columns);
+        if (storedRows == null) {
+            LOGD(TAG, "Doing FULL (non incremental) update for " + table + ".");
+            if (!mIsDelta) {
+                list.add(ContentProviderOperation.newDelete(contentUri).build());
+            }
+            for (ContentValues values : rows.values()) {
+                list.add(ContentProviderOperation.newInsert(contentUri).withValues(values).build());
+            }
+            return;
+        }
+
+        int inserted = 0, updated = 0, deleted = 0;
+        for (Map.Entry<String, ContentValues> entry : rows.entrySet()) {
+            String[] stored = storedRows.get(entry.getKey());
+            if (stored == null) {
+                list.add(ContentProviderOperation.newInsert(contentUri)
+                        .withValues(entry.getValue()).build());
+                ++inserted;
+            } else if (!rowMatches(entry.getValue(), columns, stored)) {
+                list.add(ContentProviderOperation.newUpdate(contentUri)
+                        .withSelection(keyColumn + "=?", new String[]{entry.getKey()})
+                        .withValues(entry.getValue()).build());
+                ++updated;
+            }
+        }
+        Collection<String> keysToDelete = mIsDelta ? mRemovedIds : storedRows.keySet();
+        for (String key : keysToDelete) {
+            if (storedRows.containsKey(key) && !rows.containsKey(key)) {
+                list.add(ContentProviderOperation.newDelete(contentUri)
+                        .withSelection(keyColumn + "=?", new String[]{key}).build());
+                ++deleted;
+            }
+        }
+
+        LOGD(TAG, "Incremental update for " + table + ": " + inserted + " to insert, "
+                + updated + " to update, " + deleted + " to delete, "
+                + (rows.size() - inserted - updated) + " unchanged.");
+    }
+
+    /**
+     * Queries the rows of a table for {@link #makeIncrementalOperations}. Handlers whose table
+     * needs a special query can override this.
+     */
+    protected Cursor queryStoredRows(Uri contentUri, String[] projection) {
+        return mContext.getContentResolver().query(contentUri, projection, null, null, null);
+    }
+
+    // Loads the given columns of the stored rows by key (the first column), as strings. Returns
+    // null if the table can't be read.
+    private HashMap<String, String[]> loadStoredRows(Uri contentUri, String[] columns) {
+        Cursor cursor = null;
+        try {
+            cursor = queryStoredRows(contentUri, columns);
+            if (cursor == null) {
+                LOGE(TAG, "Error querying stored rows of " + contentUri + " (got null cursor)");
+                return null;
+            }
+            int[] indexes = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                indexes[i] = cursor.getColumnIndexOrThrow(columns[i]);
+            }
+            HashMap<String, String[]> result = new HashMap<String, String[]>();
+            while (cursor.moveToNext()) {
+                String[] stored = new String[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    stored[i] = cursor.getString(indexes[i]);
+                }
+                result.put(stored[0], stored);
+            }
+            return result;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    private static boolean rowMatches(ContentValues values, String[] columns, String[] stored) {
+        for (int i = 0; i < columns.length; i++) {
+            if (!valueMatches(values.get(columns[i]), stored[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Compares a value with the way SQLite returns it as a string.
+    private static boolean valueMatches(Object value, String stored) {
+        if (value == null || stored == null) {
+            return value == null && stored == null;
+        }
+        if (value instanceof Boolean) {
+            return stored.equals((Boolean) value ? "1" : "0");
+        }
+        if (value instanceof Float || value instanceof Double) {
+            // SQLite prints reals with 15 significant digits
+            try {
+                double expected = ((Number) value).doubleValue();
+                return Math.abs(Double.parseDouble(stored) - expected)
+                        <= 1e-12 * Math.max(1, Math.abs(expected));
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+        return TextUtils.equals(String.valueOf(value), stored);
+    }
+
     public static String parseResource(Context context, int resource) throws IOException {
         InputStream is = context.getResources().openRawResource(resource);
         Writer writer = new StringWriter();
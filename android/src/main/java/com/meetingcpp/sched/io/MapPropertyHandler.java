@@ -19,6 +19,7 @@ package com.meetingcpp.sched.io;
 import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
 
 import android.content.ContentProviderOperation;
+import android.content.ContentValues;
 import android.content.Context;
 import android.net.Uri;
 
@@ -27,8 +28,8 @@ import com.meetingcpp.sched.io.map.model.Marker;
 import com.meetingcpp.sched.io.map.model.Tile;
 import com.meetingcpp.sched.provider.ScheduleContract;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -50,7 +51,16 @@ public class MapPropertyHandler extends JSONHandler {
 
     @Override
     public void process(JsonElement element) {
-        for (MapData mapData : new Gson().fromJson(element, MapData[].class)) {
+        addMapData(GSON.fromJson(element, MapData[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        addMapData(GSON.<MapData[]>fromJson(reader, MapData[].class));
+    }
+
+    private void addMapData(MapData[] mapDataArray) {
+        for (MapData mapData : mapDataArray) {
             if (mapData.tiles != null) {
                 processTileOverlays(mapData.tiles);
             }
@@ -91,35 +101,35 @@ public class MapPropertyHandler extends JSONHandler {
         Uri uri = ScheduleContractHelper
                 .setUriAsCalledFromSyncAdapter(ScheduleContract.MapMarkers.CONTENT_URI);
 
-        list.add(ContentProviderOperation.newDelete(uri).build());
-
+        HashMap<String, ContentValues> rows = new HashMap<String, ContentValues>();
         for (String floor : mMarkers.keySet()) {
             for (Marker marker : mMarkers.get(floor)) {
-                ContentProviderOperation.Builder builder = ContentProviderOperation.newInsert(uri);
-                builder.withValue(ScheduleContract.MapMarkers.MARKER_ID, marker.id);
-                builder.withValue(ScheduleContract.MapMarkers.MARKER_FLOOR, floor);
-                builder.withValue(ScheduleContract.MapMarkers.MARKER_LABEL, marker.title);
-                builder.withValue(ScheduleContract.MapMarkers.MARKER_LATITUDE, marker.lat);
-                builder.withValue(ScheduleContract.MapMarkers.MARKER_LONGITUDE, marker.lng);
-                builder.withValue(ScheduleContract.MapMarkers.MARKER_TYPE, marker.type);
-                list.add(builder.build());
+                ContentValues values = new ContentValues();
+                values.put(ScheduleContract.MapMarkers.MARKER_ID, marker.id);
+                values.put(ScheduleContract.MapMarkers.MARKER_FLOOR, floor);
+                values.put(ScheduleContract.MapMarkers.MARKER_LABEL, marker.title);
+                values.put(ScheduleContract.MapMarkers.MARKER_LATITUDE, marker.lat);
+                values.put(ScheduleContract.MapMarkers.MARKER_LONGITUDE, marker.lng);
+                values.put(ScheduleContract.MapMarkers.MARKER_TYPE, marker.type);
+                rows.put(marker.id, values);
             }
         }
+        makeIncrementalOperations(uri, ScheduleContract.MapMarkers.MARKER_ID, rows, list);
     }
 
     private void buildTiles(ArrayList<ContentProviderOperation> list) {
         Uri uri = ScheduleContractHelper
                 .setUriAsCalledFromSyncAdapter(ScheduleContract.MapTiles.CONTENT_URI);
 
-        list.add(ContentProviderOperation.newDelete(uri).build());
-
+        HashMap<String, ContentValues> rows = new HashMap<String, ContentValues>();
         for (String floor : mTileOverlays.keySet()) {
             Tile tileOverlay = mTileOverlays.get(floor);
-            ContentProviderOperation.Builder builder = ContentProviderOperation.newInsert(uri);
-            builder.withValue(ScheduleContract.MapTiles.TILE_FLOOR, floor);
-            builder.withValue(ScheduleContract.MapTiles.TILE_FILE, tileOverlay.filename);
-            builder.withValue(ScheduleContract.MapTiles.TILE_URL, tileOverlay.url);
-            list.add(builder.build());
+            ContentValues values = new ContentValues();
+            values.put(ScheduleContract.MapTiles.TILE_FLOOR, floor);
+            values.put(ScheduleContract.MapTiles.TILE_FILE, tileOverlay.filename);
+            values.put(ScheduleContract.MapTiles.TILE_URL, tileOverlay.url);
+            rows.put(floor, values);
         }
+        makeIncrementalOperations(uri, ScheduleContract.MapTiles.TILE_FLOOR, rows, list);
     }
 }
@@ -0,0 +1,716 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.io;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.meetingcpp.sched.io.map.model.MapData;
+import com.meetingcpp.sched.io.map.model.Marker;
+import com.meetingcpp.sched.io.map.model.Tile;
+import com.meetingcpp.sched.io.model.Block;
+import com.meetingcpp.sched.io.model.Hashtag;
+import com.meetingcpp.sched.io.model.Room;
+import com.meetingcpp.sched.io.model.Session;
+import com.meetingcpp.sched.io.model.Speaker;
+import com.meetingcpp.sched.io.model.Tag;
+import com.meetingcpp.sched.io.model.Video;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hand-written {@link TypeAdapter}s for the conference data model. They read the model objects
+ * straight from a {@link JsonReader}, instead of going through Gson's reflection, and skip the
+ * properties they don't know, like reflection does.
+ */
+public final class ModelTypeAdapters {
+
+    private ModelTypeAdapters() {
+    }
+
+    /**
+     * Returns a Gson instance with the adapters of all the model classes registered.
+     */
+    public static Gson createGson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Session.class, new SessionAdapter())
+                .registerTypeAdapter(Speaker.class, new SpeakerAdapter())
+                .registerTypeAdapter(Tag.class, new TagAdapter())
+                .registerTypeAdapter(Room.class, new RoomAdapter())
+                .registerTypeAdapter(Block.class, new BlockAdapter())
+                .registerTypeAdapter(Video.class, new VideoAdapter())
+                .registerTypeAdapter(Hashtag.class, new HashtagAdapter())
+                .registerTypeAdapter(MapData.class, new MapDataAdapter())
+                .registerTypeAdapter(Marker.class, new MarkerAdapter())
+                .registerTypeAdapter(Tile.class, new TileAdapter())
+                .create();
+    }
+
+    static class SessionAdapter extends TypeAdapter<Session> {
+        @Override
+        public Session read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Session session = new Session();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("id".equals(name)) {
+                    session.id = nextString(in);
+                } else if ("url".equals(name)) {
+                    session.url = nextString(in);
+                } else if ("description".equals(name)) {
+                    session.description = nextString(in);
+                } else if ("title".equals(name)) {
+                    session.title = nextString(in);
+                } else if ("tags".equals(name)) {
+                    session.tags = nextStringArray(in);
+                } else if ("startTimestamp".equals(name)) {
+                    session.startTimestamp = nextString(in);
+                } else if ("youtubeUrl".equals(name)) {
+                    session.youtubeUrl = nextString(in);
+                } else if ("speakers".equals(name)) {
+                    session.speakers = nextStringArray(in);
+                } else if ("endTimestamp".equals(name)) {
+                    session.endTimestamp = nextString(in);
+                } else if ("hashtag".equals(name)) {
+                    session.hashtag = nextString(in);
+                } else if ("subtype".equals(name)) {
+                    session.subtype = nextString(in);
+                } else if ("room".equals(name)) {
+                    session.room = nextString(in);
+                } else if ("captionsUrl".equals(name)) {
+                    session.captionsUrl = nextString(in);
+                } else if ("photoUrl".equals(name)) {
+                    session.photoUrl = nextString(in);
+                } else if ("isLivestream".equals(name)) {
+                    session.isLivestream = nextBoolean(in, session.isLivestream);
+                } else if ("mainTag".equals(name)) {
+                    session.mainTag = nextString(in);
+                } else if ("color".equals(name)) {
+                    session.color = nextString(in);
+                } else if ("relatedContent".equals(name)) {
+                    session.relatedContent = readRelatedContent(in, session);
+                } else if ("groupingOrder".equals(name)) {
+                    session.groupingOrder = nextInt(in, session.groupingOrder);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return session;
+        }
+
+        private Session.RelatedContent[] readRelatedContent(JsonReader in, Session session)
+                throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            ArrayList<Session.RelatedContent> list = new ArrayList<Session.RelatedContent>();
+            in.beginArray();
+            while (in.hasNext()) {
+                if (skipNull(in)) {
+                    list.add(null);
+                    continue;
+                }
+                Session.RelatedContent content = session.new RelatedContent();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if ("id".equals(name)) {
+                        content.id = nextString(in);
+                    } else if ("name".equals(name)) {
+                        content.name = nextString(in);
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+                list.add(content);
+            }
+            in.endArray();
+            return list.toArray(new Session.RelatedContent[list.size()]);
+        }
+
+        @Override
+        public void write(JsonWriter out, Session session) throws IOException {
+            if (session == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(session.id);
+            out.name("url").value(session.url);
+            out.name("description").value(session.description);
+            out.name("title").value(session.title);
+            writeStringArray(out.name("tags"), session.tags);
+            out.name("startTimestamp").value(session.startTimestamp);
+            out.name("youtubeUrl").value(session.youtubeUrl);
+            writeStringArray(out.name("speakers"), session.speakers);
+            out.name("endTimestamp").value(session.endTimestamp);
+            out.name("hashtag").value(session.hashtag);
+            out.name("subtype").value(session.subtype);
+            out.name("room").value(session.room);
+            out.name("captionsUrl").value(session.captionsUrl);
+            out.name("photoUrl").value(session.photoUrl);
+            out.name("isLivestream").value(session.isLivestream);
+            out.name("mainTag").value(session.mainTag);
+            out.name("color").value(session.color);
+            out.name("relatedContent");
+            if (session.relatedContent == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (Session.RelatedContent content : session.relatedContent) {
+                    if (content == null) {
+                        out.nullValue();
+                        continue;
+                    }
+                    out.beginObject();
+                    out.name("id").value(content.id);
+                    out.name("name").value(content.name);
+                    out.endObject();
+                }
+                out.endArray();
+            }
+            out.name("groupingOrder").value(session.groupingOrder);
+            out.endObject();
+        }
+    }
+
+    static class SpeakerAdapter extends TypeAdapter<Speaker> {
+        @Override
+        public Speaker read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Speaker speaker = new Speaker();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("id".equals(name)) {
+                    speaker.id = nextString(in);
+                } else if ("publicPlusId".equals(name)) {
+                    speaker.publicPlusId = nextString(in);
+                } else if ("bio".equals(name)) {
+                    speaker.bio = nextString(in);
+                } else if ("name".equals(name)) {
+                    speaker.name = nextString(in);
+                } else if ("company".equals(name)) {
+                    speaker.company = nextString(in);
+                } else if ("plusoneUrl".equals(name)) {
+                    speaker.plusoneUrl = nextString(in);
+                } else if ("twitterUrl".equals(name)) {
+                    speaker.twitterUrl = nextString(in);
+                } else if ("thumbnailUrl".equals(name)) {
+                    speaker.thumbnailUrl = nextString(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return speaker;
+        }
+
+        @Override
+        public void write(JsonWriter out, Speaker speaker) throws IOException {
+            if (speaker == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(speaker.id);
+            out.name("publicPlusId").value(speaker.publicPlusId);
+            out.name("bio").value(speaker.bio);
+            out.name("name").value(speaker.name);
+            out.name("company").value(speaker.company);
+            out.name("plusoneUrl").value(speaker.plusoneUrl);
+            out.name("twitterUrl").value(speaker.twitterUrl);
+            out.name("thumbnailUrl").value(speaker.thumbnailUrl);
+            out.endObject();
+        }
+    }
+
+    static class TagAdapter extends TypeAdapter<Tag> {
+        @Override
+        public Tag read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Tag tag = new Tag();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("tag".equals(name)) {
+                    tag.tag = nextString(in);
+                } else if ("name".equals(name)) {
+                    tag.name = nextString(in);
+                } else if ("category".equals(name)) {
+                    tag.category = nextString(in);
+                } else if ("color".equals(name)) {
+                    tag.color = nextString(in);
+                } else if ("abstract".equals(name)) {
+                    tag._abstract = nextString(in);
+                } else if ("order_in_category".equals(name)) {
+                    tag.order_in_category = nextInt(in, tag.order_in_category);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return tag;
+        }
+
+        @Override
+        public void write(JsonWriter out, Tag tag) throws IOException {
+            if (tag == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("tag").value(tag.tag);
+            out.name("name").value(tag.name);
+            out.name("category").value(tag.category);
+            out.name("color").value(tag.color);
+            out.name("abstract").value(tag._abstract);
+            out.name("order_in_category").value(tag.order_in_category);
+            out.endObject();
+        }
+    }
+
+    static class RoomAdapter extends TypeAdapter<Room> {
+        @Override
+        public Room read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Room room = new Room();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("id".equals(name)) {
+                    room.id = nextString(in);
+                } else if ("name".equals(name)) {
+                    room.name = nextString(in);
+                } else if ("floor".equals(name)) {
+                    room.floor = nextString(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return room;
+        }
+
+        @Override
+        public void write(JsonWriter out, Room room) throws IOException {
+            if (room == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(room.id);
+            out.name("name").value(room.name);
+            out.name("floor").value(room.floor);
+            out.endObject();
+        }
+    }
+
+    static class BlockAdapter extends TypeAdapter<Block> {
+        @Override
+        public Block read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Block block = new Block();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("title".equals(name)) {
+                    block.title = nextString(in);
+                } else if ("subtitle".equals(name)) {
+                    block.subtitle = nextString(in);
+                } else if ("start".equals(name)) {
+                    block.start = nextString(in);
+                } else if ("end".equals(name)) {
+                    block.end = nextString(in);
+                } else if ("type".equals(name)) {
+                    block.type = nextString(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return block;
+        }
+
+        @Override
+        public void write(JsonWriter out, Block block) throws IOException {
+            if (block == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("title").value(block.title);
+            out.name("subtitle").value(block.subtitle);
+            out.name("start").value(block.start);
+            out.name("end").value(block.end);
+            out.name("type").value(block.type);
+            out.endObject();
+        }
+    }
+
+    static class VideoAdapter extends TypeAdapter<Video> {
+        @Override
+        public Video read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Video video = new Video();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("id".equals(name)) {
+                    video.id = nextString(in);
+                } else if ("year".equals(name)) {
+                    video.year = nextInt(in, video.year);
+                } else if ("title".equals(name)) {
+                    video.title = nextString(in);
+                } else if ("desc".equals(name)) {
+                    video.desc = nextString(in);
+                } else if ("vid".equals(name)) {
+                    video.vid = nextString(in);
+                } else if ("topic".equals(name)) {
+                    video.topic = nextString(in);
+                } else if ("speakers".equals(name)) {
+                    video.speakers = nextString(in);
+                } else if ("thumbnailUrl".equals(name)) {
+                    video.thumbnailUrl = nextString(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return video;
+        }
+
+        @Override
+        public void write(JsonWriter out, Video video) throws IOException {
+            if (video == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(video.id);
+            out.name("year").value(video.year);
+            out.name("title").value(video.title);
+            out.name("desc").value(video.desc);
+            out.name("vid").value(video.vid);
+            out.name("topic").value(video.topic);
+            out.name("speakers").value(video.speakers);
+            out.name("thumbnailUrl").value(video.thumbnailUrl);
+            out.endObject();
+        }
+    }
+
+    static class HashtagAdapter extends TypeAdapter<Hashtag> {
+        @Override
+        public Hashtag read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Hashtag hashtag = new Hashtag();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("name".equals(name)) {
+                    hashtag.name = nextString(in);
+                } else if ("description".equals(name)) {
+                    hashtag.description = nextString(in);
+                } else if ("color".equals(name)) {
+                    hashtag.color = nextString(in);
+                } else if ("order".equals(name)) {
+                    hashtag.order = nextInt(in, hashtag.order);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return hashtag;
+        }
+
+        @Override
+        public void write(JsonWriter out, Hashtag hashtag) throws IOException {
+            if (hashtag == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("name").value(hashtag.name);
+            out.name("description").value(hashtag.description);
+            out.name("color").value(hashtag.color);
+            out.name("order").value(hashtag.order);
+            out.endObject();
+        }
+    }
+
+    static class MapDataAdapter extends TypeAdapter<MapData> {
+        private final MarkerAdapter mMarkerAdapter = new MarkerAdapter();
+        private final TileAdapter mTileAdapter = new TileAdapter();
+
+        @Override
+        public MapData read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            MapData mapData = new MapData();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("markers".equals(name)) {
+                    mapData.markers = readMarkers(in);
+                } else if ("tiles".equals(name)) {
+                    mapData.tiles = readTiles(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return mapData;
+        }
+
+        private Map<String, Marker[]> readMarkers(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Map<String, Marker[]> markers = new LinkedHashMap<String, Marker[]>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String floor = in.nextName();
+                if (skipNull(in)) {
+                    markers.put(floor, null);
+                    continue;
+                }
+                ArrayList<Marker> list = new ArrayList<Marker>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    list.add(mMarkerAdapter.read(in));
+                }
+                in.endArray();
+                markers.put(floor, list.toArray(new Marker[list.size()]));
+            }
+            in.endObject();
+            return markers;
+        }
+
+        private Map<String, Tile> readTiles(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Map<String, Tile> tiles = new LinkedHashMap<String, Tile>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String floor = in.nextName();
+                tiles.put(floor, mTileAdapter.read(in));
+            }
+            in.endObject();
+            return tiles;
+        }
+
+        @Override
+        public void write(JsonWriter out, MapData mapData) throws IOException {
+            if (mapData == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("markers");
+            if (mapData.markers == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                for (Map.Entry<String, Marker[]> entry : mapData.markers.entrySet()) {
+                    out.name(entry.getKey());
+                    if (entry.getValue() == null) {
+                        out.nullValue();
+                        continue;
+                    }
+                    out.beginArray();
+                    for (Marker marker : entry.getValue()) {
+                        mMarkerAdapter.write(out, marker);
+                    }
+                    out.endArray();
+                }
+                out.endObject();
+            }
+            out.name("tiles");
+            if (mapData.tiles == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                for (Map.Entry<String, Tile> entry : mapData.tiles.entrySet()) {
+                    mTileAdapter.write(out.name(entry.getKey()), entry.getValue());
+                }
+                out.endObject();
+            }
+            out.endObject();
+        }
+    }
+
+    static class MarkerAdapter extends TypeAdapter<Marker> {
+        @Override
+        public Marker read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Marker marker = new Marker();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("id".equals(name)) {
+                    marker.id = nextString(in);
+                } else if ("type".equals(name)) {
+                    marker.type = nextString(in);
+                } else if ("lat".equals(name)) {
+                    marker.lat = nextFloat(in, marker.lat);
+                } else if ("lng".equals(name)) {
+                    marker.lng = nextFloat(in, marker.lng);
+                } else if ("title".equals(name)) {
+                    marker.title = nextString(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return marker;
+        }
+
+        @Override
+        public void write(JsonWriter out, Marker marker) throws IOException {
+            if (marker == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(marker.id);
+            out.name("type").value(marker.type);
+            out.name("lat").value(marker.lat);
+            out.name("lng").value(marker.lng);
+            out.name("title").value(marker.title);
+            out.endObject();
+        }
+    }
+
+    static class TileAdapter extends TypeAdapter<Tile> {
+        @Override
+        public Tile read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Tile tile = new Tile();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("filename".equals(name)) {
+                    tile.filename = nextString(in);
+                } else if ("url".equals(name)) {
+                    tile.url = nextString(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return tile;
+        }
+
+        @Override
+        public void write(JsonWriter out, Tile tile) throws IOException {
+            if (tile == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("filename").value(tile.filename);
+            out.name("url").value(tile.url);
+            out.endObject();
+        }
+    }
+
+    // Consumes the next value if it is null. Returns whether it did.
+    private static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextString();
+    }
+
+    private static int nextInt(JsonReader in, int defaultValue) throws IOException {
+        return skipNull(in) ? defaultValue : in.nextInt();
+    }
+
+    private static float nextFloat(JsonReader in, float defaultValue) throws IOException {
+        return skipNull(in) ? defaultValue : (float) in.nextDouble();
+    }
+
+    private static boolean nextBoolean(JsonReader in, boolean defaultValue) throws IOException {
+        if (skipNull(in)) {
+            return defaultValue;
+        }
+        if (in.peek() == JsonToken.STRING) {
+            // lenient, like Gson's own boolean adapter
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    private static String[] nextStringArray(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        ArrayList<String> list = new ArrayList<String>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(nextString(in));
+        }
+        in.endArray();
+        return list.toArray(new String[list.size()]);
+    }
+
+    private static void writeStringArray(JsonWriter out, String[] values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+}
@@ -18,11 +18,12 @@ package com.meetingcpp.sched.io;
 
 import com.meetingcpp.sched.io.model.Room;
 import com.meetingcpp.sched.provider.ScheduleContract;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 
 import android.content.ContentProviderOperation;
+import android.content.ContentValues;
 import android.content.Context;
 import android.net.Uri;
 
@@ -43,24 +44,38 @@ public class RoomsHandler extends JSONHandler {
 
     @Override
     public void process(JsonElement element) {
-        for (Room room : new Gson().fromJson(element, Room[].class)) {
+        addRooms(GSON.fromJson(element, Room[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        addRooms(GSON.<Room[]>fromJson(reader, Room[].class));
+    }
+
+    private void addRooms(Room[] rooms) {
+        for (Room room : rooms) {
             mRooms.put(room.id, room);
         }
     }
 
+    @Override
+    protected boolean supportsDelta() {
+        return true;
+    }
+
     @Override
     public void makeContentProviderOperations(ArrayList<ContentProviderOperation> list) {
         Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
                 ScheduleContract.Rooms.CONTENT_URI);
 
-        // The list of rooms is not large, so for simplicity we delete all of them and repopulate
-        list.add(ContentProviderOperation.newDelete(uri).build());
+        HashMap<String, ContentValues> rows = new HashMap<String, ContentValues>();
         for (Room room : mRooms.values()) {
-            ContentProviderOperation.Builder builder = ContentProviderOperation.newInsert(uri);
-            builder.withValue(ScheduleContract.Rooms.ROOM_ID, room.id);
-            builder.withValue(ScheduleContract.Rooms.ROOM_NAME, room.name);
-            builder.withValue(ScheduleContract.Rooms.ROOM_FLOOR, room.floor);
-            list.add(builder.build());
+            ContentValues values = new ContentValues();
+            values.put(ScheduleContract.Rooms.ROOM_ID, room.id);
+            values.put(ScheduleContract.Rooms.ROOM_NAME, room.name);
+            values.put(ScheduleContract.Rooms.ROOM_FLOOR, room.floor);
+            rows.put(room.id, values);
         }
+        makeIncrementalOperations(uri, ScheduleContract.Rooms.ROOM_ID, rows, list);
     }
 }
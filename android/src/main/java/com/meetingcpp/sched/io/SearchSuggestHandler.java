@@ -17,16 +17,19 @@
 package com.meetingcpp.sched.io;
 
 import com.meetingcpp.sched.provider.ScheduleContract;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 
 import android.app.SearchManager;
 import android.content.ContentProviderOperation;
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.net.Uri;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 
 import static com.meetingcpp.sched.util.LogUtils.LOGE;
@@ -42,7 +45,16 @@ public class SearchSuggestHandler extends JSONHandler {
 
     @Override
     public void process(JsonElement element) {
-        for (String word : new Gson().fromJson(element, String[].class)) {
+        addSuggestions(GSON.fromJson(element, String[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        addSuggestions(GSON.<String[]>fromJson(reader, String[].class));
+    }
+
+    private void addSuggestions(String[] words) {
+        for (String word : words) {
             mSuggestions.add(word);
         }
     }
@@ -52,11 +64,19 @@ public class SearchSuggestHandler extends JSONHandler {
         Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
                 ScheduleContract.SearchSuggest.CONTENT_URI);
 
-        list.add(ContentProviderOperation.newDelete(uri).build());
+        HashMap<String, ContentValues> rows = new HashMap<String, ContentValues>();
         for (String word : mSuggestions) {
-            list.add(ContentProviderOperation.newInsert(uri)
-                .withValue(SearchManager.SUGGEST_COLUMN_TEXT_1, word)
-                .build());
+            ContentValues values = new ContentValues();
+            values.put(SearchManager.SUGGEST_COLUMN_TEXT_1, word);
+            rows.put(word, values);
         }
+        makeIncrementalOperations(uri, SearchManager.SUGGEST_COLUMN_TEXT_1, rows, list);
+    }
+
+    @Override
+    protected Cursor queryStoredRows(Uri contentUri, String[] projection) {
+        // The provider only serves prefix queries on suggestions; an empty prefix matches all.
+        return mContext.getContentResolver().query(contentUri, projection,
+                SearchManager.SUGGEST_COLUMN_TEXT_1 + " LIKE ?", new String[]{""}, null);
     }
 }
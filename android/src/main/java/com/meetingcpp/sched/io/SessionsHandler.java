@@ -33,12 +33,11 @@ import com.meetingcpp.sched.provider.ScheduleContract;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 import com.meetingcpp.sched.provider.ScheduleDatabase;
 import com.meetingcpp.sched.util.TimeUtils;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 
 import static com.meetingcpp.sched.util.LogUtils.*;
@@ -58,11 +57,25 @@ public class SessionsHandler extends JSONHandler {
 
     @Override
     public void process(JsonElement element) {
-        for (Session session : new Gson().fromJson(element, Session[].class)) {
+        addSessions(GSON.fromJson(element, Session[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        addSessions(GSON.<Session[]>fromJson(reader, Session[].class));
+    }
+
+    private void addSessions(Session[] sessions) {
+        for (Session session : sessions) {
             mSessions.put(session.id, session);
         }
     }
 
+    @Override
+    protected boolean supportsDelta() {
+        return true;
+    }
+
     @Override
     public void makeContentProviderOperations(ArrayList<ContentProviderOperation> list) {
         Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
@@ -71,10 +84,11 @@ public class SessionsHandler extends JSONHandler {
         // build a map of session to session import hashcode so we know what to update,
         // what to insert, and what to delete
         HashMap<String, String> sessionHashCodes = loadSessionHashCodes();
-        boolean incrementalUpdate = (sessionHashCodes != null) && (sessionHashCodes.size() > 0);
-
-        // set of sessions that we want to keep after the sync
-        HashSet<String> sessionsToKeep = new HashSet<String>();
+        if (mIsDelta && sessionHashCodes == null) {
+            sessionHashCodes = new HashMap<String, String>();
+        }
+        boolean incrementalUpdate = (sessionHashCodes != null) &&
+                (mIsDelta || sessionHashCodes.size() > 0);
 
         if (incrementalUpdate) {
             LOGD(TAG, "Doing incremental update for sessions.");
@@ -84,42 +98,60 @@ public class SessionsHandler extends JSONHandler {
         }
 
         int updatedSessions = 0;
-        for (Session session : mSessions.values()) {
-            // Set the session grouping order in the object, so it can be used in hash calculation
-            session.groupingOrder = computeTypeOrder(session);
-
-            // compute the incoming session's hashcode to figure out if we need to update
-            String hashCode = session.getImportHashCode();
-            sessionsToKeep.add(session.id);
-
-            // add session, if necessary
-            if (!incrementalUpdate || !sessionHashCodes.containsKey(session.id) ||
-                        !sessionHashCodes.get(session.id).equals(hashCode)) {
-                ++updatedSessions;
-                boolean isNew = !incrementalUpdate || !sessionHashCodes.containsKey(session.id);
-                buildSession(isNew, session, list);
-
-                // add relationships to speakers and track
-                buildSessionSpeakerMapping(session, list);
-                buildTagsMapping(session, list);
-            }
+        for (Session session : getSessionsToWrite(incrementalUpdate ? sessionHashCodes : null)) {
+            ++updatedSessions;
+            boolean isNew = !incrementalUpdate || !sessionHashCodes.containsKey(session.id);
+            buildSession(isNew, session, list);
+
+            // add relationships to speakers and track
+            buildSessionSpeakerMapping(session, list);
+            buildTagsMapping(session, list);
         }
 
         int deletedSessions = 0;
-        if (incrementalUpdate) {
+        if (mIsDelta) {
+            for (String sessionId : mRemovedIds) {
+                buildDeleteOperation(sessionId, list);
+                ++deletedSessions;
+            }
+        } else if (incrementalUpdate) {
             for (String sessionId : sessionHashCodes.keySet()) {
-                if (!sessionsToKeep.contains(sessionId)) {
+                if (!mSessions.containsKey(sessionId)) {
                     buildDeleteOperation(sessionId, list);
                     ++deletedSessions;
                 }
             }
         }
 
-        LOGD(TAG, "Sessions: " + (incrementalUpdate ? "INCREMENTAL" : "FULL") + " update. " +
+        LOGD(TAG, "Sessions: " + (mIsDelta ? "DELTA" : incrementalUpdate ? "INCREMENTAL" : "FULL")
+                + " update. " +
                 updatedSessions + " to update, " + deletedSessions + " to delete. New total: " +
                 mSessions.size());
     }
 
+    /**
+     * Computes the values that sessions store from their tags and speakers, and returns the
+     * sessions that are new or changed.
+     *
+     * @param storedHashCodes The import hashcodes of the stored sessions by session ID, or null
+     *                        to return all sessions.
+     */
+    ArrayList<Session> getSessionsToWrite(HashMap<String, String> storedHashCodes) {
+        ArrayList<Session> sessionsToWrite = new ArrayList<Session>();
+        for (Session session : mSessions.values()) {
+            // Set these in the object, so they can be used in hash calculation
+            session.groupingOrder = computeTypeOrder(session);
+            session.speakerNames = buildSpeakerNames(session);
+
+            // compute the incoming session's hashcode to figure out if we need to update
+            if (storedHashCodes == null ||
+                    !session.getImportHashCode().equals(storedHashCodes.get(session.id))) {
+                sessionsToWrite.add(session);
+            }
+        }
+        return sessionsToWrite;
+    }
+
     private void buildDeleteOperation(String sessionId, List<ContentProviderOperation> list) {
         Uri sessionUri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
                 ScheduleContract.Sessions.buildSessionUri(sessionId));
@@ -172,24 +204,6 @@ public class SessionsHandler extends JSONHandler {
             builder = ContentProviderOperation.newUpdate(thisSessionUri);
         }
 
-        String speakerNames = "";
-        if (mSpeakerMap != null) {
-            // build human-readable list of speakers
-            mStringBuilder.setLength(0);
-            for (int i = 0; i < session.speakers.length; ++i) {
-                if (mSpeakerMap.containsKey(session.speakers[i])) {
-                    mStringBuilder
-                            .append(i == 0 ? "" : i == session.speakers.length - 1 ? " and " : ", ")
-                            .append(mSpeakerMap.get(session.speakers[i]).name.trim());
-                } else {
-                    LOGW(TAG, "Unknown speaker ID " + session.speakers[i] + " in session " + session.id);
-                }
-            }
-            speakerNames = mStringBuilder.toString();
-        } else {
-            LOGE(TAG, "Can't build speaker names -- speaker map is null.");
-        }
-
         int color = mDefaultSessionColor;
         try {
             if (!TextUtils.isEmpty(session.color)) {
@@ -213,7 +227,7 @@ public class SessionsHandler extends JSONHandler {
                         // relationship table). This is because when querying for sessions,
                         // we don't want to incur the performance penalty of having to do a
                         // subquery for every record to figure out the list of tags of each session.
-                .withValue(ScheduleContract.Sessions.SESSION_SPEAKER_NAMES, speakerNames)
+                .withValue(ScheduleContract.Sessions.SESSION_SPEAKER_NAMES, session.speakerNames)
                         // Note: we store the human-readable list of speakers (which is redundant
                         // with the sessions_speakers relationship table) so that we can
                         // display it easily in lists without having to make an additional DB query
@@ -241,6 +255,25 @@ public class SessionsHandler extends JSONHandler {
         list.add(builder.build());
     }
 
+    // Builds the human-readable list of speakers of a session.
+    private String buildSpeakerNames(Session session) {
+        if (mSpeakerMap == null) {
+            LOGE(TAG, "Can't build speaker names -- speaker map is null.");
+            return "";
+        }
+        mStringBuilder.setLength(0);
+        for (int i = 0; i < session.speakers.length; ++i) {
+            if (mSpeakerMap.containsKey(session.speakers[i])) {
+                mStringBuilder
+                        .append(i == 0 ? "" : i == session.speakers.length - 1 ? " and " : ", ")
+                        .append(mSpeakerMap.get(session.speakers[i]).name.trim());
+            } else {
+                LOGW(TAG, "Unknown speaker ID " + session.speakers[i] + " in session " + session.id);
+            }
+        }
+        return mStringBuilder.toString();
+    }
+
     // The type order of a session is the order# (in its category) of the tag that indicates
     // its type. So if we sort sessions by type order, they will be neatly grouped by type,
     // with the types appearing in the order given by the tag category that represents the
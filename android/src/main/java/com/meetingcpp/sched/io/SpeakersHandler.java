@@ -21,11 +21,13 @@ import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
 import android.provider.BaseColumns;
+import android.text.TextUtils;
 
 import com.meetingcpp.sched.io.model.Speaker;
 import com.meetingcpp.sched.provider.ScheduleContract;
-import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 
 import java.util.ArrayList;
@@ -38,24 +40,65 @@ public class SpeakersHandler extends JSONHandler {
     private static final String TAG = makeLogTag(SpeakersHandler.class);
     private HashMap<String, Speaker> mSpeakers = new HashMap<String, Speaker>();
 
+    // speakers already in the content provider, loaded when applying a delta
+    private HashMap<String, Speaker> mStoredSpeakers = null;
+
     public SpeakersHandler(Context context) {
         super(context);
     }
 
     @Override
     public void process(JsonElement element) {
-        for (Speaker speaker : new Gson().fromJson(element, Speaker[].class)) {
+        addSpeakers(GSON.fromJson(element, Speaker[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        addSpeakers(GSON.<Speaker[]>fromJson(reader, Speaker[].class));
+    }
+
+    private void addSpeakers(Speaker[] speakers) {
+        for (Speaker speaker : speakers) {
             mSpeakers.put(speaker.id, speaker);
         }
     }
 
+    @Override
+    protected boolean supportsDelta() {
+        return true;
+    }
+
+    @Override
+    public void beginDelta() throws HandlerException {
+        if (!mIsDelta) {
+            super.beginDelta();
+            mStoredSpeakers = loadStoredSpeakers();
+        }
+    }
+
+    @Override
+    public void processDelta(JsonArray upserted, JsonArray removedIds) throws HandlerException {
+        super.processDelta(upserted, removedIds);
+        // sessions store the names of their speakers
+        for (Speaker speaker : mSpeakers.values()) {
+            Speaker stored = mStoredSpeakers.get(speaker.id);
+            if (stored != null && !TextUtils.equals(stored.name, speaker.name)) {
+                throw new HandlerException("Delta renames speaker " + speaker.id + ".");
+            }
+        }
+    }
+
     @Override
     public void makeContentProviderOperations(ArrayList<ContentProviderOperation> list) {
         Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
                 ScheduleContract.Speakers.CONTENT_URI);
         HashMap<String, String> speakerHashcodes = loadSpeakerHashcodes();
         HashSet<String> speakersToKeep = new HashSet<String>();
-        boolean isIncrementalUpdate = speakerHashcodes != null && speakerHashcodes.size() > 0;
+        if (mIsDelta && speakerHashcodes == null) {
+            speakerHashcodes = new HashMap<String, String>();
+        }
+        boolean isIncrementalUpdate = speakerHashcodes != null &&
+                (mIsDelta || speakerHashcodes.size() > 0);
 
         if (isIncrementalUpdate) {
             LOGD(TAG, "Doing incremental update for speakers.");
@@ -79,7 +122,12 @@ public class SpeakersHandler extends JSONHandler {
         }
 
         int deletedSpeakers = 0;
-        if (isIncrementalUpdate) {
+        if (mIsDelta) {
+            for (String speakerId : mRemovedIds) {
+                buildDeleteOperation(speakerId, list);
+                ++deletedSpeakers;
+            }
+        } else if (isIncrementalUpdate) {
             for (String speakerId : speakerHashcodes.keySet()) {
                 if (!speakersToKeep.contains(speakerId)) {
                     buildDeleteOperation(speakerId, list);
@@ -88,7 +136,8 @@ public class SpeakersHandler extends JSONHandler {
             }
         }
 
-        LOGD(TAG, "Speakers: " + (isIncrementalUpdate ? "INCREMENTAL" : "FULL") + " update. " +
+        LOGD(TAG, "Speakers: " + (mIsDelta ? "DELTA" : isIncrementalUpdate ? "INCREMENTAL" : "FULL")
+                + " update. " +
                 updatedSpeakers + " to update, " + deletedSpeakers + " to delete. New total: " +
                 mSpeakers.size());
     }
@@ -158,7 +207,42 @@ public class SpeakersHandler extends JSONHandler {
     }
 
     public HashMap<String, Speaker> getSpeakerMap() {
-        return mSpeakers;
+        if (!mIsDelta) {
+            return mSpeakers;
+        }
+        HashMap<String, Speaker> speakerMap = new HashMap<String, Speaker>(mStoredSpeakers);
+        for (String speakerId : mRemovedIds) {
+            speakerMap.remove(speakerId);
+        }
+        speakerMap.putAll(mSpeakers);
+        return speakerMap;
+    }
+
+    // Loads the IDs and names of the speakers in the content provider.
+    private HashMap<String, Speaker> loadStoredSpeakers() {
+        Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
+                ScheduleContract.Speakers.CONTENT_URI);
+        HashMap<String, Speaker> result = new HashMap<String, Speaker>();
+        Cursor cursor = null;
+        try {
+            cursor = mContext.getContentResolver().query(uri, StoredSpeakersQuery.PROJECTION,
+                    null, null, null);
+            if (cursor == null) {
+                LOGE(TAG, "Error querying stored speakers (got null cursor)");
+                return result;
+            }
+            while (cursor.moveToNext()) {
+                Speaker speaker = new Speaker();
+                speaker.id = cursor.getString(StoredSpeakersQuery.SPEAKER_ID);
+                speaker.name = cursor.getString(StoredSpeakersQuery.SPEAKER_NAME);
+                result.put(speaker.id, speaker);
+            }
+            return result;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
     }
 
     private interface SpeakerHashcodeQuery {
@@ -171,4 +255,13 @@ public class SpeakersHandler extends JSONHandler {
         final int SPEAKER_ID = 1;
         final int SPEAKER_IMPORT_HASHCODE = 2;
     }
+
+    private interface StoredSpeakersQuery {
+        String[] PROJECTION = {
+                ScheduleContract.Speakers.SPEAKER_ID,
+                ScheduleContract.Speakers.SPEAKER_NAME
+        };
+        final int SPEAKER_ID = 0;
+        final int SPEAKER_NAME = 1;
+    }
 }
@@ -17,58 +17,148 @@
 package com.meetingcpp.sched.io;
 
 import android.content.ContentProviderOperation;
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.graphics.Color;
 import android.net.Uri;
+import android.text.TextUtils;
 
 import com.meetingcpp.sched.io.model.Tag;
 import com.meetingcpp.sched.provider.ScheduleContract;
-import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 
-import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
+import static com.meetingcpp.sched.util.LogUtils.*;
 
 public class TagsHandler extends JSONHandler {
     private static final String TAG = makeLogTag(TagsHandler.class);
 
     private HashMap<String, Tag> mTags = new HashMap<String, Tag>();
 
+    // tags already in the content provider, loaded when applying a delta
+    private HashMap<String, Tag> mStoredTags = null;
+
     public TagsHandler(Context context) {
         super(context);
     }
 
     @Override
     public void process(JsonElement element) {
-        for (Tag tag : new Gson().fromJson(element, Tag[].class)) {
+        addTags(GSON.fromJson(element, Tag[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        addTags(GSON.<Tag[]>fromJson(reader, Tag[].class));
+    }
+
+    private void addTags(Tag[] tags) {
+        for (Tag tag : tags) {
             mTags.put(tag.tag, tag);
         }
     }
 
+    @Override
+    protected boolean supportsDelta() {
+        return true;
+    }
+
+    @Override
+    public void beginDelta() throws HandlerException {
+        if (!mIsDelta) {
+            super.beginDelta();
+            mStoredTags = loadStoredTags();
+        }
+    }
+
+    @Override
+    public void processDelta(JsonArray upserted, JsonArray removedIds) throws HandlerException {
+        super.processDelta(upserted, removedIds);
+        // sessions store their grouping order, which is computed from their tags
+        for (Tag tag : mTags.values()) {
+            Tag stored = mStoredTags.get(tag.tag);
+            if (stored != null && (stored.order_in_category != tag.order_in_category
+                    || !TextUtils.equals(stored.category, tag.category))) {
+                throw new HandlerException("Delta changes the category or order of tag "
+                        + tag.tag + ".");
+            }
+        }
+    }
+
     @Override
     public void makeContentProviderOperations(ArrayList<ContentProviderOperation> list) {
         Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
                 ScheduleContract.Tags.CONTENT_URI);
 
-        // since the number of tags is very small, for simplicity we delete them all and reinsert
-        list.add(ContentProviderOperation.newDelete(uri).build());
+        HashMap<String, ContentValues> rows = new HashMap<String, ContentValues>();
         for (Tag tag : mTags.values()) {
-            ContentProviderOperation.Builder builder = ContentProviderOperation.newInsert(uri);
-            builder.withValue(ScheduleContract.Tags.TAG_ID, tag.tag);
-            builder.withValue(ScheduleContract.Tags.TAG_CATEGORY, tag.category);
-            builder.withValue(ScheduleContract.Tags.TAG_NAME, tag.name);
-            builder.withValue(ScheduleContract.Tags.TAG_ORDER_IN_CATEGORY, tag.order_in_category);
-            builder.withValue(ScheduleContract.Tags.TAG_ABSTRACT, tag._abstract);
-            builder.withValue(ScheduleContract.Tags.TAG_COLOR, tag.color==null ?
+            ContentValues values = new ContentValues();
+            values.put(ScheduleContract.Tags.TAG_ID, tag.tag);
+            values.put(ScheduleContract.Tags.TAG_CATEGORY, tag.category);
+            values.put(ScheduleContract.Tags.TAG_NAME, tag.name);
+            values.put(ScheduleContract.Tags.TAG_ORDER_IN_CATEGORY, tag.order_in_category);
+            values.put(ScheduleContract.Tags.TAG_ABSTRACT, tag._abstract);
+            values.put(ScheduleContract.Tags.TAG_COLOR, tag.color==null ?
                     Color.LTGRAY : Color.parseColor(tag.color));
-            list.add(builder.build());
+            rows.put(tag.tag, values);
         }
+        makeIncrementalOperations(uri, ScheduleContract.Tags.TAG_ID, rows, list);
     }
 
     public HashMap<String, Tag> getTagMap() {
-        return mTags;
+        if (!mIsDelta) {
+            return mTags;
+        }
+        HashMap<String, Tag> tagMap = new HashMap<String, Tag>(mStoredTags);
+        for (String tagId : mRemovedIds) {
+            tagMap.remove(tagId);
+        }
+        tagMap.putAll(mTags);
+        return tagMap;
+    }
+
+    // Loads the fields of the tags in the content provider that sessions depend on.
+    private HashMap<String, Tag> loadStoredTags() {
+        Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
+                ScheduleContract.Tags.CONTENT_URI);
+        HashMap<String, Tag> result = new HashMap<String, Tag>();
+        Cursor cursor = null;
+        try {
+            cursor = mContext.getContentResolver().query(uri, StoredTagsQuery.PROJECTION,
+                    null, null, null);
+            if (cursor == null) {
+                LOGE(TAG, "Error querying stored tags (got null cursor)");
+                return result;
+            }
+            while (cursor.moveToNext()) {
+                Tag tag = new Tag();
+                tag.tag = cursor.getString(StoredTagsQuery.TAG_ID);
+                tag.category = cursor.getString(StoredTagsQuery.TAG_CATEGORY);
+                tag.order_in_category = cursor.getInt(StoredTagsQuery.TAG_ORDER_IN_CATEGORY);
+                result.put(tag.tag, tag);
+            }
+            return result;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    private interface StoredTagsQuery {
+        String[] PROJECTION = {
+                ScheduleContract.Tags.TAG_ID,
+                ScheduleContract.Tags.TAG_CATEGORY,
+                ScheduleContract.Tags.TAG_ORDER_IN_CATEGORY
+        };
+        final int TAG_ID = 0;
+        final int TAG_CATEGORY = 1;
+        final int TAG_ORDER_IN_CATEGORY = 2;
     }
 }
@@ -26,8 +26,8 @@ import android.text.TextUtils;
 import com.meetingcpp.sched.Config;
 import com.meetingcpp.sched.io.model.Video;
 import com.meetingcpp.sched.provider.ScheduleContract;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 
 import java.util.ArrayList;
@@ -47,7 +47,16 @@ public class VideosHandler extends JSONHandler {
 
     @Override
     public void process(JsonElement element) {
-        for (Video video : new Gson().fromJson(element, Video[].class)) {
+        addVideos(GSON.fromJson(element, Video[].class));
+    }
+
+    @Override
+    public void process(JsonReader reader) {
+        addVideos(GSON.<Video[]>fromJson(reader, Video[].class));
+    }
+
+    private void addVideos(Video[] videos) {
+        for (Video video : videos) {
             if (TextUtils.isEmpty(video.id)) {
                 LOGW(TAG, "Video without valid ID. Using VID instead: " + video.vid);
                 video.id = video.vid;
@@ -56,18 +65,28 @@ public class VideosHandler extends JSONHandler {
         }
     }
 
+    @Override
+    protected boolean supportsDelta() {
+        return true;
+    }
+
     @Override
     public void makeContentProviderOperations(ArrayList<ContentProviderOperation> list) {
         Uri uri = ScheduleContractHelper.setUriAsCalledFromSyncAdapter(
                 ScheduleContract.Videos.CONTENT_URI);
         HashMap<String, String> videoHashcodes = loadVideoHashcodes();
         HashSet<String> videosToKeep = new HashSet<String>();
-        boolean isIncrementalUpdate = videoHashcodes != null && videoHashcodes.size() > 0;
+        if (mIsDelta && videoHashcodes == null) {
+            videoHashcodes = new HashMap<String, String>();
+        }
+        boolean isIncrementalUpdate = videoHashcodes != null &&
+                (mIsDelta || videoHashcodes.size() > 0);
 
         if (isIncrementalUpdate) {
             LOGD(TAG, "Doing incremental update for videos.");
         } else {
             LOGD(TAG, "Doing FULL (non incremental) update for videos.");
+            // only counts as a change of the videos if there were any to delete
             list.add(ContentProviderOperation.newDelete(uri).build());
         }
 
@@ -86,7 +105,12 @@ public class VideosHandler extends JSONHandler {
         }
 
         int deletedVideos = 0;
-        if (isIncrementalUpdate) {
+        if (mIsDelta) {
+            for (String videoId : mRemovedIds) {
+                buildDeleteOperation(videoId, list);
+                ++deletedVideos;
+            }
+        } else if (isIncrementalUpdate) {
             for (String videoId : videoHashcodes.keySet()) {
                 if (!videosToKeep.contains(videoId)) {
                     buildDeleteOperation(videoId, list);
@@ -95,7 +119,8 @@ public class VideosHandler extends JSONHandler {
             }
         }
 
-        LOGD(TAG, "Videos: " + (isIncrementalUpdate ? "INCREMENTAL" : "FULL") + " update. " +
+        LOGD(TAG, "Videos: " + (mIsDelta ? "DELTA" : isIncrementalUpdate ? "INCREMENTAL" : "FULL")
+                + " update. " +
                 updatedVideos + " to update, " + deletedVideos + " to delete. New total: " +
                 mVideos.size());
     }
@@ -19,6 +19,16 @@ package com.meetingcpp.sched.io.model;
 public class DataManifest {
     public String format;
     public String[] data_files;
+    public Delta[] deltas;
+
+    /**
+     * A file with the changes between two versions of one of the data files.
+     */
+    public static class Delta {
+        public String base;
+        public String target;
+        public String file;
+    }
 }
 
 
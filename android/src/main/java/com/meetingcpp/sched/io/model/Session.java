@@ -16,7 +16,7 @@
 
 package com.meetingcpp.sched.io.model;
 
-import java.util.Random;
+import com.meetingcpp.sched.util.HashUtils;
 
 public class Session {
     public String id;
@@ -38,6 +38,8 @@ public class Session {
     public String color;
     public RelatedContent[] relatedContent;
     public int groupingOrder;
+    // Human-readable list of speakers, computed from the speaker data on import
+    public transient String speakerNames;
 
     public class RelatedContent {
         public String id;
@@ -52,34 +54,53 @@ public class Session {
         }
     }
 
+    /**
+     * Returns a fingerprint of everything that is imported from this session, so that
+     * unchanged sessions can be skipped on sync. {@link #groupingOrder} and
+     * {@link #speakerNames} must be set before calling this.
+     */
     public String getImportHashCode() {
-        return (new Random()).nextLong()+"";
-/*        StringBuilder sb = new StringBuilder();
-        sb.append("id").append(id == null ? "" : id)
-                .append("description").append(description == null ? "" : description)
-                .append("title").append(title == null ? "" : title)
-                .append("url").append(url == null ? "" : url)
-                .append("startTimestamp").append(startTimestamp == null ? "" : startTimestamp)
-                .append("endTimestamp").append(endTimestamp == null ? "" : endTimestamp)
-                .append("youtubeUrl").append(youtubeUrl == null ? "" : youtubeUrl)
-                .append("subtype").append(subtype == null ? "" : subtype)
-                .append("room").append(room == null ? "" : room)
-                .append("hashtag").append(hashtag == null ? "" : hashtag)
-                .append("isLivestream").append(isLivestream ? "true" : "false")
-                .append("mainTag").append(mainTag)
-                .append("captionsUrl").append(captionsUrl)
-                .append("photoUrl").append(photoUrl)
-                .append("relatedContent").append(relatedContent)
-                .append("color").append(color)
-                .append("groupingOrder").append(groupingOrder);
-        for (String tag : tags) {
-            sb.append("tag").append(tag);
+        long hash = HashUtils.FNV64_INIT;
+        hash = HashUtils.fnv64(hash, id);
+        hash = HashUtils.fnv64(hash, url);
+        hash = HashUtils.fnv64(hash, description);
+        hash = HashUtils.fnv64(hash, title);
+        hash = HashUtils.fnv64(hash, startTimestamp);
+        hash = HashUtils.fnv64(hash, endTimestamp);
+        hash = HashUtils.fnv64(hash, youtubeUrl);
+        hash = HashUtils.fnv64(hash, hashtag);
+        hash = HashUtils.fnv64(hash, subtype);
+        hash = HashUtils.fnv64(hash, room);
+        hash = HashUtils.fnv64(hash, captionsUrl);
+        hash = HashUtils.fnv64(hash, photoUrl);
+        hash = HashUtils.fnv64(hash, isLivestream ? 1 : 0);
+        hash = HashUtils.fnv64(hash, mainTag);
+        hash = HashUtils.fnv64(hash, color);
+        hash = HashUtils.fnv64(hash, groupingOrder);
+        hash = HashUtils.fnv64(hash, speakerNames);
+        hash = fnv64(hash, tags);
+        hash = fnv64(hash, speakers);
+        if (relatedContent == null) {
+            hash = HashUtils.fnv64(hash, -1);
+        } else {
+            hash = HashUtils.fnv64(hash, relatedContent.length);
+            for (RelatedContent content : relatedContent) {
+                hash = HashUtils.fnv64(hash, content.id);
+                hash = HashUtils.fnv64(hash, content.name);
+            }
+        }
+        return Long.toHexString(hash);
+    }
+
+    private static long fnv64(long hash, String[] values) {
+        if (values == null) {
+            return HashUtils.fnv64(hash, -1);
         }
-        for (String speaker : speakers) {
-            sb.append("speaker").append(speaker);
+        hash = HashUtils.fnv64(hash, values.length);
+        for (String value : values) {
+            hash = HashUtils.fnv64(hash, value);
         }
-        return HashUtils.computeWeakHash(sb.toString());
-*/
+        return hash;
     }
 
     public String makeTagsList() {
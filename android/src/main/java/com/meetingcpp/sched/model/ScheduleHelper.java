@@ -17,7 +17,6 @@ package com.meetingcpp.sched.model;
 
 import android.content.Context;
 import android.database.Cursor;
-import android.os.AsyncTask;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -28,7 +27,6 @@ import com.meetingcpp.sched.provider.ScheduleContract.Blocks;
 import com.meetingcpp.sched.provider.ScheduleContract.Sessions;
 import com.meetingcpp.sched.provider.ScheduleContractHelper;
 import com.meetingcpp.sched.settings.SettingsUtils;
-import com.meetingcpp.sched.myschedule.MyScheduleAdapter;
 import com.meetingcpp.sched.util.AccountUtils;
 import com.meetingcpp.sched.util.UIUtils;
 
@@ -137,29 +135,6 @@ public class ScheduleHelper {
         }
     }
 
-    public void getScheduleDataAsync(final MyScheduleAdapter adapter,
-            long start, long end) {
-        AsyncTask<Long, Void, ArrayList<ScheduleItem>> task
-                = new AsyncTask<Long, Void, ArrayList<ScheduleItem>>() {
-            @Override
-            protected ArrayList<ScheduleItem> doInBackground(Long... params) {
-                Long start = params[0];
-                Long end = params[1];
-                return getScheduleData(start, end);
-            }
-
-            @Override
-            protected void onPostExecute(ArrayList<ScheduleItem> scheduleItems) {
-                adapter.updateItems(scheduleItems);
-            }
-        };
-        // On honeycomb and above, AsyncTasks are by default executed one by one. We are using a
-        // thread pool instead here, because we want this to be executed independently from other
-        // AsyncTasks. See the URL below for detail.
-        // http://developer.android.com/reference/android/os/AsyncTask.html#execute(Params...)
-        task.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, start, end);
-    }
-
     protected void addSessions(long start, long end,
             ArrayList<ScheduleItem> mutableItems, ArrayList<ScheduleItem> immutableItems) {
 
@@ -210,12 +185,11 @@ public class ScheduleHelper {
         Cursor cursor = null;
         try {
             cursor = mContext.getContentResolver().query(
-                    Blocks.CONTENT_URI,
+                    // the blocks of the specified day, answered from the provider's cache
+                    Blocks.buildBlocksBetweenDirUri(start, end),
                     BlocksQuery.PROJECTION,
-
-                    // filter sessions on the specified day
-                    Blocks.BLOCK_START + " >= ? and " + Blocks.BLOCK_START + " <= ?",
-                    new String[]{String.valueOf(start), String.valueOf(end)},
+                    null,
+                    null,
 
                     // order by session start
                     Blocks.BLOCK_START);
@@ -22,6 +22,10 @@ public class ScheduleItemHelper {
 
     private static final long FREE_BLOCK_MINIMUM_LENGTH = 10 * 60 * 1000; // 10 minutes
     public static final long ALLOWED_OVERLAP = 5 * 60 * 1000; // 5 minutes
+    // Runs of conflicts up to this long are walked rather than searched
+    private static final int SHORT_RUN = 64;
+    // Up to this many pairs of mutable and immutable items, the mutables are moved pairwise
+    static final long PAIRWISE_MOVE_LIMIT = 16 * 1024;
 
     /**
      * Find and resolve time slot conflicts.
@@ -50,30 +54,81 @@ public class ScheduleItemHelper {
         return result;
     }
 
+    /**
+     * Flags the items that conflict with a session before them, and the sessions that conflict
+     * with the items after them. A session conflicts with the run of items that follow it and
+     * that all intersect it; we assume the list is ordered by starttime, so the run usually ends
+     * with the first item that starts after it.
+     * <p/>
+     * Short runs are walked, and the end of longer ones is searched in {@link ExtremaTree}s of
+     * the start and end times of the items, so the list is processed in O(n log n).
+     */
     static protected void markConflicting(ArrayList<ScheduleItem> items) {
-        for (int i=0; i<items.size(); i++) {
+        int size = items.size();
+        // built for the first long run
+        ExtremaTree starts = null;
+        ExtremaTree ends = null;
+
+        // the items before this index conflict with a previous session
+        int conflictsEnd = 0;
+        for (int i = 0; i < size; i++) {
             ScheduleItem item = items.get(i);
+            if (i < conflictsEnd) {
+                item.flags |= ScheduleItem.FLAG_CONFLICTS_WITH_PREVIOUS;
+            }
             // Notice that we only care about sessions when checking conflicts.
-            if (item.type == ScheduleItem.SESSION) for (int j=i+1; j<items.size(); j++) {
-                ScheduleItem other = items.get(j);
-                if (item.type == ScheduleItem.SESSION) {
-                    if (intersect(other, item, true)) {
-                        other.flags |= ScheduleItem.FLAG_CONFLICTS_WITH_PREVIOUS;
-                        item.flags |= ScheduleItem.FLAG_CONFLICTS_WITH_NEXT;
-                    } else {
-                        // we assume the list is ordered by starttime
-                        break;
-                    }
+            if (item.type != ScheduleItem.SESSION) {
+                continue;
+            }
+            // the run ends with the first item that doesn't intersect this one
+            int runEnd = i + 1;
+            while (runEnd < size && runEnd - i <= SHORT_RUN
+                    && intersect(items.get(runEnd), item, true)) {
+                ++runEnd;
+            }
+            if (runEnd == i + 1) {
+                continue;
+            }
+            item.flags |= ScheduleItem.FLAG_CONFLICTS_WITH_NEXT;
+            if (runEnd - i <= SHORT_RUN || runEnd == size) {
+                conflictsEnd = Math.max(conflictsEnd, runEnd);
+                continue;
+            }
+            if (starts == null) {
+                long[] startTimes = new long[size];
+                long[] endTimes = new long[size];
+                for (int j = 0; j < size; j++) {
+                    startTimes[j] = items.get(j).startTime;
+                    endTimes[j] = items.get(j).endTime;
                 }
+                starts = new ExtremaTree(startTimes);
+                ends = new ExtremaTree(endTimes);
             }
+            // the first item after the walked ones that starts near the end of this one, or ends
+            // near its start
+            runEnd = Math.min(
+                    starts.firstAtLeast(runEnd, item.endTime - ALLOWED_OVERLAP),
+                    ends.firstAtMost(runEnd, item.startTime + ALLOWED_OVERLAP));
+            conflictsEnd = Math.max(conflictsEnd, runEnd);
         }
     }
 
+    /**
+     * Trims, splits or removes the mutable items that intersect immutable ones, applying the
+     * immutable items in order. Up to {@link #PAIRWISE_MOVE_LIMIT} pairs of items, as on a
+     * typical day, each pair is checked, which is faster than building the tree of
+     * {@link #sweepMutables}.
+     */
     static protected void moveMutables(ArrayList<ScheduleItem> mutableItems, ArrayList<ScheduleItem> immutableItems) {
-        Iterator<ScheduleItem> immutableIt = immutableItems.iterator();
+        if ((long) mutableItems.size() * immutableItems.size() <= PAIRWISE_MOVE_LIMIT) {
+            moveMutablesPairwise(mutableItems, immutableItems);
+        } else {
+            sweepMutables(mutableItems, immutableItems);
+        }
+    }
 
-        while (immutableIt.hasNext()) {
-            ScheduleItem immutableItem = immutableIt.next();
+    static protected void moveMutablesPairwise(ArrayList<ScheduleItem> mutableItems, ArrayList<ScheduleItem> immutableItems) {
+        for (ScheduleItem immutableItem : immutableItems) {
             if (immutableItem.type == ScheduleItem.BREAK) {
                 // Breaks (lunch, after hours, etc) should not make free blocks to move
                 continue;
@@ -113,7 +168,141 @@ public class ScheduleItemHelper {
                 }
             }
         }
+    }
+
+    /**
+     * Same as {@link #moveMutablesPairwise}, but each immutable item only moves the pieces of
+     * the mutable items that intersect it, which are found in an {@link ExtremaTree} of the end
+     * times of the mutable items sorted by start time, where the ones with no pieces left are
+     * taken out. The pieces of a mutable item stay ordered, so they are moved with a binary
+     * search. This takes O((n + m) log m) for n immutable and m mutable items, plus the number
+     * of intersections.
+     */
+    static protected void sweepMutables(ArrayList<ScheduleItem> mutableItems, ArrayList<ScheduleItem> immutableItems) {
+        // the pieces each mutable has been split into, in the order of the mutable list
+        ArrayList<ArrayList<ScheduleItem>> pieces = new ArrayList<ArrayList<ScheduleItem>>();
+        for (ScheduleItem mutableItem : mutableItems) {
+            ArrayList<ScheduleItem> mutablePieces = new ArrayList<ScheduleItem>();
+            mutablePieces.add(mutableItem);
+            pieces.add(mutablePieces);
+        }
+
+        // indexes of the mutables by start time, with the start and end times in that order
+        final ArrayList<ScheduleItem> mutables = mutableItems;
+        Integer[] byStart = new Integer[mutables.size()];
+        for (int i = 0; i < byStart.length; i++) {
+            byStart[i] = i;
+        }
+        Arrays.sort(byStart, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                long lhsStart = mutables.get(lhs).startTime;
+                long rhsStart = mutables.get(rhs).startTime;
+                return lhsStart < rhsStart ? -1 : (lhsStart > rhsStart ? 1 : 0);
+            }
+        });
+        long[] sortedStarts = new long[byStart.length];
+        long[] sortedEnds = new long[byStart.length];
+        for (int i = 0; i < byStart.length; i++) {
+            sortedStarts[i] = mutables.get(byStart[i]).startTime;
+            sortedEnds[i] = mutables.get(byStart[i]).endTime;
+        }
+        ExtremaTree ends = new ExtremaTree(sortedEnds);
+
+        for (ScheduleItem immutableItem : immutableItems) {
+            if (immutableItem.type == ScheduleItem.BREAK) {
+                // Breaks (lunch, after hours, etc) should not make free blocks to move
+                continue;
+            }
+            // The pieces of a mutable are within it, so only the mutables that start before the
+            // end of the immutable and end after its start can have pieces to move.
+            int startingBefore = lowerBound(sortedStarts,
+                    immutableItem.endTime - ALLOWED_OVERLAP);
+            long endingAfter = immutableItem.startTime + ALLOWED_OVERLAP + 1;
+            for (int i = ends.firstAtLeast(0, endingAfter); i < startingBefore;
+                    i = ends.firstAtLeast(i + 1, endingAfter)) {
+                ArrayList<ScheduleItem> mutablePieces = pieces.get(byStart[i]);
+                movePieces(immutableItem, mutablePieces);
+                // the last piece ends last, and a mutable with no pieces is done with
+                ends.set(i, mutablePieces.isEmpty() ? Long.MIN_VALUE
+                        : mutablePieces.get(mutablePieces.size() - 1).endTime);
+            }
+        }
+
+        mutableItems.clear();
+        for (ArrayList<ScheduleItem> mutablePieces : pieces) {
+            mutableItems.addAll(mutablePieces);
+        }
+    }
+
+    /**
+     * Moves the pieces of a mutable item to accommodate an immutable one. The pieces are
+     * ordered, and don't overlap, so the ones that intersect the immutable item are consecutive.
+     */
+    static private void movePieces(ScheduleItem immutableItem, ArrayList<ScheduleItem> pieces) {
+        // first piece that ends after the start of the immutable
+        int low = 0;
+        int high = pieces.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (pieces.get(middle).endTime > immutableItem.startTime + ALLOWED_OVERLAP) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        ListIterator<ScheduleItem> mutableIt = pieces.listIterator(low);
+        while (mutableIt.hasNext()) {
+            ScheduleItem mutableItem = mutableIt.next();
+            ScheduleItem split = null;
+
+            // If mutable item is overlapping the immutable one
+            if (!intersect(immutableItem, mutableItem, true)) {
+                // it starts after the immutable, and so do the next pieces
+                break;
+            }
+            if (isContainedInto(mutableItem, immutableItem)) {
+                // if mutable is entirely contained into immutable, just remove it
+                mutableIt.remove();
+                continue;
+            } else if (isContainedInto(immutableItem, mutableItem)) {
+                // if immutable is entirely contained into mutable, split mutable if necessary:
+                if (isIntervalLongEnough(immutableItem.endTime, mutableItem.endTime)) {
+                    split = (ScheduleItem) mutableItem.clone();
+                    split.startTime = immutableItem.endTime;
+                }
+                mutableItem.endTime = immutableItem.startTime;
+            } else if (mutableItem.startTime < immutableItem.endTime) {
+                // Adjust the start of the mutable
+                mutableItem.startTime = immutableItem.endTime;
+            } else if (mutableItem.endTime > immutableItem.startTime) {
+                // Adjust the end of the mutable
+                mutableItem.endTime = immutableItem.startTime;
+            }
+
+            if (!isIntervalLongEnough(mutableItem.startTime, mutableItem.endTime)) {
+                mutableIt.remove();
+            }
+            if (split != null) {
+                mutableIt.add(split);
+            }
+        }
+    }
 
+    // Index of the first value that is at least the given one, in sorted values
+    static private int lowerBound(long[] values, long value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
     }
 
     static private boolean isIntervalLongEnough(long start, long end) {
@@ -129,5 +318,94 @@ public class ScheduleItemHelper {
                 contained.endTime <= container.endTime;
     }
 
+    /**
+     * Tree of the minimum and maximum of each range of an array of values, to find the first
+     * value after an index that is above or below a bound, or to change a value, in O(log n).
+     */
+    static private class ExtremaTree {
+
+        private final int mSize;
+
+        // number of leaves, a power of two: node 1 is the root, node i has the children 2i and
+        // 2i + 1, and the value at index i is in node mLeaves + i
+        private final int mLeaves;
+
+        private final long[] mMin;
+        private final long[] mMax;
+
+        ExtremaTree(long[] values) {
+            mSize = values.length;
+            int leaves = 1;
+            while (leaves < mSize) {
+                leaves <<= 1;
+            }
+            mLeaves = leaves;
+            mMin = new long[2 * leaves];
+            mMax = new long[2 * leaves];
+            // the leaves past the values never match a bound
+            Arrays.fill(mMin, Long.MAX_VALUE);
+            Arrays.fill(mMax, Long.MIN_VALUE);
+            for (int i = 0; i < mSize; i++) {
+                mMin[leaves + i] = mMax[leaves + i] = values[i];
+            }
+            for (int node = leaves - 1; node > 0; node--) {
+                mMin[node] = Math.min(mMin[2 * node], mMin[2 * node + 1]);
+                mMax[node] = Math.max(mMax[2 * node], mMax[2 * node + 1]);
+            }
+        }
+
+        /**
+         * Changes the value at the given index.
+         */
+        void set(int index, long value) {
+            int node = mLeaves + index;
+            mMin[node] = mMax[node] = value;
+            for (node >>= 1; node > 0; node >>= 1) {
+                mMin[node] = Math.min(mMin[2 * node], mMin[2 * node + 1]);
+                mMax[node] = Math.max(mMax[2 * node], mMax[2 * node + 1]);
+            }
+        }
+
+        /**
+         * @return The first index, from the given one, of a value that is at least the bound, or
+         * the size of the array if there's none.
+         */
+        int firstAtLeast(int index, long bound) {
+            return first(index, bound, true);
+        }
+
+        /**
+         * @return The first index, from the given one, of a value that is at most the bound, or
+         * the size of the array if there's none.
+         */
+        int firstAtMost(int index, long bound) {
+            return first(index, bound, false);
+        }
 
+        private int first(int index, long bound, boolean atLeast) {
+            if (index >= mSize) {
+                return mSize;
+            }
+            int node = mLeaves + index;
+            // move right through the subtrees that follow the index, then down into the first
+            // one with a match
+            while (!matches(node, bound, atLeast)) {
+                while ((node & 1) == 1) {
+                    node >>= 1;
+                }
+                if (node == 0) {
+                    return mSize;
+                }
+                ++node;
+            }
+            while (node < mLeaves) {
+                node = matches(2 * node, bound, atLeast) ? 2 * node : 2 * node + 1;
+            }
+            return node - mLeaves;
+        }
+
+        private boolean matches(int node, long bound, boolean atLeast) {
+            return atLeast ? mMax[node] >= bound : mMin[node] <= bound;
+        }
+    }
 }
@@ -0,0 +1,515 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.model;
+
+import com.meetingcpp.sched.Config;
+import com.meetingcpp.sched.provider.ScheduleContract;
+import com.meetingcpp.sched.provider.ScheduleContract.Sessions;
+import com.meetingcpp.sched.provider.ScheduleContractHelper;
+import com.meetingcpp.sched.settings.SettingsUtils;
+import com.meetingcpp.sched.util.AccountUtils;
+import com.meetingcpp.sched.util.UIUtils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.preference.PreferenceManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.meetingcpp.sched.util.LogUtils.LOGD;
+import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
+
+/**
+ * Keeps the merged schedule of each conference day, as built by {@link ScheduleHelper}, so that
+ * My Schedule shows the days it has already built right away, instead of querying them again
+ * every time it resumes or changes tab.
+ * <p/>
+ * The days are built concurrently on a small executor. Each day is kept with the data versions of
+ * {@link ScheduleContract#METHOD_GET_DATA_VERSIONS} it was built at, and built again when they
+ * change, when the attendee preference or the active account change, or when time makes it out
+ * of date, e.g. a free block is over. When a session is starred or its feedback given, the days
+ * whose sessions and feedback are still the same are only moved to the new versions, so only the
+ * day of that session is built again.
+ * <p/>
+ * All the methods must be called from the main thread, where the callbacks are called too.
+ */
+public class ScheduleSnapshots {
+
+    private static final String TAG = makeLogTag(ScheduleSnapshots.class);
+
+    private static final int THREADS = 2;
+
+    // Collections whose changes may affect any day
+    private static final HashSet<String> DATA_COLLECTIONS = new HashSet<String>(Arrays.asList(
+            collectionOf(ScheduleContract.Blocks.CONTENT_URI),
+            collectionOf(ScheduleContract.Rooms.CONTENT_URI),
+            collectionOf(ScheduleContract.Speakers.CONTENT_URI),
+            collectionOf(ScheduleContract.Tags.CONTENT_URI)));
+
+    // Collections whose changes only affect the days of the sessions they concern
+    private static final HashSet<String> USER_COLLECTIONS = new HashSet<String>(Arrays.asList(
+            collectionOf(ScheduleContract.MySchedule.CONTENT_URI),
+            collectionOf(ScheduleContract.MyFeedbackSubmitted.CONTENT_URI),
+            collectionOf(ScheduleContract.Feedback.CONTENT_URI)));
+
+    private static ScheduleSnapshots sInstance;
+
+    public interface Callback {
+        /**
+         * Called with the items of a day when they are loaded, and again whenever they change.
+         * The list is shared, so it must not be modified.
+         */
+        void onScheduleDayLoaded(int dayIndex, ArrayList<ScheduleItem> items);
+    }
+
+    private final Context mContext;
+
+    private final ScheduleHelper mHelper;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(THREADS);
+
+    private final ArrayList<Callback> mCallbacks = new ArrayList<Callback>();
+
+    // The fields below are guarded by this
+
+    private final Snapshot[] mSnapshots = new Snapshot[Config.CONFERENCE_DAYS.length];
+
+    private final boolean[] mLoading = new boolean[Config.CONFERENCE_DAYS.length];
+
+    // Whether the data changed while the day was loading, in a way its key may not tell
+    private final boolean[] mStale = new boolean[Config.CONFERENCE_DAYS.length];
+
+    private boolean mCheckPending;
+
+    private ScheduleSnapshots(Context context) {
+        mContext = context;
+        mHelper = new ScheduleHelper(context);
+        context.getContentResolver().registerContentObserver(
+                ScheduleContract.BASE_CONTENT_URI, true, mObserver);
+        PreferenceManager.getDefaultSharedPreferences(context)
+                .registerOnSharedPreferenceChangeListener(mPrefChangeListener);
+    }
+
+    public static synchronized ScheduleSnapshots getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ScheduleSnapshots(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Registers a callback to be called with the days loaded from now on, including the ones
+     * built again after a change.
+     */
+    public void addCallback(Callback callback) {
+        mCallbacks.add(callback);
+    }
+
+    public void removeCallback(Callback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    /**
+     * Loads all the days. The days that are up to date are passed to the callbacks before this
+     * returns, the others once they are built.
+     */
+    public void loadDays() {
+        loadDays(allDays());
+    }
+
+    /**
+     * Builds all the days again the next time they are loaded, and right away if there are
+     * callbacks.
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            for (int day = 0; day < mSnapshots.length; day++) {
+                mSnapshots[day] = null;
+                mStale[day] = mLoading[day];
+            }
+        }
+        reloadIfObserved(allDays());
+    }
+
+    private void loadDays(List<Integer> days) {
+        Key key = currentKey();
+        for (int day : days) {
+            loadDay(day, key);
+        }
+    }
+
+    private void loadDay(final int day, final Key key) {
+        synchronized (this) {
+            Snapshot snapshot = mSnapshots[day];
+            if (snapshot != null && snapshot.isValid(key, UIUtils.getCurrentTime(mContext))) {
+                deliver(day, snapshot.items);
+                return;
+            }
+            if (mLoading[day]) {
+                // delivered when that load is done
+                return;
+            }
+            mLoading[day] = true;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                build(day, key);
+            }
+        });
+    }
+
+    private void build(final int day, Key key) {
+        long start = Config.CONFERENCE_DAYS[day][0];
+        long end = Config.CONFERENCE_DAYS[day][1];
+        ArrayList<ScheduleItem> items = mHelper.getScheduleData(start, end);
+        final Snapshot snapshot = new Snapshot(key, items, expiresAt(items));
+        Key latestKey = currentKey();
+
+        boolean current;
+        synchronized (this) {
+            mLoading[day] = false;
+            current = !mStale[day] && (key == null ? latestKey == null : key.equals(latestKey));
+            mStale[day] = false;
+            // without data versions, the items are delivered but not kept
+            if (current && key != null) {
+                mSnapshots[day] = snapshot;
+            }
+        }
+        if (current) {
+            LOGD(TAG, "Built day " + day + " with " + items.size() + " items.");
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(day, snapshot.items);
+                }
+            });
+        } else {
+            // changed while being built, so build it again
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    loadDays(Collections.singletonList(day));
+                }
+            });
+        }
+    }
+
+    private void deliver(int day, ArrayList<ScheduleItem> items) {
+        for (Callback callback : new ArrayList<Callback>(mCallbacks)) {
+            callback.onScheduleDayLoaded(day, items);
+        }
+    }
+
+    private void reloadIfObserved(List<Integer> days) {
+        if (!mCallbacks.isEmpty()) {
+            loadDays(days);
+        }
+    }
+
+    /**
+     * @return What the days depend on, besides time, or null if the data versions are unknown.
+     */
+    private Key currentKey() {
+        Bundle versions = mContext.getContentResolver().call(ScheduleContract.BASE_CONTENT_URI,
+                ScheduleContract.METHOD_GET_DATA_VERSIONS, null, null);
+        if (versions == null) {
+            return null;
+        }
+        return new Key(AccountUtils.getActiveAccountName(mContext),
+                SettingsUtils.isAttendeeAtVenue(mContext),
+                versions.getLong(ScheduleContract.EXTRA_CONFERENCE_DATA_VERSION),
+                versions.getLong(ScheduleContract.EXTRA_MY_SCHEDULE_VERSION));
+    }
+
+    private long expiresAt(ArrayList<ScheduleItem> items) {
+        long now = UIUtils.getCurrentTime(mContext);
+        // only live sessions are counted for remote attendees until the conference ends
+        long expiresAt = now < Config.CONFERENCE_END_MILLIS
+                ? Config.CONFERENCE_END_MILLIS : Long.MAX_VALUE;
+        for (ScheduleItem item : items) {
+            // free blocks are removed once they are over
+            if (item.type == ScheduleItem.FREE) {
+                expiresAt = Math.min(expiresAt, item.endTime + 1);
+            }
+        }
+        return expiresAt;
+    }
+
+    /**
+     * Compares the sessions in the schedule of each day, and their feedback, with the ones of its
+     * snapshot. The days that are the same are moved to the current data versions, and the others
+     * are built again.
+     */
+    private void checkUserData() {
+        synchronized (this) {
+            mCheckPending = false;
+        }
+        // taken before the query, so that a later change still makes the days out of date
+        Key key = currentKey();
+        if (key == null) {
+            return;
+        }
+        List<HashSet<String>> userData = queryUserData(key.accountName);
+
+        final List<Integer> changedDays;
+        synchronized (this) {
+            changedDays = findChangedDays(mSnapshots, key, userData);
+            for (int day = 0; day < mSnapshots.length; day++) {
+                if (!changedDays.contains(day)) {
+                    mSnapshots[day] = mSnapshots[day].withKey(key);
+                }
+            }
+        }
+        if (!changedDays.isEmpty()) {
+            LOGD(TAG, "User data changed on days " + changedDays);
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    reloadIfObserved(changedDays);
+                }
+            });
+        }
+    }
+
+    private List<HashSet<String>> queryUserData(String accountName) {
+        List<HashSet<String>> userData = new ArrayList<HashSet<String>>();
+        for (int day = 0; day < Config.CONFERENCE_DAYS.length; day++) {
+            userData.add(new HashSet<String>());
+        }
+        Cursor cursor = mContext.getContentResolver().query(
+                ScheduleContractHelper.addOverrideAccountName(Sessions.CONTENT_MY_SCHEDULE_URI,
+                        accountName),
+                UserDataQuery.PROJECTION, null, null, null);
+        if (cursor == null) {
+            return userData;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                int day = dayOf(Config.CONFERENCE_DAYS,
+                        cursor.getLong(UserDataQuery.SESSION_START));
+                if (day >= 0) {
+                    userData.get(day).add(userDataOf(cursor.getString(UserDataQuery.SESSION_ID),
+                            cursor.getInt(UserDataQuery.HAS_GIVEN_FEEDBACK) > 0));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return userData;
+    }
+
+    /**
+     * Returns the days whose snapshot is missing, was built for other conference data, account or
+     * attendee preference than the given key, or doesn't have the given sessions and feedback in
+     * its schedule.
+     */
+    static List<Integer> findChangedDays(Snapshot[] snapshots, Key key,
+            List<HashSet<String>> userData) {
+        List<Integer> changedDays = new ArrayList<Integer>();
+        for (int day = 0; day < snapshots.length; day++) {
+            Snapshot snapshot = snapshots[day];
+            if (snapshot == null || !snapshot.key.hasSameDataAs(key)
+                    || !snapshot.getUserData().equals(userData.get(day))) {
+                changedDays.add(day);
+            }
+        }
+        return changedDays;
+    }
+
+    /**
+     * @return The index of the day a session starting at the given time is shown on, selected as
+     * in {@link ScheduleHelper}, or -1 if it's not on any of the days.
+     */
+    static int dayOf(long[][] days, long sessionStart) {
+        for (int day = 0; day < days.length; day++) {
+            if (sessionStart >= days[day][0] && sessionStart <= days[day][1]) {
+                return day;
+            }
+        }
+        return -1;
+    }
+
+    static String userDataOf(String sessionId, boolean hasGivenFeedback) {
+        return sessionId + ":" + hasGivenFeedback;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static String collectionOf(Uri uri) {
+        List<String> segments = uri.getPathSegments();
+        return segments.isEmpty() ? "" : segments.get(0);
+    }
+
+    private static List<Integer> allDays() {
+        List<Integer> days = new ArrayList<Integer>();
+        for (int day = 0; day < Config.CONFERENCE_DAYS.length; day++) {
+            days.add(day);
+        }
+        return days;
+    }
+
+    private void onContentChanged(Uri uri) {
+        List<String> segments = uri == null ? null : uri.getPathSegments();
+        String collection = segments == null ? null : collectionOf(uri);
+        boolean sessionsPath = collectionOf(Sessions.CONTENT_URI).equals(collection);
+        if (segments != null && (USER_COLLECTIONS.contains(collection)
+                || (sessionsPath && segments.size() > 1))) {
+            // a session was starred, or its feedback given
+            synchronized (this) {
+                if (mCheckPending) {
+                    return;
+                }
+                mCheckPending = true;
+            }
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    checkUserData();
+                }
+            });
+        } else if (segments == null || segments.isEmpty() || sessionsPath
+                || DATA_COLLECTIONS.contains(collection)) {
+            LOGD(TAG, "Conference data changed: " + uri);
+            invalidateAll();
+        }
+    }
+
+    private final ContentObserver mObserver = new ContentObserver(mHandler) {
+        @Override
+        public void onChange(boolean selfChange) {
+            // older platforms don't tell which URI changed
+            onContentChanged(null);
+        }
+
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            onContentChanged(uri);
+        }
+    };
+
+    // Held here, as the preferences only keep weak references to their listeners
+    private final SharedPreferences.OnSharedPreferenceChangeListener mPrefChangeListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences sp, String key) {
+                    // breaks and live sessions are shown depending on it
+                    if (SettingsUtils.PREF_ATTENDEE_AT_VENUE.equals(key)) {
+                        reloadIfObserved(allDays());
+                    }
+                }
+            };
+
+    static final class Key {
+        final String accountName;
+        final boolean attendeeAtVenue;
+        final long conferenceDataVersion;
+        final long myScheduleVersion;
+
+        Key(String accountName, boolean attendeeAtVenue, long conferenceDataVersion,
+                long myScheduleVersion) {
+            this.accountName = accountName;
+            this.attendeeAtVenue = attendeeAtVenue;
+            this.conferenceDataVersion = conferenceDataVersion;
+            this.myScheduleVersion = myScheduleVersion;
+        }
+
+        /**
+         * @return Whether the other key only differs in the version of My Schedule, if at all.
+         */
+        boolean hasSameDataAs(Key other) {
+            return equal(accountName, other.accountName)
+                    && attendeeAtVenue == other.attendeeAtVenue
+                    && conferenceDataVersion == other.conferenceDataVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hasSameDataAs(other) && myScheduleVersion == other.myScheduleVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = accountName == null ? 0 : accountName.hashCode();
+            result = 31 * result + (attendeeAtVenue ? 1 : 0);
+            result = 31 * result + (int) (conferenceDataVersion ^ (conferenceDataVersion >>> 32));
+            return 31 * result + (int) (myScheduleVersion ^ (myScheduleVersion >>> 32));
+        }
+    }
+
+    static final class Snapshot {
+        final Key key;
+        final ArrayList<ScheduleItem> items;
+        final long expiresAt;
+
+        Snapshot(Key key, ArrayList<ScheduleItem> items, long expiresAt) {
+            this.key = key;
+            this.items = items;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValid(Key currentKey, long now) {
+            return key.equals(currentKey) && now < expiresAt;
+        }
+
+        Snapshot withKey(Key newKey) {
+            return new Snapshot(newKey, items, expiresAt);
+        }
+
+        HashSet<String> getUserData() {
+            HashSet<String> userData = new HashSet<String>();
+            for (ScheduleItem item : items) {
+                if (item.type == ScheduleItem.SESSION) {
+                    userData.add(userDataOf(item.sessionId, item.hasGivenFeedback));
+                }
+            }
+            return userData;
+        }
+    }
+
+    private interface UserDataQuery {
+        String[] PROJECTION = {
+                Sessions.SESSION_ID,
+                Sessions.SESSION_START,
+                Sessions.HAS_GIVEN_FEEDBACK
+        };
+
+        int SESSION_ID = 0;
+        int SESSION_START = 1;
+        int HAS_GIVEN_FEEDBACK = 2;
+    }
+}
@@ -18,14 +18,13 @@ package com.meetingcpp.sched.myschedule;
 
 import com.meetingcpp.sched.Config;
 import com.meetingcpp.sched.R;
-import com.meetingcpp.sched.model.ScheduleHelper;
 import com.meetingcpp.sched.model.ScheduleItem;
+import com.meetingcpp.sched.model.ScheduleSnapshots;
 import com.meetingcpp.sched.provider.ScheduleContract;
 import com.meetingcpp.sched.session.SessionDetailActivity;
 import com.meetingcpp.sched.settings.SettingsUtils;
 import com.meetingcpp.sched.ui.BaseActivity;
 import com.meetingcpp.sched.util.AnalyticsHelper;
-import com.meetingcpp.sched.util.ThrottledContentObserver;
 import com.meetingcpp.sched.util.TimeUtils;
 import com.meetingcpp.sched.util.UIUtils;
 
@@ -36,7 +35,6 @@ import android.app.ListFragment;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -58,6 +56,7 @@ import android.widget.ScrollView;
 import android.widget.TextView;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
@@ -93,8 +92,8 @@ public class MyScheduleActivity extends BaseActivity implements MyScheduleFragme
     // If non-null, the Activity will show day-0 tab (or column).
     private MyScheduleAdapter mDayZeroAdapter;
 
-    // The ScheduleHelper is responsible for feeding data in a format suitable to the Adapter.
-    private ScheduleHelper mDataHelper;
+    // The snapshots feed the adapters with the data of each day, built by the ScheduleHelper.
+    private ScheduleSnapshots mSnapshots;
 
     // View pager and adapter (for narrow mode)
     ViewPager mViewPager = null;
@@ -129,10 +128,6 @@ public class MyScheduleActivity extends BaseActivity implements MyScheduleFragme
 
     private int mViewPagerScrollState = ViewPager.SCROLL_STATE_IDLE;
 
-    public MyScheduleActivity() {
-        mDataHelper = new ScheduleHelper(this);
-    }
-
     @Override
     protected int getSelfNavDrawerItem() {
         return NAVDRAWER_ITEM_MY_SCHEDULE;
@@ -253,6 +248,7 @@ public class MyScheduleActivity extends BaseActivity implements MyScheduleFragme
         removeLoginFailed();
 
         overridePendingTransition(0, 0);
+        mSnapshots = ScheduleSnapshots.getInstance(this);
         addDataObservers();
     }
 
@@ -448,10 +444,8 @@ public class MyScheduleActivity extends BaseActivity implements MyScheduleFragme
     }
 
     protected void updateData() {
-        for (int i = 0; i < Config.CONFERENCE_DAYS.length; i++) {
-            mDataHelper.getScheduleDataAsync(mScheduleAdapters[i],
-                    Config.CONFERENCE_DAYS[i][0], Config.CONFERENCE_DAYS[i][1]);
-        }
+        // the days already built are shown right away, the others once they are built
+        mSnapshots.loadDays();
     }
 
     @Override
@@ -516,15 +510,15 @@ public class MyScheduleActivity extends BaseActivity implements MyScheduleFragme
     }
 
     protected void addDataObservers() {
-        getContentResolver().registerContentObserver(
-                ScheduleContract.BASE_CONTENT_URI, true, mObserver);
+        // called again whenever a day changes
+        mSnapshots.addCallback(mSnapshotsCallback);
 
         SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(this);
         sp.registerOnSharedPreferenceChangeListener(mPrefChangeListener);
     }
 
     public void removeDataObservers() {
-        getContentResolver().unregisterContentObserver(mObserver);
+        mSnapshots.removeCallback(mSnapshotsCallback);
 
         SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(this);
         sp.unregisterOnSharedPreferenceChangeListener(mPrefChangeListener);
@@ -534,25 +528,24 @@ public class MyScheduleActivity extends BaseActivity implements MyScheduleFragme
             new SharedPreferences.OnSharedPreferenceChangeListener() {
                 @Override
                 public void onSharedPreferenceChanged(SharedPreferences sp, String key) {
-                    LOGD(TAG, "sharedpreferences key " + key + " changed, maybe reloading data.");
+                    LOGD(TAG, "sharedpreferences key " + key + " changed, maybe redrawing.");
+                    // the snapshots are built again on changes of the attendee preference
                     for (MyScheduleAdapter adapter : mScheduleAdapters) {
                         if (SettingsUtils.PREF_LOCAL_TIMES.equals(key)) {
                             adapter.forceUpdate();
-                        } else if (SettingsUtils.PREF_ATTENDEE_AT_VENUE.equals(key)) {
-                            updateData();
                         }
                     }
                 }
             };
 
-    private final ContentObserver mObserver = new ThrottledContentObserver(
-            new ThrottledContentObserver.Callbacks() {
+    private final ScheduleSnapshots.Callback mSnapshotsCallback =
+            new ScheduleSnapshots.Callback() {
                 @Override
-                public void onThrottledContentObserverFired() {
-                    LOGD(TAG, "content may be changed, reloading data");
-                    updateData();
+                public void onScheduleDayLoaded(int dayIndex, ArrayList<ScheduleItem> items) {
+                    LOGD(TAG, "Schedule of day " + dayIndex + " loaded");
+                    mScheduleAdapters[dayIndex].updateItems(items);
                 }
-            });
+            };
 
     /**
      * If in conference day, redraw the day's UI every @{link #INTERVAL_TO_REDRAW_UI} ms, so
@@ -597,7 +590,8 @@ public class MyScheduleActivity extends BaseActivity implements MyScheduleFragme
                     && activity.mScheduleAdapters.length > today
                     && activity.mScheduleAdapters[today] != null) {
                 try {
-                    activity.mScheduleAdapters[today].forceUpdate();
+                    // redraws the days, and builds again the ones that are out of date
+                    activity.updateData();
                 } finally {
                     // schedule again
                     this.scheduleNextRun();
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.provider;
+
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Inserts rows through compiled INSERT statements, binding the values by position. A statement
+ * is kept for each table and set of columns, and reused for all the rows that have them.
+ * {@link SQLiteDatabase#insertOrThrow} finds the statement compiled for the same SQL in the cache
+ * of the connection too, but it builds the SQL, a statement and its arguments for every row;
+ * BulkInserterBenchmark measures the difference.
+ * <p/>
+ * An inserter is meant for the rows of a single transaction, on the thread that owns it. Call
+ * {@link #close()} before ending the transaction.
+ */
+class BulkInserter {
+
+    private final SQLiteDatabase mDb;
+
+    // compiled statements, by table and sorted columns
+    private final HashMap<String, SQLiteStatement> mStatements =
+            new HashMap<String, SQLiteStatement>();
+
+    // the sorted columns of each statement
+    private final HashMap<String, String[]> mColumns = new HashMap<String, String[]>();
+
+    private int mInserted = 0;
+
+    BulkInserter(SQLiteDatabase db) {
+        mDb = db;
+    }
+
+    /**
+     * Inserts a row in the given table.
+     *
+     * @return The row ID of the new row.
+     * @throws android.database.SQLException If the row can't be inserted.
+     */
+    long insert(String table, ContentValues values) {
+        Set<String> keySet = values.keySet();
+        String[] columns = keySet.toArray(new String[keySet.size()]);
+        Arrays.sort(columns);
+
+        StringBuilder key = new StringBuilder(table);
+        for (String column : columns) {
+            key.append(',').append(column);
+        }
+        String statementKey = key.toString();
+
+        SQLiteStatement statement = mStatements.get(statementKey);
+        if (statement == null) {
+            statement = mDb.compileStatement(buildInsertSql(table, columns));
+            mStatements.put(statementKey, statement);
+            mColumns.put(statementKey, columns);
+        } else {
+            columns = mColumns.get(statementKey);
+        }
+
+        statement.clearBindings();
+        for (int i = 0; i < columns.length; i++) {
+            DatabaseUtils.bindObjectToProgram(statement, i + 1, values.get(columns[i]));
+        }
+        ++mInserted;
+        return statement.executeInsert();
+    }
+
+    /**
+     * @return The number of rows inserted so far.
+     */
+    int getInsertedCount() {
+        return mInserted;
+    }
+
+    /**
+     * @return The number of statements compiled so far.
+     */
+    int getStatementCount() {
+        return mStatements.size();
+    }
+
+    /**
+     * Releases the compiled statements.
+     */
+    void close() {
+        for (SQLiteStatement statement : mStatements.values()) {
+            statement.close();
+        }
+        mStatements.clear();
+        mColumns.clear();
+    }
+
+    private static String buildInsertSql(String table, String[] columns) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table);
+        if (columns.length == 0) {
+            return sql.append(" DEFAULT VALUES").toString();
+        }
+        sql.append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i > 0 ? "," : "").append(columns[i]);
+        }
+        sql.append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i > 0 ? ",?" : "?");
+        }
+        return sql.append(')').toString();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.provider;
+
+import com.meetingcpp.sched.appwidget.ScheduleWidgetProvider;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.LinkedHashSet;
+
+import static com.meetingcpp.sched.util.LogUtils.LOGV;
+import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
+
+/**
+ * Coalesces the change notifications of the provider. The URIs changed within a short window,
+ * or within a batch of operations, are notified once each, followed by a single refresh of the
+ * widgets, instead of a notification and a widget refresh for every write.
+ * <p/>
+ * Batches are tracked for each thread: the URIs changed by a batch are held until
+ * {@link #endBatch()}, and then notified right away, together with the ones already pending.
+ */
+class ChangeNotifier {
+
+    private static final String TAG = makeLogTag(ChangeNotifier.class);
+
+    // Time that single writes wait for others to notify with them
+    static final long COALESCE_WINDOW_MS = 100;
+
+    private final Context mContext;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // URIs to notify on the next flush, guarded by this
+    private LinkedHashSet<Uri> mPendingUris = new LinkedHashSet<Uri>();
+
+    // URIs changed by the batch being applied on each thread, if any
+    private final ThreadLocal<LinkedHashSet<Uri>> mBatchUris =
+            new ThreadLocal<LinkedHashSet<Uri>>();
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    ChangeNotifier(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Starts holding the URIs changed on this thread until {@link #endBatch()}.
+     *
+     * @return Whether this call started the batch, so the caller must end it. Nested batches are
+     * part of the outer one.
+     */
+    boolean beginBatch() {
+        if (mBatchUris.get() != null) {
+            return false;
+        }
+        mBatchUris.set(new LinkedHashSet<Uri>());
+        return true;
+    }
+
+    /**
+     * Notifies the URIs changed by the batch of this thread, and any pending ones.
+     */
+    void endBatch() {
+        LinkedHashSet<Uri> batchUris = mBatchUris.get();
+        mBatchUris.remove();
+        if (batchUris == null || batchUris.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            mPendingUris.addAll(batchUris);
+        }
+        mHandler.removeCallbacks(mFlushRunnable);
+        flush();
+    }
+
+    /**
+     * Notifies a change of the given URI, after the batch of this thread ends if there's one, or
+     * else after {@link #COALESCE_WINDOW_MS}.
+     */
+    void notifyChange(Uri uri) {
+        LinkedHashSet<Uri> batchUris = mBatchUris.get();
+        if (batchUris != null) {
+            batchUris.add(uri);
+            return;
+        }
+        boolean schedule;
+        synchronized (this) {
+            schedule = mPendingUris.isEmpty();
+            mPendingUris.add(uri);
+        }
+        if (schedule) {
+            mHandler.postDelayed(mFlushRunnable, COALESCE_WINDOW_MS);
+        }
+    }
+
+    private void flush() {
+        LinkedHashSet<Uri> uris;
+        synchronized (this) {
+            if (mPendingUris.isEmpty()) {
+                return;
+            }
+            uris = mPendingUris;
+            mPendingUris = new LinkedHashSet<Uri>();
+        }
+        LOGV(TAG, "Notifying " + uris.size() + " changed URIs.");
+        ContentResolver resolver = mContext.getContentResolver();
+        for (Uri uri : uris) {
+            resolver.notifyChange(uri, null);
+        }
+
+        // Widgets can't register content observers so we refresh widgets separately.
+        mContext.sendBroadcast(ScheduleWidgetProvider.getRefreshBroadcastIntent(mContext, false));
+    }
+}
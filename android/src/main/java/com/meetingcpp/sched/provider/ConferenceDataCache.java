@@ -0,0 +1,269 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.provider;
+
+import com.meetingcpp.sched.provider.ScheduleContract.Blocks;
+import com.meetingcpp.sched.provider.ScheduleContract.Rooms;
+import com.meetingcpp.sched.provider.ScheduleContract.Speakers;
+import com.meetingcpp.sched.provider.ScheduleContract.Tags;
+import com.meetingcpp.sched.provider.ScheduleDatabase.Tables;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * In-memory snapshot of the conference data tables that don't depend on the user: blocks,
+ * rooms, tags and speakers. They only change when conference data is synced, yet most screens
+ * read them, so the provider answers the plain queries of these tables from here instead of
+ * reading them from the database every time.
+ * <p/>
+ * A snapshot is read at a given version of the conference data, and is immutable, so it can be
+ * shared by the threads that query the provider.
+ */
+class ConferenceDataCache {
+
+    /**
+     * The rows of a table, in the order of its primary key, or of {@link Blocks#BLOCK_START} for
+     * the blocks.
+     */
+    private static class Table {
+
+        final String[] mColumns;
+
+        final HashMap<String, Integer> mColumnIndexes = new HashMap<String, Integer>();
+
+        final Object[][] mRows;
+
+        // the rows by the value of their ID column
+        final HashMap<String, Object[]> mRowsById = new HashMap<String, Object[]>();
+
+        Table(String[] columns, Object[][] rows, String idColumn) {
+            mColumns = columns;
+            mRows = rows;
+            for (int i = 0; i < columns.length; i++) {
+                mColumnIndexes.put(columns[i], i);
+            }
+            int idIndex = mColumnIndexes.get(idColumn);
+            for (Object[] row : rows) {
+                mRowsById.put(String.valueOf(row[idIndex]), row);
+            }
+        }
+    }
+
+    private final long mVersion;
+
+    private final Table mBlocks;
+
+    private final Table mRooms;
+
+    private final Table mTags;
+
+    private final Table mSpeakers;
+
+    // BLOCK_START of each block, in the order of the rows
+    private final long[] mBlockStarts;
+
+    private ConferenceDataCache(long version, Table blocks, Table rooms, Table tags,
+            Table speakers) {
+        mVersion = version;
+        mBlocks = blocks;
+        mRooms = rooms;
+        mTags = tags;
+        mSpeakers = speakers;
+        int startIndex = blocks.mColumnIndexes.get(Blocks.BLOCK_START);
+        mBlockStarts = new long[blocks.mRows.length];
+        for (int i = 0; i < mBlockStarts.length; i++) {
+            Object start = blocks.mRows[i][startIndex];
+            mBlockStarts[i] = start == null ? 0 : ((Number) start).longValue();
+        }
+    }
+
+    /**
+     * Reads the snapshot from the database.
+     *
+     * @param version The version of the conference data being read.
+     */
+    static ConferenceDataCache build(SQLiteDatabase db, long version) {
+        return new ConferenceDataCache(version,
+                readTable(db, Tables.BLOCKS, Blocks.BLOCK_ID,
+                        Blocks.BLOCK_START + "," + BaseColumns._ID),
+                readTable(db, Tables.ROOMS, Rooms.ROOM_ID, BaseColumns._ID),
+                readTable(db, Tables.TAGS, Tags.TAG_ID, BaseColumns._ID),
+                readTable(db, Tables.SPEAKERS, Speakers.SPEAKER_ID, BaseColumns._ID));
+    }
+
+    private static Table readTable(SQLiteDatabase db, String table, String idColumn,
+            String orderBy) {
+        Cursor cursor = db.query(table, null, null, null, null, null, orderBy);
+        try {
+            String[] columns = cursor.getColumnNames();
+            Object[][] rows = new Object[cursor.getCount()][];
+            for (int r = 0; cursor.moveToNext(); r++) {
+                Object[] row = new Object[columns.length];
+                for (int c = 0; c < columns.length; c++) {
+                    switch (cursor.getType(c)) {
+                        case Cursor.FIELD_TYPE_INTEGER:
+                            row[c] = cursor.getLong(c);
+                            break;
+                        case Cursor.FIELD_TYPE_FLOAT:
+                            row[c] = cursor.getDouble(c);
+                            break;
+                        case Cursor.FIELD_TYPE_STRING:
+                            row[c] = cursor.getString(c);
+                            break;
+                        case Cursor.FIELD_TYPE_BLOB:
+                            row[c] = cursor.getBlob(c);
+                            break;
+                        default:
+                            row[c] = null;
+                    }
+                }
+                rows[r] = row;
+            }
+            return new Table(columns, rows, idColumn);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return The version of the conference data this snapshot was read from.
+     */
+    long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Returns whether the given URI, queried with no selection, can be answered from the
+     * snapshot.
+     */
+    static boolean isCached(ScheduleUriEnum uriEnum) {
+        switch (uriEnum) {
+            case BLOCKS:
+            case BLOCKS_BETWEEN:
+            case BLOCKS_ID:
+            case ROOMS:
+            case ROOMS_ID:
+            case TAGS:
+            case TAGS_ID:
+            case SPEAKERS:
+            case SPEAKERS_ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the rows of all the blocks, or of all the rooms, tags or speakers.
+     *
+     * @param uriEnum One of {@link ScheduleUriEnum#BLOCKS}, {@link ScheduleUriEnum#ROOMS},
+     *                {@link ScheduleUriEnum#TAGS} or {@link ScheduleUriEnum#SPEAKERS}.
+     * @return The rows, or null if the projection has columns that the table doesn't have.
+     */
+    Cursor queryAll(ScheduleUriEnum uriEnum, String[] projection) {
+        Table table = getTable(uriEnum);
+        return makeCursor(table, projection, table.mRows, 0, table.mRows.length);
+    }
+
+    /**
+     * Returns the row of the block, room, tag or speaker with the given ID, if any.
+     *
+     * @return The rows, or null if the projection has columns that the table doesn't have.
+     */
+    Cursor queryById(ScheduleUriEnum uriEnum, String id, String[] projection) {
+        Table table = getTable(uriEnum);
+        Object[] row = table.mRowsById.get(id);
+        if (row == null) {
+            return makeCursor(table, projection, new Object[0][], 0, 0);
+        }
+        return makeCursor(table, projection, new Object[][]{row}, 0, 1);
+    }
+
+    /**
+     * Returns the blocks that start between the given times, inclusive, by their start.
+     *
+     * @return The rows, or null if the projection has columns that the blocks don't have.
+     */
+    Cursor queryBlocksBetween(long startTime, long endTime, String[] projection) {
+        int from = lowerBound(mBlockStarts, startTime);
+        int to = lowerBound(mBlockStarts, endTime + 1);
+        return makeCursor(mBlocks, projection, mBlocks.mRows, from, Math.max(from, to));
+    }
+
+    private Table getTable(ScheduleUriEnum uriEnum) {
+        switch (uriEnum) {
+            case BLOCKS:
+            case BLOCKS_BETWEEN:
+            case BLOCKS_ID:
+                return mBlocks;
+            case ROOMS:
+            case ROOMS_ID:
+                return mRooms;
+            case TAGS:
+            case TAGS_ID:
+                return mTags;
+            case SPEAKERS:
+            case SPEAKERS_ID:
+                return mSpeakers;
+            default:
+                throw new IllegalArgumentException("Not cached: " + uriEnum);
+        }
+    }
+
+    // Index of the first value that is at least the given one
+    private static int lowerBound(long[] values, long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // the first of equal values
+        while (index > 0 && values[index - 1] == value) {
+            --index;
+        }
+        return index;
+    }
+
+    private static Cursor makeCursor(Table table, String[] projection, Object[][] rows,
+            int from, int to) {
+        if (projection == null) {
+            projection = table.mColumns;
+        }
+        int[] indexes = new int[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            Integer index = table.mColumnIndexes.get(projection[i]);
+            if (index == null) {
+                return null;
+            }
+            indexes[i] = index;
+        }
+        MatrixCursor cursor = new MatrixCursor(projection, to - from);
+        Object[] values = new Object[projection.length];
+        for (int r = from; r < to; r++) {
+            for (int i = 0; i < indexes.length; i++) {
+                values[i] = rows[r][indexes[i]];
+            }
+            cursor.addRow(values);
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.provider;
+
+import com.meetingcpp.sched.util.SelectionBuilder;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Runs {@code EXPLAIN QUERY PLAN} over the query of every URI pattern of
+ * {@link ScheduleProvider}, and flags the ones that scan a whole table to answer a lookup. A
+ * query that reads a whole collection, with no selection, is expected to scan its first table;
+ * any other scan means an index is missing.
+ * <p/>
+ * The queries are the ones built by the provider for the URIs, without the selection, sort
+ * order or tag filter that the callers may add.
+ */
+class QueryPlanAudit {
+
+    // Value of the * segments of the URIs; also a valid interval for the ones that take one
+    private static final String SAMPLE_SEGMENT = "1-2";
+
+    private final StringBuilder mReport = new StringBuilder();
+
+    private final ArrayList<String> mFullScanUris = new ArrayList<String>();
+
+    private QueryPlanAudit() {
+    }
+
+    /**
+     * Explains the queries of all the URI patterns.
+     */
+    static QueryPlanAudit run(ScheduleProvider provider, SQLiteDatabase db) {
+        QueryPlanAudit audit = new QueryPlanAudit();
+        for (ScheduleUriEnum uriEnum : ScheduleUriEnum.values()) {
+            audit.explain(provider, db, uriEnum);
+        }
+        return audit;
+    }
+
+    /**
+     * @return The plan of each query, with the full scans marked.
+     */
+    String getReport() {
+        return mReport.toString();
+    }
+
+    /**
+     * @return The names of the {@link ScheduleUriEnum}s whose queries scan a whole table to
+     * answer a lookup.
+     */
+    String[] getFullScanUris() {
+        return mFullScanUris.toArray(new String[mFullScanUris.size()]);
+    }
+
+    private void explain(ScheduleProvider provider, SQLiteDatabase db, ScheduleUriEnum uriEnum) {
+        Uri uri = ScheduleContract.BASE_CONTENT_URI.buildUpon()
+                .encodedPath("/" + uriEnum.path.replace("*", SAMPLE_SEGMENT)).build();
+        mReport.append(uriEnum.name()).append(" (").append(uriEnum.path).append(")\n");
+
+        SelectionBuilder builder;
+        try {
+            builder = provider.buildExpandedSelection(uri, uriEnum.code);
+        } catch (UnsupportedOperationException e) {
+            // queried in its own way, or not at all
+            mReport.append("  not a selection query\n");
+            return;
+        }
+        // select the mapped columns too, as the selection may refer to them
+        ArrayList<String> columns = new ArrayList<String>();
+        columns.add("*");
+        columns.addAll(Arrays.asList(builder.getMappedColumns()));
+        String sql = builder.buildQuery(false, columns.toArray(new String[columns.size()]),
+                null, null);
+        boolean hasSelection = !TextUtils.isEmpty(builder.getSelection());
+
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, builder.getSelectionArgs());
+        try {
+            // the detail is the last column in all versions of SQLite
+            int detailColumn = cursor.getColumnCount() - 1;
+            boolean fullScan = false;
+            for (int row = 0; cursor.moveToNext(); row++) {
+                String detail = cursor.getString(detailColumn);
+                boolean flagged = isFullScan(detail) && (row > 0 || hasSelection);
+                fullScan |= flagged;
+                mReport.append(flagged ? "! " : "  ").append(detail).append("\n");
+            }
+            if (fullScan) {
+                mFullScanUris.add(uriEnum.name());
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Returns whether a step of a query plan reads all the rows of a table, e.g.
+     * "SCAN TABLE sessions" or "SCAN sessions USING INDEX ...", as opposed to searching it
+     * through an index. Full-text tables are searched through their own index.
+     */
+    static boolean isFullScan(String detail) {
+        return detail.startsWith("SCAN ") && !detail.contains("VIRTUAL TABLE");
+    }
+}
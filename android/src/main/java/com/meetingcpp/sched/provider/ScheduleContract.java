@@ -300,10 +300,47 @@ public final class ScheduleContract {
 
     public static final Uri BASE_CONTENT_URI = Uri.parse("content://" + CONTENT_AUTHORITY);
 
+    /**
+     * Provider method that returns the number of queries answered from the in-memory cache of
+     * the conference data, in {@link #EXTRA_CACHE_HITS}, and of those that read the database
+     * instead, in {@link #EXTRA_CACHE_MISSES}. Only answered in debug builds.
+     */
+    public static final String METHOD_GET_CACHE_STATS = "get_cache_stats";
+
+    public static final String EXTRA_CACHE_HITS = "cache_hits";
+
+    public static final String EXTRA_CACHE_MISSES = "cache_misses";
+
+    /**
+     * Provider method that returns the versions of the data, which change whenever it's written:
+     * of the blocks, rooms, tags and speakers in {@link #EXTRA_CONFERENCE_DATA_VERSION}, and of
+     * the sessions and the user's schedule and feedback in {@link #EXTRA_MY_SCHEDULE_VERSION}.
+     * The versions are only comparable within the lifetime of the provider's process.
+     */
+    public static final String METHOD_GET_DATA_VERSIONS = "get_data_versions";
+
+    public static final String EXTRA_CONFERENCE_DATA_VERSION = "conference_data_version";
+
+    public static final String EXTRA_MY_SCHEDULE_VERSION = "my_schedule_version";
+
+    /**
+     * Provider method that explains the query of every URI pattern, and returns the plans in
+     * {@link #EXTRA_QUERY_PLANS} and the URI patterns whose queries scan a whole table to answer
+     * a lookup in {@link #EXTRA_FULL_SCAN_URIS}. For debugging and tests; only answered in debug
+     * builds.
+     */
+    public static final String METHOD_AUDIT_QUERY_PLANS = "audit_query_plans";
+
+    public static final String EXTRA_QUERY_PLANS = "query_plans";
+
+    public static final String EXTRA_FULL_SCAN_URIS = "full_scan_uris";
+
     private static final String PATH_BLOCKS = "blocks";
 
     private static final String PATH_AFTER = "after";
 
+    private static final String PATH_BETWEEN = "between";
+
     private static final String PATH_TAGS = "tags";
 
     private static final String PATH_ROOM = "room";
@@ -411,6 +448,16 @@ public final class ScheduleContract {
             return CONTENT_URI.buildUpon().appendPath(blockId).build();
         }
 
+        /**
+         * Build {@link Uri} that references the blocks that start between the given times,
+         * inclusive.
+         */
+        public static Uri buildBlocksBetweenDirUri(long startTime, long endTime) {
+            return CONTENT_URI.buildUpon().appendPath(PATH_BETWEEN)
+                    .appendPath(String.valueOf(startTime)).appendPath(String.valueOf(endTime))
+                    .build();
+        }
+
         /** Read {@link #BLOCK_ID} from {@link Blocks} {@link Uri}. */
         public static String getBlockId(Uri uri) {
             return uri.getPathSegments().get(1);
@@ -585,12 +632,24 @@ public final class ScheduleContract {
 
         public static final String SEARCH_SNIPPET = "search_snippet";
 
+        /**
+         * Relevance of a search result, higher is better. Only available on search URIs, see
+         * {@link #buildSearchUri(String)}.
+         */
+        public static final String SEARCH_RANK = "search_rank";
+
         public static final String HAS_GIVEN_FEEDBACK = "has_given_feedback";
 
         // ORDER BY clauses
         public static final String SORT_BY_TYPE_THEN_TIME = SESSION_GROUPING_ORDER + " ASC,"
                 + SESSION_START + " ASC," + SESSION_TITLE + " COLLATE NOCASE ASC";
 
+        /**
+         * Orders search results by relevance. The projection must include {@link #SEARCH_RANK}.
+         */
+        public static final String SORT_BY_RELEVANCE = SEARCH_RANK + " DESC,"
+                + SORT_BY_TYPE_THEN_TIME;
+
         public static final String LIVESTREAM_SELECTION =
                 SESSION_LIVESTREAM_ID + " is not null AND " + SESSION_LIVESTREAM_ID + "!=''";
 
@@ -981,21 +1040,6 @@ public final class ScheduleContract {
         public static final Uri CONTENT_URI =
                 BASE_CONTENT_URI.buildUpon().appendPath(PATH_SEARCH_TOPICS_SESSIONS).build();
 
-        public static final String TOPIC_TAG_SELECTION = Tags.TAG_CATEGORY + "= ? and " +
-                Tags.TAG_NAME + " like ?";
-
-        public static final String[] TOPIC_TAG_PROJECTION = {
-                BaseColumns._ID,
-                Tags.TAG_ID,
-                Tags.TAG_NAME,
-        };
-
-        public static final String[] SEARCH_SESSIONS_PROJECTION = {
-                BaseColumns._ID,
-                ScheduleContract.Sessions.SESSION_ID,
-                ScheduleContract.Sessions.SEARCH_SNIPPET
-        };
-
         public static final String[] DEFAULT_PROJECTION = new String[] {
                 BaseColumns._ID,
                 SearchTopicSessionsColumns.TAG_OR_SESSION_ID,
@@ -1005,8 +1049,8 @@ public final class ScheduleContract {
     }
 
     /**
-     * Columns for an in memory table created on query using
-     * the Tags table and the SearchSessions table.
+     * Columns of the topic tags and sessions that match a search, see
+     * {@link SearchTopicsSessions}.
      */
     public interface SearchTopicSessionsColumns extends BaseColumns {
         /* This column contains either a tag_id or a session_id */
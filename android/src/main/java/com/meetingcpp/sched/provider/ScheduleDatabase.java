@@ -20,8 +20,11 @@ import android.accounts.Account;
 import android.app.SearchManager;
 import android.content.ContentResolver;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 import android.provider.BaseColumns;
 
 import com.meetingcpp.sched.provider.ScheduleContract.*;
@@ -47,7 +50,10 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
     private static final int VER_2014_RELEASE_C = 207; // app version 2.1.x
     private static final int VER_2015_RELEASE_A = 208;
     private static final int VER_2015_RELEASE_B = 210;
-    private static final int CUR_DATABASE_VERSION = VER_2015_RELEASE_B;
+    private static final int VER_2015_RELEASE_C = 211;
+    private static final int VER_2015_RELEASE_D = 212;
+    private static final int VER_2015_RELEASE_E = 213;
+    private static final int CUR_DATABASE_VERSION = VER_2015_RELEASE_E;
 
     private final Context mContext;
 
@@ -72,6 +78,9 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
 
         String SESSIONS_SEARCH = "sessions_search";
 
+        // Sessions whose search index row must be updated
+        String SESSIONS_SEARCH_DIRTY = "sessions_search_dirty";
+
         String SEARCH_SUGGEST = "search_suggest";
 
         String SESSIONS_JOIN_MYSCHEDULE = "sessions "
@@ -106,8 +115,11 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
                 + "LEFT OUTER JOIN sessions ON sessions_speakers.session_id=sessions.session_id "
                 + "LEFT OUTER JOIN rooms ON sessions.room_id=rooms.room_id";
 
+        String SESSIONS_SEARCH_JOIN_SESSIONS = "sessions_search "
+                + "LEFT OUTER JOIN sessions ON sessions_search.docid=sessions._id";
+
         String SESSIONS_SEARCH_JOIN_SESSIONS_ROOMS = "sessions_search "
-                + "LEFT OUTER JOIN sessions ON sessions_search.session_id=sessions.session_id "
+                + "LEFT OUTER JOIN sessions ON sessions_search.docid=sessions._id "
                 + "LEFT OUTER JOIN myschedule ON sessions.session_id=myschedule.session_id "
                 + "AND myschedule.account_name=? "
                 + "LEFT OUTER JOIN rooms ON sessions.room_id=rooms.room_id";
@@ -137,6 +149,19 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
         String SESSIONS_MY_SCHEDULE_DELETE = "sessions_myschedule_delete";
         String SESSIONS_FEEDBACK_DELETE = "sessions_feedback_delete";
 
+        // Keep the session search index up to date. The rows of inserted and deleted sessions
+        // are removed right away; sessions whose indexed text may have changed are marked in
+        // Tables.SESSIONS_SEARCH_DIRTY, to be indexed by updateSessionSearchIndex.
+        String SESSIONS_SEARCH_BEFORE_INSERT = "sessions_search_before_insert";
+        String SESSIONS_SEARCH_INSERT = "sessions_search_insert";
+        String SESSIONS_SEARCH_UPDATE = "sessions_search_update";
+        String SESSIONS_SEARCH_DELETE = "sessions_search_delete";
+        String SESSIONS_SPEAKERS_SEARCH_INSERT = "sessions_speakers_search_insert";
+        String SESSIONS_SPEAKERS_SEARCH_DELETE = "sessions_speakers_search_delete";
+        String SPEAKERS_SEARCH_INSERT = "speakers_search_insert";
+        String SPEAKERS_SEARCH_UPDATE = "speakers_search_update";
+        String SPEAKERS_SEARCH_DELETE = "speakers_search_delete";
+
         // When triggers get deprecated, add them to this list (so they get correctly deleted
         // on database upgrades).
         interface DeprecatedTriggers {
@@ -144,6 +169,15 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
         };
     }
 
+    private interface Indexes {
+        String SESSIONS_START = "sessions_start_index";
+        String SESSIONS_ROOM = "sessions_room_index";
+        String SESSIONS_TAGS_TAG = "sessions_tags_tag_index";
+        String SESSIONS_SPEAKERS_SPEAKER = "sessions_speakers_speaker_index";
+        String FEEDBACK_SESSION = "feedback_session_index";
+        String BLOCKS_START = "blocks_start_index";
+    }
+
     public interface SessionsSpeakers {
         String SESSION_ID = "session_id";
         String SPEAKER_ID = "speaker_id";
@@ -156,14 +190,13 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
 
     interface SessionsSearchColumns {
         String SESSION_ID = "session_id";
-        String BODY = "body";
+        String TITLE = "title";
+        String ABSTRACT = "abstract";
+        String SPEAKERS = "speakers";
     }
 
     /** Fully-qualified field names. */
     private interface Qualified {
-        String SESSIONS_SEARCH = Tables.SESSIONS_SEARCH + "(" + SessionsSearchColumns.SESSION_ID
-                + "," + SessionsSearchColumns.BODY + ")";
-
         String SESSIONS_TAGS_SESSION_ID = Tables.SESSIONS_TAGS + "."
                 + SessionsTags.SESSION_ID;
 
@@ -189,10 +222,27 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
     }
 
     public ScheduleDatabase(Context context) {
-        super(context, DATABASE_NAME, null, CUR_DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * @param name The name of the database file, or null for an in-memory database.
+     */
+    ScheduleDatabase(Context context, String name) {
+        super(context, name, null, CUR_DATABASE_VERSION);
         mContext = context;
     }
 
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (!db.isReadOnly()) {
+            // With write-ahead logging, queries read the last committed data instead of waiting
+            // for the transaction of a sync to finish.
+            db.enableWriteAheadLogging();
+        }
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE " + Tables.BLOCKS + " ("
@@ -351,16 +401,6 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
                 + VideoColumns.VIDEO_IMPORT_HASHCODE + " TEXT NOT NULL,"
                 + "UNIQUE (" + VideoColumns.VIDEO_ID + ") ON CONFLICT REPLACE)");
 
-        // Full-text search index. Update using updateSessionSearchIndex method.
-        // Use the porter tokenizer for simple stemming, so that "frustration" matches "frustrated."
-        db.execSQL("CREATE VIRTUAL TABLE " + Tables.SESSIONS_SEARCH + " USING fts3("
-                + BaseColumns._ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + SessionsSearchColumns.BODY + " TEXT NOT NULL,"
-                + SessionsSearchColumns.SESSION_ID
-                + " TEXT NOT NULL " + References.SESSION_ID + ","
-                + "UNIQUE (" + SessionsSearchColumns.SESSION_ID + ") ON CONFLICT REPLACE,"
-                + "tokenize=porter)");
-
         // Search suggestions
         db.execSQL("CREATE TABLE " + Tables.SEARCH_SUGGEST + " ("
                 + BaseColumns._ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
@@ -385,6 +425,9 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
 
         upgradeFrom2014Cto2015A(db);
         upgradeFrom2015Ato2015B(db);
+        upgradeFrom2015Bto2015C(db);
+        upgradeFrom2015Cto2015D(db);
+        upgradeFrom2015Dto2015E(db);
     }
 
     private void upgradeFrom2014Cto2015A(SQLiteDatabase db) {
@@ -414,21 +457,191 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
                 + " ADD COLUMN " + SpeakersColumns.SPEAKER_TWITTER_URL + " TEXT");
     }
 
+    private void upgradeFrom2015Bto2015C(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + Tables.SESSIONS_SEARCH_DIRTY + " ("
+                + SessionsSearchColumns.SESSION_ID + " TEXT PRIMARY KEY ON CONFLICT IGNORE)");
+
+        // A session that replaces another one (see the UNIQUE clause of Tables.SESSIONS) gets a
+        // new _ID, and triggers don't see the implicit delete, so remove the old row here.
+        db.execSQL("CREATE TRIGGER " + Triggers.SESSIONS_SEARCH_BEFORE_INSERT + " BEFORE INSERT ON "
+                + Tables.SESSIONS + " BEGIN DELETE FROM " + Tables.SESSIONS_SEARCH
+                + " WHERE docid=(SELECT " + BaseColumns._ID + " FROM " + Tables.SESSIONS
+                + " WHERE " + Sessions.SESSION_ID + "=new." + Sessions.SESSION_ID + ");"
+                + " END;");
+
+        db.execSQL("CREATE TRIGGER " + Triggers.SESSIONS_SEARCH_INSERT + " AFTER INSERT ON "
+                + Tables.SESSIONS + " BEGIN " + markSessionSearchDirty("new." + Sessions.SESSION_ID)
+                + " END;");
+
+        db.execSQL("CREATE TRIGGER " + Triggers.SESSIONS_SEARCH_UPDATE + " AFTER UPDATE ON "
+                + Tables.SESSIONS + " WHEN old." + Sessions.SESSION_TITLE + " IS NOT new."
+                + Sessions.SESSION_TITLE + " OR old." + Sessions.SESSION_ABSTRACT + " IS NOT new."
+                + Sessions.SESSION_ABSTRACT + " BEGIN "
+                + markSessionSearchDirty("new." + Sessions.SESSION_ID) + " END;");
+
+        db.execSQL("CREATE TRIGGER " + Triggers.SESSIONS_SEARCH_DELETE + " AFTER DELETE ON "
+                + Tables.SESSIONS + " BEGIN DELETE FROM " + Tables.SESSIONS_SEARCH
+                + " WHERE docid=old." + BaseColumns._ID + ";" + " END;");
+
+        db.execSQL("CREATE TRIGGER " + Triggers.SESSIONS_SPEAKERS_SEARCH_INSERT
+                + " AFTER INSERT ON " + Tables.SESSIONS_SPEAKERS + " BEGIN "
+                + markSessionSearchDirty("new." + SessionsSpeakers.SESSION_ID) + " END;");
+
+        db.execSQL("CREATE TRIGGER " + Triggers.SESSIONS_SPEAKERS_SEARCH_DELETE
+                + " AFTER DELETE ON " + Tables.SESSIONS_SPEAKERS + " BEGIN "
+                + markSessionSearchDirty("old." + SessionsSpeakers.SESSION_ID) + " END;");
+
+        db.execSQL("CREATE TRIGGER " + Triggers.SPEAKERS_SEARCH_INSERT + " AFTER INSERT ON "
+                + Tables.SPEAKERS + " BEGIN "
+                + markSpeakerSessionsSearchDirty("new." + Speakers.SPEAKER_ID) + " END;");
+
+        db.execSQL("CREATE TRIGGER " + Triggers.SPEAKERS_SEARCH_UPDATE + " AFTER UPDATE ON "
+                + Tables.SPEAKERS + " WHEN old." + Speakers.SPEAKER_NAME + " IS NOT new."
+                + Speakers.SPEAKER_NAME + " BEGIN "
+                + markSpeakerSessionsSearchDirty("new." + Speakers.SPEAKER_ID) + " END;");
+
+        db.execSQL("CREATE TRIGGER " + Triggers.SPEAKERS_SEARCH_DELETE + " AFTER DELETE ON "
+                + Tables.SPEAKERS + " BEGIN "
+                + markSpeakerSessionsSearchDirty("old." + Speakers.SPEAKER_ID) + " END;");
+    }
+
+    private void upgradeFrom2015Cto2015D(SQLiteDatabase db) {
+        // Full-text search index, with the _ID of each session as docid. Triggers mark the
+        // sessions to index (see upgradeFrom2015Bto2015C); update using updateSessionSearchIndex.
+        // FTS4 with one column per field, so that matchinfo() can tell where a term matched and
+        // results can be ranked (see ScheduleProvider). The prefix index serves the "word*"
+        // queries of search as you type; it needs SQLite 3.7.7, which Jelly Bean ships with.
+        // Use the porter tokenizer for simple stemming, so that "frustration" matches "frustrated."
+        String prefixIndex = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                ? "prefix=\"2,3,4\"," : "";
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.SESSIONS_SEARCH);
+        db.execSQL("CREATE VIRTUAL TABLE " + Tables.SESSIONS_SEARCH + " USING fts4("
+                + SessionsSearchColumns.TITLE + ","
+                + SessionsSearchColumns.ABSTRACT + ","
+                + SessionsSearchColumns.SPEAKERS + ","
+                + prefixIndex
+                + "tokenize=porter)");
+
+        // Index everything again in the new format.
+        db.execSQL("INSERT INTO " + Tables.SESSIONS_SEARCH_DIRTY
+                + " SELECT " + Sessions.SESSION_ID + " FROM " + Tables.SESSIONS);
+
+        // Lets "text LIKE 'x%'" suggestion lookups use an index rather than scan the table.
+        db.execSQL("CREATE INDEX " + Tables.SEARCH_SUGGEST + "_text_index ON "
+                + Tables.SEARCH_SUGGEST + "(" + SearchManager.SUGGEST_COLUMN_TEXT_1
+                + " COLLATE NOCASE)");
+    }
+
+    private void upgradeFrom2015Dto2015E(SQLiteDatabase db) {
+        // Indexes for the lookups that scanned whole tables, as found by QueryPlanAudit: the
+        // sessions in a time range or a room, the sessions of a tag or a speaker (which also
+        // serves the speaker search triggers), the feedback of a session (which also serves
+        // the feedback column of My Schedule and the delete trigger), and the blocks of a day.
+        db.execSQL("CREATE INDEX " + Indexes.SESSIONS_START + " ON " + Tables.SESSIONS + "("
+                + Sessions.SESSION_START + "," + Sessions.SESSION_END + ")");
+        db.execSQL("CREATE INDEX " + Indexes.SESSIONS_ROOM + " ON " + Tables.SESSIONS + "("
+                + Sessions.ROOM_ID + "," + Sessions.SESSION_START + ")");
+        db.execSQL("CREATE INDEX " + Indexes.SESSIONS_TAGS_TAG + " ON " + Tables.SESSIONS_TAGS
+                + "(" + SessionsTags.TAG_ID + "," + SessionsTags.SESSION_ID + ")");
+        db.execSQL("CREATE INDEX " + Indexes.SESSIONS_SPEAKERS_SPEAKER + " ON "
+                + Tables.SESSIONS_SPEAKERS + "(" + SessionsSpeakers.SPEAKER_ID + ","
+                + SessionsSpeakers.SESSION_ID + ")");
+        db.execSQL("CREATE INDEX " + Indexes.FEEDBACK_SESSION + " ON " + Tables.FEEDBACK + "("
+                + FeedbackColumns.SESSION_ID + ")");
+        db.execSQL("CREATE INDEX " + Indexes.BLOCKS_START + " ON " + Tables.BLOCKS + "("
+                + BlocksColumns.BLOCK_START + ")");
+    }
+
+    // Trigger statement that marks the search index row of a session as dirty
+    private static String markSessionSearchDirty(String sessionId) {
+        return "INSERT INTO " + Tables.SESSIONS_SEARCH_DIRTY + " VALUES (" + sessionId + ");";
+    }
+
+    // Trigger statement that marks the search index rows of the sessions of a speaker as dirty
+    private static String markSpeakerSessionsSearchDirty(String speakerId) {
+        return "INSERT INTO " + Tables.SESSIONS_SEARCH_DIRTY
+                + " SELECT " + SessionsSpeakers.SESSION_ID + " FROM " + Tables.SESSIONS_SPEAKERS
+                + " WHERE " + SessionsSpeakers.SPEAKER_ID + "=" + speakerId + ";";
+    }
+
     /**
-     * Updates the session search index. This should be done sparingly, as the queries are rather
-     * complex.
+     * Updates the session search index rows of the sessions that were marked as dirty by the
+     * triggers since the last update. Rows whose text didn't actually change are left alone.
+     *
+     * @return The number of index rows written.
      */
-    static void updateSessionSearchIndex(SQLiteDatabase db) {
-        db.execSQL("DELETE FROM " + Tables.SESSIONS_SEARCH);
+    static int updateSessionSearchIndex(SQLiteDatabase db) {
+        int written = 0;
+        db.beginTransaction();
+        Cursor cursor = null;
+        SQLiteStatement unchanged = null;
+        SQLiteStatement delete = null;
+        SQLiteStatement insert = null;
+        try {
+            cursor = db.rawQuery(SessionSearchQuery.DIRTY_SESSIONS, null);
+            if (cursor.getCount() > 0) {
+                unchanged = db.compileStatement("SELECT COUNT(*) FROM " + Tables.SESSIONS_SEARCH
+                        + " WHERE docid=? AND " + SessionsSearchColumns.TITLE + " IS ? AND "
+                        + SessionsSearchColumns.ABSTRACT + " IS ? AND "
+                        + SessionsSearchColumns.SPEAKERS + " IS ?");
+                delete = db.compileStatement("DELETE FROM " + Tables.SESSIONS_SEARCH
+                        + " WHERE docid=?");
+                insert = db.compileStatement("INSERT INTO " + Tables.SESSIONS_SEARCH + "(docid,"
+                        + SessionsSearchColumns.TITLE + "," + SessionsSearchColumns.ABSTRACT + ","
+                        + SessionsSearchColumns.SPEAKERS + ") VALUES (?,?,?,?)");
+            }
+            while (cursor.moveToNext()) {
+                long docId = cursor.getLong(SessionSearchQuery._ID);
+                String title = cursor.getString(SessionSearchQuery.TITLE);
+                String sessionAbstract = cursor.getString(SessionSearchQuery.ABSTRACT);
+                String speakers = cursor.getString(SessionSearchQuery.SPEAKERS);
+
+                unchanged.bindLong(1, docId);
+                bindStringOrNull(unchanged, 2, title);
+                bindStringOrNull(unchanged, 3, sessionAbstract);
+                bindStringOrNull(unchanged, 4, speakers);
+                if (unchanged.simpleQueryForLong() > 0) {
+                    continue;
+                }
+
+                delete.bindLong(1, docId);
+                delete.executeUpdateDelete();
+                insert.bindLong(1, docId);
+                bindStringOrNull(insert, 2, title);
+                bindStringOrNull(insert, 3, sessionAbstract);
+                bindStringOrNull(insert, 4, speakers);
+                insert.executeInsert();
+                ++written;
+            }
+            db.execSQL("DELETE FROM " + Tables.SESSIONS_SEARCH_DIRTY);
+            db.setTransactionSuccessful();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            if (unchanged != null) {
+                unchanged.close();
+                delete.close();
+                insert.close();
+            }
+            db.endTransaction();
+        }
+        LOGD(TAG, "Session search index updated, " + written + " rows written.");
+        return written;
+    }
 
-        db.execSQL("INSERT INTO " + Qualified.SESSIONS_SEARCH
-                + " SELECT s." + Sessions.SESSION_ID + ",("
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
 
-                // Full text body
-                + Sessions.SESSION_TITLE + "||'; '||"
-                + Sessions.SESSION_ABSTRACT + "||'; '||"
-                + "IFNULL(GROUP_CONCAT(t." + Speakers.SPEAKER_NAME + ",' '),'')||'; '||"
-                + "'')"
+    private interface SessionSearchQuery {
+        String DIRTY_SESSIONS = "SELECT s." + BaseColumns._ID + ",s." + Sessions.SESSION_TITLE
+                + ",s." + Sessions.SESSION_ABSTRACT + ","
+                + "GROUP_CONCAT(t." + Speakers.SPEAKER_NAME + ",' ')"
 
                 + " FROM " + Tables.SESSIONS + " s "
                 + " LEFT OUTER JOIN"
@@ -444,7 +657,14 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
 
                 // Grand finale
                 + " ON s." + Sessions.SESSION_ID + "=t." + Sessions.SESSION_ID
-                + " GROUP BY s." + Sessions.SESSION_ID);
+                + " WHERE s." + Sessions.SESSION_ID + " IN (SELECT "
+                + SessionsSearchColumns.SESSION_ID + " FROM " + Tables.SESSIONS_SEARCH_DIRTY + ")"
+                + " GROUP BY s." + Sessions.SESSION_ID;
+
+        int _ID = 0;
+        int TITLE = 1;
+        int ABSTRACT = 2;
+        int SPEAKERS = 3;
     }
 
     @Override
@@ -481,6 +701,27 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
             version = VER_2015_RELEASE_B;
         }
 
+        // Check if we can upgrade from release 2015 B to release 2015 C.
+        if (version == VER_2015_RELEASE_B) {
+            LOGD(TAG, "Upgrading database from 2015 release B to 2015 release C.");
+            upgradeFrom2015Bto2015C(db);
+            version = VER_2015_RELEASE_C;
+        }
+
+        // Check if we can upgrade from release 2015 C to release 2015 D.
+        if (version == VER_2015_RELEASE_C) {
+            LOGD(TAG, "Upgrading database from 2015 release C to 2015 release D.");
+            upgradeFrom2015Cto2015D(db);
+            version = VER_2015_RELEASE_D;
+        }
+
+        // Check if we can upgrade from release 2015 D to release 2015 E.
+        if (version == VER_2015_RELEASE_D) {
+            LOGD(TAG, "Upgrading database from 2015 release D to 2015 release E.");
+            upgradeFrom2015Dto2015E(db);
+            version = VER_2015_RELEASE_E;
+        }
+
         LOGD(TAG, "After upgrade logic, at version " + version);
 
         // Drop tables that have been deprecated.
@@ -498,6 +739,15 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
             db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SESSIONS_FEEDBACK_DELETE);
             db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SESSIONS_MY_SCHEDULE_DELETE);
             db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.DeprecatedTriggers.SESSIONS_TRACKS_DELETE);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SESSIONS_SEARCH_BEFORE_INSERT);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SESSIONS_SEARCH_INSERT);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SESSIONS_SEARCH_UPDATE);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SESSIONS_SEARCH_DELETE);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SESSIONS_SPEAKERS_SEARCH_INSERT);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SESSIONS_SPEAKERS_SEARCH_DELETE);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SPEAKERS_SEARCH_INSERT);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SPEAKERS_SEARCH_UPDATE);
+            db.execSQL("DROP TRIGGER IF EXISTS " + Triggers.SPEAKERS_SEARCH_DELETE);
 
             db.execSQL("DROP TABLE IF EXISTS " + Tables.BLOCKS);
             db.execSQL("DROP TABLE IF EXISTS " + Tables.ROOMS);
@@ -512,6 +762,7 @@ public class ScheduleDatabase extends SQLiteOpenHelper {
             db.execSQL("DROP TABLE IF EXISTS " + Tables.ANNOUNCEMENTS);
             db.execSQL("DROP TABLE IF EXISTS " + Tables.FEEDBACK);
             db.execSQL("DROP TABLE IF EXISTS " + Tables.SESSIONS_SEARCH);
+            db.execSQL("DROP TABLE IF EXISTS " + Tables.SESSIONS_SEARCH_DIRTY);
             db.execSQL("DROP TABLE IF EXISTS " + Tables.SEARCH_SUGGEST);
             db.execSQL("DROP TABLE IF EXISTS " + Tables.MAPMARKERS);
             db.execSQL("DROP TABLE IF EXISTS " + Tables.MAPTILES);
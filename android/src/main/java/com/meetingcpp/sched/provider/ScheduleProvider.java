@@ -16,8 +16,10 @@
 
 package com.meetingcpp.sched.provider;
 
+import com.google.common.annotations.VisibleForTesting;
+
+import com.meetingcpp.sched.BuildConfig;
 import com.meetingcpp.sched.Config;
-import com.meetingcpp.sched.appwidget.ScheduleWidgetProvider;
 import com.meetingcpp.sched.provider.ScheduleContract.Announcements;
 import com.meetingcpp.sched.provider.ScheduleContract.Blocks;
 import com.meetingcpp.sched.provider.ScheduleContract.Feedback;
@@ -31,13 +33,13 @@ import com.meetingcpp.sched.provider.ScheduleContract.MyScheduleColumns;
 import com.meetingcpp.sched.provider.ScheduleContract.MyViewedVideos;
 import com.meetingcpp.sched.provider.ScheduleContract.Rooms;
 import com.meetingcpp.sched.provider.ScheduleContract.SearchSuggest;
+import com.meetingcpp.sched.provider.ScheduleContract.SearchTopicSessionsColumns;
 import com.meetingcpp.sched.provider.ScheduleContract.SearchTopicsSessions;
 import com.meetingcpp.sched.provider.ScheduleContract.Sessions;
 import com.meetingcpp.sched.provider.ScheduleContract.Speakers;
 import com.meetingcpp.sched.provider.ScheduleContract.Tags;
 import com.meetingcpp.sched.provider.ScheduleContract.VideoColumns;
 import com.meetingcpp.sched.provider.ScheduleContract.Videos;
-import com.meetingcpp.sched.provider.ScheduleDatabase.SessionsSearchColumns;
 import com.meetingcpp.sched.provider.ScheduleDatabase.SessionsSpeakers;
 import com.meetingcpp.sched.provider.ScheduleDatabase.Tables;
 import com.meetingcpp.sched.settings.SettingsUtils;
@@ -55,6 +57,7 @@ import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
+import android.os.Bundle;
 import android.os.ParcelFileDescriptor;
 import android.provider.BaseColumns;
 import android.text.TextUtils;
@@ -66,6 +69,7 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.meetingcpp.sched.util.LogUtils.LOGD;
 import static com.meetingcpp.sched.util.LogUtils.LOGE;
@@ -81,10 +85,46 @@ public class ScheduleProvider extends ContentProvider {
 
     private static final String TAG = makeLogTag(ScheduleProvider.class);
 
+    // Minimum number of operations between the points where a batch yields to other writers
+    private static final int YIELD_CHUNK_SIZE = 50;
+
+    // Weight of a search term found in the title, abstract and speakers columns of the session
+    // search index, in that order
+    private static final int[] SEARCH_COLUMN_WEIGHTS = {4, 2, 1};
+
     private ScheduleDatabase mOpenHelper;
 
     private ScheduleProviderUriMatcher mUriMatcher;
 
+    // Compiled insert statements of the batch being applied on each thread, if any
+    private final ThreadLocal<BulkInserter> mBatchInserter = new ThreadLocal<BulkInserter>();
+
+    // Whether batches insert through a BulkInserter; only turned off to measure what it saves
+    private volatile boolean mBulkInsertsEnabled = true;
+
+    // Notifies the changed URIs and refreshes the widgets, once for many writes
+    private ChangeNotifier mChangeNotifier;
+
+    // Incremented after every write, so that in-memory indexes know when they must be read again
+    private final AtomicLong mDataVersion = new AtomicLong();
+
+    // Tags of the sessions, for the tag filters; read again when the data version changes
+    private volatile SessionTagIndex mSessionTagIndex;
+
+    // Incremented after every write to the conference data tables that are cached
+    private final AtomicLong mConferenceDataVersion = new AtomicLong();
+
+    // Blocks, rooms, tags and speakers; read again when the conference data version changes
+    private volatile ConferenceDataCache mConferenceDataCache;
+
+    // Incremented after every write to the sessions, or to the user's schedule and feedback
+    private final AtomicLong mMyScheduleVersion = new AtomicLong();
+
+    // Queries answered from the cache, and the ones that had to read the database
+    private final AtomicLong mCacheHits = new AtomicLong();
+
+    private final AtomicLong mCacheMisses = new AtomicLong();
+
     /**
      * Providing important state information to be included in bug reports.
      *
@@ -110,6 +150,8 @@ public class ScheduleProvider extends ContentProvider {
             boolean canGetAuthToken = !TextUtils.isEmpty(AccountUtils.getAuthToken(context));
             writer.print("Can an auth token be retrieved: ");
             writer.println(canGetAuthToken);
+            writer.print("Conference data cache hits/misses: ");
+            writer.println(mCacheHits.get() + "/" + mCacheMisses.get());
 
         } catch (Exception exception) {
             writer.append("Exception while dumping state: ");
@@ -121,6 +163,7 @@ public class ScheduleProvider extends ContentProvider {
     public boolean onCreate() {
         mOpenHelper = new ScheduleDatabase(getContext());
         mUriMatcher = new ScheduleProviderUriMatcher();
+        mChangeNotifier = new ChangeNotifier(getContext());
         return true;
     }
 
@@ -132,6 +175,41 @@ public class ScheduleProvider extends ContentProvider {
         mOpenHelper = new ScheduleDatabase(getContext());
     }
 
+    /**
+     * Answers {@link ScheduleContract#METHOD_GET_CACHE_STATS} with the hit and miss counters of
+     * the conference data cache, {@link ScheduleContract#METHOD_GET_DATA_VERSIONS} with the
+     * versions of the data, and {@link ScheduleContract#METHOD_AUDIT_QUERY_PLANS} with the
+     * report of a {@link QueryPlanAudit}.
+     * <p/>
+     * The provider is exported, so the cache stats and the audit are only answered in debug
+     * builds.
+     */
+    @Override
+    public Bundle call(String method, String arg, Bundle extras) {
+        if (ScheduleContract.METHOD_GET_DATA_VERSIONS.equals(method)) {
+            Bundle versions = new Bundle();
+            versions.putLong(ScheduleContract.EXTRA_CONFERENCE_DATA_VERSION,
+                    mConferenceDataVersion.get());
+            versions.putLong(ScheduleContract.EXTRA_MY_SCHEDULE_VERSION,
+                    mMyScheduleVersion.get());
+            return versions;
+        }
+        if (BuildConfig.DEBUG && ScheduleContract.METHOD_GET_CACHE_STATS.equals(method)) {
+            Bundle stats = new Bundle();
+            stats.putLong(ScheduleContract.EXTRA_CACHE_HITS, mCacheHits.get());
+            stats.putLong(ScheduleContract.EXTRA_CACHE_MISSES, mCacheMisses.get());
+            return stats;
+        }
+        if (BuildConfig.DEBUG && ScheduleContract.METHOD_AUDIT_QUERY_PLANS.equals(method)) {
+            QueryPlanAudit audit = QueryPlanAudit.run(this, mOpenHelper.getReadableDatabase());
+            Bundle result = new Bundle();
+            result.putString(ScheduleContract.EXTRA_QUERY_PLANS, audit.getReport());
+            result.putStringArray(ScheduleContract.EXTRA_FULL_SCAN_URIS, audit.getFullScanUris());
+            return result;
+        }
+        return super.call(method, arg, extras);
+    }
+
     /** {@inheritDoc} */
     @Override
     public String getType(Uri uri) {
@@ -139,56 +217,119 @@ public class ScheduleProvider extends ContentProvider {
         return matchingUriEnum.contentType;
     }
 
-    /**
-     * Returns a tuple of question marks. For example, if {@code count} is 3, returns "(?,?,?)".
-     */
-    private String makeQuestionMarkTuple(int count) {
-        if (count < 1) {
-            return "()";
-        }
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("(?");
-        for (int i = 1; i < count; i++) {
-            stringBuilder.append(",?");
-        }
-        stringBuilder.append(")");
-        return stringBuilder.toString();
-    }
-
     /**
      * Adds the {@code tagsFilter} query parameter to the given {@code builder}. This query
      * parameter is used by the {@link com.meetingcpp.sched.explore.ExploreSessionsActivity}
      * when the user makes a selection containing multiple filters.
+     * <p/>
+     * The matching sessions are found in the {@link SessionTagIndex}, and passed to the query as
+     * a list of _IDs.
      */
-    private void addTagsFilter(SelectionBuilder builder, String tagsFilter, String numCategories) {
-        // Note: for context, remember that session queries are done on a join of sessions
-        // and the sessions_tags relationship table, and are GROUP'ed BY the session ID.
+    private void addTagsFilter(SQLiteDatabase db, SelectionBuilder builder, String tagsFilter,
+            String numCategories) {
         String[] requiredTags = tagsFilter.split(",");
         if (requiredTags.length == 0) {
             // filtering by 0 tags -- no-op
             return;
-        } else if (requiredTags.length == 1) {
-            // filtering by only one tag, so a simple WHERE clause suffices
-            builder.where(Tags.TAG_ID + "=?", requiredTags[0]);
-        } else {
-            // Filtering by multiple tags, so we must add a WHERE clause with an IN operator,
-            // and add a HAVING statement to exclude groups that fall short of the number
-            // of required tags. For example, if requiredTags is { "X", "Y", "Z" }, and a certain
-            // session only has tags "X" and "Y", it will be excluded by the HAVING statement.
-            int categories = 1;
-            if (numCategories != null && TextUtils.isDigitsOnly(numCategories)) {
-                try {
-                    categories = Integer.parseInt(numCategories);
-                    LOGD(TAG, "Categories being used " + categories);
-                } catch (Exception ex) {
-                    LOGE(TAG, "exception parsing categories ", ex);
-                }
+        }
+        // When filtering by multiple tags, exclude the sessions that fall short of the number
+        // of required tags. For example, if requiredTags is { "X", "Y", "Z" } and categories
+        // is 3, and a certain session only has tags "X" and "Y", it will be excluded.
+        int categories = 1;
+        if (requiredTags.length > 1 && numCategories != null
+                && TextUtils.isDigitsOnly(numCategories)) {
+            try {
+                categories = Integer.parseInt(numCategories);
+                LOGD(TAG, "Categories being used " + categories);
+            } catch (Exception ex) {
+                LOGE(TAG, "exception parsing categories ", ex);
+            }
+        }
+        long[] sessionIds = getSessionTagIndex(db).getSessionIds(requiredTags, categories);
+
+        StringBuilder idTuple = new StringBuilder("(");
+        for (int i = 0; i < sessionIds.length; i++) {
+            idTuple.append(i > 0 ? "," : "").append(sessionIds[i]);
+        }
+        idTuple.append(")");
+        builder.where(Qualified.SESSIONS_ID + " IN " + idTuple);
+    }
+
+    /**
+     * Returns the {@link SessionTagIndex} of the current data, reading it first if the data
+     * changed since it was last read.
+     */
+    private SessionTagIndex getSessionTagIndex(SQLiteDatabase db) {
+        // Read the version first: a write that happens while the index is being read makes the
+        // index stale, and it's read again next time.
+        long version = mDataVersion.get();
+        SessionTagIndex index = mSessionTagIndex;
+        if (index == null || index.getVersion() != version) {
+            long start = System.currentTimeMillis();
+            index = SessionTagIndex.build(db, version);
+            mSessionTagIndex = index;
+            LOGD(TAG, "Session tag index read in " + (System.currentTimeMillis() - start)
+                    + " ms.");
+        }
+        return index;
+    }
+
+    /**
+     * Returns the {@link ConferenceDataCache} of the current conference data, reading it first
+     * if the data changed since it was last read.
+     */
+    private ConferenceDataCache getConferenceDataCache(SQLiteDatabase db) {
+        // Read the version first, like for the session tag index
+        long version = mConferenceDataVersion.get();
+        ConferenceDataCache cache = mConferenceDataCache;
+        if (cache == null || cache.getVersion() != version) {
+            long start = System.currentTimeMillis();
+            cache = ConferenceDataCache.build(db, version);
+            mConferenceDataCache = cache;
+            LOGD(TAG, "Conference data cache read in " + (System.currentTimeMillis() - start)
+                    + " ms.");
+        }
+        return cache;
+    }
+
+    /**
+     * Answers a query of blocks, rooms, tags or speakers from the {@link ConferenceDataCache}.
+     *
+     * @return The rows, or null if the query can't be answered from the cache.
+     */
+    private Cursor queryConferenceDataCache(SQLiteDatabase db, Uri uri,
+            ScheduleUriEnum matchingUriEnum, String[] projection) {
+        ConferenceDataCache cache = mConferenceDataCache;
+        boolean inMemory = cache != null && cache.getVersion() == mConferenceDataVersion.get();
+        cache = getConferenceDataCache(db);
+        Cursor cursor;
+        switch (matchingUriEnum) {
+            case BLOCKS_BETWEEN: {
+                final List<String> segments = uri.getPathSegments();
+                cursor = cache.queryBlocksBetween(Long.parseLong(segments.get(2)),
+                        Long.parseLong(segments.get(3)), projection);
+                break;
+            }
+            case BLOCKS_ID:
+            case ROOMS_ID:
+            case TAGS_ID:
+            case SPEAKERS_ID: {
+                cursor = cache.queryById(matchingUriEnum, uri.getPathSegments().get(1),
+                        projection);
+                break;
+            }
+            default: {
+                cursor = cache.queryAll(matchingUriEnum, projection);
             }
-            String questionMarkTuple = makeQuestionMarkTuple(requiredTags.length);
-            builder.where(Tags.TAG_ID + " IN " + questionMarkTuple, requiredTags);
-            builder.having(
-                    "COUNT(" + Qualified.SESSIONS_SESSION_ID + ") >= " + categories);
         }
+        // a miss when the cache had to be read, or when the projection has expressions or columns
+        // of other tables, so the query goes to the database
+        if (inMemory && cursor != null) {
+            mCacheHits.incrementAndGet();
+        } else {
+            mCacheMisses.incrementAndGet();
+        }
+        return cursor;
     }
 
     /** {@inheritDoc} */
@@ -209,6 +350,23 @@ public class ScheduleProvider extends ContentProvider {
                     + Arrays.toString(selectionArgs) + ")");
         }
 
+        // Plain queries of the conference data that doesn't depend on the user are answered from
+        // memory. Blocks are kept by their start, so they can also be asked for in that order.
+        if (ConferenceDataCache.isCached(matchingUriEnum) && selection == null
+                && TextUtils.isEmpty(tagsFilter) && !ScheduleContractHelper.isQueryDistinct(uri)
+                && (sortOrder == null || (Blocks.BLOCK_START.equals(sortOrder)
+                        && (matchingUriEnum == ScheduleUriEnum.BLOCKS
+                        || matchingUriEnum == ScheduleUriEnum.BLOCKS_BETWEEN)))) {
+            Cursor cursor = queryConferenceDataCache(db, uri, matchingUriEnum, projection);
+            if (cursor != null) {
+                Context context = getContext();
+                if (null != context) {
+                    cursor.setNotificationUri(context.getContentResolver(), uri);
+                }
+                return cursor;
+            }
+        }
+
         switch (matchingUriEnum) {
             default: {
                 // Most cases are handled with simple SelectionBuilder.
@@ -216,7 +374,7 @@ public class ScheduleProvider extends ContentProvider {
 
                 // If a special filter was specified, try to apply it.
                 if (!TextUtils.isEmpty(tagsFilter) && !TextUtils.isEmpty(categories)) {
-                    addTagsFilter(builder, tagsFilter, categories);
+                    addTagsFilter(db, builder, tagsFilter, categories);
                 }
 
                 boolean distinct = ScheduleContractHelper.isQueryDistinct(uri);
@@ -234,7 +392,8 @@ public class ScheduleProvider extends ContentProvider {
             case SEARCH_SUGGEST: {
                 final SelectionBuilder builder = new SelectionBuilder();
 
-                // Adjust incoming query to become SQL text match.
+                // Adjust incoming query to become SQL text match. Prefix matches are served by
+                // the NOCASE index on the suggestion text.
                 selectionArgs[0] = selectionArgs[0] + "%";
                 builder.table(Tables.SEARCH_SUGGEST);
                 builder.where(selection, selectionArgs);
@@ -252,68 +411,75 @@ public class ScheduleProvider extends ContentProvider {
             }
             case SEARCH_TOPICS_SESSIONS: {
                 if (selectionArgs == null || selectionArgs.length == 0) {
-                    return createMergedSearchCursor(null, null);
+                    return new MatrixCursor(SearchTopicsSessions.DEFAULT_PROJECTION, 0);
                 }
                 String selectionArg = selectionArgs[0] == null ? "" : selectionArgs[0];
-                // First we query the Tags table to find any tags that match the given query
-                Cursor tags = query(Tags.CONTENT_URI, SearchTopicsSessions.TOPIC_TAG_PROJECTION,
-                        SearchTopicsSessions.TOPIC_TAG_SELECTION,
-                        new String[] {Config.Tags.CATEGORY_TOPIC, selectionArg + "%"},
-                        Tags.TAG_ORDER_BY_CATEGORY);
-                // Then we query the sessions_search table and get a list of sessions that match
-                // the given keywords.
-                Cursor search = null;
-                if (selectionArgs[0] != null) { // dont query if there was no selectionArg.
-                    search = query(ScheduleContract.Sessions.buildSearchUri(selectionArg),
-                            SearchTopicsSessions.SEARCH_SESSIONS_PROJECTION,
-                            null, null,
-                            ScheduleContract.Sessions.SORT_BY_TYPE_THEN_TIME);
+                // Topic tags whose name starts with the query, then the sessions that match its
+                // keywords, in a single statement, so that the rows are read as they're needed.
+                String sessionsQuery = null;
+                String[] args;
+                if (selectionArgs[0] != null) { // dont query sessions if there was no selectionArg
+                    sessionsQuery = Sessions.getSearchQuery(Sessions.buildSearchUri(selectionArg));
+                    args = new String[]{Config.Tags.CATEGORY_TOPIC, selectionArg + "%",
+                            sessionsQuery};
+                } else {
+                    args = new String[]{Config.Tags.CATEGORY_TOPIC, selectionArg + "%"};
+                }
+                Cursor cursor = db.rawQuery(buildSearchTopicsSessionsSql(sessionsQuery), args);
+                Context context = getContext();
+                if (null != context) {
+                    cursor.setNotificationUri(context.getContentResolver(), uri);
                 }
-                // Now that we have two cursors, we merge the cursors and return a unified view
-                // of the two result sets.
-                return createMergedSearchCursor(tags, search);
+                return cursor;
             }
         }
     }
 
     /**
-     * Create a {@link MatrixCursor} given the tags and search cursors.
-     * @param tags Cursor with the projection {@link SearchTopicsSessions#TOPIC_TAG_PROJECTION}.
-     * @param search Cursor with the projection
-     *              {@link SearchTopicsSessions#SEARCH_SESSIONS_PROJECTION}.
-     * @return Returns a MatrixCursor always with {@link SearchTopicsSessions#DEFAULT_PROJECTION}
+     * Builds the statement of {@link ScheduleUriEnum#SEARCH_TOPICS_SESSIONS}, with the projection
+     * {@link SearchTopicsSessions#DEFAULT_PROJECTION}: the topic tags whose name matches the
+     * second parameter (a LIKE pattern) in the tag category of the first parameter, followed,
+     * unless {@code sessionsQuery} is null, by the sessions that match the third parameter (a
+     * full-text query) ordered by relevance.
      */
-    private Cursor createMergedSearchCursor(Cursor tags, Cursor search) {
-        // How big should our MatrixCursor be?
-        int maxCount = (tags == null ? 0 : tags.getCount()) +
-                (search == null ? 0 : search.getCount());
-
-        MatrixCursor matrixCursor = new MatrixCursor(
-                SearchTopicsSessions.DEFAULT_PROJECTION, maxCount);
-
-        // Iterate over the tags cursor and add rows.
-        if (tags != null && tags.moveToFirst()) {
-            do {
-                matrixCursor.addRow(
-                        new Object[]{
-                                tags.getLong(0),
-                                tags.getString(1), /*tag_id*/
-                                "{" + tags.getString(2) + "}", /*search_snippet*/
-                                1}); /*is_topic_tag*/
-            } while (tags.moveToNext());
-        }
-        // Iterate over the search cursor and add rows.
-        if (search != null && search.moveToFirst()) {
-            do {
-                matrixCursor.addRow(
-                        new Object[]{
-                                search.getLong(0),
-                                search.getString(1),
-                                search.getString(2), /*search_snippet*/
-                                0}); /*is_topic_tag*/
-            } while (search.moveToNext());
-        }
-        return matrixCursor;
+    private static String buildSearchTopicsSessionsSql(String sessionsQuery) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(BaseColumns._ID).append(",")
+                .append(SearchTopicSessionsColumns.TAG_OR_SESSION_ID).append(",")
+                .append(SearchTopicSessionsColumns.SEARCH_SNIPPET).append(",")
+                .append(SearchTopicSessionsColumns.IS_TOPIC_TAG)
+                .append(" FROM (SELECT ")
+                .append(BaseColumns._ID).append(",")
+                .append(Tags.TAG_ID).append(" AS ")
+                .append(SearchTopicSessionsColumns.TAG_OR_SESSION_ID).append(",")
+                .append("'{'||").append(Tags.TAG_NAME).append("||'}' AS ")
+                .append(SearchTopicSessionsColumns.SEARCH_SNIPPET).append(",")
+                .append("1 AS ").append(SearchTopicSessionsColumns.IS_TOPIC_TAG).append(",")
+                .append("0 AS ").append(Sessions.SEARCH_RANK).append(",")
+                .append(Tags.TAG_ORDER_IN_CATEGORY).append(" AS sort_order,")
+                .append("0 AS sort_start,")
+                .append(Tags.TAG_NAME).append(" AS sort_title")
+                .append(" FROM ").append(Tables.TAGS)
+                .append(" WHERE ").append(Tags.TAG_CATEGORY).append("=? AND ")
+                .append(Tags.TAG_NAME).append(" LIKE ?");
+        if (sessionsQuery != null) {
+            sql.append(" UNION ALL SELECT ")
+                    .append(Qualified.SESSIONS_ID).append(",")
+                    .append(Qualified.SESSIONS_SESSION_ID).append(",")
+                    .append(Subquery.SESSIONS_SNIPPET).append(",")
+                    .append("0,")
+                    .append(buildSearchRank(sessionsQuery)).append(",")
+                    .append(Sessions.SESSION_GROUPING_ORDER).append(",")
+                    .append(Sessions.SESSION_START).append(",")
+                    .append(Sessions.SESSION_TITLE)
+                    .append(" FROM ").append(Tables.SESSIONS_SEARCH_JOIN_SESSIONS)
+                    .append(" WHERE ").append(Tables.SESSIONS_SEARCH).append(" MATCH ?");
+        }
+        return sql.append(") ORDER BY ")
+                .append(SearchTopicSessionsColumns.IS_TOPIC_TAG).append(" DESC,")
+                .append(Sessions.SEARCH_RANK).append(" DESC,")
+                .append("sort_order ASC,sort_start ASC,sort_title COLLATE NOCASE ASC")
+                .toString();
     }
 
     /** {@inheritDoc} */
@@ -324,7 +490,12 @@ public class ScheduleProvider extends ContentProvider {
         final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
         ScheduleUriEnum matchingUriEnum = mUriMatcher.matchUri(uri);
         if (matchingUriEnum.table != null) {
-            db.insertOrThrow(matchingUriEnum.table, null, values);
+            BulkInserter inserter = mBatchInserter.get();
+            if (inserter != null) {
+                inserter.insert(matchingUriEnum.table, values);
+            } else {
+                db.insertOrThrow(matchingUriEnum.table, null, values);
+            }
             notifyChange(uri);
         }
 
@@ -407,6 +578,43 @@ public class ScheduleProvider extends ContentProvider {
         }
     }
 
+    /**
+     * Inserts all the rows in a single transaction, through one compiled statement for each set
+     * of columns. This is much faster than inserting them one by one, as the default
+     * implementation does.
+     */
+    @Override
+    public int bulkInsert(Uri uri, ContentValues[] values) {
+        ScheduleUriEnum matchingUriEnum = mUriMatcher.matchUri(uri);
+        if (matchingUriEnum.table == null) {
+            // needs the special handling of insert(), but the rows are still notified together
+            boolean ownsNotifications = mChangeNotifier.beginBatch();
+            try {
+                return super.bulkInsert(uri, values);
+            } finally {
+                if (ownsNotifications) {
+                    mChangeNotifier.endBatch();
+                }
+            }
+        }
+        LOGV(TAG, "bulkInsert(uri=" + uri + ", rows=" + values.length + ")");
+
+        final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        BulkInserter inserter = new BulkInserter(db);
+        db.beginTransaction();
+        try {
+            for (ContentValues row : values) {
+                inserter.insert(matchingUriEnum.table, row);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            inserter.close();
+            db.endTransaction();
+        }
+        notifyChange(uri);
+        return values.length;
+    }
+
     /** {@inheritDoc} */
     @Override
     public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
@@ -417,9 +625,8 @@ public class ScheduleProvider extends ContentProvider {
         final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
         ScheduleUriEnum matchingUriEnum = mUriMatcher.matchUri(uri);
         if (matchingUriEnum == ScheduleUriEnum.SEARCH_INDEX) {
-            // update the search index
-            ScheduleDatabase.updateSessionSearchIndex(db);
-            return 1;
+            // update the rows of the search index that changed
+            return ScheduleDatabase.updateSessionSearchIndex(db);
         }
 
         final SelectionBuilder builder = buildSimpleSelection(uri);
@@ -477,18 +684,48 @@ public class ScheduleProvider extends ContentProvider {
      * <p/>
      * We only notify changes if the uri wasn't called by the sync adapter, to avoid issuing a large
      * amount of notifications while doing a sync. The
-     * {@link com.meetingcpp.sched.sync.ConferenceDataHandler} notifies all top level
-     * conference paths once the conference data sync is done, and the
+     * {@link com.meetingcpp.sched.sync.ConferenceDataHandler} notifies the conference
+     * paths it changed once the conference data sync is done, and the
      * {@link com.meetingcpp.sched.sync.userdata.AbstractUserDataSyncHelper} notifies all
      * user data related paths once the user data sync is done.
+     * <p/>
+     * The notifications go through a {@link ChangeNotifier}, so that the URIs changed by a batch,
+     * or by writes close in time, are notified once, with a single refresh of the widgets.
      */
     private void notifyChange(Uri uri) {
+        // every write ends up here, notified or not
+        mDataVersion.incrementAndGet();
+        boolean all = ScheduleContract.BASE_CONTENT_URI.equals(uri);
+        ScheduleUriEnum uriEnum = all ? null : mUriMatcher.matchUri(uri);
+        if (all || ConferenceDataCache.isCached(uriEnum)) {
+            mConferenceDataVersion.incrementAndGet();
+        }
+        if (all || affectsMySchedule(uriEnum)) {
+            mMyScheduleVersion.incrementAndGet();
+        }
         if (!ScheduleContractHelper.isUriCalledFromSyncAdapter(uri)) {
-            Context context = getContext();
-            context.getContentResolver().notifyChange(uri, null);
+            mChangeNotifier.notifyChange(uri);
+        }
+    }
 
-            // Widgets can't register content observers so we refresh widgets separately.
-            context.sendBroadcast(ScheduleWidgetProvider.getRefreshBroadcastIntent(context, false));
+    /**
+     * Returns whether writes to the given URI may change the sessions in My Schedule, as
+     * counted by {@link ScheduleContract#EXTRA_MY_SCHEDULE_VERSION}.
+     */
+    private static boolean affectsMySchedule(ScheduleUriEnum uriEnum) {
+        switch (uriEnum) {
+            case SESSIONS:
+            case SESSIONS_MY_SCHEDULE:
+            case SESSIONS_ID:
+            case SESSIONS_ID_SPEAKERS:
+            case SESSIONS_ID_TAGS:
+            case MY_SCHEDULE:
+            case MY_FEEDBACK_SUBMITTED:
+            case FEEDBACK_ALL:
+            case FEEDBACK_FOR_SESSION:
+                return true;
+            default:
+                return false;
         }
     }
 
@@ -496,25 +733,83 @@ public class ScheduleProvider extends ContentProvider {
      * Apply the given set of {@link ContentProviderOperation}, executing inside
      * a {@link SQLiteDatabase} transaction. All changes will be rolled back if
      * any single one fails.
+     * <p/>
+     * Operations built with {@link ContentProviderOperation.Builder#withYieldAllowed} mark the
+     * points where the transaction may be committed in chunks of at least
+     * {@link #YIELD_CHUNK_SIZE} operations, if another thread is waiting to write. Only the
+     * chunk being applied is rolled back then. The conference data import doesn't allow
+     * yields, so it stays atomic; queries aren't blocked by it thanks to write-ahead logging.
+     * <p/>
+     * Inserts into tables go through a {@link BulkInserter}, so a sync that inserts thousands
+     * of rows reuses one statement for each table rather than building one for each row. The
+     * changes of the batch are notified once it ends.
      */
     @Override
     public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
             throws OperationApplicationException {
         final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        final boolean ownsInserter = mBulkInsertsEnabled && mBatchInserter.get() == null;
+        if (ownsInserter) {
+            mBatchInserter.set(new BulkInserter(db));
+        }
+        final boolean ownsNotifications = mChangeNotifier.beginBatch();
+        final long conferenceDataVersion = mConferenceDataVersion.get();
+        final long myScheduleVersion = mMyScheduleVersion.get();
         db.beginTransaction();
         try {
             final int numOperations = operations.size();
             final ContentProviderResult[] results = new ContentProviderResult[numOperations];
+            int operationsSinceYield = 0;
             for (int i = 0; i < numOperations; i++) {
-                results[i] = operations.get(i).apply(this, results, i);
+                final ContentProviderOperation operation = operations.get(i);
+                if (operation.isYieldAllowed() && operationsSinceYield >= YIELD_CHUNK_SIZE) {
+                    operationsSinceYield = 0;
+                    // No sleep after the yield: the connection pool hands the connection to
+                    // the writers that wait for it before the batch gets it back.
+                    if (db.yieldIfContendedSafely()) {
+                        LOGD(TAG, "Batch yielded after " + i + " of " + numOperations
+                                + " operations.");
+                    }
+                }
+                results[i] = operation.apply(this, results, i);
+                ++operationsSinceYield;
             }
             db.setTransactionSuccessful();
             return results;
         } finally {
+            if (ownsInserter) {
+                BulkInserter inserter = mBatchInserter.get();
+                LOGD(TAG, "Batch of " + operations.size() + " operations inserted "
+                        + inserter.getInsertedCount() + " rows with "
+                        + inserter.getStatementCount() + " compiled statements.");
+                inserter.close();
+                mBatchInserter.remove();
+            }
             db.endTransaction();
+            // the operations changed the data before it was committed
+            mDataVersion.incrementAndGet();
+            if (mConferenceDataVersion.get() != conferenceDataVersion) {
+                mConferenceDataVersion.incrementAndGet();
+            }
+            if (mMyScheduleVersion.get() != myScheduleVersion) {
+                mMyScheduleVersion.incrementAndGet();
+            }
+            if (ownsNotifications) {
+                // also when rolled back, as yields may have committed part of the batch
+                mChangeNotifier.endBatch();
+            }
         }
     }
 
+    /**
+     * Makes the batches insert their rows one {@link SQLiteDatabase#insertOrThrow} at a time
+     * when disabled, so that {@code BulkInserterBenchmark} can compare both.
+     */
+    @VisibleForTesting
+    void setBulkInsertsEnabled(boolean enabled) {
+        mBulkInsertsEnabled = enabled;
+    }
+
     /**
      * Build a simple {@link SelectionBuilder} to match the requested
      * {@link Uri}. This is usually enough to support {@link #insert},
@@ -651,9 +946,10 @@ public class ScheduleProvider extends ContentProvider {
     /**
      * Build an advanced {@link SelectionBuilder} to match the requested
      * {@link Uri}. This is usually only used by {@link #query}, since it
-     * performs table joins useful for {@link Cursor} data.
+     * performs table joins useful for {@link Cursor} data. {@link QueryPlanAudit} explains the
+     * queries it builds.
      */
-    private SelectionBuilder buildExpandedSelection(Uri uri, int match) {
+    SelectionBuilder buildExpandedSelection(Uri uri, int match) {
         final SelectionBuilder builder = new SelectionBuilder();
         ScheduleUriEnum matchingUriEnum = mUriMatcher.matchCode(match);
         if (matchingUriEnum == null) {
@@ -751,11 +1047,12 @@ public class ScheduleProvider extends ContentProvider {
                 return builder.table(Tables.SESSIONS_SEARCH_JOIN_SESSIONS_ROOMS,
                         getCurrentAccountName(uri, true))
                         .map(Sessions.SEARCH_SNIPPET, Subquery.SESSIONS_SNIPPET)
+                        .map(Sessions.SEARCH_RANK, buildSearchRank(query))
                         .mapToTable(Sessions._ID, Tables.SESSIONS)
                         .mapToTable(Sessions.SESSION_ID, Tables.SESSIONS)
                         .mapToTable(Sessions.ROOM_ID, Tables.SESSIONS)
                         .map(Sessions.SESSION_IN_MY_SCHEDULE, "IFNULL(in_schedule, 0)")
-                        .where(SessionsSearchColumns.BODY + " MATCH ?", query);
+                        .where(Tables.SESSIONS_SEARCH + " MATCH ?", query);
             }
             case SESSIONS_AT: {
                 final List<String> segments = uri.getPathSegments();
@@ -923,6 +1220,30 @@ public class ScheduleProvider extends ContentProvider {
         throw new UnsupportedOperationException("openFile is not supported for " + uri);
     }
 
+    /**
+     * Builds the {@link Sessions#SEARCH_RANK} of the results of a full-text query: for each term
+     * of the query, the weight of every column of {@link Tables#SESSIONS_SEARCH} it was found in.
+     * <p/>
+     * The hit counts come from {@code matchinfo(sessions_search,'x')}, three 32-bit integers per
+     * term and column, the first being the hits in the current row. SQLite can't read integers
+     * out of a blob and Android can't register a ranking function, so each count is compared
+     * with a zero blob, which doesn't depend on byte order. Terms past the end of the matchinfo
+     * blob, e.g. the "OR" of "a OR b", compare as empty blobs and add nothing.
+     */
+    static String buildSearchRank(String query) {
+        int terms = query.trim().split(" +").length;
+        StringBuilder rank = new StringBuilder("(0");
+        for (int term = 0; term < terms; term++) {
+            for (int column = 0; column < SEARCH_COLUMN_WEIGHTS.length; column++) {
+                int offset = (term * SEARCH_COLUMN_WEIGHTS.length + column) * 12 + 1;
+                rank.append("+").append(SEARCH_COLUMN_WEIGHTS[column])
+                        .append("*(substr(matchinfo(").append(Tables.SESSIONS_SEARCH)
+                        .append(",'x'),").append(offset).append(",4)>x'00000000')");
+            }
+        }
+        return rank.append(")").toString();
+    }
+
     private interface Subquery {
         String SESSION_HAS_GIVEN_FEEDBACK = "(SELECT COUNT(1) FROM "
                 + Tables.FEEDBACK + " WHERE " + Qualified.FEEDBACK_SESSION_ID + "="
@@ -936,6 +1257,7 @@ public class ScheduleProvider extends ContentProvider {
      * parent {@link Tables}. Used when needed to work around SQL ambiguity.
      */
     private interface Qualified {
+        String SESSIONS_ID = Tables.SESSIONS + "." + Sessions._ID;
         String SESSIONS_SESSION_ID = Tables.SESSIONS + "." + Sessions.SESSION_ID;
         String SESSIONS_ROOM_ID = Tables.SESSIONS + "." + Sessions.ROOM_ID;
         String SESSIONS_TAGS_SESSION_ID = Tables.SESSIONS_TAGS + "."
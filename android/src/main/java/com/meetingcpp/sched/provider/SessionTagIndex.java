@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.provider;
+
+import com.meetingcpp.sched.provider.ScheduleContract.Sessions;
+import com.meetingcpp.sched.provider.ScheduleDatabase.SessionsTags;
+import com.meetingcpp.sched.provider.ScheduleDatabase.Tables;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * In-memory index of the tags of the sessions: for each tag, a bitset of the sessions that have
+ * it, by the ordinal of their row. Answers the tag filters of Explore with bitset operations,
+ * instead of grouping the join of the sessions and their tags on every query.
+ * <p/>
+ * An index is a snapshot of the data at the given version, and is immutable, so it can be
+ * shared by the threads that query the provider.
+ */
+class SessionTagIndex {
+
+    private final long mVersion;
+
+    // _ID of the session of each ordinal, in ascending order
+    private final long[] mSessionIds;
+
+    private final HashMap<String, BitSet> mSessionsByTag;
+
+    SessionTagIndex(long version, long[] sessionIds, HashMap<String, BitSet> sessionsByTag) {
+        mVersion = version;
+        mSessionIds = sessionIds;
+        mSessionsByTag = sessionsByTag;
+    }
+
+    /**
+     * Reads the index from the database.
+     *
+     * @param version The version of the data being read.
+     */
+    static SessionTagIndex build(SQLiteDatabase db, long version) {
+        long[] sessionIds;
+        Cursor cursor = db.query(Tables.SESSIONS, new String[]{BaseColumns._ID}, null, null,
+                null, null, BaseColumns._ID);
+        try {
+            sessionIds = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                sessionIds[i] = cursor.getLong(0);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        HashMap<String, BitSet> sessionsByTag = new HashMap<String, BitSet>();
+        cursor = db.rawQuery("SELECT " + SessionsTags.TAG_ID + "," + Tables.SESSIONS + "."
+                + BaseColumns._ID + " FROM " + Tables.SESSIONS_TAGS + " INNER JOIN "
+                + Tables.SESSIONS + " ON " + Tables.SESSIONS_TAGS + "." + SessionsTags.SESSION_ID
+                + "=" + Tables.SESSIONS + "." + Sessions.SESSION_ID, null);
+        try {
+            while (cursor.moveToNext()) {
+                // a session inserted after the first query isn't part of this snapshot
+                int ordinal = Arrays.binarySearch(sessionIds, cursor.getLong(1));
+                if (ordinal < 0) {
+                    continue;
+                }
+                String tag = cursor.getString(0);
+                BitSet sessions = sessionsByTag.get(tag);
+                if (sessions == null) {
+                    sessions = new BitSet(sessionIds.length);
+                    sessionsByTag.put(tag, sessions);
+                }
+                sessions.set(ordinal);
+            }
+        } finally {
+            cursor.close();
+        }
+        return new SessionTagIndex(version, sessionIds, sessionsByTag);
+    }
+
+    /**
+     * @return The version of the data this index was read from.
+     */
+    long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Returns the sessions that have at least {@code minTags} of the given tags, e.g. all of them
+     * when {@code minTags} is the number of tags, any of them when it's 1.
+     *
+     * @return The _IDs of the sessions, in ascending order.
+     */
+    long[] getSessionIds(String[] tags, int minTags) {
+        // the same tag twice only counts once
+        LinkedHashSet<String> distinctTags = new LinkedHashSet<String>(Arrays.asList(tags));
+        BitSet[] tagSessions = new BitSet[distinctTags.size()];
+        int i = 0;
+        for (String tag : distinctTags) {
+            BitSet sessions = mSessionsByTag.get(tag);
+            tagSessions[i++] = sessions == null ? new BitSet() : sessions;
+        }
+
+        BitSet matches;
+        if (tagSessions.length == 0 || minTags > tagSessions.length) {
+            matches = new BitSet();
+        } else if (minTags <= 1) {
+            matches = (BitSet) tagSessions[0].clone();
+            for (i = 1; i < tagSessions.length; i++) {
+                matches.or(tagSessions[i]);
+            }
+        } else if (minTags == tagSessions.length) {
+            matches = (BitSet) tagSessions[0].clone();
+            for (i = 1; i < tagSessions.length; i++) {
+                matches.and(tagSessions[i]);
+            }
+        } else {
+            // some of the tags, count them for each session
+            int[] counts = new int[mSessionIds.length];
+            matches = new BitSet(mSessionIds.length);
+            for (BitSet sessions : tagSessions) {
+                for (int o = sessions.nextSetBit(0); o >= 0; o = sessions.nextSetBit(o + 1)) {
+                    if (++counts[o] == minTags) {
+                        matches.set(o);
+                    }
+                }
+            }
+        }
+
+        long[] sessionIds = new long[matches.cardinality()];
+        i = 0;
+        for (int o = matches.nextSetBit(0); o >= 0; o = matches.nextSetBit(o + 1)) {
+            sessionIds[i++] = mSessionIds[o];
+        }
+        return sessionIds;
+    }
+}
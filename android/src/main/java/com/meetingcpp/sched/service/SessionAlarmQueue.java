@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The alarms of the starred sessions that are yet to fire, in the order of their times, so
+ * that {@link SessionAlarmService} only registers the next one with the
+ * {@link android.app.AlarmManager}.
+ * <p/>
+ * There's one alarm of each type for each session time: the reminders of the sessions that
+ * start together are shown in a single notification, and so are the feedback requests.
+ */
+class SessionAlarmQueue {
+
+    static final long NO_ALARM = -1;
+
+    // A session is about to start
+    static final int TYPE_SESSION_START = 0;
+
+    // A session is about to end, and feedback can be given
+    static final int TYPE_SESSION_FEEDBACK = 1;
+
+    // How late an alarm may fire and still be notified. The AlarmManager delivers alarms
+    // inexactly, so one may fire after its session started or ended.
+    static final long GRACE_PERIOD = 15 * 60 * 1000;
+
+    private static final Comparator<Alarm> ALARM_ORDER = new Comparator<Alarm>() {
+        @Override
+        public int compare(Alarm lhs, Alarm rhs) {
+            if (lhs.time != rhs.time) {
+                return lhs.time < rhs.time ? -1 : 1;
+            }
+            if (lhs.type != rhs.type) {
+                return lhs.type < rhs.type ? -1 : 1;
+            }
+            return lhs.sessionTime < rhs.sessionTime ? -1
+                    : (lhs.sessionTime == rhs.sessionTime ? 0 : 1);
+        }
+    };
+
+    private final TreeSet<Alarm> mAlarms = new TreeSet<Alarm>(ALARM_ORDER);
+
+    /**
+     * Adds an alarm, unless the same one is already queued.
+     *
+     * @param sessionTime The start of the session for {@link #TYPE_SESSION_START}, its end for
+     * {@link #TYPE_SESSION_FEEDBACK}.
+     */
+    void add(int type, long time, long sessionTime) {
+        mAlarms.add(new Alarm(type, time, sessionTime));
+    }
+
+    /**
+     * Removes the alarm of the given type for a session time, if it's queued.
+     *
+     * @return Whether an alarm was removed.
+     */
+    boolean remove(int type, long sessionTime) {
+        Iterator<Alarm> iterator = mAlarms.iterator();
+        while (iterator.hasNext()) {
+            Alarm alarm = iterator.next();
+            if (alarm.type == type && alarm.sessionTime == sessionTime) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the alarms due at the given time.
+     *
+     * @return The removed alarms, in the order of their times.
+     */
+    List<Alarm> pollDue(long now) {
+        List<Alarm> due = new ArrayList<Alarm>();
+        while (!mAlarms.isEmpty() && mAlarms.first().time <= now) {
+            due.add(mAlarms.pollFirst());
+        }
+        return due;
+    }
+
+    /**
+     * @return The time of the next alarm, or {@link #NO_ALARM} if there's none.
+     */
+    long getNextAlarmTime() {
+        return mAlarms.isEmpty() ? NO_ALARM : mAlarms.first().time;
+    }
+
+    /**
+     * @return Whether an alarm of the given time is too old to be notified at the given time.
+     */
+    static boolean isMissed(long alarmTime, long now) {
+        return now > alarmTime + GRACE_PERIOD;
+    }
+
+    int size() {
+        return mAlarms.size();
+    }
+
+    static final class Alarm {
+        final int type;
+        final long time;
+        final long sessionTime;
+
+        Alarm(int type, long time, long sessionTime) {
+            this.type = type;
+            this.time = time;
+            this.sessionTime = sessionTime;
+        }
+    }
+}
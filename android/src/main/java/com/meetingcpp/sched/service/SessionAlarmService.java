@@ -30,7 +30,6 @@ import com.meetingcpp.sched.feedback.SessionFeedbackActivity;
 import com.meetingcpp.sched.map.MapActivity;
 import com.meetingcpp.sched.myschedule.MyScheduleActivity;
 import com.meetingcpp.sched.provider.ScheduleContract;
-import com.meetingcpp.sched.provider.ScheduleContractHelper;
 import com.meetingcpp.sched.settings.SettingsUtils;
 import com.meetingcpp.sched.util.UIUtils;
 
@@ -64,6 +63,11 @@ import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
  * Background service to handle scheduling of starred session notification via
  * {@link android.app.AlarmManager}. The service also handles invoking the system notifications to
  * provide feedback for the starred sessions.
+ * <p/>
+ * The alarms of the starred sessions are kept in a {@link SessionAlarmQueue}, and only the next
+ * one is registered with the AlarmManager. When it fires, the due alarms are notified and the
+ * one after them is registered, so there's a single system alarm however many sessions are
+ * starred.
  */
 public class SessionAlarmService extends IntentService
         implements GoogleApiClient.ConnectionCallbacks,
@@ -81,6 +85,10 @@ public class SessionAlarmService extends IntentService
             "com.meetingcpp.sched.action.SCHEDULE_STARRED_BLOCK";
     public static final String ACTION_SCHEDULE_ALL_STARRED_BLOCKS =
             "com.meetingcpp.sched.action.SCHEDULE_ALL_STARRED_BLOCKS";
+    public static final String ACTION_NOTIFY_NEXT_ALARMS =
+            "com.meetingcpp.sched.action.NOTIFY_NEXT_ALARMS";
+    public static final String ACTION_UNSCHEDULE_UNSTARRED_BLOCK =
+            "com.meetingcpp.sched.action.UNSCHEDULE_UNSTARRED_BLOCK";
     public static final String EXTRA_SESSION_START =
             "com.meetingcpp.sched.extra.SESSION_START";
     public static final String EXTRA_SESSION_END =
@@ -118,6 +126,13 @@ public class SessionAlarmService extends IntentService
     // special session ID that identifies a debug notification
     public static final String DEBUG_SESSION_ID = "debug-session-id";
 
+    // The alarms of the starred sessions, or null until they're read from My Schedule. The
+    // service handles one intent at a time, so these need no locking.
+    private static SessionAlarmQueue sAlarmQueue;
+
+    // Time of the alarm registered with the AlarmManager by this process
+    private static long sRegisteredAlarmTime = SessionAlarmQueue.NO_ALARM;
+
     public SessionAlarmService() {
         super(TAG);
     }
@@ -141,13 +156,23 @@ public class SessionAlarmService extends IntentService
 
         if (ACTION_SCHEDULE_ALL_STARRED_BLOCKS.equals(action)) {
             LOGD(TAG, "Scheduling all starred blocks.");
-            scheduleAllStarredBlocks();
-            scheduleAllStarredSessionFeedbacks();
+            loadAlarmQueue();
+            registerNextAlarm();
+            return;
+        } else if (ACTION_NOTIFY_NEXT_ALARMS.equals(action)) {
+            LOGD(TAG, "Notifying the due alarms.");
+            notifyDueAlarms();
             return;
         } else if (ACTION_NOTIFY_SESSION_FEEDBACK.equals(action)) {
             LOGD(TAG, "Showing session feedback notification.");
             notifySessionFeedback(DEBUG_SESSION_ID.equals(intent.getStringExtra(EXTRA_SESSION_ID)));
             return;
+        } else if (ACTION_UNSCHEDULE_UNSTARRED_BLOCK.equals(action)) {
+            LOGD(TAG, "Removing the alarms of an unstarred session.");
+            unqueueSessionAlarms(intent.getStringExtra(EXTRA_SESSION_ID),
+                    intent.getLongExtra(EXTRA_SESSION_START, UNDEFINED_VALUE),
+                    intent.getLongExtra(EXTRA_SESSION_END, UNDEFINED_VALUE));
+            return;
         }
 
         final long sessionEnd = intent.getLongExtra(SessionAlarmService.EXTRA_SESSION_END,
@@ -173,7 +198,11 @@ public class SessionAlarmService extends IntentService
                 return;
             }
             LOGD(TAG, "Scheduling feedback alarm for session: " + sessionTitle);
-            scheduleFeedbackAlarm(sessionEnd, sessionAlarmOffset, sessionTitle);
+            if (sessionAlarmOffset == UNDEFINED_ALARM_OFFSET) {
+                queueSessionAlarms(UNDEFINED_VALUE, sessionEnd);
+            } else {
+                scheduleFeedbackAlarm(sessionEnd, sessionAlarmOffset, sessionTitle);
+            }
             return;
         }
 
@@ -195,10 +224,172 @@ public class SessionAlarmService extends IntentService
                     .toString());
             LOGD(TAG, "-> Session end: " + sessionEnd + " = " + (new Date(sessionEnd)).toString());
             LOGD(TAG, "-> Alarm offset: " + sessionAlarmOffset);
-            scheduleAlarm(sessionStart, sessionEnd, sessionAlarmOffset);
+            if (sessionAlarmOffset == UNDEFINED_ALARM_OFFSET) {
+                queueSessionAlarms(sessionStart, UNDEFINED_VALUE);
+            } else {
+                // snoozed notification, with an alarm of its own
+                scheduleAlarm(sessionStart, sessionEnd, sessionAlarmOffset);
+            }
+        }
+    }
+
+    /**
+     * Reads the alarms of all the starred sessions from My Schedule, replacing the queued ones.
+     * This also drops the alarms of the sessions removed from it.
+     */
+    private void loadAlarmQueue() {
+        SessionAlarmQueue queue = new SessionAlarmQueue();
+        final long currentTime = UIUtils.getCurrentTime(this);
+        Cursor c = null;
+        try {
+            c = getContentResolver().query(ScheduleContract.Sessions.CONTENT_MY_SCHEDULE_URI,
+                    StarredSessionTimesQuery.PROJECTION, null, null, null);
+            if (c == null) {
+                return;
+            }
+            while (c.moveToNext()) {
+                addSessionAlarms(queue, c.getLong(StarredSessionTimesQuery.SESSION_START),
+                        c.getLong(StarredSessionTimesQuery.SESSION_END), currentTime);
+            }
+        } finally {
+            if (c != null) { try { c.close(); } catch (Exception ignored) { } }
+        }
+        LOGD(TAG, "Loaded " + queue.size() + " alarms of starred sessions.");
+        sAlarmQueue = queue;
+    }
+
+    /**
+     * Queues the alarms of a starred session, and registers the next alarm if it's one of them.
+     * Either time may be {@link #UNDEFINED_VALUE}, to only queue the alarm of the other.
+     */
+    private void queueSessionAlarms(final long sessionStart, final long sessionEnd) {
+        if (sAlarmQueue == null) {
+            loadAlarmQueue();
+        }
+        if (sAlarmQueue == null) {
+            sAlarmQueue = new SessionAlarmQueue();
+        }
+        // the session may not be in My Schedule yet
+        addSessionAlarms(sAlarmQueue, sessionStart, sessionEnd, UIUtils.getCurrentTime(this));
+        registerNextAlarm();
+    }
+
+    /**
+     * Removes the alarms of an unstarred session from the queue, unless other starred sessions
+     * start or end at the same time, and registers the next alarm in place of the removed one.
+     */
+    private void unqueueSessionAlarms(final String sessionId, final long sessionStart,
+            final long sessionEnd) {
+        if (sAlarmQueue == null) {
+            loadAlarmQueue();
+        }
+        if (sAlarmQueue == null || sessionId == null) {
+            return;
+        }
+        // the session may still be in My Schedule, so it's left out
+        boolean startShared = false;
+        boolean endShared = false;
+        Cursor c = null;
+        try {
+            c = getContentResolver().query(ScheduleContract.Sessions.CONTENT_MY_SCHEDULE_URI,
+                    StarredSessionTimesQuery.PROJECTION, null, null, null);
+            if (c == null) {
+                return;
+            }
+            while (c.moveToNext()) {
+                if (sessionId.equals(c.getString(StarredSessionTimesQuery.SESSION_ID))) {
+                    continue;
+                }
+                startShared |= c.getLong(StarredSessionTimesQuery.SESSION_START) == sessionStart;
+                endShared |= c.getLong(StarredSessionTimesQuery.SESSION_END) == sessionEnd;
+            }
+        } finally {
+            if (c != null) { try { c.close(); } catch (Exception ignored) { } }
+        }
+        if (!startShared) {
+            sAlarmQueue.remove(SessionAlarmQueue.TYPE_SESSION_START, sessionStart);
+        }
+        if (!endShared) {
+            sAlarmQueue.remove(SessionAlarmQueue.TYPE_SESSION_FEEDBACK, sessionEnd);
+        }
+        registerNextAlarm();
+    }
+
+    private static void addSessionAlarms(SessionAlarmQueue queue, final long sessionStart,
+            final long sessionEnd, final long currentTime) {
+        // Reminders go off 10 minutes before the session starts, unless that's too long ago.
+        final long startAlarmTime = sessionStart - MILLI_TEN_MINUTES;
+        if (sessionStart != UNDEFINED_VALUE
+                && !SessionAlarmQueue.isMissed(startAlarmTime, currentTime)) {
+            queue.add(SessionAlarmQueue.TYPE_SESSION_START, startAlarmTime, sessionStart);
+        }
+        // Feedback alarms go off 5 minutes before the session ends, unless that's too long ago.
+        final long feedbackAlarmTime = sessionEnd - MILLI_FIVE_MINUTES;
+        if (sessionEnd != UNDEFINED_VALUE
+                && !SessionAlarmQueue.isMissed(feedbackAlarmTime, currentTime)) {
+            queue.add(SessionAlarmQueue.TYPE_SESSION_FEEDBACK, feedbackAlarmTime, sessionEnd);
         }
     }
 
+    /**
+     * Registers the next alarm of the queue with the AlarmManager, replacing the registered one,
+     * unless it's already registered.
+     */
+    private void registerNextAlarm() {
+        final long alarmTime = sAlarmQueue == null
+                ? SessionAlarmQueue.NO_ALARM : sAlarmQueue.getNextAlarmTime();
+        if (alarmTime == sRegisteredAlarmTime) {
+            LOGD(TAG, "Next alarm already registered: " + alarmTime);
+            return;
+        }
+
+        final Intent nextAlarmsIntent = new Intent(
+                ACTION_NOTIFY_NEXT_ALARMS,
+                null,
+                this,
+                SessionAlarmService.class);
+        PendingIntent pi = PendingIntent.getService(
+                this, 2, nextAlarmsIntent, PendingIntent.FLAG_UPDATE_CURRENT);
+        final AlarmManager am = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        if (alarmTime == SessionAlarmQueue.NO_ALARM) {
+            LOGD(TAG, "No more alarms, cancelling the registered one.");
+            am.cancel(pi);
+        } else {
+            LOGD(TAG, "Registering next alarm at " + alarmTime + " = "
+                    + (new Date(alarmTime)).toString());
+            am.set(AlarmManager.RTC_WAKEUP, alarmTime, pi);
+        }
+        sRegisteredAlarmTime = alarmTime;
+    }
+
+    /**
+     * The registered alarm fired. Notifies the alarms due by now, and registers the next one.
+     */
+    private void notifyDueAlarms() {
+        // consumed by firing
+        sRegisteredAlarmTime = SessionAlarmQueue.NO_ALARM;
+        // sessions may have been removed from My Schedule since, or this process restarted
+        loadAlarmQueue();
+        if (sAlarmQueue == null) {
+            return;
+        }
+
+        boolean feedbackDue = false;
+        for (SessionAlarmQueue.Alarm alarm :
+                sAlarmQueue.pollDue(UIUtils.getCurrentTime(this))) {
+            if (alarm.type == SessionAlarmQueue.TYPE_SESSION_START) {
+                notifySession(alarm.sessionTime, UNDEFINED_ALARM_OFFSET);
+            } else {
+                // a single notification covers all the sessions needing feedback
+                feedbackDue = true;
+            }
+        }
+        if (feedbackDue) {
+            notifySessionFeedback(false);
+        }
+        registerNextAlarm();
+    }
+
     public void scheduleFeedbackAlarm(final long sessionEnd,
             final long alarmOffset, final String sessionTitle) {
         // By default, feedback alarms fire 5 minutes before session end time. If alarm offset is
@@ -441,7 +632,11 @@ public class SessionAlarmService extends IntentService
         LOGD(TAG, "    Interval start: " + sessionStart + "=" + (new Date(sessionStart)).toString());
         LOGD(TAG, "    Interval end: " + intervalEnd + "=" + (new Date(intervalEnd)).toString());
         LOGD(TAG, "    Current time is: " + currentTime + "=" + (new Date(currentTime)).toString());
-        if (sessionStart < currentTime) {
+        // a reminder of the queue may be notified late, as its alarm may fire late
+        final boolean tooLate = alarmOffset == UNDEFINED_ALARM_OFFSET
+                ? SessionAlarmQueue.isMissed(sessionStart - MILLI_TEN_MINUTES, currentTime)
+                : sessionStart < currentTime;
+        if (tooLate) {
             LOGD(TAG, "Skipping session notification (too late -- time interval already started)");
             return;
         }
@@ -593,60 +788,17 @@ public class SessionAlarmService extends IntentService
                 .getPendingIntent(0, PendingIntent.FLAG_CANCEL_CURRENT);
     }
 
-    private void scheduleAllStarredBlocks() {
-        final ContentResolver cr = getContentResolver();
-        Cursor c = null;
-        try {
-            c = cr.query(ScheduleContract.Sessions.CONTENT_MY_SCHEDULE_URI,
-                    new String[]{
-                            ScheduleContractHelper.formatQueryDistinctParameter(
-                                    ScheduleContract.Sessions.SESSION_START),
-                            ScheduleContract.Sessions.SESSION_END,
-                            ScheduleContract.Sessions.SESSION_IN_MY_SCHEDULE},
-                    null,
-                    null,
-                    null
-            );
-            if (c == null) {
-                return;
-            }
-
-            while (c.moveToNext()) {
-                final long sessionStart = c.getLong(0);
-                final long sessionEnd = c.getLong(1);
-                scheduleAlarm(sessionStart, sessionEnd, UNDEFINED_ALARM_OFFSET);
-            }
-        } finally {
-            if (c != null) { try { c.close(); } catch (Exception ignored) { } }
-        }
-    }
+    private interface StarredSessionTimesQuery {
+        String[] PROJECTION = {
+                ScheduleContract.Sessions.SESSION_START,
+                ScheduleContract.Sessions.SESSION_END,
+                ScheduleContract.Sessions.SESSION_IN_MY_SCHEDULE,
+                ScheduleContract.Sessions.SESSION_ID
+        };
 
-    // Schedules feedback alarms for all starred sessions.
-    private void scheduleAllStarredSessionFeedbacks() {
-        final ContentResolver cr = getContentResolver();
-        Cursor c = null;
-        try {
-            c = cr.query(ScheduleContract.Sessions.CONTENT_MY_SCHEDULE_URI,
-                new String[]{
-                        ScheduleContract.Sessions.SESSION_TITLE,
-                        ScheduleContract.Sessions.SESSION_END,
-                        ScheduleContract.Sessions.SESSION_IN_MY_SCHEDULE,
-                },
-                null,
-                null,
-                null
-        );
-        if (c == null) {
-            return;
-        }
-        while (c.moveToNext()) {
-            final String sessionTitle = c.getString(0);
-            final long sessionEnd = c.getLong(1);
-            scheduleFeedbackAlarm(sessionEnd, UNDEFINED_ALARM_OFFSET, sessionTitle);
-        }
-        } finally {
-            if (c != null) { try { c.close(); } catch (Exception ignored) { } }
-        }
+        int SESSION_START = 0;
+        int SESSION_END = 1;
+        int SESSION_ID = 3;
     }
 
     public interface SessionDetailQuery {
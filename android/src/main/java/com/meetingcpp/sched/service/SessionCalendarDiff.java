@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The changes that turn the calendar events added by the app into the events of the sessions in
+ * My Schedule, for {@link SessionCalendarService}.
+ * <p/>
+ * A session keeps its event if the event still exists with the ID stored with the session, or
+ * else if there's one with its title and times. Such events are only updated if they differ
+ * from the session. The sessions without an event are inserted, and the events of no session
+ * are deleted. When a single session is added to or removed from My Schedule, only the event of
+ * that session is looked at, see {@link #computeForSession}.
+ */
+class SessionCalendarDiff {
+
+    static final long NO_EVENT_ID = -1;
+
+    private final List<Event> mInserts = new ArrayList<Event>();
+
+    private final List<Event> mUpdates = new ArrayList<Event>();
+
+    private final List<Long> mDeletes = new ArrayList<Long>();
+
+    // Event IDs to store with the sessions, for the sessions whose event changed
+    private final Map<String, Long> mEventIds = new LinkedHashMap<String, Long>();
+
+    private SessionCalendarDiff() {
+    }
+
+    /**
+     * @param existingEvents The calendar events added by the app.
+     * @param sessionEvents The events of the sessions in My Schedule, with the event IDs stored
+     * with the sessions, if any.
+     */
+    static SessionCalendarDiff compute(List<Event> existingEvents, List<Event> sessionEvents) {
+        SessionCalendarDiff diff = new SessionCalendarDiff();
+
+        HashMap<Long, Event> unclaimedById = new HashMap<Long, Event>();
+        for (Event event : existingEvents) {
+            unclaimedById.put(event.id, event);
+        }
+
+        // first the sessions that still have the events stored with them
+        List<Event> unmatched = new ArrayList<Event>();
+        for (Event sessionEvent : sessionEvents) {
+            Event existing = unclaimedById.remove(sessionEvent.id);
+            if (existing != null) {
+                diff.match(sessionEvent, existing);
+            } else {
+                unmatched.add(sessionEvent);
+            }
+        }
+
+        // then the others, by title and times
+        HashMap<String, ArrayDeque<Event>> unclaimedByKey =
+                new HashMap<String, ArrayDeque<Event>>();
+        for (Event event : existingEvents) {
+            if (unclaimedById.containsKey(event.id)) {
+                ArrayDeque<Event> events = unclaimedByKey.get(event.getKey());
+                if (events == null) {
+                    events = new ArrayDeque<Event>();
+                    unclaimedByKey.put(event.getKey(), events);
+                }
+                events.add(event);
+            }
+        }
+        for (Event sessionEvent : unmatched) {
+            ArrayDeque<Event> events = unclaimedByKey.get(sessionEvent.getKey());
+            Event existing = events == null ? null : events.poll();
+            if (existing != null) {
+                unclaimedById.remove(existing.id);
+                diff.match(sessionEvent, existing);
+            } else {
+                diff.mInserts.add(sessionEvent);
+            }
+        }
+
+        // kept in the order of the calendar, for readable logs
+        for (Event event : existingEvents) {
+            if (unclaimedById.containsKey(event.id)) {
+                diff.mDeletes.add(event.id);
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * The changes for a single session just added to or removed from My Schedule, that leave the
+     * events of the other sessions alone, duplicates included.
+     *
+     * @param existingEvents The calendar events added by the app that may be the session's.
+     * @param sessionEvent The event of the session, with the event ID stored with the session,
+     * if any.
+     * @param inMySchedule Whether the session was added, or else removed.
+     */
+    static SessionCalendarDiff computeForSession(List<Event> existingEvents, Event sessionEvent,
+            boolean inMySchedule) {
+        // the event stored with the session, or else the first one with its title and times
+        Event existing = null;
+        for (Event event : existingEvents) {
+            if (event.id == sessionEvent.id) {
+                existing = event;
+                break;
+            }
+            if (existing == null && event.getKey().equals(sessionEvent.getKey())) {
+                existing = event;
+            }
+        }
+        List<Event> sessionExisting = new ArrayList<Event>();
+        if (existing != null) {
+            sessionExisting.add(existing);
+        }
+        List<Event> sessionEvents = new ArrayList<Event>();
+        if (inMySchedule) {
+            sessionEvents.add(sessionEvent);
+        }
+        return compute(sessionExisting, sessionEvents);
+    }
+
+    private void match(Event sessionEvent, Event existing) {
+        if (!sessionEvent.hasSameContent(existing)) {
+            mUpdates.add(sessionEvent.withId(existing.id));
+        }
+        if (sessionEvent.id != existing.id) {
+            mEventIds.put(sessionEvent.sessionId, existing.id);
+        }
+    }
+
+    /**
+     * @return The session events to insert in the calendar. Their IDs are to be stored with
+     * their sessions once inserted.
+     */
+    List<Event> getInserts() {
+        return mInserts;
+    }
+
+    /**
+     * @return The session events to write over the events with their IDs.
+     */
+    List<Event> getUpdates() {
+        return mUpdates;
+    }
+
+    /**
+     * @return The IDs of the events to delete.
+     */
+    List<Long> getDeletes() {
+        return mDeletes;
+    }
+
+    /**
+     * @return The IDs of the existing events to store with their sessions, by session ID.
+     */
+    Map<String, Long> getEventIds() {
+        return mEventIds;
+    }
+
+    boolean isEmpty() {
+        return mInserts.isEmpty() && mUpdates.isEmpty() && mDeletes.isEmpty()
+                && mEventIds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return mInserts.size() + " inserts, " + mUpdates.size() + " updates, "
+                + mDeletes.size() + " deletes, " + mEventIds.size() + " relinked sessions";
+    }
+
+    static final class Event {
+        final long id;
+        // null for the events read from the calendar
+        final String sessionId;
+        final String title;
+        final long start;
+        final long end;
+        final String location;
+        final String timeZone;
+
+        Event(long id, String sessionId, String title, long start, long end, String location,
+                String timeZone) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.title = title;
+            this.start = start;
+            this.end = end;
+            this.location = location;
+            this.timeZone = timeZone;
+        }
+
+        Event withId(long id) {
+            return new Event(id, sessionId, title, start, end, location, timeZone);
+        }
+
+        boolean hasSameContent(Event other) {
+            return equal(title, other.title) && start == other.start && end == other.end
+                    && equal(location, other.location) && equal(timeZone, other.timeZone);
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        String getKey() {
+            return title + "|" + start + "|" + end;
+        }
+    }
+}
@@ -25,7 +25,9 @@ import com.meetingcpp.sched.util.AccountUtils;
 
 import android.app.IntentService;
 import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Intent;
 import android.content.OperationApplicationException;
@@ -37,7 +39,11 @@ import android.provider.CalendarContract;
 import android.text.TextUtils;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import static com.meetingcpp.sched.util.LogUtils.LOGD;
 import static com.meetingcpp.sched.util.LogUtils.LOGE;
 import static com.meetingcpp.sched.util.LogUtils.LOGW;
 import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
@@ -45,6 +51,10 @@ import static com.meetingcpp.sched.util.LogUtils.makeLogTag;
 /**
  * Background {@link android.app.Service} that adds or removes session Calendar events through
  * the {@link CalendarContract} API available in Android 4.0 or above.
+ * <p/>
+ * The events added by the app are read once, and compared with the sessions in My Schedule by a
+ * {@link SessionCalendarDiff}, so that only the events that changed are written, in one batch.
+ * When a single session is added or removed, only its event is read and written.
  */
 public class SessionCalendarService extends IntentService {
     private static final String TAG = makeLogTag(SessionCalendarService.class);
@@ -87,19 +97,33 @@ public class SessionCalendarService extends IntentService {
 
         final ContentResolver resolver = getContentResolver();
 
-        boolean isAddEvent = false;
-
-        if (ACTION_ADD_SESSION_CALENDAR.equals(action)) {
-            isAddEvent = true;
-
-        } else if (ACTION_REMOVE_SESSION_CALENDAR.equals(action)) {
-            isAddEvent = false;
+        if (ACTION_ADD_SESSION_CALENDAR.equals(action)
+                || ACTION_REMOVE_SESSION_CALENDAR.equals(action)) {
+            final Uri uri = intent.getData();
+            final Bundle extras = intent.getExtras();
+            if (uri == null || extras == null || !SettingsUtils.shouldSyncCalendar(this)) {
+                return;
+            }
+            SessionCalendarDiff.Event sessionEvent = makeSessionEvent(
+                    ScheduleContract.Sessions.getSessionId(uri), querySessionEventId(resolver, uri),
+                    extras.getString(EXTRA_SESSION_TITLE), extras.getLong(EXTRA_SESSION_START),
+                    extras.getLong(EXTRA_SESSION_END), extras.getString(EXTRA_SESSION_ROOM));
+            if (sessionEvent == null) {
+                return;
+            }
+            try {
+                syncSessionCalendar(resolver, getCalendarId(intent), sessionEvent,
+                        ACTION_ADD_SESSION_CALENDAR.equals(action));
+            } catch (RemoteException e) {
+                LOGE(TAG, "Error adding session to Google Calendar", e);
+            } catch (OperationApplicationException e) {
+                LOGE(TAG, "Error adding session to Google Calendar", e);
+            }
 
         } else if (ACTION_UPDATE_ALL_SESSIONS_CALENDAR.equals(action) &&
                 SettingsUtils.shouldSyncCalendar(this)) {
             try {
-                getContentResolver().applyBatch(CalendarContract.AUTHORITY,
-                        processAllSessionsCalendar(resolver, getCalendarId(intent)));
+                syncSessionsCalendar(resolver, getCalendarId(intent));
                 sendBroadcast(new Intent(
                         SessionCalendarService.ACTION_UPDATE_ALL_SESSIONS_CALENDAR_COMPLETED));
             } catch (RemoteException e) {
@@ -117,28 +141,6 @@ public class SessionCalendarService extends IntentService {
             } catch (OperationApplicationException e) {
                 LOGE(TAG, "Error clearing all sessions from Google Calendar", e);
             }
-
-        } else {
-            return;
-        }
-
-        final Uri uri = intent.getData();
-        final Bundle extras = intent.getExtras();
-        if (uri == null || extras == null || !SettingsUtils.shouldSyncCalendar(this)) {
-            return;
-        }
-
-        try {
-            resolver.applyBatch(CalendarContract.AUTHORITY,
-                    processSessionCalendar(resolver, getCalendarId(intent), isAddEvent, uri,
-                            extras.getLong(EXTRA_SESSION_START),
-                            extras.getLong(EXTRA_SESSION_END),
-                            extras.getString(EXTRA_SESSION_TITLE),
-                            extras.getString(EXTRA_SESSION_ROOM)));
-        } catch (RemoteException e) {
-            LOGE(TAG, "Error adding session to Google Calendar", e);
-        } catch (OperationApplicationException e) {
-            LOGE(TAG, "Error adding session to Google Calendar", e);
         }
     }
 
@@ -181,189 +183,256 @@ public class SessionCalendarService extends IntentService {
     }
 
     /**
-     * Processes all sessions in the
-     * {@link com.meetingcpp.sched.provider.ScheduleProvider}, adding or removing
-     * calendar events to/from the specified Google Calendar depending on whether a session is
-     * in the user's schedule or not.
+     * Makes the calendar events added by the app those of the sessions in My Schedule, in a
+     * single batch. The events that are already right are left alone.
      */
-    private ArrayList<ContentProviderOperation> processAllSessionsCalendar(ContentResolver resolver,
-            final long calendarId) {
+    private void syncSessionsCalendar(ContentResolver resolver, final long calendarId)
+            throws RemoteException, OperationApplicationException {
+        // Unable to find the Calendar associated with the user. Stop here.
+        if (calendarId == INVALID_CALENDAR_ID) {
+            return;
+        }
 
-        ArrayList<ContentProviderOperation> batch = new ArrayList<ContentProviderOperation>();
+        // Without either side, the diff would delete or add every event
+        List<SessionCalendarDiff.Event> sessionEvents = querySessionEvents(resolver);
+        if (sessionEvents == null) {
+            LOGW(TAG, "Unable to read My Schedule, calendar left as is.");
+            return;
+        }
+        List<SessionCalendarDiff.Event> appEvents = queryAppEvents(resolver, calendarId, null);
+        if (appEvents == null) {
+            LOGW(TAG, "Unable to read the calendar events, calendar left as is.");
+            return;
+        }
+        applySessionCalendarDiff(resolver, calendarId,
+                SessionCalendarDiff.compute(appEvents, sessionEvents));
+    }
 
+    /**
+     * Adds or removes the calendar event of a single session, leaving the other events alone.
+     *
+     * @param sessionEvent The event of a session just added to or removed from My Schedule, with
+     * the event ID stored with the session, if any.
+     */
+    private void syncSessionCalendar(ContentResolver resolver, final long calendarId,
+            SessionCalendarDiff.Event sessionEvent, boolean inMySchedule)
+            throws RemoteException, OperationApplicationException {
         // Unable to find the Calendar associated with the user. Stop here.
         if (calendarId == INVALID_CALENDAR_ID) {
-            return batch;
+            return;
+        }
+
+        List<SessionCalendarDiff.Event> appEvents =
+                queryAppEvents(resolver, calendarId, sessionEvent);
+        if (appEvents == null) {
+            LOGW(TAG, "Unable to read the calendar events, calendar left as is.");
+            return;
+        }
+        applySessionCalendarDiff(resolver, calendarId,
+                SessionCalendarDiff.computeForSession(appEvents, sessionEvent, inMySchedule));
+        if (!inMySchedule) {
+            // Remove the session and calendar event association.
+            ContentValues values = new ContentValues();
+            values.put(ScheduleContract.Sessions.SESSION_CAL_EVENT_ID, (Long) null);
+            resolver.update(ScheduleContract.Sessions.buildSessionUri(sessionEvent.sessionId),
+                    values, null, null);
+        }
+    }
+
+    /**
+     * Writes the changes of a diff to the calendar in one batch, then stores the IDs of the
+     * events with their sessions, where they changed.
+     */
+    private void applySessionCalendarDiff(ContentResolver resolver, final long calendarId,
+            SessionCalendarDiff diff) throws RemoteException, OperationApplicationException {
+        LOGD(TAG, "Calendar changes: " + diff);
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        ArrayList<ContentProviderOperation> batch = new ArrayList<ContentProviderOperation>();
+        for (long eventId : diff.getDeletes()) {
+            batch.add(ContentProviderOperation.newDelete(
+                    ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, eventId))
+                    .build());
+        }
+        for (SessionCalendarDiff.Event event : diff.getUpdates()) {
+            batch.add(ContentProviderOperation.newUpdate(
+                    ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, event.id))
+                    .withValues(makeEventValues(event))
+                    .build());
+        }
+        int firstInsert = batch.size();
+        for (SessionCalendarDiff.Event event : diff.getInserts()) {
+            ContentValues values = makeEventValues(event);
+            values.put(CalendarContract.Events.CALENDAR_ID, calendarId);
+            // Since we're adding session reminder to system notification, we're not creating
+            // Calendar event reminders.
+            batch.add(ContentProviderOperation.newInsert(CalendarContract.Events.CONTENT_URI)
+                    .withValues(values)
+                    .build());
+        }
+        ContentProviderResult[] results = batch.isEmpty() ? new ContentProviderResult[0]
+                : resolver.applyBatch(CalendarContract.AUTHORITY, batch);
+
+        LinkedHashMap<String, Long> eventIds = new LinkedHashMap<String, Long>(
+                diff.getEventIds());
+        List<SessionCalendarDiff.Event> inserts = diff.getInserts();
+        for (int i = 0; i < inserts.size(); i++) {
+            eventIds.put(inserts.get(i).sessionId,
+                    ContentUris.parseId(results[firstInsert + i].uri));
+        }
+        ArrayList<ContentProviderOperation> sessionsBatch =
+                new ArrayList<ContentProviderOperation>();
+        for (Map.Entry<String, Long> entry : eventIds.entrySet()) {
+            sessionsBatch.add(ContentProviderOperation.newUpdate(
+                    ScheduleContract.Sessions.buildSessionUri(entry.getKey()))
+                    .withValue(ScheduleContract.Sessions.SESSION_CAL_EVENT_ID, entry.getValue())
+                    .build());
+        }
+        if (!sessionsBatch.isEmpty()) {
+            resolver.applyBatch(ScheduleContract.CONTENT_AUTHORITY, sessionsBatch);
+        }
+    }
+
+    /**
+     * @return The ID of the calendar event stored with a session, or
+     * {@link SessionCalendarDiff#NO_EVENT_ID} if there's none.
+     */
+    private long querySessionEventId(ContentResolver resolver, Uri sessionUri) {
+        Cursor cursor = resolver.query(sessionUri,
+                new String[]{ScheduleContract.Sessions.SESSION_CAL_EVENT_ID}, null, null, null);
+        if (cursor == null) {
+            return SessionCalendarDiff.NO_EVENT_ID;
         }
+        try {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0)
+                    : SessionCalendarDiff.NO_EVENT_ID;
+        } finally {
+            cursor.close();
+        }
+    }
 
-        // Retrieves all sessions. For each session, add to Calendar if starred and attempt to
-        // remove from Calendar if unstarred.
+    /**
+     * Reads the events of the sessions in My Schedule.
+     *
+     * @return The events, or null if My Schedule can't be read.
+     */
+    private List<SessionCalendarDiff.Event> querySessionEvents(ContentResolver resolver) {
         Cursor cursor = resolver.query(
-                ScheduleContract.Sessions.CONTENT_URI,
+                ScheduleContract.Sessions.CONTENT_MY_SCHEDULE_URI,
                 SessionsQuery.PROJECTION,
                 null, null, null);
-
-        if (cursor != null) {
+        if (cursor == null) {
+            return null;
+        }
+        List<SessionCalendarDiff.Event> events = new ArrayList<SessionCalendarDiff.Event>();
+        try {
             while (cursor.moveToNext()) {
-                Uri uri = ScheduleContract.Sessions.buildSessionUri(
-                        Long.valueOf(cursor.getLong(0)).toString());
-                boolean isAddEvent = (cursor.getInt(SessionsQuery.SESSION_IN_MY_SCHEDULE) == 1);
-                if (isAddEvent) {
-                    batch.addAll(processSessionCalendar(resolver,
-                            calendarId, isAddEvent, uri,
-                            cursor.getLong(SessionsQuery.SESSION_START),
-                            cursor.getLong(SessionsQuery.SESSION_END),
-                            cursor.getString(SessionsQuery.SESSION_TITLE),
-                            cursor.getString(SessionsQuery.ROOM_NAME)));
+                SessionCalendarDiff.Event event = makeSessionEvent(
+                        cursor.getString(SessionsQuery.SESSION_ID),
+                        cursor.isNull(SessionsQuery.SESSION_CAL_EVENT_ID)
+                                ? SessionCalendarDiff.NO_EVENT_ID
+                                : cursor.getLong(SessionsQuery.SESSION_CAL_EVENT_ID),
+                        cursor.getString(SessionsQuery.SESSION_TITLE),
+                        cursor.getLong(SessionsQuery.SESSION_START),
+                        cursor.getLong(SessionsQuery.SESSION_END),
+                        cursor.getString(SessionsQuery.ROOM_NAME));
+                if (event != null) {
+                    events.add(event);
                 }
             }
+        } finally {
             cursor.close();
         }
-
-        return batch;
+        return events;
     }
 
     /**
-     * Adds or removes a single session to/from the specified Google Calendar.
+     * Reads the events added by the app to the given calendar, over the conference.
+     *
+     * @param sessionEvent The event of a session, to only read the event with its ID or the
+     * events with its title and times, or null to read them all.
+     * @return The events, or null if the calendar can't be read.
      */
-    private ArrayList<ContentProviderOperation> processSessionCalendar(
-            final ContentResolver resolver,
-            final long calendarId, final boolean isAddEvent,
-            final Uri sessionUri, final long sessionBlockStart, final long sessionBlockEnd,
-            final String sessionTitle, final String sessionRoom) {
-        ArrayList<ContentProviderOperation> batch = new ArrayList<ContentProviderOperation>();
-
-        // Unable to find the Calendar associated with the user. Stop here.
-        if (calendarId == INVALID_CALENDAR_ID) {
-            return batch;
+    private List<SessionCalendarDiff.Event> queryAppEvents(ContentResolver resolver,
+            final long calendarId, SessionCalendarDiff.Event sessionEvent) {
+        final String suffix = getResources().getString(R.string.session_calendar_suffix);
+        String selection = CalendarContract.Events.CALENDAR_ID + "=? and "
+                + CalendarContract.Events.DELETED + "=0 and "
+                + CalendarContract.Events.TITLE + " LIKE ? and "
+                + CalendarContract.Events.DTSTART + ">=? and "
+                + CalendarContract.Events.DTEND + "<=?";
+        List<String> selectionArgs = new ArrayList<String>();
+        selectionArgs.add(Long.toString(calendarId));
+        selectionArgs.add("%" + suffix);
+        selectionArgs.add(Long.toString(Config.CONFERENCE_START_MILLIS));
+        selectionArgs.add(Long.toString(Config.CONFERENCE_END_MILLIS));
+        if (sessionEvent != null) {
+            selection += " and (" + CalendarContract.Events._ID + "=? or ("
+                    + CalendarContract.Events.TITLE + "=? and "
+                    + CalendarContract.Events.DTSTART + "=? and "
+                    + CalendarContract.Events.DTEND + "=?))";
+            selectionArgs.add(Long.toString(sessionEvent.id));
+            selectionArgs.add(sessionEvent.title);
+            selectionArgs.add(Long.toString(sessionEvent.start));
+            selectionArgs.add(Long.toString(sessionEvent.end));
         }
-
-        final String calendarEventTitle = makeCalendarEventTitle(sessionTitle);
-
-        Cursor cursor;
-        ContentValues values = new ContentValues();
-
-        // Add Calendar event.
-        if (isAddEvent) {
-            if (sessionBlockStart == 0L || sessionBlockEnd == 0L || sessionTitle == null) {
-                LOGW(TAG, "Unable to add a Calendar event due to insufficient input parameters.");
-                return batch;
-            }
-
-            // Check if the calendar event exists first.  If it does, we don't want to add a
-            // duplicate one.
-            cursor = resolver.query(
-                    CalendarContract.Events.CONTENT_URI,                       // URI
-                    new String[] {CalendarContract.Events._ID},                // Projection
-                    CalendarContract.Events.CALENDAR_ID + "=? and "            // Selection
-                            + CalendarContract.Events.TITLE + "=? and "
-                            + CalendarContract.Events.DTSTART + ">=? and "
-                            + CalendarContract.Events.DTEND + "<=?",
-                    new String[]{                                              // Selection args
-                            Long.valueOf(calendarId).toString(),
-                            calendarEventTitle,
-                            Long.toString(Config.CONFERENCE_START_MILLIS),
-                            Long.toString(Config.CONFERENCE_END_MILLIS)
-                    },
-                    null);
-
-            long newEventId = -1;
-
-            if (cursor != null && cursor.moveToFirst()) {
-                // Calendar event already exists for this session.
-                newEventId = cursor.getLong(0);
-                cursor.close();
-
-                // Data fix (workaround):
-                batch.add(
-                        ContentProviderOperation.newUpdate(CalendarContract.Events.CONTENT_URI)
-                                .withValue(CalendarContract.Events.EVENT_TIMEZONE,
-                                        Config.CONFERENCE_TIMEZONE.getID())
-                                .withSelection(CalendarContract.Events._ID + "=?",
-                                        new String[]{Long.valueOf(newEventId).toString()})
-                                .build()
-                );
-                // End data fix.
-
-            } else {
-                // Calendar event doesn't exist, create it.
-
-                // NOTE: we can't use batch processing here because we need the result of
-                // the insert.
-                values.clear();
-                values.put(CalendarContract.Events.DTSTART, sessionBlockStart);
-                values.put(CalendarContract.Events.DTEND, sessionBlockEnd);
-                values.put(CalendarContract.Events.EVENT_LOCATION, sessionRoom);
-                values.put(CalendarContract.Events.TITLE, calendarEventTitle);
-                values.put(CalendarContract.Events.CALENDAR_ID, calendarId);
-                values.put(CalendarContract.Events.EVENT_TIMEZONE,
-                        Config.CONFERENCE_TIMEZONE.getID());
-                Uri eventUri = resolver.insert(CalendarContract.Events.CONTENT_URI, values);
-                String eventId = eventUri.getLastPathSegment();
-                if (eventId == null) {
-                    return batch; // Should be empty at this point
+        Cursor cursor = resolver.query(
+                CalendarContract.Events.CONTENT_URI,
+                EventsQuery.PROJECTION,
+                selection,
+                selectionArgs.toArray(new String[selectionArgs.size()]),
+                null);
+        if (cursor == null) {
+            return null;
+        }
+        List<SessionCalendarDiff.Event> events = new ArrayList<SessionCalendarDiff.Event>();
+        try {
+            while (cursor.moveToNext()) {
+                String title = cursor.getString(EventsQuery.TITLE);
+                // LIKE ignores the case, and takes _ in the suffix for any character
+                if (title == null || !title.endsWith(suffix)) {
+                    continue;
                 }
-
-                newEventId = Long.valueOf(eventId);
-                // Since we're adding session reminder to system notification, we're not creating
-                // Calendar event reminders.  If we were to create Calendar event reminders, this
-                // is how we would do it.
-                //values.put(CalendarContract.Reminders.EVENT_ID, Integer.valueOf(eventId));
-                //values.put(CalendarContract.Reminders.MINUTES, 10);
-                //values.put(CalendarContract.Reminders.METHOD,
-                //        CalendarContract.Reminders.METHOD_ALERT); // Or default?
-                //cr.insert(CalendarContract.Reminders.CONTENT_URI, values);
-                //values.clear();
-            }
-
-            // Update the session in our own provider with the newly created calendar event ID.
-            values.clear();
-            values.put(ScheduleContract.Sessions.SESSION_CAL_EVENT_ID, newEventId);
-            resolver.update(sessionUri, values, null, null);
-
-        } else {
-            // Remove Calendar event, if exists.
-
-            // Get the event calendar id.
-            cursor = resolver.query(sessionUri,
-                    new String[] {ScheduleContract.Sessions.SESSION_CAL_EVENT_ID},
-                    null, null, null);
-            long calendarEventId = -1;
-            if (cursor != null && cursor.moveToFirst()) {
-                calendarEventId = cursor.getLong(0);
-                cursor.close();
-            }
-
-            // Try to remove the Calendar Event based on key.  If successful, move on;
-            // otherwise, remove the event based on Event title.
-            int affectedRows = 0;
-            if (calendarEventId != -1) {
-                affectedRows = resolver.delete(
-                        CalendarContract.Events.CONTENT_URI,
-                        CalendarContract.Events._ID + "=?",
-                        new String[]{Long.valueOf(calendarEventId).toString()});
-            }
-
-            if (affectedRows == 0) {
-                resolver.delete(CalendarContract.Events.CONTENT_URI,
-                        String.format("%s=? and %s=? and %s=? and %s=?",
-                                CalendarContract.Events.CALENDAR_ID,
-                                CalendarContract.Events.TITLE,
-                                CalendarContract.Events.DTSTART,
-                                CalendarContract.Events.DTEND),
-                        new String[]{Long.valueOf(calendarId).toString(),
-                                calendarEventTitle,
-                                Long.valueOf(sessionBlockStart).toString(),
-                                Long.valueOf(sessionBlockEnd).toString()});
+                events.add(new SessionCalendarDiff.Event(
+                        cursor.getLong(EventsQuery._ID),
+                        null,
+                        title,
+                        cursor.getLong(EventsQuery.DTSTART),
+                        cursor.getLong(EventsQuery.DTEND),
+                        cursor.getString(EventsQuery.EVENT_LOCATION),
+                        cursor.getString(EventsQuery.EVENT_TIMEZONE)));
             }
+        } finally {
+            cursor.close();
+        }
+        return events;
+    }
 
-            // Remove the session and calendar event association.
-            values.clear();
-            values.put(ScheduleContract.Sessions.SESSION_CAL_EVENT_ID, (Long) null);
-            resolver.update(sessionUri, values, null, null);
+    /**
+     * @return The calendar event of a session, or null if the session lacks what it needs.
+     */
+    private SessionCalendarDiff.Event makeSessionEvent(String sessionId, long eventId,
+            String sessionTitle, long sessionBlockStart, long sessionBlockEnd,
+            String sessionRoom) {
+        if (sessionBlockStart == 0L || sessionBlockEnd == 0L || sessionTitle == null) {
+            LOGW(TAG, "Unable to add a Calendar event due to insufficient input parameters.");
+            return null;
         }
+        return new SessionCalendarDiff.Event(eventId, sessionId,
+                makeCalendarEventTitle(sessionTitle), sessionBlockStart, sessionBlockEnd,
+                sessionRoom, Config.CONFERENCE_TIMEZONE.getID());
+    }
 
-        return batch;
+    private static ContentValues makeEventValues(SessionCalendarDiff.Event event) {
+        ContentValues values = new ContentValues();
+        values.put(CalendarContract.Events.DTSTART, event.start);
+        values.put(CalendarContract.Events.DTEND, event.end);
+        values.put(CalendarContract.Events.EVENT_LOCATION, event.location);
+        values.put(CalendarContract.Events.TITLE, event.title);
+        values.put(CalendarContract.Events.EVENT_TIMEZONE, event.timeZone);
+        return values;
     }
 
     /**
@@ -402,19 +471,37 @@ public class SessionCalendarService extends IntentService {
 
     private interface SessionsQuery {
         String[] PROJECTION = {
-                ScheduleContract.Sessions._ID,
+                ScheduleContract.Sessions.SESSION_ID,
                 ScheduleContract.Sessions.SESSION_START,
                 ScheduleContract.Sessions.SESSION_END,
                 ScheduleContract.Sessions.SESSION_TITLE,
                 ScheduleContract.Sessions.ROOM_NAME,
-                ScheduleContract.Sessions.SESSION_IN_MY_SCHEDULE,
+                ScheduleContract.Sessions.SESSION_CAL_EVENT_ID,
         };
 
-        int _ID = 0;
+        int SESSION_ID = 0;
         int SESSION_START = 1;
         int SESSION_END = 2;
         int SESSION_TITLE = 3;
         int ROOM_NAME = 4;
-        int SESSION_IN_MY_SCHEDULE = 5;
+        int SESSION_CAL_EVENT_ID = 5;
+    }
+
+    private interface EventsQuery {
+        String[] PROJECTION = {
+                CalendarContract.Events._ID,
+                CalendarContract.Events.TITLE,
+                CalendarContract.Events.DTSTART,
+                CalendarContract.Events.DTEND,
+                CalendarContract.Events.EVENT_LOCATION,
+                CalendarContract.Events.EVENT_TIMEZONE,
+        };
+
+        int _ID = 0;
+        int TITLE = 1;
+        int DTSTART = 2;
+        int DTEND = 3;
+        int EVENT_LOCATION = 4;
+        int EVENT_TIMEZONE = 5;
     }
 }
@@ -560,6 +560,7 @@ public class SessionDetailModel implements Model {
             mInSchedule = false;
             mSessionsHelper.setSessionStarred(mSessionUri, false, null);
             amendCalendarAndSetUpNotificationIfRequired();
+            removeNotification();
             success = true;
             sendAnalyticsEventForStarUnstarSession(false);
         } else if (action == SessionDetailUserActionEnum.SHOW_MAP) {
@@ -640,6 +641,18 @@ public class SessionDetailModel implements Model {
         }
     }
 
+    private void removeNotification() {
+        // the alarms of the session, whether it started or not
+        LOGD(TAG, "Removing notifications about session start and feedback.");
+        Intent unscheduleIntent = new Intent(
+                SessionAlarmService.ACTION_UNSCHEDULE_UNSTARRED_BLOCK,
+                null, mContext, SessionAlarmService.class);
+        unscheduleIntent.putExtra(SessionAlarmService.EXTRA_SESSION_ID, mSessionId);
+        unscheduleIntent.putExtra(SessionAlarmService.EXTRA_SESSION_START, mSessionStart);
+        unscheduleIntent.putExtra(SessionAlarmService.EXTRA_SESSION_END, mSessionEnd);
+        mContext.startService(unscheduleIntent);
+    }
+
     @VisibleForTesting
     public void sendAnalyticsEvent(String category, String action, String label) {
         AnalyticsHelper.sendEvent(category, action, label);
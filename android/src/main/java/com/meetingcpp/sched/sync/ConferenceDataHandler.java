@@ -17,9 +17,11 @@
 package com.meetingcpp.sched.sync;
 
 import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.OperationApplicationException;
+import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.RemoteException;
 import android.preference.PreferenceManager;
@@ -30,14 +32,23 @@ import com.meetingcpp.sched.io.map.model.Tile;
 import com.meetingcpp.sched.provider.ScheduleContract;
 import com.meetingcpp.sched.util.IOUtils;
 import com.meetingcpp.sched.util.MapUtils;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import com.larvalabs.svgandroid.SVG;
 import com.larvalabs.svgandroid.SVGBuilder;
@@ -60,6 +71,10 @@ public class ConferenceDataHandler {
     // the data we currently have in our content provider.
     private static final String SP_KEY_DATA_TIMESTAMP = "data_timestamp";
 
+    // Shared settings_prefs key under which we store the names of the data files that the
+    // content provider was last synced with, so that we know which deltas we can apply.
+    private static final String SP_KEY_DATA_FILES = "data_files";
+
     // symbolic timestamp to use when we are missing timestamp data (which means our data is
     // really old or nonexistent)
     private static final String DEFAULT_TIMESTAMP = "Sat, 1 Jan 2000 00:00:00 GMT";
@@ -74,6 +89,15 @@ public class ConferenceDataHandler {
     private static final String DATA_KEY_HASHTAGS = "hashtags";
     private static final String DATA_KEY_VIDEOS = "video_library";
 
+    // Format and keys of delta files (see doc/SYNC.md)
+    private static final String DELTA_FORMAT = "iosched-json-delta-v1";
+    private static final String DELTA_KEY_FORMAT = "format";
+    private static final String DELTA_KEY_BASE = "base";
+    private static final String DELTA_KEY_TARGET = "target";
+    private static final String DELTA_KEY_ADDED = "added";
+    private static final String DELTA_KEY_CHANGED = "changed";
+    private static final String DELTA_KEY_REMOVED = "removed";
+
     private static final String[] DATA_KEYS_IN_ORDER = {
             DATA_KEY_ROOMS,
             DATA_KEY_BLOCKS,
@@ -86,6 +110,43 @@ public class ConferenceDataHandler {
             DATA_KEY_VIDEOS
     };
 
+    // The URIs to notify when the collection of each data key changes: its own, and the ones
+    // whose queries join it.
+    private static final HashMap<String, Uri[]> NOTIFY_URIS_FOR_KEY = new HashMap<String, Uri[]>();
+    static {
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_ROOMS, new Uri[]{
+                ScheduleContract.Rooms.CONTENT_URI,
+                ScheduleContract.Sessions.CONTENT_URI,
+                ScheduleContract.MySchedule.CONTENT_URI});
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_BLOCKS, new Uri[]{
+                ScheduleContract.Blocks.CONTENT_URI});
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_TAGS, new Uri[]{
+                ScheduleContract.Tags.CONTENT_URI,
+                ScheduleContract.Sessions.CONTENT_URI,
+                ScheduleContract.SearchTopicsSessions.CONTENT_URI});
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_SPEAKERS, new Uri[]{
+                ScheduleContract.Speakers.CONTENT_URI,
+                ScheduleContract.Sessions.CONTENT_URI,
+                ScheduleContract.SearchTopicsSessions.CONTENT_URI});
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_SESSIONS, new Uri[]{
+                ScheduleContract.Sessions.CONTENT_URI,
+                ScheduleContract.MySchedule.CONTENT_URI,
+                ScheduleContract.Feedback.CONTENT_URI,
+                ScheduleContract.SearchTopicsSessions.CONTENT_URI,
+                // the sessions of a room or speaker are below their paths
+                ScheduleContract.Rooms.CONTENT_URI,
+                ScheduleContract.Speakers.CONTENT_URI});
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_SEARCH_SUGGESTIONS, new Uri[]{
+                ScheduleContract.SearchSuggest.CONTENT_URI});
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_MAP, new Uri[]{
+                ScheduleContract.MapMarkers.CONTENT_URI,
+                ScheduleContract.MapTiles.CONTENT_URI});
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_HASHTAGS, new Uri[]{
+                ScheduleContract.Hashtags.CONTENT_URI});
+        NOTIFY_URIS_FOR_KEY.put(DATA_KEY_VIDEOS, new Uri[]{
+                ScheduleContract.Videos.CONTENT_URI});
+    }
+
     Context mContext = null;
 
     // Handlers for each entity type:
@@ -103,6 +164,9 @@ public class ConferenceDataHandler {
     // "blocks" to mBlocksHandler (to avoid very tedious if-elses)
     HashMap<String, JSONHandler> mHandlerForKey = new HashMap<String, JSONHandler>();
 
+    // Keys of the collections that a delta touched, or null if we are applying full data
+    private HashSet<String> mDeltaKeys = null;
+
     // Tally of total content provider operations we carried out (for statistical purposes)
     private int mContentProviderOperationsDone = 0;
 
@@ -110,6 +174,36 @@ public class ConferenceDataHandler {
         mContext = ctx;
     }
 
+    /**
+     * The body of a data file. Bodies are opened for reading when they are processed, so that
+     * data downloaded to the cache is parsed straight from there instead of from memory.
+     */
+    public static abstract class DataBody {
+        /**
+         * Opens a new reader over the contents of the body. The caller must close it.
+         */
+        public abstract Reader openReader() throws IOException;
+
+        public static DataBody fromString(final String body) {
+            return new DataBody() {
+                @Override
+                public Reader openReader() {
+                    return new StringReader(body);
+                }
+            };
+        }
+
+        public static DataBody fromFile(final File file) {
+            return new DataBody() {
+                @Override
+                public Reader openReader() throws IOException {
+                    return new BufferedReader(
+                            new InputStreamReader(new FileInputStream(file), "UTF-8"));
+                }
+            };
+        }
+    }
+
     /**
      * Parses the conference data in the given objects and imports the data into the
      * content provider. The format of the data is documented at https://code.google.com/p/iosched.
@@ -121,7 +215,31 @@ public class ConferenceDataHandler {
      */
     public void applyConferenceData(String[] dataBodies, String dataTimestamp,
             boolean downloadsAllowed) throws IOException {
+        DataBody[] bodies = new DataBody[dataBodies.length];
+        for (int i = 0; i < dataBodies.length; i++) {
+            bodies[i] = DataBody.fromString(dataBodies[i]);
+        }
+        applyConferenceData(bodies, null, dataTimestamp, downloadsAllowed);
+    }
+
+    /**
+     * Parses the conference data in the given objects and imports the data into the
+     * content provider. A data body can also be a single delta file, in which case only
+     * the entities it touches are written.
+     *
+     * @param dataBodies The bodies of the JSON objects to parse and import.
+     * @param dataFiles The names of the data files in the manifest that the data comes from, or
+     *                  null if it doesn't come from the manifest.
+     * @param dataTimestamp The timestamp of the data. This should be in RFC1123 format.
+     * @param downloadsAllowed Whether or not we are supposed to download data from the internet if needed.
+     * @throws HandlerException If a delta can't be applied to the data we have; nothing is
+     *                          written then, and a full sync is needed.
+     * @throws IOException If there is a problem parsing the data.
+     */
+    public void applyConferenceData(DataBody[] dataBodies, String[] dataFiles, String dataTimestamp,
+            boolean downloadsAllowed) throws IOException {
         LOGD(TAG, "Applying data from " + dataBodies.length + " files, timestamp " + dataTimestamp);
+        mDeltaKeys = null;
 
         // create handlers for each data type
         mHandlerForKey.put(DATA_KEY_ROOMS, mRoomsHandler = new RoomsHandler(mContext));
@@ -140,32 +258,51 @@ public class ConferenceDataHandler {
         LOGD(TAG, "Processing " + dataBodies.length + " JSON objects.");
         for (int i = 0; i < dataBodies.length; i++) {
             LOGD(TAG, "Processing json object #" + (i + 1) + " of " + dataBodies.length);
-            processDataBody(dataBodies[i]);
+            if (isDeltaBody(dataBodies[i])) {
+                processDeltaBody(dataBodies[i]);
+            } else {
+                processDataBody(dataBodies[i]);
+            }
         }
 
         // the sessions handler needs to know the tag and speaker maps to process sessions
         mSessionsHandler.setTagMap(mTagsHandler.getTagMap());
         mSessionsHandler.setSpeakerMap(mSpeakersHandler.getSpeakerMap());
 
-        // produce the necessary content provider operations
+        // produce the necessary content provider operations. The handlers only produce operations
+        // for the rows that are new, changed or gone, or a delete of all the rows before a full
+        // update, so the keys whose operations change any row are the collections this sync
+        // changes.
         ArrayList<ContentProviderOperation> batch = new ArrayList<ContentProviderOperation>();
+        // the range of the operations of each key in the batch
+        HashMap<String, int[]> operationsForKey = new HashMap<String, int[]>();
         for (String key : DATA_KEYS_IN_ORDER) {
+            if (mDeltaKeys != null && !mDeltaKeys.contains(key)) {
+                // not touched by the delta
+                continue;
+            }
             LOGD(TAG, "Building content provider operations for: " + key);
+            int start = batch.size();
             mHandlerForKey.get(key).makeContentProviderOperations(batch);
+            operationsForKey.put(key, new int[]{start, batch.size()});
             LOGD(TAG, "Content provider operations so far: " + batch.size());
         }
         LOGD(TAG, "Total content provider operations: " + batch.size());
 
         // download or process local map tile overlay files (SVG files)
-        LOGD(TAG, "Processing map overlay files");
-        processMapOverlayFiles(mMapPropertyHandler.getTileOverlays(), downloadsAllowed);
+        if (mDeltaKeys == null) {
+            LOGD(TAG, "Processing map overlay files");
+            processMapOverlayFiles(mMapPropertyHandler.getTileOverlays(), downloadsAllowed);
+        }
 
         // finally, push the changes into the Content Provider
         LOGD(TAG, "Applying " + batch.size() + " content provider operations.");
+        ContentProviderResult[] results = new ContentProviderResult[0];
         try {
             int operations = batch.size();
             if (operations > 0) {
-                mContext.getContentResolver().applyBatch(ScheduleContract.CONTENT_AUTHORITY, batch);
+                results = mContext.getContentResolver().applyBatch(
+                        ScheduleContract.CONTENT_AUTHORITY, batch);
             }
             LOGD(TAG, "Successfully applied " + operations + " content provider operations.");
             mContentProviderOperationsDone += operations;
@@ -177,20 +314,42 @@ public class ConferenceDataHandler {
             throw new RuntimeException("Error executing content provider batch operation", ex);
         }
 
-        // notify all top-level paths
-        LOGD(TAG, "Notifying changes on all top-level paths on Content Resolver.");
+        // notify the paths of the collections that changed, and of those that depend on them
+        HashSet<String> changedKeys = new HashSet<String>();
+        for (Map.Entry<String, int[]> entry : operationsForKey.entrySet()) {
+            if (hasChangedRows(results, entry.getValue()[0], entry.getValue()[1])) {
+                changedKeys.add(entry.getKey());
+            }
+        }
+        LOGD(TAG, "Collections changed: " + changedKeys);
+        HashSet<Uri> notifyUris = new HashSet<Uri>();
+        for (String key : changedKeys) {
+            notifyUris.addAll(Arrays.asList(NOTIFY_URIS_FOR_KEY.get(key)));
+        }
         ContentResolver resolver = mContext.getContentResolver();
-        for (String path : ScheduleContract.TOP_LEVEL_PATHS) {
-            Uri uri = ScheduleContract.BASE_CONTENT_URI.buildUpon().appendPath(path).build();
+        for (Uri uri : notifyUris) {
+            LOGD(TAG, "Notifying change on: " + uri);
             resolver.notifyChange(uri, null);
         }
 
-
-    // update our data timestamp
+        // update our data timestamp
         setDataTimestamp(dataTimestamp);
+        setDataFiles(dataFiles);
         LOGD(TAG, "Done applying conference data.");
     }
 
+    /**
+     * @return Whether any of the given operations inserted, updated or deleted a row.
+     */
+    private static boolean hasChangedRows(ContentProviderResult[] results, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (results[i].uri != null || (results[i].count != null && results[i].count > 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public int getContentProviderOperationsDone() {
         return mContentProviderOperationsDone;
     }
@@ -202,9 +361,8 @@ public class ConferenceDataHandler {
      * @param dataBody The body of data to process
      * @throws IOException If there is an error parsing the data.
      */
-    private void processDataBody(String dataBody) throws IOException {
-        JsonReader reader = new JsonReader(new StringReader(dataBody));
-        JsonParser parser = new JsonParser();
+    private void processDataBody(DataBody dataBody) throws IOException {
+        JsonReader reader = new JsonReader(dataBody.openReader());
         try {
             reader.setLenient(true); // To err is human
 
@@ -216,7 +374,7 @@ public class ConferenceDataHandler {
                 String key = reader.nextName();
                 if (mHandlerForKey.containsKey(key)) {
                     // pass the value to the corresponding handler
-                    mHandlerForKey.get(key).process(parser.parse(reader));
+                    mHandlerForKey.get(key).process(reader);
                 } else {
                     LOGW(TAG, "Skipping unknown key in conference data json: " + key);
                     reader.skipValue();
@@ -228,6 +386,82 @@ public class ConferenceDataHandler {
         }
     }
 
+    /**
+     * Returns whether the given body is a delta file rather than a full data file. Deltas start
+     * with their format, so only the first few tokens are read.
+     */
+    static boolean isDeltaBody(DataBody dataBody) throws IOException {
+        JsonReader reader = new JsonReader(dataBody.openReader());
+        try {
+            reader.setLenient(true);
+            reader.beginObject();
+            return reader.hasNext() && DELTA_KEY_FORMAT.equals(reader.nextName())
+                    && reader.peek() == JsonToken.STRING
+                    && DELTA_FORMAT.equals(reader.nextString());
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Processes a delta file, passing the added, changed and removed entities of each
+     * collection to the appropriate data type handlers.
+     *
+     * @param dataBody The delta file to process
+     * @throws HandlerException If the delta is not based on the data we have, or if a
+     *                          handler can't apply it.
+     * @throws IOException If there is an error parsing the data.
+     */
+    private void processDeltaBody(DataBody dataBody) throws IOException {
+        JsonObject delta;
+        Reader reader = dataBody.openReader();
+        try {
+            delta = new JsonParser().parse(reader).getAsJsonObject();
+        } finally {
+            reader.close();
+        }
+        JsonElement base = delta.get(DELTA_KEY_BASE);
+        if (base == null || !getDataFiles().contains(base.getAsString())) {
+            throw new HandlerException("Delta base " + base + " is not the data we have.");
+        }
+        LOGD(TAG, "Processing delta from " + base.getAsString() + " to "
+                + delta.get(DELTA_KEY_TARGET));
+
+        if (mDeltaKeys == null) {
+            mDeltaKeys = new HashSet<String>();
+            // sessions store the names of their speakers and the order of their tags, so
+            // these handlers also need to know the entities that the delta doesn't touch
+            mTagsHandler.beginDelta();
+            mSpeakersHandler.beginDelta();
+        }
+
+        for (Map.Entry<String, JsonElement> entry : delta.entrySet()) {
+            String key = entry.getKey();
+            if (DELTA_KEY_FORMAT.equals(key) || DELTA_KEY_BASE.equals(key)
+                    || DELTA_KEY_TARGET.equals(key)) {
+                continue;
+            }
+            if (!mHandlerForKey.containsKey(key)) {
+                LOGW(TAG, "Skipping unknown key in conference data delta: " + key);
+                continue;
+            }
+            JsonObject changes = entry.getValue().getAsJsonObject();
+            JsonArray upserted = new JsonArray();
+            for (String changeKey : new String[] {DELTA_KEY_ADDED, DELTA_KEY_CHANGED}) {
+                if (changes.has(changeKey)) {
+                    for (JsonElement entity : changes.getAsJsonArray(changeKey)) {
+                        upserted.add(entity);
+                    }
+                }
+            }
+            JsonArray removed = changes.getAsJsonArray(DELTA_KEY_REMOVED);
+            LOGD(TAG, "Delta for " + key + ": " + upserted.size() + " added or changed, "
+                    + (removed == null ? 0 : removed.size()) + " removed.");
+            mHandlerForKey.get(key).processDelta(upserted, removed);
+            mDeltaKeys.add(key);
+        }
+    }
+
     /**
      * Synchronise the map overlay files either from the local assets (if available) or from a remote url.
      *
@@ -302,7 +536,26 @@ public class ConferenceDataHandler {
     public static void resetDataTimestamp(final Context context) {
         LOGD(TAG, "Resetting data timestamp to default (to invalidate our synced data)");
         PreferenceManager.getDefaultSharedPreferences(context).edit().remove(
-                SP_KEY_DATA_TIMESTAMP).commit();
+                SP_KEY_DATA_TIMESTAMP).remove(SP_KEY_DATA_FILES).commit();
+    }
+
+    // Returns the names of the data files we have in the content provider (may be empty).
+    public Set<String> getDataFiles() {
+        return PreferenceManager.getDefaultSharedPreferences(mContext).getStringSet(
+                SP_KEY_DATA_FILES, Collections.<String>emptySet());
+    }
+
+    // Sets the names of the data files we have in the content provider. Null means that the
+    // data doesn't correspond to a manifest, so no delta can be applied to it.
+    private void setDataFiles(String[] dataFiles) {
+        SharedPreferences.Editor editor =
+                PreferenceManager.getDefaultSharedPreferences(mContext).edit();
+        if (dataFiles == null) {
+            editor.remove(SP_KEY_DATA_FILES);
+        } else {
+            editor.putStringSet(SP_KEY_DATA_FILES, new HashSet<String>(Arrays.asList(dataFiles)));
+        }
+        editor.commit();
     }
 
     /**
@@ -26,13 +26,18 @@ import com.meetingcpp.sched.util.HashUtils;
 import com.meetingcpp.sched.util.IOUtils;
 import com.meetingcpp.sched.util.TimeUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.turbomanage.httpclient.BasicHttpClient;
+import com.turbomanage.httpclient.BasicRequestHandler;
 import com.turbomanage.httpclient.ConsoleRequestLogger;
 import com.turbomanage.httpclient.HttpResponse;
 import com.turbomanage.httpclient.RequestLogger;
@@ -48,6 +53,13 @@ public class RemoteConferenceDataFetcher {
     // The directory under which we cache our downloaded files
     private static String CACHE_DIR = "data_cache";
 
+    // Suffix of the files that downloads are written to before they are complete
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    // Timeouts for data file downloads
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
     private Context mContext = null;
 
     // name of URL override file used for debug purposes
@@ -59,6 +71,9 @@ public class RemoteConferenceDataFetcher {
     // timestamp of the manifest file on the server
     private String mServerTimestamp = null;
 
+    // data files listed in the manifest on the server
+    private String[] mServerDataFiles = null;
+
     // the set of cache files we have used -- we use this for cache cleanup.
     private HashSet<String> mCacheFilesToKeep = new HashSet<String>();
 
@@ -83,7 +98,26 @@ public class RemoteConferenceDataFetcher {
      * @return The data downloaded, or null if there is no data to download
      * @throws IOException if an error occurred during download.
      */
-    public String[] fetchConferenceDataIfNewer(String refTimestamp) throws IOException {
+    public ConferenceDataHandler.DataBody[] fetchConferenceDataIfNewer(String refTimestamp)
+            throws IOException {
+        return fetchConferenceDataIfNewer(refTimestamp, null);
+    }
+
+    /**
+     * Fetches data from the remote server. If the manifest has a delta that turns the given
+     * data files into the ones it lists, only that delta is downloaded.
+     *
+     * @param refTimestamp The timestamp of the data to use as a reference; if the remote data
+     *                     is not newer than this timestamp, no data will be downloaded and
+     *                     this method will return null.
+     * @param refDataFiles The names of the data files we already have, or null to always
+     *                     download the full data.
+     *
+     * @return The data downloaded, or null if there is no data to download
+     * @throws IOException if an error occurred during download.
+     */
+    public ConferenceDataHandler.DataBody[] fetchConferenceDataIfNewer(String refTimestamp,
+            Set<String> refDataFiles) throws IOException {
         if (TextUtils.isEmpty(mManifestUrl)) {
             LOGW(TAG, "Manifest URL is empty (remote sync disabled!).");
             return null;
@@ -124,7 +158,7 @@ public class RemoteConferenceDataFetcher {
             }
             LOGD(TAG, "Manifest "+mManifestUrl+" read, contents: " + body);
             mBytesDownloaded += body.getBytes().length;
-            return processManifest(body);
+            return processManifest(body, refDataFiles);
         } else if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
             // data on the server is not newer than our data
             LOGD(TAG, "HTTP_NOT_MODIFIED: data has not changed since " + refTimestamp);
@@ -140,6 +174,11 @@ public class RemoteConferenceDataFetcher {
         return mServerTimestamp;
     }
 
+    // Returns the names of the data files listed in the manifest downloaded from the server
+    public String[] getServerDataFiles() {
+        return mServerDataFiles;
+    }
+
     /**
      * Returns the remote manifest file's URL. This is stored as a resource in the app,
      * but can be overriden by a file in the filesystem for debug purposes.
@@ -167,70 +206,91 @@ public class RemoteConferenceDataFetcher {
     /**
      * Fetches a file from the cache/network, from an absolute or relative URL. If the
      * file is available in our cache, we read it from there; if not, we will
-     * download it from the network and cache it.
+     * download it from the network into the cache. The contents are streamed to disk
+     * and read from there, so they are never held in memory as a whole.
      *
      * @param url The URL to fetch the file from. The URL may be absolute or relative; if
      *            relative, it will be considered to be relative to the manifest URL.
-     * @return The contents of the file.
+     * @return The cache file with the contents of the URL.
      * @throws IOException If an error occurs.
      */
-    private String fetchFile(String url) throws IOException {
-        // If this is a relative url, consider it relative to the manifest URL
-        if (!url.contains("://")) {
-            if (TextUtils.isEmpty(mManifestUrl) || !mManifestUrl.contains("/")) {
-                LOGE(TAG, "Could not build relative URL based on manifest URL.");
-                return null;
-            }
-            int i = mManifestUrl.lastIndexOf('/');
-            url = mManifestUrl.substring(0, i) + "/" + url;
+    private File fetchFile(String url) throws IOException {
+        url = resolveUrl(url);
+        if (url == null) {
+            return null;
         }
 
         LOGD(TAG, "Attempting to fetch: " + sanitizeUrl(url));
 
         // Check if we have it in our cache first
-        String body = null;
-        try {
-            body = loadFromCache(url);
-            if (!TextUtils.isEmpty(body)) {
-                // cache hit
-                mBytesReadFromCache += body.getBytes().length;
-                mCacheFilesToKeep.add(getCacheKey(url));
-                return body;
-            }
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            LOGE(TAG, "IOException getting file from cache.");
-            // proceed anyway to attempt to download it from the network
+        File cacheFile = getCacheFile(url);
+        if (cacheFile.exists() && cacheFile.length() > 0) {
+            LOGD(TAG, "Cache hit " + cacheFile.getName() + " for " + sanitizeUrl(url));
+            mBytesReadFromCache += cacheFile.length();
+            mCacheFilesToKeep.add(cacheFile.getName());
+            return cacheFile;
         }
 
-        BasicHttpClient client = new BasicHttpClient();
-        client.setRequestLogger(mQuietLogger);
-
         // We don't have the file on cache, so download it
         LOGD(TAG, "Cache miss. Downloading from network: " + sanitizeUrl(url));
+        // Download to a temporary file, so that a failed download is never taken for a
+        // cached copy. It is deleted by cleanUpCache if it is left behind.
+        createCacheDir();
+        File tempFile = new File(cacheFile.getPath() + TEMP_FILE_SUFFIX);
+        FileRequestHandler handler = new FileRequestHandler(tempFile);
+        BasicHttpClient client = new BasicHttpClient("", handler);
+        client.setRequestLogger(mQuietLogger);
+        client.setConnectionTimeout(CONNECT_TIMEOUT_MS);
+        client.setReadTimeout(READ_TIMEOUT_MS);
         HttpResponse response = client.get(url, null);
 
         if (response == null) {
-            throw new IOException("Request for URL " + sanitizeUrl(url) + " returned null response.");
+            tempFile.delete();
+            throw new IOException("Request for URL " + sanitizeUrl(url) +
+                    " returned null response.");
         }
 
         LOGD(TAG, "HTTP response " + response.getStatus());
-        if (response.getStatus() == HttpURLConnection.HTTP_OK) {
-            body = response.getBodyAsString();
-            if (TextUtils.isEmpty(body)) {
-                throw new IOException("Got empty response when attempting to fetch " +
-                        sanitizeUrl(url) + url);
-            }
-            LOGD(TAG, "Successfully downloaded from network: " + sanitizeUrl(url));
-            mBytesDownloaded += body.getBytes().length;
-            writeToCache(url, body);
-            mCacheFilesToKeep.add(getCacheKey(url));
-            return body;
-        } else {
+        // A download that failed half way may still come with the status of the response
+        if (response.getStatus() != HttpURLConnection.HTTP_OK || handler.getLength() < 0) {
+            tempFile.delete();
             LOGE(TAG, "Failed to fetch from network: " + sanitizeUrl(url));
             throw new IOException("Request for URL " + sanitizeUrl(url) +
                     " failed with HTTP error " + response.getStatus());
         }
+        long length = handler.getLength();
+        if (length == 0) {
+            tempFile.delete();
+            throw new IOException("Got empty response when attempting to fetch " +
+                    sanitizeUrl(url));
+        }
+        if (!tempFile.renameTo(cacheFile)) {
+            tempFile.delete();
+            throw new IOException("Failed to write cache file " + cacheFile.getName());
+        }
+        LOGD(TAG, "Successfully downloaded " + length + " bytes from network to cache "
+                + cacheFile.getName() + ": " + sanitizeUrl(url));
+        mBytesDownloaded += length;
+        mCacheFilesToKeep.add(cacheFile.getName());
+        return cacheFile;
+    }
+
+    /**
+     * Resolves a URL from the manifest, which may be relative to the manifest URL.
+     *
+     * @return The absolute URL, or null if it can't be built.
+     */
+    private String resolveUrl(String url) {
+        // If this is a relative url, consider it relative to the manifest URL
+        if (!url.contains("://")) {
+            if (TextUtils.isEmpty(mManifestUrl) || !mManifestUrl.contains("/")) {
+                LOGE(TAG, "Could not build relative URL based on manifest URL.");
+                return null;
+            }
+            int i = mManifestUrl.lastIndexOf('/');
+            url = mManifestUrl.substring(0, i) + "/" + url;
+        }
+        return url;
     }
 
     /**
@@ -253,39 +313,6 @@ public class RemoteConferenceDataFetcher {
     }
 
 
-    /**
-     * Loads our cached content corresponding to the given URL.
-     * @param url The URL for which to load the cached response.
-     * @return The cached response corresponding to the URL; or null if the given URL
-     * does not exist in our cache.
-     * @throws IOException If there is an error reading the cache.
-     */
-    private String loadFromCache(String url) throws IOException {
-        String cacheKey = getCacheKey(url);
-        File cacheFile = getCacheFile(url);
-        if (cacheFile.exists()) {
-            LOGD(TAG, "Cache hit " + cacheKey + " for " + sanitizeUrl(url));
-            return IOUtils.readFileAsString(cacheFile);
-        } else {
-            LOGD(TAG, "Cache miss " + cacheKey + " for " + sanitizeUrl(url));
-            return null;
-        }
-    }
-
-    /**
-     * Writes a file to the cache.
-     * @param url The URL from which the contents were retrieved.
-     * @param body The contents retrieved from the given URL.
-     * @throws IOException If there is a problem writing the file.
-     */
-    private void writeToCache(String url, String body) throws IOException {
-        String cacheKey = getCacheKey(url);
-        File cacheFile = getCacheFile(url);
-        createCacheDir();
-        IOUtils.writeToFile(body, cacheFile);
-        LOGD(TAG, "Wrote to cache " + cacheKey + " --> " + sanitizeUrl(url));
-    }
-
     /**
      * Returns the cache key to be used to store the given URL. The cache key is the
      * file name under which the contents of the URL are stored.
@@ -311,11 +338,13 @@ public class RemoteConferenceDataFetcher {
     /**
      * Process the data manifest and download data files referenced from it.
      * @param manifestJson The JSON of the manifest file.
-     * @return The contents of the set of files referenced from the manifest, or null
+     * @param refDataFiles The names of the data files we already have, or null.
+     * @return The bodies of the set of files referenced from the manifest, or null
      * if none could be retrieved.
      * @throws IOException If an error occurs while retrieving information.
      */
-    private String[] processManifest(String manifestJson) throws IOException {
+    private ConferenceDataHandler.DataBody[] processManifest(String manifestJson, Set<String> refDataFiles)
+            throws IOException {
         LOGD(TAG, "Processing data manifest, length " + manifestJson.length());
 
         DataManifest manifest = new Gson().fromJson(manifestJson, DataManifest.class);
@@ -330,20 +359,77 @@ public class RemoteConferenceDataFetcher {
         }
 
         LOGD(TAG, "Manifest lists " + manifest.data_files.length + " data files.");
-        String[] jsons = new String[manifest.data_files.length];
+        mServerDataFiles = manifest.data_files;
+
+        DataManifest.Delta delta = findApplicableDelta(manifest, refDataFiles);
+        if (delta != null) {
+            LOGD(TAG, "Fetching delta from " + delta.base + " to " + delta.target);
+            try {
+                File file = fetchFile(delta.file);
+                if (file != null) {
+                    keepCachedFiles(manifest.data_files);
+                    cleanUpCache();
+                    return new ConferenceDataHandler.DataBody[] {
+                            ConferenceDataHandler.DataBody.fromFile(file)};
+                }
+            } catch (IOException ex) {
+                LOGW(TAG, "Failed to fetch delta " + sanitizeUrl(delta.file)
+                        + ", fetching full data: " + ex.getMessage());
+            }
+        }
+
+        ConferenceDataHandler.DataBody[] bodies =
+                new ConferenceDataHandler.DataBody[manifest.data_files.length];
         for (int i = 0; i < manifest.data_files.length; i++) {
             String url = manifest.data_files[i];
             LOGD(TAG, "Processing data file: " + sanitizeUrl(url));
-            jsons[i] = fetchFile(url);
-            if (TextUtils.isEmpty(jsons[i])) {
+            File file = fetchFile(url);
+            if (file == null) {
                 LOGE(TAG, "Failed to fetch data file: " + sanitizeUrl(url));
                 throw new IOException("Failed to fetch data file " + sanitizeUrl(url));
             }
+            bodies[i] = ConferenceDataHandler.DataBody.fromFile(file);
         }
 
-        LOGD(TAG, "Got " + jsons.length + " data files.");
+        LOGD(TAG, "Got " + bodies.length + " data files.");
         cleanUpCache();
-        return jsons;
+        return bodies;
+    }
+
+    /**
+     * Returns the delta in the manifest that turns the data files we have into the ones the
+     * manifest lists, if any.
+     */
+    private DataManifest.Delta findApplicableDelta(DataManifest manifest,
+            Set<String> refDataFiles) {
+        if (manifest.deltas == null || refDataFiles == null || refDataFiles.isEmpty()) {
+            return null;
+        }
+        for (DataManifest.Delta delta : manifest.deltas) {
+            if (delta == null || delta.base == null || delta.target == null
+                    || TextUtils.isEmpty(delta.file)) {
+                continue;
+            }
+            HashSet<String> expected = new HashSet<String>(Arrays.asList(manifest.data_files));
+            if (!expected.remove(delta.target)) {
+                continue;
+            }
+            expected.add(delta.base);
+            if (expected.equals(refDataFiles)) {
+                return delta;
+            }
+        }
+        return null;
+    }
+
+    // Keeps the cached copies of the given files, which were not read when applying a delta.
+    private void keepCachedFiles(String[] urls) {
+        for (String url : urls) {
+            String resolved = resolveUrl(url);
+            if (resolved != null) {
+                mCacheFilesToKeep.add(getCacheKey(resolved));
+            }
+        }
     }
 
     // Delete unnecessary files from our cache
@@ -398,5 +484,28 @@ public class RemoteConferenceDataFetcher {
         public void logResponse(HttpResponse res) { }
     };
 
+    /**
+     * A request handler that writes the body of a successful response to a file instead of
+     * keeping it in memory. The response itself then has an empty body.
+     */
+    private static class FileRequestHandler extends BasicRequestHandler {
+        private final File mFile;
+
+        // Number of bytes written, or -1 if the body was not completely written
+        private long mLength = -1;
+
+        FileRequestHandler(File file) {
+            mFile = file;
+        }
+
+        @Override
+        public InputStream openInput(HttpURLConnection urlConnection) throws IOException {
+            mLength = IOUtils.writeToFile(urlConnection.getInputStream(), mFile);
+            return new ByteArrayInputStream(new byte[0]);
+        }
 
+        long getLength() {
+            return mLength;
+        }
+    }
 }
@@ -26,6 +26,7 @@ import com.meetingcpp.sched.BuildConfig;
 import com.meetingcpp.sched.Config;
 import com.meetingcpp.sched.feedback.FeedbackApiHelper;
 import com.meetingcpp.sched.feedback.FeedbackSyncHelper;
+import com.meetingcpp.sched.io.HandlerException;
 import com.meetingcpp.sched.provider.ScheduleContract;
 import com.meetingcpp.sched.service.DataBootstrapService;
 import com.meetingcpp.sched.service.SessionAlarmService;
@@ -269,15 +270,34 @@ public class SyncHelper {
 
         LOGD(TAG, "Starting remote sync.");
 
-        // Fetch the remote data files via RemoteConferenceDataFetcher.
-        String[] dataFiles = mRemoteDataFetcher.fetchConferenceDataIfNewer(
-                mConferenceDataHandler.getDataTimestamp());
+        // Fetch the remote data files via RemoteConferenceDataFetcher. This is just a delta
+        // if the server has one for the data files we have.
+        ConferenceDataHandler.DataBody[] dataFiles = mRemoteDataFetcher.fetchConferenceDataIfNewer(
+                mConferenceDataHandler.getDataTimestamp(),
+                mConferenceDataHandler.getDataFiles());
 
         if (dataFiles != null) {
             LOGI(TAG, "Applying remote data.");
             // Save the remote data to the database.
-            mConferenceDataHandler.applyConferenceData(dataFiles,
-                    mRemoteDataFetcher.getServerDataTimestamp(), true);
+            try {
+                mConferenceDataHandler.applyConferenceData(dataFiles,
+                        mRemoteDataFetcher.getServerDataFiles(),
+                        mRemoteDataFetcher.getServerDataTimestamp(), true);
+            } catch (HandlerException ex) {
+                if (!containsDelta(dataFiles)) {
+                    // the full data failed, and fetching it again won't help
+                    throw ex;
+                }
+                // The delta doesn't fit our data, and nothing was written. Use the full data.
+                LOGW(TAG, "Could not apply delta, fetching full data: " + ex.getMessage());
+                dataFiles = mRemoteDataFetcher.fetchConferenceDataIfNewer(
+                        mConferenceDataHandler.getDataTimestamp());
+                if (dataFiles != null) {
+                    mConferenceDataHandler.applyConferenceData(dataFiles,
+                            mRemoteDataFetcher.getServerDataFiles(),
+                            mRemoteDataFetcher.getServerDataTimestamp(), true);
+                }
+            }
             LOGI(TAG, "Done applying remote data.");
 
             // Mark that conference data sync has succeeded.
@@ -291,6 +311,19 @@ public class SyncHelper {
         }
     }
 
+    /**
+     * Returns whether any of the given data files is a delta, which a full fetch can replace.
+     */
+    private static boolean containsDelta(ConferenceDataHandler.DataBody[] dataFiles)
+            throws IOException {
+        for (ConferenceDataHandler.DataBody dataFile : dataFiles) {
+            if (ConferenceDataHandler.isDeltaBody(dataFile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Checks if there are changes on User's Data to sync with/from remote AppData folder.
      *
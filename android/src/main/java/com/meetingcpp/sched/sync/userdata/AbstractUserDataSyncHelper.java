@@ -214,6 +214,7 @@ public abstract class AbstractUserDataSyncHelper {
                     ScheduleContractHelper.setUriAsCalledFromSyncAdapter(baseUri))
                     .withSelection(with, withSelectionValue)
                     .withValue(dirtyField, 0)
+                    .withYieldAllowed(true)
                     .build();
             LOGD(TAG, op.toString());
             ops.add(op);
@@ -43,7 +43,10 @@ public class UserActionHelper {
             String account) {
         ArrayList<ContentProviderOperation> batch = new ArrayList<>();
         for (UserAction action: userActions) {
-            batch.add(createUpdateOperation(context, action, account));
+            // Actions are independent of each other, so the batch can be committed in chunks
+            batch.add(createUpdateOperation(context, action, account)
+                    .withYieldAllowed(true)
+                    .build());
         }
         try {
             context.getContentResolver().applyBatch(ScheduleContract.CONTENT_AUTHORITY, batch);
@@ -55,10 +58,10 @@ public class UserActionHelper {
     }
 
     /**
-     * Creates the correct content provider update operation depending on the type of the user
-     * action.
+     * Creates the builder of the correct content provider update operation depending on the
+     * type of the user action.
      */
-    static private ContentProviderOperation createUpdateOperation(Context context,
+    static private ContentProviderOperation.Builder createUpdateOperation(Context context,
             UserAction action, String account) {
         if (action.type == UserAction.TYPE.ADD_STAR) {
             return ContentProviderOperation
@@ -66,8 +69,7 @@ public class UserActionHelper {
                             ScheduleContractHelper.addOverrideAccountName(
                                     ScheduleContract.MySchedule.CONTENT_URI, account))
                     .withValue(ScheduleContract.MySchedule.MY_SCHEDULE_DIRTY_FLAG, "0")
-                    .withValue(ScheduleContract.MySchedule.SESSION_ID, action.sessionId)
-                    .build();
+                    .withValue(ScheduleContract.MySchedule.SESSION_ID, action.sessionId);
         } else if (action.type == UserAction.TYPE.SUBMIT_FEEDBACK) {
             return ContentProviderOperation
                     .newInsert(
@@ -75,16 +77,14 @@ public class UserActionHelper {
                                     ScheduleContract.MyFeedbackSubmitted.CONTENT_URI, account))
                     .withValue(ScheduleContract.MyFeedbackSubmitted
                             .MY_FEEDBACK_SUBMITTED_DIRTY_FLAG, "0")
-                    .withValue(ScheduleContract.MyFeedbackSubmitted.SESSION_ID, action.sessionId)
-                    .build();
+                    .withValue(ScheduleContract.MyFeedbackSubmitted.SESSION_ID, action.sessionId);
         } else if (action.type == UserAction.TYPE.VIEW_VIDEO) {
             return ContentProviderOperation
                     .newInsert(
                             ScheduleContractHelper.addOverrideAccountName(
                                     ScheduleContract.MyViewedVideos.CONTENT_URI, account))
                     .withValue(ScheduleContract.MyViewedVideos.MY_VIEWED_VIDEOS_DIRTY_FLAG, "0")
-                    .withValue(ScheduleContract.MyViewedVideos.VIDEO_ID, action.videoId)
-                    .build();
+                    .withValue(ScheduleContract.MyViewedVideos.VIDEO_ID, action.videoId);
         } else {
             return ContentProviderOperation
                     .newDelete(
@@ -94,8 +94,7 @@ public class UserActionHelper {
                             ScheduleContract.MySchedule.SESSION_ID + " = ? AND " +
                             ScheduleContract.MySchedule.MY_SCHEDULE_ACCOUNT_NAME + " = ? ",
                             new String[]{action.sessionId, account}
-                    )
-                    .build();
+                    );
         }
     }
 }
@@ -19,7 +19,46 @@ package com.meetingcpp.sched.util;
 import java.util.Locale;
 
 public class HashUtils {
+    // Initial value for the fnv64 methods
+    public static final long FNV64_INIT = 0xcbf29ce484222325L;
+
+    private static final long FNV64_PRIME = 0x100000001b3L;
+
+    // Markers that end a string and stand for null in fnv64. They are noncharacters, so
+    // they don't show up in text, and they keep adjacent strings from running into each other.
+    private static final char FNV64_END_OF_STRING = '\uffff';
+    private static final char FNV64_NULL = '\ufffe';
+
     public static String computeWeakHash(String string) {
         return String.format(Locale.US, "%08x%08x", string.hashCode(), string.length());
     }
+
+    /**
+     * Adds a string to a 64-bit FNV-1a hash, without allocating. Start with
+     * {@link #FNV64_INIT} and pass the result of each call to the next one.
+     */
+    public static long fnv64(long hash, String value) {
+        if (value == null) {
+            return fnv64(hash, FNV64_NULL);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = fnv64(hash, value.charAt(i));
+        }
+        return fnv64(hash, FNV64_END_OF_STRING);
+    }
+
+    /**
+     * Adds a number to a 64-bit FNV-1a hash. See {@link #fnv64(long, String)}.
+     */
+    public static long fnv64(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 16) {
+            hash = fnv64(hash, (char) (value >>> shift));
+        }
+        return hash;
+    }
+
+    private static long fnv64(long hash, char c) {
+        hash ^= c;
+        return hash * FNV64_PRIME;
+    }
 }
@@ -66,6 +66,38 @@ public class IOUtils {
         }
     }
 
+    /**
+     * Writes everything that can be read from the given {@link InputStream} to a {@link File},
+     * without holding it in memory. Note that this method closes the InputStream.
+     *
+     * @param is The InputStream to read from.
+     * @param file The File to write to.
+     * @return The number of bytes written.
+     * @throws IOException
+     */
+    public static long writeToFile(InputStream is, File file) throws IOException {
+        FileOutputStream os = null;
+        long total = 0;
+        try {
+            os = new FileOutputStream(file);
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                os.write(buffer, 0, n);
+                total += n;
+            }
+            os.flush();
+            // Perform an fsync on the FileOutputStream.
+            os.getFD().sync();
+        } finally {
+            is.close();
+            if (os != null) {
+                os.close();
+            }
+        }
+        return total;
+    }
+
     /**
      * Write the given content to an {@link OutputStream}
      * <p/>
@@ -25,6 +25,7 @@ package com.meetingcpp.sched.util;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
 import android.text.TextUtils;
 
 import java.util.ArrayList;
@@ -157,6 +158,13 @@ public class SelectionBuilder {
         return mSelectionArgs.toArray(new String[mSelectionArgs.size()]);
     }
 
+    /**
+     * Returns the columns that are mapped to a table or an expression.
+     */
+    public String[] getMappedColumns() {
+        return mProjectionMap.keySet().toArray(new String[mProjectionMap.size()]);
+    }
+
     private void mapColumns(String[] columns) {
         for (int i = 0; i < columns.length; i++) {
             final String target = mProjectionMap.get(columns[i]);
@@ -193,6 +201,16 @@ public class SelectionBuilder {
                 mHaving, orderBy, limit);
     }
 
+    /**
+     * Returns the SQL that {@link #query} runs, with the selection arguments as parameters.
+     */
+    public String buildQuery(boolean distinct, String[] columns, String orderBy, String limit) {
+        assertTable();
+        if (columns != null) mapColumns(columns);
+        return SQLiteQueryBuilder.buildQueryString(distinct, mTable, columns, getSelection(),
+                mGroupBy, mHaving, orderBy, limit);
+    }
+
     /**
      * Execute update using the current internal state as {@code WHERE} clause.
      */
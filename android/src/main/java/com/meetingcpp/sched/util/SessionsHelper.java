@@ -26,7 +26,6 @@ import android.support.v4.app.ShareCompat;
 
 import com.meetingcpp.sched.BuildConfig;
 import com.meetingcpp.sched.R;
-import com.meetingcpp.sched.appwidget.ScheduleWidgetProvider;
 import com.meetingcpp.sched.map.MapActivity;
 import com.meetingcpp.sched.provider.ScheduleContract;
 import com.meetingcpp.sched.sync.SyncHelper;
@@ -95,10 +94,6 @@ public class SessionsHelper {
         AnalyticsHelper.sendEvent(
                 "Session", starred ? "Starred" : "Unstarred", title);
 
-        // Because change listener is set to null during initialization, these
-        // won't fire on pageview.
-        mActivity.sendBroadcast(ScheduleWidgetProvider.getRefreshBroadcastIntent(mActivity, false));
-
         // Request an immediate user data sync to reflect the starred user sessions in the cloud
         SyncHelper.requestManualSync(AccountUtils.getActiveAccount(mActivity), true);
     }
@@ -17,7 +17,6 @@
 package com.meetingcpp.sched.videolibrary;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.meetingcpp.sched.appwidget.ScheduleWidgetProvider;
 
 import com.meetingcpp.sched.framework.Model;
 import com.meetingcpp.sched.framework.QueryEnum;
@@ -404,11 +403,6 @@ public class VideoLibraryModel implements Model {
                 values.put(ScheduleContract.MyViewedVideos.VIDEO_ID, playedVideoId);
                 handler.startInsert(-1, null, myPlayedVideoUri, values);
 
-                // Because change listener is set to null during initialization, these
-                // won't fire on pageview.
-                mActivity.sendBroadcast(ScheduleWidgetProvider.getRefreshBroadcastIntent(mActivity,
-                        false));
-
                 // Request an immediate user data sync to reflect the viewed video in the cloud.
                 SyncHelper.requestManualSync(AccountUtils.getActiveAccount(mActivity), true);
             } else {
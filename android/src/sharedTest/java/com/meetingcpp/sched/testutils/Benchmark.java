@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.testutils;
+
+import java.util.Locale;
+
+/**
+ * Times alternative implementations of the same work against each other, for the benchmarks of
+ * the unit and the instrumentation tests.
+ */
+public final class Benchmark {
+
+    private Benchmark() {
+    }
+
+    /**
+     * One of the implementations being compared.
+     */
+    public static abstract class Task {
+
+        private final String mName;
+
+        protected Task(String name) {
+            mName = name;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Prepares the next run, such as emptying the tables it fills. Not timed.
+         */
+        protected void setUp() throws Exception {
+        }
+
+        /**
+         * Does the work being measured once.
+         */
+        protected abstract void run() throws Exception;
+    }
+
+    /**
+     * Runs each task {@code warmUps} times, then {@code repeats} times while timing it, and
+     * prints the mean time of a run of each one after the given description. The tasks run in
+     * turn, in an order that is reversed at every repeat, so that none of them always runs on
+     * the caches or the heap that another one left. The output goes to the console of the unit
+     * tests, and to logcat under the {@code System.out} tag on a device.
+     *
+     * @return The mean time of a run of each task, in nanoseconds, in the order of the tasks.
+     */
+    public static long[] measure(String description, int warmUps, int repeats, Task... tasks)
+            throws Exception {
+        for (int i = 0; i < warmUps; i++) {
+            for (Task task : tasks) {
+                task.setUp();
+                task.run();
+            }
+        }
+        long[] totalNanos = new long[tasks.length];
+        for (int i = 0; i < repeats; i++) {
+            for (int j = 0; j < tasks.length; j++) {
+                int index = i % 2 == 0 ? j : tasks.length - 1 - j;
+                Task task = tasks[index];
+                task.setUp();
+                long start = System.nanoTime();
+                task.run();
+                totalNanos[index] += System.nanoTime() - start;
+            }
+        }
+        long[] meanNanos = new long[tasks.length];
+        StringBuilder report = new StringBuilder(description).append(", mean of ")
+                .append(repeats).append(" runs:");
+        for (int i = 0; i < tasks.length; i++) {
+            meanNanos[i] = totalNanos[i] / Math.max(1, repeats);
+            // microseconds for the tasks that take less than a millisecond
+            String time = meanNanos[i] < 1000000
+                    ? String.format(Locale.US, "%.1f us", meanNanos[i] / 1e3)
+                    : String.format(Locale.US, "%.2f ms", meanNanos[i] / 1e6);
+            report.append(i > 0 ? ", " : " ").append(tasks[i].getName()).append(' ').append(time);
+        }
+        System.out.println(report);
+        return meanNanos;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.appwidget;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import android.content.Context;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class ScheduleWidgetModelTest {
+
+    private static final String KEY = "1|1|attendee@example.com|true|Europe/Berlin";
+
+    private static final long EXPIRES_AT = 5000;
+
+    @Mock
+    private Context mMockContext;
+
+    private ScheduleWidgetModel mSpyModel;
+
+    @Before
+    public void setUp() {
+        mSpyModel = spy(new ScheduleWidgetModel(mMockContext));
+        doReturn(KEY).when(mSpyModel).getKey();
+        doReturn(1000L).when(mSpyModel).getCurrentTime();
+        // rows for the key they're built with, until EXPIRES_AT
+        doAnswer(new Answer<ScheduleWidgetModel.Rows>() {
+            @Override
+            public ScheduleWidgetModel.Rows answer(InvocationOnMock invocation) {
+                return new ScheduleWidgetModel.Rows((String) invocation.getArguments()[0],
+                        EXPIRES_AT);
+            }
+        }).when(mSpyModel).buildRows(anyString(), anyLong());
+    }
+
+    @Test
+    public void getRows_SameKey_NotBuiltAgain() {
+        ScheduleWidgetModel.Rows rows = mSpyModel.getRows();
+
+        assertThat(mSpyModel.getRows(), sameInstance(rows));
+        verify(mSpyModel, times(1)).buildRows(KEY, 1000L);
+    }
+
+    @Test
+    public void getRows_KeyChanged_BuiltAgain() {
+        ScheduleWidgetModel.Rows rows = mSpyModel.getRows();
+
+        // a session was starred
+        String newKey = "1|2|attendee@example.com|true|Europe/Berlin";
+        doReturn(newKey).when(mSpyModel).getKey();
+
+        ScheduleWidgetModel.Rows newRows = mSpyModel.getRows();
+        assertThat(newRows, not(sameInstance(rows)));
+        assertThat(newRows.key, is(newKey));
+        assertThat(mSpyModel.getRows(), sameInstance(newRows));
+    }
+
+    @Test
+    public void getRows_ItemOver_BuiltAgain() {
+        ScheduleWidgetModel.Rows rows = mSpyModel.getRows();
+
+        doReturn(EXPIRES_AT - 1).when(mSpyModel).getCurrentTime();
+        assertThat(mSpyModel.getRows(), sameInstance(rows));
+
+        doReturn(EXPIRES_AT).when(mSpyModel).getCurrentTime();
+        assertThat(mSpyModel.getRows(), not(sameInstance(rows)));
+        verify(mSpyModel).buildRows(KEY, EXPIRES_AT);
+    }
+
+    @Test
+    public void getRows_UnknownDataVersions_BuiltEveryTime() {
+        doReturn(null).when(mSpyModel).getKey();
+
+        ScheduleWidgetModel.Rows rows = mSpyModel.getRows();
+
+        assertThat(mSpyModel.getRows(), not(sameInstance(rows)));
+        verify(mSpyModel, times(2)).buildRows(null, 1000L);
+    }
+}
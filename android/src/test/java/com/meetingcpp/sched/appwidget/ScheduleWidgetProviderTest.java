@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.appwidget;
+
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@SmallTest
+public class ScheduleWidgetProviderTest {
+
+    private static final long INTERVAL = 2000;
+
+    @Test
+    public void requestRefresh_FirstRequest_RefreshedNow() {
+        ScheduleWidgetProvider.RefreshLimiter limiter =
+                new ScheduleWidgetProvider.RefreshLimiter(INTERVAL);
+
+        // shortly after boot
+        assertThat(limiter.requestRefresh(500), is(0L));
+    }
+
+    @Test
+    public void requestRefresh_BurstOfRequests_OneRefreshPutOff() {
+        ScheduleWidgetProvider.RefreshLimiter limiter =
+                new ScheduleWidgetProvider.RefreshLimiter(INTERVAL);
+
+        assertThat(limiter.requestRefresh(10000), is(0L));
+        assertThat(limiter.requestRefresh(10500), is(1500L));
+        assertThat(limiter.requestRefresh(10600), is(-1L));
+        assertThat(limiter.requestRefresh(11900), is(-1L));
+        // the refresh that was put off
+        assertThat(limiter.requestRefresh(12000), is(0L));
+        assertThat(limiter.requestRefresh(12100), is(1900L));
+    }
+
+    @Test
+    public void requestRefresh_AfterInterval_RefreshedNow() {
+        ScheduleWidgetProvider.RefreshLimiter limiter =
+                new ScheduleWidgetProvider.RefreshLimiter(INTERVAL);
+
+        assertThat(limiter.requestRefresh(10000), is(0L));
+        assertThat(limiter.requestRefresh(12000), is(0L));
+        assertThat(limiter.requestRefresh(20000), is(0L));
+    }
+
+    @Test
+    public void requestRefresh_PendingRefreshRequestedLate_RefreshedNow() {
+        ScheduleWidgetProvider.RefreshLimiter limiter =
+                new ScheduleWidgetProvider.RefreshLimiter(INTERVAL);
+
+        assertThat(limiter.requestRefresh(10000), is(0L));
+        assertThat(limiter.requestRefresh(10500), is(1500L));
+        // the alarm of the refresh that was put off is delivered late
+        assertThat(limiter.requestRefresh(15000), is(0L));
+        assertThat(limiter.requestRefresh(15100), is(1900L));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.meetingcpp.sched.io.model.Session;
+import com.meetingcpp.sched.testutils.Benchmark;
+
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.LargeTest;
+
+import java.io.StringReader;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Measures reading the sessions of a large conference, 5000 of the sessions that
+ * {@link ModelTypeAdaptersTest} reads, with the streaming {@link ModelTypeAdapters} against
+ * building a tree of the collection and reading it through reflection, as the sessions handler
+ * used to. The test only fails if both don't read the same number of sessions.
+ */
+@LargeTest
+public class ModelTypeAdaptersBenchmark {
+
+    private static final int SESSIONS = 5000;
+
+    private static final int WARM_UPS = 10;
+
+    private static final int REPEATS = 30;
+
+    @Test
+    public void readSessions_AdaptersAgainstTreeAndReflection() throws Exception {
+        final String json = ModelTypeAdaptersTest.makeSessionsJson(SESSIONS);
+        final Session[][] read = new Session[2][];
+        Benchmark.measure(SESSIONS + " sessions, " + json.length() + " chars", WARM_UPS,
+                REPEATS,
+                new Benchmark.Task("tree and reflection") {
+                    @Override
+                    protected void run() {
+                        JsonElement tree = new JsonParser().parse(json);
+                        read[0] = new Gson().fromJson(tree, Session[].class);
+                    }
+                },
+                new Benchmark.Task("streaming adapters") {
+                    @Override
+                    protected void run() {
+                        read[1] = ModelTypeAdapters.createGson().fromJson(
+                                new JsonReader(new StringReader(json)), Session[].class);
+                    }
+                });
+
+        assertThat(read[0].length, is(SESSIONS));
+        assertThat(read[1].length, is(SESSIONS));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.meetingcpp.sched.io.map.model.MapData;
+import com.meetingcpp.sched.io.model.Block;
+import com.meetingcpp.sched.io.model.Hashtag;
+import com.meetingcpp.sched.io.model.Room;
+import com.meetingcpp.sched.io.model.Session;
+import com.meetingcpp.sched.io.model.Speaker;
+import com.meetingcpp.sched.io.model.Tag;
+import com.meetingcpp.sched.io.model.Video;
+
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@SmallTest
+public class ModelTypeAdaptersTest {
+
+    private static final String FAKE_SESSION_JSON = "{\"id\":\"SESSION%d\","
+            + "\"url\":\"https://meetingcpp.com/SESSION%d\",\"title\":\"Session %d\","
+            + "\"description\":\"A \\\"quoted\\\" description\\nwith escapes\","
+            + "\"startTimestamp\":\"2015-12-03T09:00:00Z\","
+            + "\"endTimestamp\":\"2015-12-03T10:00:00Z\",\"room\":\"ROOM1\","
+            + "\"tags\":[\"TYPE_TALK\",\"TOPIC_CPP\"],\"speakers\":[\"SPEAKER1\"],"
+            + "\"youtubeUrl\":null,\"isLivestream\":true,\"groupingOrder\":3,"
+            + "\"unknownProperty\":{\"nested\":[1,2,3]},"
+            + "\"relatedContent\":[{\"id\":\"RELATED1\",\"name\":\"Related\"}]}";
+
+    private static final String FAKE_SPEAKERS_JSON = "[{\"id\":\"SPEAKER1\","
+            + "\"name\":\"Speaker One\",\"bio\":\"Bio\",\"company\":null,\"extra\":1}]";
+
+    private static final String FAKE_TAGS_JSON = "[{\"tag\":\"TYPE_TALK\",\"name\":\"Talk\","
+            + "\"category\":\"TYPE\",\"abstract\":\"Talks\",\"order_in_category\":2}]";
+
+    private static final String FAKE_VIDEOS_JSON = "[{\"id\":\"VIDEO1\",\"year\":2015,"
+            + "\"title\":\"Video\",\"vid\":\"abc\",\"speakers\":\"Speaker One\"}]";
+
+    private static final String FAKE_HASHTAGS_JSON = "[{\"name\":\"#meetingcpp\","
+            + "\"description\":\"Hashtag\",\"order\":1}]";
+
+    private static final String FAKE_MAP_JSON = "[{\"markers\":{\"0\":[{\"id\":\"MARKER1\","
+            + "\"type\":\"session\",\"lat\":52.52,\"lng\":13.41,\"title\":\"Marker\"}]},"
+            + "\"tiles\":{\"0\":{\"filename\":\"floor0.svg\",\"url\":\"https://x/floor0.svg\"}}}]";
+
+    private static final String BOOTSTRAP_DATA_FILE = "src/main/res/raw/bootstrap_data.json";
+
+    /**
+     * Returns a json array of the given number of sessions that have all the properties of the
+     * data model, and a few unknown ones.
+     */
+    static String makeSessionsJson(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append(String.format(FAKE_SESSION_JSON, i, i, i));
+        }
+        return json.append("]").toString();
+    }
+
+    @Test
+    public void read_Sessions_SameAsReflection() throws Exception {
+        assertSameAsReflection(makeSessionsJson(5000), Session[].class);
+    }
+
+    @Test
+    public void read_OtherModels_SameAsReflection() throws Exception {
+        assertSameAsReflection(FAKE_SPEAKERS_JSON, Speaker[].class);
+        assertSameAsReflection(FAKE_TAGS_JSON, Tag[].class);
+        assertSameAsReflection(FAKE_VIDEOS_JSON, Video[].class);
+        assertSameAsReflection(FAKE_HASHTAGS_JSON, Hashtag[].class);
+        assertSameAsReflection(FAKE_MAP_JSON, MapData[].class);
+    }
+
+    @Test
+    public void read_BootstrapData_EachModelSameAsReflection() throws Exception {
+        // the data the app ships with, relative to the module directory tests run in
+        JsonObject data = new JsonParser().parse(new InputStreamReader(
+                new FileInputStream(BOOTSTRAP_DATA_FILE), "UTF-8")).getAsJsonObject();
+        Gson reflective = new Gson();
+
+        assertSameAsReflection(reflective.toJson(data.get("sessions")), Session[].class);
+        assertSameAsReflection(reflective.toJson(data.get("speakers")), Speaker[].class);
+        assertSameAsReflection(reflective.toJson(data.get("tags")), Tag[].class);
+        assertSameAsReflection(reflective.toJson(data.get("rooms")), Room[].class);
+        assertSameAsReflection(reflective.toJson(data.get("blocks")), Block[].class);
+        assertSameAsReflection(reflective.toJson(data.get("video_library")), Video[].class);
+        assertSameAsReflection(reflective.toJson(data.get("map")), MapData[].class);
+    }
+
+    @Test
+    public void read_NullCollection_ReturnsNull() throws Exception {
+        Session[] sessions = ModelTypeAdapters.createGson().fromJson(
+                new JsonReader(new StringReader("null")), Session[].class);
+
+        assertThat(sessions == null, is(true));
+    }
+
+    // Reads the json with the streaming adapters and with reflection, and compares the results
+    // through their reflective serialization.
+    private static void assertSameAsReflection(String json, Type type) {
+        Gson reflective = new Gson();
+        Object expected = reflective.fromJson(json, type);
+        assertThat(type + " read", ((Object[]) expected).length > 0, is(true));
+        Object actual = ModelTypeAdapters.createGson().fromJson(
+                new JsonReader(new StringReader(json)), type);
+
+        assertThat(reflective.toJson(actual), is(reflective.toJson(expected)));
+    }
+}
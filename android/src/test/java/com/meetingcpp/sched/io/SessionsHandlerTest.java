@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.io;
+
+import com.google.gson.JsonParser;
+import com.meetingcpp.sched.io.model.Session;
+import com.meetingcpp.sched.io.model.Speaker;
+import com.meetingcpp.sched.io.model.Tag;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class SessionsHandlerTest {
+
+    private static final String FAKE_SESSIONS_JSON = "["
+            + "{\"id\":\"SESSION1\",\"title\":\"Session one\",\"description\":\"First\","
+            + "\"startTimestamp\":\"2015-12-03T09:00:00Z\","
+            + "\"endTimestamp\":\"2015-12-03T10:00:00Z\",\"room\":\"ROOM1\","
+            + "\"tags\":[\"TYPE_TALK\",\"TOPIC_CPP\"],\"speakers\":[\"SPEAKER1\",\"SPEAKER2\"]},"
+            + "{\"id\":\"SESSION2\",\"title\":\"Session two\",\"description\":\"Second\","
+            + "\"startTimestamp\":\"2015-12-03T10:00:00Z\","
+            + "\"endTimestamp\":\"2015-12-03T11:00:00Z\",\"room\":\"ROOM2\","
+            + "\"tags\":[\"TYPE_KEYNOTE\"],\"speakers\":[\"SPEAKER2\"]}"
+            + "]";
+
+    @Mock
+    private Context mMockContext;
+
+    @Mock
+    private Resources mMockResources;
+
+    private HashMap<String, Tag> mTagMap;
+
+    private HashMap<String, Speaker> mSpeakerMap;
+
+    @Before
+    public void setUp() {
+        when(mMockContext.getResources()).thenReturn(mMockResources);
+
+        mTagMap = new HashMap<String, Tag>();
+        addTag("TYPE_TALK", "TYPE", 2);
+        addTag("TYPE_KEYNOTE", "TYPE", 1);
+        addTag("TOPIC_CPP", "TOPIC", 1);
+
+        mSpeakerMap = new HashMap<String, Speaker>();
+        addSpeaker("SPEAKER1", "Speaker One");
+        addSpeaker("SPEAKER2", "Speaker Two");
+    }
+
+    @Test
+    public void getSessionsToWrite_FirstSync_ReturnsAllSessions() {
+        // Given a handler with the sessions data
+        SessionsHandler handler = createHandler(FAKE_SESSIONS_JSON);
+
+        // When there are no stored sessions
+        ArrayList<Session> sessions = handler.getSessionsToWrite(null);
+
+        // Then all sessions are written
+        assertThat(sessions.size(), is(2));
+    }
+
+    @Test
+    public void getSessionsToWrite_IdenticalSecondSync_ReturnsNoSessions() {
+        // Given the hashcodes stored by a first sync
+        HashMap<String, String> stored = sync(createHandler(FAKE_SESSIONS_JSON));
+
+        // When the same data is synced again
+        ArrayList<Session> sessions = createHandler(FAKE_SESSIONS_JSON).getSessionsToWrite(stored);
+
+        // Then no session is written
+        assertThat(sessions.size(), is(0));
+    }
+
+    @Test
+    public void getSessionsToWrite_ChangedRoom_ReturnsOnlyThatSession() {
+        // Given the hashcodes stored by a first sync
+        HashMap<String, String> stored = sync(createHandler(FAKE_SESSIONS_JSON));
+
+        // When a session moves to another room
+        ArrayList<Session> sessions = createHandler(
+                FAKE_SESSIONS_JSON.replace("\"ROOM2\"", "\"ROOM3\"")).getSessionsToWrite(stored);
+
+        // Then only that session is written
+        assertThat(sessions.size(), is(1));
+        assertThat(sessions.get(0).id, is("SESSION2"));
+    }
+
+    @Test
+    public void getSessionsToWrite_RenamedSpeaker_ReturnsSessionsOfThatSpeaker() {
+        // Given the hashcodes stored by a first sync
+        HashMap<String, String> stored = sync(createHandler(FAKE_SESSIONS_JSON));
+
+        // When a speaker of only one session is renamed
+        addSpeaker("SPEAKER1", "Speaker Renamed");
+        ArrayList<Session> sessions = createHandler(FAKE_SESSIONS_JSON).getSessionsToWrite(stored);
+
+        // Then only that session is written, since it stores the speaker names
+        assertThat(sessions.size(), is(1));
+        assertThat(sessions.get(0).id, is("SESSION1"));
+    }
+
+    @Test
+    public void getSessionsToWrite_ReorderedTypeTag_ReturnsSessionsWithThatTag() {
+        // Given the hashcodes stored by a first sync
+        HashMap<String, String> stored = sync(createHandler(FAKE_SESSIONS_JSON));
+
+        // When the order of a session type changes
+        addTag("TYPE_KEYNOTE", "TYPE", 3);
+        ArrayList<Session> sessions = createHandler(FAKE_SESSIONS_JSON).getSessionsToWrite(stored);
+
+        // Then only the session of that type is written, since it stores its grouping order
+        assertThat(sessions.size(), is(1));
+        assertThat(sessions.get(0).id, is("SESSION2"));
+    }
+
+    private SessionsHandler createHandler(String sessionsJson) {
+        SessionsHandler handler = new SessionsHandler(mMockContext);
+        handler.setTagMap(mTagMap);
+        handler.setSpeakerMap(mSpeakerMap);
+        handler.process(new JsonParser().parse(sessionsJson));
+        return handler;
+    }
+
+    // Returns the hashcodes that a sync with the given handler stores.
+    private HashMap<String, String> sync(SessionsHandler handler) {
+        HashMap<String, String> hashCodes = new HashMap<String, String>();
+        for (Session session : handler.getSessionsToWrite(null)) {
+            hashCodes.put(session.id, session.getImportHashCode());
+        }
+        return hashCodes;
+    }
+
+    private void addTag(String id, String category, int order) {
+        Tag tag = new Tag();
+        tag.tag = id;
+        tag.category = category;
+        tag.order_in_category = order;
+        mTagMap.put(id, tag);
+    }
+
+    private void addSpeaker(String id, String name) {
+        Speaker speaker = new Speaker();
+        speaker.id = id;
+        speaker.name = name;
+        mSpeakerMap.put(id, speaker);
+    }
+}
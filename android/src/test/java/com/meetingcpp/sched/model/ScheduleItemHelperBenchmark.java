@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.model;
+
+import com.meetingcpp.sched.testutils.Benchmark;
+
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.LargeTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Measures how {@link ScheduleItemHelper} moves the free blocks of a day out of the way of its
+ * sessions, pairwise and with the sweep, on three kinds of synthetic days: a light one that stays
+ * under {@link ScheduleItemHelper#PAIRWISE_MOVE_LIMIT}, and two whose many long or far apart items
+ * go over it. It also times the whole {@link ScheduleItemHelper#processItems}, which picks one of
+ * the two moves, so that a change of the limit shows on the day it affects. The test only fails
+ * if both moves don't leave the same free blocks.
+ */
+@LargeTest
+public class ScheduleItemHelperBenchmark {
+
+    private static final long MINUTE = 60 * 1000;
+
+    private static final int WARM_UPS = 1000;
+
+    private static final int REPEATS = 1000;
+
+    @Test
+    public void lightDay_24FreeSlots300SessionsIn20Tracks() throws Exception {
+        Random random = new Random(0);
+        ArrayList<ScheduleItem> free = new ArrayList<ScheduleItem>();
+        ArrayList<ScheduleItem> sessions = new ArrayList<ScheduleItem>();
+        for (int i = 0; i < 24; i++) {
+            free.add(item(ScheduleItem.FREE, i * 30, 30));
+        }
+        for (int i = 0; i < 300; i++) {
+            sessions.add(item(ScheduleItem.SESSION, random.nextInt(12) * 60, 60));
+        }
+        measure("24 free slots, 300 sessions in 20 tracks", free, sessions);
+    }
+
+    @Test
+    public void crowdedDay_100FreeBlocks400LongSessions() throws Exception {
+        Random random = new Random(1);
+        ArrayList<ScheduleItem> free = new ArrayList<ScheduleItem>();
+        ArrayList<ScheduleItem> sessions = new ArrayList<ScheduleItem>();
+        for (int i = 0; i < 100; i++) {
+            free.add(item(ScheduleItem.FREE, random.nextInt(700), 30));
+        }
+        for (int i = 0; i < 400; i++) {
+            sessions.add(item(ScheduleItem.SESSION, random.nextInt(60),
+                    240 + random.nextInt(400)));
+        }
+        measure("100 free blocks, 400 long overlapping sessions", free, sessions);
+    }
+
+    @Test
+    public void apartDay_300FreeBlocks300LaterSessions() throws Exception {
+        Random random = new Random(2);
+        ArrayList<ScheduleItem> free = new ArrayList<ScheduleItem>();
+        ArrayList<ScheduleItem> sessions = new ArrayList<ScheduleItem>();
+        for (int i = 0; i < 300; i++) {
+            free.add(item(ScheduleItem.FREE, random.nextInt(340), 30));
+        }
+        for (int i = 0; i < 300; i++) {
+            sessions.add(item(ScheduleItem.SESSION, 360 + random.nextInt(340), 45));
+        }
+        measure("300 free blocks, 300 sessions later in the day", free, sessions);
+    }
+
+    private static void measure(String day, ArrayList<ScheduleItem> free,
+            ArrayList<ScheduleItem> sessions) throws Exception {
+        Collections.sort(free);
+        Collections.sort(sessions);
+        MoveTask pairwise = new MoveTask("pairwise move", false, free, sessions);
+        MoveTask sweep = new MoveTask("sweep move", true, free, sessions);
+        ProcessTask process = new ProcessTask(free, sessions);
+        String used = free.size() * sessions.size() <= ScheduleItemHelper.PAIRWISE_MOVE_LIMIT
+                ? "pairwise" : "sweep";
+        Benchmark.measure(day + ", processItems uses the " + used + " move", WARM_UPS, REPEATS,
+                pairwise, sweep, process);
+
+        assertThat(times(sweep.mMoved), is(times(pairwise.mMoved)));
+    }
+
+    private static class MoveTask extends Benchmark.Task {
+
+        private final boolean mSweep;
+
+        private final List<ScheduleItem> mFree;
+
+        private final ArrayList<ScheduleItem> mSessions;
+
+        // The free blocks of the last run
+        ArrayList<ScheduleItem> mMoved;
+
+        MoveTask(String name, boolean sweep, ArrayList<ScheduleItem> free,
+                ArrayList<ScheduleItem> sessions) {
+            super(name);
+            mSweep = sweep;
+            mFree = free;
+            mSessions = sessions;
+        }
+
+        @Override
+        protected void setUp() {
+            mMoved = copy(mFree);
+        }
+
+        @Override
+        protected void run() {
+            if (mSweep) {
+                ScheduleItemHelper.sweepMutables(mMoved, mSessions);
+            } else {
+                ScheduleItemHelper.moveMutablesPairwise(mMoved, mSessions);
+            }
+        }
+    }
+
+    private static class ProcessTask extends Benchmark.Task {
+
+        private final List<ScheduleItem> mFree;
+
+        private final ArrayList<ScheduleItem> mSessions;
+
+        private ArrayList<ScheduleItem> mFreeCopy;
+
+        private ArrayList<ScheduleItem> mSessionsCopy;
+
+        ProcessTask(List<ScheduleItem> free, ArrayList<ScheduleItem> sessions) {
+            super("processItems");
+            mFree = free;
+            mSessions = sessions;
+        }
+
+        @Override
+        protected void setUp() {
+            mFreeCopy = copy(mFree);
+            mSessionsCopy = copy(mSessions);
+        }
+
+        @Override
+        protected void run() {
+            ScheduleItemHelper.processItems(mFreeCopy, mSessionsCopy);
+        }
+    }
+
+    private static ScheduleItem item(int type, long startMinute, long lengthMinutes) {
+        ScheduleItem item = new ScheduleItem();
+        item.type = type;
+        item.startTime = startMinute * MINUTE;
+        item.endTime = (startMinute + lengthMinutes) * MINUTE;
+        return item;
+    }
+
+    private static ArrayList<ScheduleItem> copy(List<ScheduleItem> items) {
+        ArrayList<ScheduleItem> copy = new ArrayList<ScheduleItem>();
+        for (ScheduleItem item : items) {
+            copy.add((ScheduleItem) item.clone());
+        }
+        return copy;
+    }
+
+    private static List<String> times(List<ScheduleItem> items) {
+        List<String> times = new ArrayList<String>();
+        for (ScheduleItem item : items) {
+            times.add(item.startTime / MINUTE + "-" + item.endTime / MINUTE);
+        }
+        return times;
+    }
+}
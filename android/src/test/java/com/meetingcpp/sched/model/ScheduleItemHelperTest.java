@@ -0,0 +1,291 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.model;
+
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@SmallTest
+public class ScheduleItemHelperTest {
+
+    private static final long MINUTE = 60 * 1000;
+
+    private static final long DAY_START = 1446109200000L;
+
+    @Test
+    public void processItems_TwoSplits_FreeBlockAroundSessions() {
+        ArrayList<ScheduleItem> mutableItems = new ArrayList<ScheduleItem>();
+        ArrayList<ScheduleItem> immutableItems = new ArrayList<ScheduleItem>();
+        mutableItems.add(item(ScheduleItem.FREE, "m1", 0, 180));
+        immutableItems.add(item(ScheduleItem.SESSION, "i1", 30, 60));
+        immutableItems.add(item(ScheduleItem.SESSION, "i2", 90, 120));
+
+        List<String> actual = describe(ScheduleItemHelper.processItems(mutableItems,
+                immutableItems));
+
+        assertThat(actual.toString(), is("[m1 0-30 0, i1 30-60 0, m1 60-90 0, i2 90-120 0, "
+                + "m1 120-180 0]"));
+    }
+
+    @Test
+    public void processItems_ConflictingSessions_Flagged() {
+        ArrayList<ScheduleItem> immutableItems = new ArrayList<ScheduleItem>();
+        immutableItems.add(item(ScheduleItem.SESSION, "i1", 30, 60));
+        immutableItems.add(item(ScheduleItem.SESSION, "i2", 90, 240));
+        immutableItems.add(item(ScheduleItem.SESSION, "i3", 90, 120));
+        immutableItems.add(item(ScheduleItem.SESSION, "i4", 180, 210));
+
+        List<String> actual = describe(ScheduleItemHelper.processItems(
+                new ArrayList<ScheduleItem>(), immutableItems));
+
+        int previous = ScheduleItem.FLAG_CONFLICTS_WITH_PREVIOUS;
+        int next = ScheduleItem.FLAG_CONFLICTS_WITH_NEXT;
+        assertThat(actual.toString(), is("[i1 30-60 0, i2 90-240 " + next + ", i3 90-120 "
+                + previous + ", i4 180-210 " + previous + "]"));
+    }
+
+    @Test
+    public void processItems_LongRunsOfConflicts_EndAtFirstSessionNotConflicting() {
+        ArrayList<ScheduleItem> immutableItems = new ArrayList<ScheduleItem>();
+        for (int i = 0; i < 80; i++) {
+            immutableItems.add(item(ScheduleItem.SESSION, "first" + i, 0, 300));
+        }
+        // ends as the others start, so it ends the first run
+        ScheduleItem shortSession = item(ScheduleItem.SESSION, "short", 0, 5);
+        immutableItems.add(shortSession);
+        for (int i = 0; i < 80; i++) {
+            immutableItems.add(item(ScheduleItem.SESSION, "second" + i, i, 300));
+        }
+        // starts after the others, so it ends the second run
+        ScheduleItem laterSession = item(ScheduleItem.SESSION, "later", 400, 460);
+        immutableItems.add(laterSession);
+
+        ScheduleItemHelper.processItems(new ArrayList<ScheduleItem>(), immutableItems);
+
+        int previous = ScheduleItem.FLAG_CONFLICTS_WITH_PREVIOUS;
+        int next = ScheduleItem.FLAG_CONFLICTS_WITH_NEXT;
+        assertThat(immutableItems.get(0).flags, is(next));
+        assertThat(immutableItems.get(79).flags, is(previous));
+        assertThat(shortSession.flags, is(0));
+        assertThat(immutableItems.get(81).flags, is(next));
+        assertThat(immutableItems.get(120).flags, is(previous | next));
+        assertThat(immutableItems.get(160).flags, is(previous));
+        assertThat(laterSession.flags, is(0));
+    }
+
+    @Test
+    public void processItems_RandomDays_SameAsPairwiseScan() {
+        Random random = new Random(2015);
+        for (int day = 0; day < 2000; day++) {
+            // up to hundreds of overlapping items, in the order ScheduleHelper adds them
+            assertSameAsPairwiseScan(random, 1 + random.nextInt(day < 1900 ? 20 : 400), 60,
+                    false, false);
+        }
+    }
+
+    @Test
+    public void processItems_RandomCrowdedDays_SameAsPairwiseScan() {
+        Random random = new Random(7);
+        for (int day = 0; day < 200; day++) {
+            // long items, so that sessions conflict with long runs of others
+            assertSameAsPairwiseScan(random, 100 + random.nextInt(300), 120 + random.nextInt(600),
+                    false, false);
+        }
+    }
+
+    @Test
+    public void processItems_RandomUnorderedDays_SameAsPairwiseScan() {
+        Random random = new Random(42);
+        for (int day = 0; day < 2000; day++) {
+            assertSameAsPairwiseScan(random, 1 + random.nextInt(20), 60, true, false);
+        }
+    }
+
+    @Test
+    public void sweepMutables_RandomDays_SameAsPairwiseScan() {
+        Random random = new Random(2016);
+        for (int day = 0; day < 2000; day++) {
+            // small days too, that processItems moves pairwise
+            assertSameAsPairwiseScan(random, 1 + random.nextInt(day < 1800 ? 40 : 400),
+                    60 + random.nextInt(600), day % 2 == 1, true);
+        }
+    }
+
+    private static void assertSameAsPairwiseScan(Random random, int count, int maxLength,
+            boolean shuffle, boolean sweep) {
+        ArrayList<ScheduleItem> mutableItems = new ArrayList<ScheduleItem>();
+        ArrayList<ScheduleItem> breaks = new ArrayList<ScheduleItem>();
+        ArrayList<ScheduleItem> sessions = new ArrayList<ScheduleItem>();
+        for (int i = 0; i < count; i++) {
+            int type = random.nextInt(3);
+            // times on a 5 minute grid, to hit the borders of the allowed overlap
+            long start = 5 * random.nextInt(12 * 12);
+            long length = random.nextInt(4) == 0 ? 5 * random.nextInt(maxLength / 5)
+                    : 5 * random.nextInt(12);
+            ScheduleItem item = item(type, "item" + i, start, start + length);
+            if (type == ScheduleItem.FREE) {
+                mutableItems.add(item);
+            } else if (type == ScheduleItem.BREAK) {
+                breaks.add(item);
+            } else {
+                sessions.add(item);
+            }
+        }
+        // blocks, then sessions, each by start time
+        ArrayList<ScheduleItem> immutableItems = new ArrayList<ScheduleItem>();
+        Collections.sort(mutableItems);
+        Collections.sort(breaks);
+        Collections.sort(sessions);
+        immutableItems.addAll(breaks);
+        immutableItems.addAll(sessions);
+        if (shuffle) {
+            Collections.shuffle(mutableItems, random);
+            Collections.shuffle(immutableItems, random);
+        }
+
+        ArrayList<ScheduleItem> expectedMutable = copy(mutableItems);
+        ArrayList<ScheduleItem> expectedImmutable = copy(immutableItems);
+        List<String> expected = describe(processItemsPairwise(expectedMutable,
+                expectedImmutable));
+
+        if (sweep) {
+            ScheduleItemHelper.sweepMutables(mutableItems, immutableItems);
+        } else {
+            List<String> actual = describe(ScheduleItemHelper.processItems(mutableItems,
+                    immutableItems));
+            assertThat(actual, is(expected));
+        }
+        assertThat(describe(mutableItems), is(describe(expectedMutable)));
+    }
+
+    private static ScheduleItem item(int type, String title, long startMinute, long endMinute) {
+        ScheduleItem item = new ScheduleItem();
+        item.type = type;
+        item.title = title;
+        item.startTime = DAY_START + startMinute * MINUTE;
+        item.endTime = DAY_START + endMinute * MINUTE;
+        return item;
+    }
+
+    private static ArrayList<ScheduleItem> copy(List<ScheduleItem> items) {
+        ArrayList<ScheduleItem> copy = new ArrayList<ScheduleItem>();
+        for (ScheduleItem item : items) {
+            copy.add((ScheduleItem) item.clone());
+        }
+        return copy;
+    }
+
+    private static List<String> describe(List<ScheduleItem> items) {
+        List<String> descriptions = new ArrayList<String>();
+        for (ScheduleItem item : items) {
+            descriptions.add(item.title + " " + (item.startTime - DAY_START) / MINUTE + "-"
+                    + (item.endTime - DAY_START) / MINUTE + " " + item.flags);
+        }
+        return descriptions;
+    }
+
+    // The pairwise scan that ScheduleItemHelper used to do, as the reference of its results.
+    private static ArrayList<ScheduleItem> processItemsPairwise(
+            ArrayList<ScheduleItem> mutableItems, ArrayList<ScheduleItem> immutableItems) {
+        Iterator<ScheduleItem> immutableIt = immutableItems.iterator();
+        while (immutableIt.hasNext()) {
+            ScheduleItem immutableItem = immutableIt.next();
+            if (immutableItem.type == ScheduleItem.BREAK) {
+                continue;
+            }
+            ListIterator<ScheduleItem> mutableIt = mutableItems.listIterator();
+            while (mutableIt.hasNext()) {
+                ScheduleItem mutableItem = mutableIt.next();
+                ScheduleItem split = null;
+                if (intersect(immutableItem, mutableItem)) {
+                    if (isContainedInto(mutableItem, immutableItem)) {
+                        mutableIt.remove();
+                        continue;
+                    } else if (isContainedInto(immutableItem, mutableItem)) {
+                        if (isIntervalLongEnough(immutableItem.endTime, mutableItem.endTime)) {
+                            split = (ScheduleItem) mutableItem.clone();
+                            split.startTime = immutableItem.endTime;
+                        }
+                        mutableItem.endTime = immutableItem.startTime;
+                    } else if (mutableItem.startTime < immutableItem.endTime) {
+                        mutableItem.startTime = immutableItem.endTime;
+                    } else if (mutableItem.endTime > immutableItem.startTime) {
+                        mutableItem.endTime = immutableItem.startTime;
+                    }
+                    if (!isIntervalLongEnough(mutableItem.startTime, mutableItem.endTime)) {
+                        mutableIt.remove();
+                    }
+                    if (split != null) {
+                        mutableIt.add(split);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < immutableItems.size(); i++) {
+            ScheduleItem item = immutableItems.get(i);
+            if (item.type == ScheduleItem.SESSION) {
+                for (int j = i + 1; j < immutableItems.size(); j++) {
+                    ScheduleItem other = immutableItems.get(j);
+                    if (intersect(other, item)) {
+                        other.flags |= ScheduleItem.FLAG_CONFLICTS_WITH_PREVIOUS;
+                        item.flags |= ScheduleItem.FLAG_CONFLICTS_WITH_NEXT;
+                    } else {
+                        break;
+                    }
+                }
+            }
+        }
+
+        ArrayList<ScheduleItem> result = new ArrayList<ScheduleItem>();
+        result.addAll(immutableItems);
+        result.addAll(mutableItems);
+        Collections.sort(result, new Comparator<ScheduleItem>() {
+            @Override
+            public int compare(ScheduleItem lhs, ScheduleItem rhs) {
+                return lhs.startTime < rhs.startTime ? -1 : 1;
+            }
+        });
+        return result;
+    }
+
+    private static boolean isIntervalLongEnough(long start, long end) {
+        return end - start >= 10 * MINUTE;
+    }
+
+    private static boolean intersect(ScheduleItem block1, ScheduleItem block2) {
+        return block2.endTime > block1.startTime + ScheduleItemHelper.ALLOWED_OVERLAP
+                && block2.startTime + ScheduleItemHelper.ALLOWED_OVERLAP < block1.endTime;
+    }
+
+    private static boolean isContainedInto(ScheduleItem contained, ScheduleItem container) {
+        return contained.startTime >= container.startTime
+                && contained.endTime <= container.endTime;
+    }
+}
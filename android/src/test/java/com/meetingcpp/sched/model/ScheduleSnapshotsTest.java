@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.model;
+
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@SmallTest
+public class ScheduleSnapshotsTest {
+
+    private static final String ACCOUNT = "attendee@example.com";
+
+    private static final long[][] DAYS = {{1000, 1999}, {3000, 3999}};
+
+    private static final ScheduleSnapshots.Key KEY = key(ACCOUNT, true, 1, 2);
+
+    @Test
+    public void dayOf_SessionStarts_MatchedToTheirDay() {
+        assertThat(ScheduleSnapshots.dayOf(DAYS, 1000), is(0));
+        assertThat(ScheduleSnapshots.dayOf(DAYS, 1999), is(0));
+        assertThat(ScheduleSnapshots.dayOf(DAYS, 3500), is(1));
+        assertThat(ScheduleSnapshots.dayOf(DAYS, 2500), is(-1));
+        assertThat(ScheduleSnapshots.dayOf(DAYS, 4000), is(-1));
+    }
+
+    @Test
+    public void key_SameValues_Equal() {
+        assertThat(KEY.equals(key(ACCOUNT, true, 1, 2)), is(true));
+        assertThat(KEY.hashCode(), is(key(ACCOUNT, true, 1, 2).hashCode()));
+        assertThat(key(null, false, 1, 2).equals(key(null, false, 1, 2)), is(true));
+    }
+
+    @Test
+    public void key_DifferentValues_NotEqual() {
+        assertThat(KEY.equals(key("other@example.com", true, 1, 2)), is(false));
+        assertThat(KEY.equals(key(null, true, 1, 2)), is(false));
+        assertThat(KEY.equals(key(ACCOUNT, false, 1, 2)), is(false));
+        assertThat(KEY.equals(key(ACCOUNT, true, 2, 2)), is(false));
+        assertThat(KEY.equals(key(ACCOUNT, true, 1, 3)), is(false));
+    }
+
+    @Test
+    public void key_OnlyMyScheduleVersionDiffers_SameData() {
+        assertThat(KEY.hasSameDataAs(key(ACCOUNT, true, 1, 3)), is(true));
+        assertThat(KEY.hasSameDataAs(key(ACCOUNT, true, 2, 2)), is(false));
+        assertThat(KEY.hasSameDataAs(key(ACCOUNT, false, 1, 2)), is(false));
+        assertThat(KEY.hasSameDataAs(key("other@example.com", true, 1, 2)), is(false));
+    }
+
+    @Test
+    public void snapshot_ExpiredOrOtherKey_NotValid() {
+        ScheduleSnapshots.Snapshot snapshot = new ScheduleSnapshots.Snapshot(KEY,
+                new ArrayList<ScheduleItem>(), 5000);
+
+        assertThat(snapshot.isValid(key(ACCOUNT, true, 1, 2), 4999), is(true));
+        assertThat(snapshot.isValid(KEY, 5000), is(false));
+        assertThat(snapshot.isValid(key(ACCOUNT, true, 1, 3), 4999), is(false));
+        assertThat(snapshot.isValid(null, 4999), is(false));
+    }
+
+    @Test
+    public void snapshot_WithKey_ValidForNewKeyOnly() {
+        ScheduleSnapshots.Snapshot snapshot = new ScheduleSnapshots.Snapshot(KEY,
+                new ArrayList<ScheduleItem>(), 5000);
+        ScheduleSnapshots.Key newKey = key(ACCOUNT, true, 1, 3);
+
+        ScheduleSnapshots.Snapshot moved = snapshot.withKey(newKey);
+
+        assertThat(moved.isValid(newKey, 4999), is(true));
+        assertThat(moved.isValid(KEY, 4999), is(false));
+        assertThat(moved.isValid(newKey, 5000), is(false));
+        assertThat(moved.items == snapshot.items, is(true));
+    }
+
+    @Test
+    public void findChangedDays_SessionStarred_OnlyItsDayChanged() {
+        ScheduleSnapshots.Snapshot[] snapshots = {
+                snapshot(ACCOUNT, session("S1", false)),
+                snapshot(ACCOUNT, session("S2", false))};
+
+        List<Integer> changedDays = ScheduleSnapshots.findChangedDays(snapshots, KEY,
+                days(day("S1", false), day("S2", false, "S3", false)));
+
+        assertThat(changedDays, is(Collections.singletonList(1)));
+    }
+
+    @Test
+    public void findChangedDays_FeedbackGiven_DayChanged() {
+        ScheduleSnapshots.Snapshot[] snapshots = {
+                snapshot(ACCOUNT, session("S1", false)),
+                snapshot(ACCOUNT, session("S2", false))};
+
+        List<Integer> changedDays = ScheduleSnapshots.findChangedDays(snapshots, KEY,
+                days(day("S1", true), day("S2", false)));
+
+        assertThat(changedDays, is(Collections.singletonList(0)));
+    }
+
+    @Test
+    public void findChangedDays_SameUserData_NoDayChanged() {
+        ScheduleItem freeBlock = new ScheduleItem();
+        freeBlock.type = ScheduleItem.FREE;
+        ScheduleSnapshots.Snapshot[] snapshots = {
+                snapshot(ACCOUNT, session("S1", true), freeBlock),
+                snapshot(ACCOUNT)};
+
+        List<Integer> changedDays = ScheduleSnapshots.findChangedDays(snapshots, KEY,
+                days(day("S1", true), day()));
+
+        assertThat(changedDays.isEmpty(), is(true));
+    }
+
+    @Test
+    public void findChangedDays_ConferenceDataChanged_AllDaysChanged() {
+        ScheduleSnapshots.Snapshot[] snapshots = {
+                snapshot(ACCOUNT, session("S1", false)),
+                snapshot(ACCOUNT, session("S2", false))};
+
+        List<Integer> changedDays = ScheduleSnapshots.findChangedDays(snapshots,
+                key(ACCOUNT, true, 2, 3), days(day("S1", false), day("S2", false)));
+
+        assertThat(changedDays, is(Arrays.asList(0, 1)));
+    }
+
+    @Test
+    public void findChangedDays_OtherAccountOrNotBuilt_DayChanged() {
+        ScheduleSnapshots.Snapshot[] snapshots = {
+                snapshot("other@example.com", session("S1", false)),
+                null};
+
+        List<Integer> changedDays = ScheduleSnapshots.findChangedDays(snapshots, KEY,
+                days(day("S1", false), day()));
+
+        assertThat(changedDays, is(Arrays.asList(0, 1)));
+    }
+
+    private static ScheduleSnapshots.Snapshot snapshot(String accountName,
+            ScheduleItem... items) {
+        // built before the change of My Schedule being checked
+        return new ScheduleSnapshots.Snapshot(key(accountName, true, 1, 1),
+                new ArrayList<ScheduleItem>(Arrays.asList(items)), Long.MAX_VALUE);
+    }
+
+    private static ScheduleSnapshots.Key key(String accountName, boolean attendeeAtVenue,
+            long conferenceDataVersion, long myScheduleVersion) {
+        return new ScheduleSnapshots.Key(accountName, attendeeAtVenue, conferenceDataVersion,
+                myScheduleVersion);
+    }
+
+    private static ScheduleItem session(String sessionId, boolean hasGivenFeedback) {
+        ScheduleItem item = new ScheduleItem();
+        item.type = ScheduleItem.SESSION;
+        item.sessionId = sessionId;
+        item.hasGivenFeedback = hasGivenFeedback;
+        return item;
+    }
+
+    private static HashSet<String> day(Object... sessionsAndFeedback) {
+        HashSet<String> userData = new HashSet<String>();
+        for (int i = 0; i < sessionsAndFeedback.length; i += 2) {
+            userData.add(ScheduleSnapshots.userDataOf((String) sessionsAndFeedback[i],
+                    (Boolean) sessionsAndFeedback[i + 1]));
+        }
+        return userData;
+    }
+
+    @SafeVarargs
+    private static List<HashSet<String>> days(HashSet<String>... days) {
+        return Arrays.asList(days);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.provider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@SmallTest
+public class SessionTagIndexTest {
+
+    private static final String[] TAGS = {"TYPE_TALK", "TYPE_KEYNOTE", "TOPIC_CPP",
+            "TOPIC_TOOLS", "TOPIC_CONCURRENCY", "THEME_ADVANCED", "THEME_BEGINNER"};
+
+    private static final int SESSIONS = 2000;
+
+    private long[] mSessionIds;
+
+    // Tags of each session, by ordinal
+    private List<Set<String>> mSessionTags;
+
+    private SessionTagIndex mIndex;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(2015);
+        mSessionIds = new long[SESSIONS];
+        mSessionTags = new ArrayList<Set<String>>();
+        HashMap<String, BitSet> sessionsByTag = new HashMap<String, BitSet>();
+        long id = 0;
+        for (int ordinal = 0; ordinal < SESSIONS; ordinal++) {
+            // _IDs have gaps, like those of deleted rows
+            id += 1 + random.nextInt(3);
+            mSessionIds[ordinal] = id;
+            Set<String> tags = new HashSet<String>();
+            for (String tag : TAGS) {
+                if (random.nextInt(3) == 0) {
+                    tags.add(tag);
+                    BitSet sessions = sessionsByTag.get(tag);
+                    if (sessions == null) {
+                        sessions = new BitSet();
+                        sessionsByTag.put(tag, sessions);
+                    }
+                    sessions.set(ordinal);
+                }
+            }
+            mSessionTags.add(tags);
+        }
+        mIndex = new SessionTagIndex(1, mSessionIds, sessionsByTag);
+    }
+
+    @Test
+    public void getSessionIds_OneTag_SessionsWithTheTag() {
+        assertMatchesBruteForce(new String[]{"TOPIC_CPP"}, 1);
+    }
+
+    @Test
+    public void getSessionIds_AllTagsRequired_SessionsWithAllTags() {
+        assertMatchesBruteForce(new String[]{"TYPE_TALK", "TOPIC_CPP", "THEME_ADVANCED"}, 3);
+    }
+
+    @Test
+    public void getSessionIds_AnyTag_SessionsWithAnyTag() {
+        assertMatchesBruteForce(new String[]{"TOPIC_CPP", "TOPIC_TOOLS"}, 1);
+    }
+
+    @Test
+    public void getSessionIds_UnknownTag_NoSessions() {
+        assertThat(mIndex.getSessionIds(new String[]{"TOPIC_UNKNOWN"}, 1).length, is(0));
+        assertThat(mIndex.getSessionIds(new String[]{"TOPIC_CPP", "TOPIC_UNKNOWN"}, 2).length,
+                is(0));
+    }
+
+    @Test
+    public void getSessionIds_RandomFilters_SameAsBruteForce() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            String[] tags = new String[1 + random.nextInt(TAGS.length)];
+            for (int t = 0; t < tags.length; t++) {
+                // may repeat tags
+                tags[t] = TAGS[random.nextInt(TAGS.length)];
+            }
+            assertMatchesBruteForce(tags, random.nextInt(tags.length + 2));
+        }
+    }
+
+    // Compares the index with the semantics of the SQL filter it replaces: the sessions whose
+    // rows in the join with their tags, restricted to the given tags, number at least minTags.
+    private void assertMatchesBruteForce(String[] tags, int minTags) {
+        Set<String> distinctTags = new HashSet<String>(Arrays.asList(tags));
+        List<Long> expected = new ArrayList<Long>();
+        for (int ordinal = 0; ordinal < SESSIONS; ordinal++) {
+            int count = 0;
+            for (String tag : mSessionTags.get(ordinal)) {
+                if (distinctTags.contains(tag)) {
+                    ++count;
+                }
+            }
+            if (count > 0 && count >= minTags) {
+                expected.add(mSessionIds[ordinal]);
+            }
+        }
+
+        long[] actual = mIndex.getSessionIds(tags, minTags);
+
+        List<Long> actualList = new ArrayList<Long>();
+        for (long id : actual) {
+            actualList.add(id);
+        }
+        assertThat(Arrays.toString(tags) + " " + minTags, actualList, is(expected));
+    }
+}
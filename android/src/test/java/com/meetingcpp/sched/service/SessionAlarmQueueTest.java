@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.service;
+
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@SmallTest
+public class SessionAlarmQueueTest {
+
+    private static final int START = SessionAlarmQueue.TYPE_SESSION_START;
+
+    private static final int FEEDBACK = SessionAlarmQueue.TYPE_SESSION_FEEDBACK;
+
+    @Test
+    public void getNextAlarmTime_Empty_NoAlarm() {
+        SessionAlarmQueue queue = new SessionAlarmQueue();
+
+        assertThat(queue.getNextAlarmTime(), is(SessionAlarmQueue.NO_ALARM));
+    }
+
+    @Test
+    public void add_SameAlarmTwice_QueuedOnce() {
+        SessionAlarmQueue queue = new SessionAlarmQueue();
+        queue.add(START, 400, 1000);
+        queue.add(START, 400, 1000);
+        queue.add(FEEDBACK, 400, 1100);
+
+        assertThat(queue.size(), is(2));
+    }
+
+    @Test
+    public void pollDue_RemovesDueAlarmsInOrder() {
+        SessionAlarmQueue queue = new SessionAlarmQueue();
+        queue.add(FEEDBACK, 700, 1000);
+        queue.add(START, 300, 900);
+        queue.add(START, 100, 700);
+        queue.add(FEEDBACK, 300, 600);
+
+        List<SessionAlarmQueue.Alarm> due = queue.pollDue(300);
+
+        assertThat(due.size(), is(3));
+        assertThat(due.get(0).sessionTime, is(700L));
+        assertThat(due.get(1).type, is(START));
+        assertThat(due.get(1).sessionTime, is(900L));
+        assertThat(due.get(2).type, is(FEEDBACK));
+        assertThat(due.get(2).sessionTime, is(600L));
+        assertThat(queue.getNextAlarmTime(), is(700L));
+    }
+
+    @Test
+    public void isMissed_AlarmFiredLate_NotMissedWithinGracePeriod() {
+        // the reminder of a session that started a few minutes ago
+        long alarmTime = 1000000;
+        long sessionStart = alarmTime + 10 * 60 * 1000;
+
+        assertThat(SessionAlarmQueue.isMissed(alarmTime, sessionStart + 60 * 1000), is(false));
+        assertThat(SessionAlarmQueue.isMissed(alarmTime,
+                alarmTime + SessionAlarmQueue.GRACE_PERIOD), is(false));
+        assertThat(SessionAlarmQueue.isMissed(alarmTime,
+                alarmTime + SessionAlarmQueue.GRACE_PERIOD + 1), is(true));
+    }
+
+    @Test
+    public void remove_UnstarredSession_NextAlarmChained() {
+        SessionAlarmQueue queue = new SessionAlarmQueue();
+        queue.add(START, 100, 700);
+        queue.add(FEEDBACK, 100, 700);
+        queue.add(START, 300, 900);
+
+        assertThat(queue.remove(START, 700), is(true));
+
+        assertThat(queue.size(), is(2));
+        assertThat(queue.getNextAlarmTime(), is(100L));
+        assertThat(queue.remove(FEEDBACK, 700), is(true));
+        assertThat(queue.getNextAlarmTime(), is(300L));
+    }
+
+    @Test
+    public void remove_NotQueued_NothingRemoved() {
+        SessionAlarmQueue queue = new SessionAlarmQueue();
+        queue.add(START, 300, 900);
+
+        assertThat(queue.remove(FEEDBACK, 900), is(false));
+        assertThat(queue.remove(START, 1000), is(false));
+        assertThat(queue.size(), is(1));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.meetingcpp.sched.service;
+
+import org.junit.Test;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@SmallTest
+public class SessionCalendarDiffTest {
+
+    private static final String TIME_ZONE = "Europe/Berlin";
+
+    private static final long NO_ID = SessionCalendarDiff.NO_EVENT_ID;
+
+    @Test
+    public void compute_UnchangedEvents_NotTouched() {
+        List<SessionCalendarDiff.Event> existing = Arrays.asList(
+                event(1, null, "Keynote", 1000, 2000),
+                event(2, null, "Talk", 3000, 4000));
+        List<SessionCalendarDiff.Event> sessions = Arrays.asList(
+                event(1, "S1", "Keynote", 1000, 2000),
+                event(2, "S2", "Talk", 3000, 4000));
+
+        SessionCalendarDiff diff = SessionCalendarDiff.compute(existing, sessions);
+
+        assertThat(diff.isEmpty(), is(true));
+    }
+
+    @Test
+    public void compute_StarredAndUnstarredSessions_InsertedAndDeleted() {
+        List<SessionCalendarDiff.Event> existing = Arrays.asList(
+                event(1, null, "Keynote", 1000, 2000),
+                event(2, null, "Talk", 3000, 4000));
+        List<SessionCalendarDiff.Event> sessions = Arrays.asList(
+                event(1, "S1", "Keynote", 1000, 2000),
+                event(NO_ID, "S3", "Lightning talks", 5000, 6000));
+
+        SessionCalendarDiff diff = SessionCalendarDiff.compute(existing, sessions);
+
+        assertThat(diff.getInserts().size(), is(1));
+        assertThat(diff.getInserts().get(0).sessionId, is("S3"));
+        assertThat(diff.getDeletes(), is(Arrays.asList(2L)));
+        assertThat(diff.getUpdates().isEmpty(), is(true));
+        assertThat(diff.getEventIds().isEmpty(), is(true));
+    }
+
+    @Test
+    public void compute_MovedSession_UpdatedInPlace() {
+        List<SessionCalendarDiff.Event> existing = Arrays.asList(
+                event(1, null, "Keynote", 1000, 2000));
+        List<SessionCalendarDiff.Event> sessions = Arrays.asList(
+                event(1, "S1", "Keynote", 1500, 2500));
+
+        SessionCalendarDiff diff = SessionCalendarDiff.compute(existing, sessions);
+
+        assertThat(diff.getUpdates().size(), is(1));
+        assertThat(diff.getUpdates().get(0).id, is(1L));
+        assertThat(diff.getUpdates().get(0).start, is(1500L));
+        assertThat(diff.getInserts().isEmpty(), is(true));
+        assertThat(diff.getDeletes().isEmpty(), is(true));
+    }
+
+    @Test
+    public void compute_EventWithoutStoredId_MatchedByTitleAndTimes() {
+        // one of them is a duplicate, added twice
+        List<SessionCalendarDiff.Event> existing = Arrays.asList(
+                event(7, null, "Talk", 3000, 4000),
+                event(8, null, "Talk", 3000, 4000));
+        List<SessionCalendarDiff.Event> sessions = new ArrayList<SessionCalendarDiff.Event>();
+        sessions.add(event(NO_ID, "S2", "Talk", 3000, 4000));
+
+        SessionCalendarDiff diff = SessionCalendarDiff.compute(existing, sessions);
+
+        assertThat(diff.getEventIds().get("S2"), is(7L));
+        assertThat(diff.getDeletes(), is(Arrays.asList(8L)));
+        assertThat(diff.getInserts().isEmpty(), is(true));
+        assertThat(diff.getUpdates().isEmpty(), is(true));
+    }
+
+    @Test
+    public void computeForSession_Removed_OnlyItsEventDeleted() {
+        List<SessionCalendarDiff.Event> existing = Arrays.asList(
+                event(1, null, "Keynote", 1000, 2000),
+                event(2, null, "Talk", 3000, 4000),
+                event(3, null, "Talk", 3000, 4000));
+
+        SessionCalendarDiff diff = SessionCalendarDiff.computeForSession(existing,
+                event(2, "S2", "Talk", 3000, 4000), false);
+
+        assertThat(diff.getDeletes(), is(Arrays.asList(2L)));
+        assertThat(diff.getInserts().isEmpty(), is(true));
+        assertThat(diff.getUpdates().isEmpty(), is(true));
+        assertThat(diff.getEventIds().isEmpty(), is(true));
+    }
+
+    @Test
+    public void computeForSession_RemovedWithoutStoredId_FirstMatchDeleted() {
+        List<SessionCalendarDiff.Event> existing = Arrays.asList(
+                event(7, null, "Talk", 3000, 4000),
+                event(8, null, "Talk", 3000, 4000),
+                event(9, null, "Talk", 5000, 6000));
+
+        SessionCalendarDiff diff = SessionCalendarDiff.computeForSession(existing,
+                event(NO_ID, "S2", "Talk", 3000, 4000), false);
+
+        assertThat(diff.getDeletes(), is(Arrays.asList(7L)));
+    }
+
+    @Test
+    public void computeForSession_Added_OtherEventsLeftAlone() {
+        List<SessionCalendarDiff.Event> existing = Arrays.asList(
+                event(1, null, "Keynote", 1000, 2000));
+
+        SessionCalendarDiff diff = SessionCalendarDiff.computeForSession(existing,
+                event(NO_ID, "S2", "Talk", 3000, 4000), true);
+
+        assertThat(diff.getInserts().size(), is(1));
+        assertThat(diff.getInserts().get(0).sessionId, is("S2"));
+        assertThat(diff.getDeletes().isEmpty(), is(true));
+        assertThat(diff.getUpdates().isEmpty(), is(true));
+    }
+
+    @Test
+    public void computeForSession_AddedWithEvent_Relinked() {
+        List<SessionCalendarDiff.Event> existing = Arrays.asList(
+                event(7, null, "Talk", 3000, 4000),
+                event(8, null, "Talk", 3000, 4000));
+
+        SessionCalendarDiff diff = SessionCalendarDiff.computeForSession(existing,
+                event(NO_ID, "S2", "Talk", 3000, 4000), true);
+
+        // the duplicate is left to the sync of all the sessions
+        assertThat(diff.getEventIds().get("S2"), is(7L));
+        assertThat(diff.getDeletes().isEmpty(), is(true));
+        assertThat(diff.getInserts().isEmpty(), is(true));
+    }
+
+    private static SessionCalendarDiff.Event event(long id, String sessionId, String title,
+            long start, long end) {
+        return new SessionCalendarDiff.Event(id, sessionId, title, start, end, "Room",
+                TIME_ZONE);
+    }
+}
@@ -40,6 +40,10 @@ public interface Config {
   public final String SESSIONS_FORMAT = "session_data_v{0,number,integer}.{1,number,integer}.json";
   public final String MANIFEST_FORMAT_VERSION = "iosched-json-v1";
 
+  // Deltas from the previous sessions file are named after the base and target minor versions.
+  public final String SESSIONS_DELTA_FORMAT = "session_delta_v{0,number,integer}.{1,number,integer}_to_{2,number,integer}.json";
+  public final String DELTA_FORMAT_VERSION = "iosched-json-delta-v1";
+
   /**
    * The manifest version is used to name the manifest file (manifest_v{version}.json) and as
    * the major version of the generated session files.
@@ -52,6 +56,11 @@ public interface Config {
   public final boolean DEBUG_FIX_DATA = false;
   public final boolean SHOW_UNPUBLISHED_DATA=false;
 
+  // Maximum number of entity types fetched at the same time from each data source input, and
+  // how long to wait for each of them before giving up the update run.
+  public final int FETCH_CONCURRENCY = 4;
+  public final long FETCH_TIMEOUT_MILLIS = 60 * 1000L;
+
   public final long TIME_TRAVEL_SHIFT = 0; //Used for dogfooding: -29 * (24*60*60*1000L);
   public final String VIDEO_CATEGORY = "f04c9884-9dd8-e411-b87f-00155d5066d7";
 
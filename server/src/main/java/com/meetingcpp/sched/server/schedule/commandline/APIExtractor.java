@@ -15,9 +15,8 @@
  */
 package com.meetingcpp.sched.server.schedule.commandline;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import com.google.gson.stream.JsonWriter;
+import com.meetingcpp.sched.server.schedule.Config;
 import com.meetingcpp.sched.server.schedule.input.fetcher.EntityFetcher;
 import com.meetingcpp.sched.server.schedule.input.fetcher.HTTPRemoteFilesEntityFetcher;
 import com.meetingcpp.sched.server.schedule.input.fetcher.RemoteFilesEntityFetcherFactory;
@@ -63,16 +62,14 @@ public class APIExtractor {
     // fill sources with vendor API input:
     VendorDynamicInput vendorInput = new VendorDynamicInput();
     vendorInput.setExtractUnpublished(extractUnpublished);
+    vendorInput.setConcurrency(Config.FETCH_CONCURRENCY);
+    vendorInput.setFetchTimeout(Config.FETCH_TIMEOUT_MILLIS);
     sources.putAll(vendorInput.fetchAllDataSources());
-    // extract session data from inputs:
-    JsonObject newData = new DataExtractor(false).extractFromDataSources(sources);
-
-    // send data to the outputstream
+    // extract session data from inputs, streaming it to the outputstream
     Writer writer = Channels.newWriter(Channels.newChannel(optionalOutput), "UTF-8");
     JsonWriter optionalOutputWriter = new JsonWriter(writer);
     optionalOutputWriter.setIndent("  ");
-    new Gson().toJson(newData, optionalOutputWriter);
-    optionalOutputWriter.flush();
+    new DataExtractor(false).extractFromDataSources(sources, optionalOutputWriter);
   }
 
   /**
@@ -15,33 +15,25 @@
  */
 package com.meetingcpp.sched.server.schedule.input.fetcher;
 
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Map;
 
 /**
  * EntityFetcher that fetches entities from a set of files stored in CloudStorage.
  */
-public class HTTPRemoteFilesEntityFetcher implements EntityFetcher {
+public class HTTPRemoteFilesEntityFetcher extends ReadOnceFilesEntityFetcher {
 
-  private String[] filenames;
-  private JsonObject object;
+  private final String[] filenames;
 
   public HTTPRemoteFilesEntityFetcher(String... filenames) {
     this.filenames = filenames;
   }
 
   @Override
-  public JsonElement fetch(Enum<?> entityType, Map<String, String> params)
-      throws IOException {
-    // On the first call, read all the files
-    if (object == null) {
-      object = RemoteJsonHelper.mergeJsonFiles(null, filenames);
-    }
-    return object.get(entityType.name());
+  protected JsonObject readFiles() throws IOException {
+    return RemoteJsonHelper.mergeJsonFiles(null, filenames);
   }
 
   /* (non-Javadoc)
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.server.schedule.input.fetcher;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * EntityFetcher that reads a set of files once, on the first call, and takes each entity type
+ * from the merged files. The entity types of a DataSourceInput are fetched concurrently: the
+ * first call reads the files, and the others wait for that read instead of starting their own.
+ * A failed read fails all the calls of the fetcher.
+ */
+public abstract class ReadOnceFilesEntityFetcher implements EntityFetcher {
+
+  private final FutureTask<JsonObject> files = new FutureTask<JsonObject>(
+      new Callable<JsonObject>() {
+        @Override
+        public JsonObject call() throws IOException {
+          return readFiles();
+        }
+      });
+
+  /**
+   * @return The entities of all the files, by entity type.
+   */
+  protected abstract JsonObject readFiles() throws IOException;
+
+  @Override
+  public JsonElement fetch(Enum<?> entityType, Map<String, String> params) throws IOException {
+    // only runs the read on the first call, the others return at once
+    files.run();
+    try {
+      return files.get().get(entityType.name());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading " + this);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.server.schedule.model;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.meetingcpp.sched.server.schedule.Config;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+/**
+ * Computes the entity level differences between two versions of a data file, so that clients
+ * that already have the base version only need to download what changed.
+ *
+ * The delta has the same top-level collections as the data files, but each one is an object
+ * with up to three arrays: "added" and "changed" with full entities, and "removed" with the
+ * ids of the entities that are gone. Collections without changes are left out.
+ */
+public class DataDelta {
+
+  public static final String KEY_FORMAT = "format";
+  public static final String KEY_BASE = "base";
+  public static final String KEY_TARGET = "target";
+  public static final String KEY_ADDED = "added";
+  public static final String KEY_CHANGED = "changed";
+  public static final String KEY_REMOVED = "removed";
+
+  /**
+   * @return the property that identifies the entities of the given collection
+   */
+  public static String getKeyProperty(String collection) {
+    if (OutputJsonKeys.MainTypes.tags.name().equals(collection)) {
+      return OutputJsonKeys.Tags.tag.name();
+    }
+    return "id";
+  }
+
+  /**
+   * @param baseName name of the file with the old data
+   * @param targetName name of the file with the new data
+   * @return the delta from oldData to newData, or null if the files are not of the same major
+   *     version or some collection has entities without an id, in which case clients must
+   *     download the full file
+   */
+  public static JsonObject compute(JsonObject oldData, JsonObject newData, String baseName,
+      String targetName) {
+    String baseMajorVersion = getMajorVersion(baseName);
+    if (baseMajorVersion == null || !baseMajorVersion.equals(getMajorVersion(targetName))) {
+      // a new major version may change the format of the entities
+      return null;
+    }
+
+    JsonObject delta = new JsonObject();
+    delta.add(KEY_FORMAT, new JsonPrimitive(Config.DELTA_FORMAT_VERSION));
+    delta.add(KEY_BASE, new JsonPrimitive(baseName));
+    delta.add(KEY_TARGET, new JsonPrimitive(targetName));
+
+    Set<String> collections = new LinkedHashSet<String>();
+    for (Map.Entry<String, JsonElement> entry: oldData.entrySet()) {
+      collections.add(entry.getKey());
+    }
+    for (Map.Entry<String, JsonElement> entry: newData.entrySet()) {
+      collections.add(entry.getKey());
+    }
+
+    for (String collection: collections) {
+      String keyProperty = getKeyProperty(collection);
+      Map<String, JsonObject> oldEntities = indexById(oldData.get(collection), keyProperty);
+      Map<String, JsonObject> newEntities = indexById(newData.get(collection), keyProperty);
+      if (oldEntities == null || newEntities == null) {
+        return null;
+      }
+
+      JsonArray added = new JsonArray();
+      JsonArray changed = new JsonArray();
+      JsonArray removed = new JsonArray();
+      for (Map.Entry<String, JsonObject> entry: newEntities.entrySet()) {
+        JsonObject oldEntity = oldEntities.get(entry.getKey());
+        if (oldEntity == null) {
+          added.add(entry.getValue());
+        } else if (!oldEntity.equals(entry.getValue())) {
+          changed.add(entry.getValue());
+        }
+      }
+      for (String id: oldEntities.keySet()) {
+        if (!newEntities.containsKey(id)) {
+          removed.add(new JsonPrimitive(id));
+        }
+      }
+
+      if (added.size() + changed.size() + removed.size() > 0) {
+        JsonObject collectionDelta = new JsonObject();
+        if (added.size() > 0) {
+          collectionDelta.add(KEY_ADDED, added);
+        }
+        if (changed.size() > 0) {
+          collectionDelta.add(KEY_CHANGED, changed);
+        }
+        if (removed.size() > 0) {
+          collectionDelta.add(KEY_REMOVED, removed);
+        }
+        delta.add(collection, collectionDelta);
+      }
+    }
+    return delta;
+  }
+
+  /**
+   * @return the major version of the given sessions file, or null if it's not a sessions file
+   */
+  private static String getMajorVersion(String filename) {
+    Matcher matcher = Config.SESSIONS_PATTERN.matcher(filename);
+    return matcher.matches() ? String.valueOf(Integer.parseInt(matcher.group(1))) : null;
+  }
+
+  /**
+   * @return the entities of the collection by id, an empty map if there is no such collection,
+   *     or null if some element is not an object with a unique primitive id
+   */
+  private static Map<String, JsonObject> indexById(JsonElement collection, String keyProperty) {
+    Map<String, JsonObject> result = new LinkedHashMap<String, JsonObject>();
+    if (collection == null) {
+      return result;
+    }
+    if (!collection.isJsonArray()) {
+      return null;
+    }
+    for (JsonElement el: collection.getAsJsonArray()) {
+      if (!el.isJsonObject()) {
+        return null;
+      }
+      JsonElement id = el.getAsJsonObject().get(keyProperty);
+      if (id == null || !id.isJsonPrimitive()) {
+        return null;
+      }
+      if (result.put(id.getAsString(), el.getAsJsonObject()) != null) {
+        // duplicated ids cannot be told apart in a delta
+        return null;
+      }
+    }
+    return result;
+  }
+}
@@ -21,13 +21,16 @@ import static com.meetingcpp.sched.server.schedule.model.DataModelHelper.getMapV
 import static com.meetingcpp.sched.server.schedule.model.DataModelHelper.isHashtag;
 import static com.meetingcpp.sched.server.schedule.model.DataModelHelper.set;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import com.meetingcpp.sched.server.schedule.Config;
 import com.meetingcpp.sched.server.schedule.model.validator.Converters;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -87,6 +90,117 @@ public class DataExtractor {
     return result;
   }
 
+  /**
+   * Extracts the same data as {@link #extractFromDataSources(JsonDataSources)}, but writes each
+   * entity to the given writer as soon as it is extracted, instead of building the whole
+   * output in memory first. Unused tags and speakers are found by a pre-pass over the topics ids.
+   */
+  public void extractFromDataSources(JsonDataSources sources, JsonWriter writer)
+      throws IOException {
+    Gson gson = new Gson();
+    if (Config.DEBUG_FIX_DATA) {
+      // Debug data changes the tags of each session while extracting it, so the used tags are
+      // only known at the end.
+      gson.toJson(extractFromDataSources(sources), writer);
+      return;
+    }
+
+    usedTags = new HashSet<String>();
+    usedSpeakers = new HashSet<String>();
+
+    writer.beginObject();
+    writer.name(OutputJsonKeys.MainTypes.rooms.name());
+    gson.toJson(extractRooms(sources), writer);
+
+    JsonArray speakers = extractSpeakers(sources);
+    JsonArray tags = extractTags(sources);
+    collectUsedTagsAndSpeakers(sources);
+
+    JsonDataSource topics = sources.getSource(InputJsonKeys.VendorAPISource.MainTypes.topics.name());
+
+    videoSessionsById = new HashMap<String, JsonObject>();
+    checkVideoSessionsPrerequisites();
+    writer.name(OutputJsonKeys.MainTypes.video_library.name());
+    writer.beginArray();
+    if (topics != null) {
+      for (JsonObject origin: topics) {
+        JsonObject dest = extractVideoSession(origin);
+        if (dest != null) {
+          gson.toJson(dest, writer);
+        }
+      }
+    }
+    writer.endArray();
+
+    checkSessionsPrerequisites();
+    writer.name(OutputJsonKeys.MainTypes.sessions.name());
+    writer.beginArray();
+    if (topics != null) {
+      for (JsonObject origin: topics) {
+        JsonObject dest = extractSession(origin);
+        if (dest != null) {
+          gson.toJson(dest, writer);
+        }
+      }
+    }
+    writer.endArray();
+
+    writer.name(OutputJsonKeys.MainTypes.speakers.name());
+    writer.beginArray();
+    for (JsonElement el: speakers) {
+      String id = get(el.getAsJsonObject(), OutputJsonKeys.Speakers.id).getAsString();
+      if (usedSpeakers.contains(id)) {
+        gson.toJson(el, writer);
+      }
+    }
+    writer.endArray();
+
+    writer.name(OutputJsonKeys.MainTypes.tags.name());
+    writer.beginArray();
+    for (JsonElement tag: tags) {
+      String tagName = get(tag.getAsJsonObject(), OutputJsonKeys.Tags.tag).getAsString();
+      if (usedTags.contains(tagName)) {
+        gson.toJson(tag, writer);
+      }
+    }
+    writer.endArray();
+    writer.endObject();
+    writer.flush();
+  }
+
+  /**
+   * Finds the tags and speakers referenced by the sessions and videos that will be extracted,
+   * using the same skipping rules as {@link #extractSession} and {@link #extractVideoSession}.
+   */
+  private void collectUsedTagsAndSpeakers(JsonDataSources sources) {
+    JsonDataSource source = sources.getSource(InputJsonKeys.VendorAPISource.MainTypes.topics.name());
+    if (source == null) {
+      return;
+    }
+    for (JsonObject origin: source) {
+      if (isHiddenSession(origin)) {
+        continue;
+      }
+      if (!isVideoSession(origin)) {
+        JsonElement title = get(origin, InputJsonKeys.VendorAPISource.Topics.title);
+        if (title != null && title.isJsonPrimitive() && "keynote".equalsIgnoreCase(title.getAsString())) {
+          continue;
+        }
+        JsonArray categories= origin.getAsJsonArray(InputJsonKeys.VendorAPISource.Topics.categoryids.name());
+        for (JsonElement category: categories) {
+          JsonObject tag = categoryToTagMap.get(category.getAsString());
+          if (tag != null) {
+            usedTags.add(get(tag, OutputJsonKeys.Tags.tag).getAsString());
+          }
+        }
+      }
+      JsonArray speakers = getAsArray(origin, InputJsonKeys.VendorAPISource.Topics.speakerids);
+      if (speakers != null) for (JsonElement speaker: speakers) {
+        usedSpeakers.add(speaker.getAsString());
+      }
+    }
+  }
+
   public JsonArray extractRooms(JsonDataSources sources) {
     HashSet<String> ids = new HashSet<String>();
     JsonArray result = new JsonArray();
@@ -226,195 +340,220 @@ public class DataExtractor {
   }
 
   public JsonArray extractSessions(JsonDataSources sources) {
+    checkSessionsPrerequisites();
+    JsonArray result = new JsonArray();
+    JsonDataSource source = sources.getSource(InputJsonKeys.VendorAPISource.MainTypes.topics.name());
+    if (source != null) {
+      for (JsonObject origin: source) {
+        JsonObject dest = extractSession(origin);
+        if (dest != null) {
+          result.add(dest);
+        }
+      }
+    }
+    return result;
+  }
+
+  private void checkSessionsPrerequisites() {
     if (videoSessionsById == null) {
       throw new IllegalStateException("You need to extract video sessions before attempting to extract sessions");
     }
     if (categoryToTagMap == null) {
       throw new IllegalStateException("You need to extract tags before attempting to extract sessions");
     }
+  }
 
-    JsonArray result = new JsonArray();
-    JsonDataSource source = sources.getSource(InputJsonKeys.VendorAPISource.MainTypes.topics.name());
-    if (source != null) {
-      for (JsonObject origin: source) {
-        if (isVideoSession(origin)) {
-          // Sessions with the Video tag are processed as video library content
-          continue;
-        }
-        if (isHiddenSession(origin)) {
-          // Sessions with a "Hidden from schedule" flag should be ignored
-          continue;
-        }
-        JsonElement title = get(origin, InputJsonKeys.VendorAPISource.Topics.title);
-        // Since the CMS returns an empty keynote as a session, we need to ignore it
-        if (title != null && title.isJsonPrimitive() && "keynote".equalsIgnoreCase(title.getAsString())) {
-          continue;
-        }
-        JsonObject dest = new JsonObject();
-
-        // Some sessions require a special ID, so we replace it here...
-        if (title != null && title.isJsonPrimitive() && "after hours".equalsIgnoreCase(title.getAsString())) {
-          set(new JsonPrimitive("__afterhours__"), dest, OutputJsonKeys.Sessions.id);
-        } else {
-          set(origin, InputJsonKeys.VendorAPISource.Topics.id, dest, OutputJsonKeys.Sessions.id);
-        }
-        set(origin, InputJsonKeys.VendorAPISource.Topics.id, dest, OutputJsonKeys.Sessions.url, Converters.SESSION_URL);
-        set(origin, InputJsonKeys.VendorAPISource.Topics.title, dest, OutputJsonKeys.Sessions.title, obfuscate?Converters.OBFUSCATE:null);
-        set(origin, InputJsonKeys.VendorAPISource.Topics.description, dest, OutputJsonKeys.Sessions.description, obfuscate?Converters.OBFUSCATE:null);
-        set(origin, InputJsonKeys.VendorAPISource.Topics.start, dest, OutputJsonKeys.Sessions.startTimestamp, Converters.DATETIME);
-        set(origin, InputJsonKeys.VendorAPISource.Topics.finish, dest, OutputJsonKeys.Sessions.endTimestamp, Converters.DATETIME);
-        set(new JsonPrimitive(isFeatured(origin)), dest, OutputJsonKeys.Sessions.isFeatured);
-
-        JsonElement documents = get(origin, InputJsonKeys.VendorAPISource.Topics.documents);
-        if (documents != null && documents.isJsonArray() && documents.getAsJsonArray().size()>0) {
-          // Note that the input for SessionPhotoURL is the entity ID. We simply ignore the original
-          // photo URL, because that will be processed by an offline cron script, resizing the
-          // photos and saving them to a known location with the entity ID as its base name.
-          set(origin, InputJsonKeys.VendorAPISource.Topics.id, dest, OutputJsonKeys.Sessions.photoUrl, Converters.SESSION_PHOTO_URL);
-        }
+  /**
+   * @return the session extracted from the given topic, or null if the topic is not a session
+   */
+  private JsonObject extractSession(JsonObject origin) {
+    if (isVideoSession(origin)) {
+      // Sessions with the Video tag are processed as video library content
+      return null;
+    }
+    if (isHiddenSession(origin)) {
+      // Sessions with a "Hidden from schedule" flag should be ignored
+      return null;
+    }
+    JsonElement title = get(origin, InputJsonKeys.VendorAPISource.Topics.title);
+    // Since the CMS returns an empty keynote as a session, we need to ignore it
+    if (title != null && title.isJsonPrimitive() && "keynote".equalsIgnoreCase(title.getAsString())) {
+      return null;
+    }
+    JsonObject dest = new JsonObject();
 
-        setVideoPropertiesInSession(origin, dest);
-        setRelatedContent(origin, dest);
+    // Some sessions require a special ID, so we replace it here...
+    if (title != null && title.isJsonPrimitive() && "after hours".equalsIgnoreCase(title.getAsString())) {
+      set(new JsonPrimitive("__afterhours__"), dest, OutputJsonKeys.Sessions.id);
+    } else {
+      set(origin, InputJsonKeys.VendorAPISource.Topics.id, dest, OutputJsonKeys.Sessions.id);
+    }
+    set(origin, InputJsonKeys.VendorAPISource.Topics.id, dest, OutputJsonKeys.Sessions.url, Converters.SESSION_URL);
+    set(origin, InputJsonKeys.VendorAPISource.Topics.title, dest, OutputJsonKeys.Sessions.title, obfuscate?Converters.OBFUSCATE:null);
+    set(origin, InputJsonKeys.VendorAPISource.Topics.description, dest, OutputJsonKeys.Sessions.description, obfuscate?Converters.OBFUSCATE:null);
+    set(origin, InputJsonKeys.VendorAPISource.Topics.start, dest, OutputJsonKeys.Sessions.startTimestamp, Converters.DATETIME);
+    set(origin, InputJsonKeys.VendorAPISource.Topics.finish, dest, OutputJsonKeys.Sessions.endTimestamp, Converters.DATETIME);
+    set(new JsonPrimitive(isFeatured(origin)), dest, OutputJsonKeys.Sessions.isFeatured);
+
+    JsonElement documents = get(origin, InputJsonKeys.VendorAPISource.Topics.documents);
+    if (documents != null && documents.isJsonArray() && documents.getAsJsonArray().size()>0) {
+      // Note that the input for SessionPhotoURL is the entity ID. We simply ignore the original
+      // photo URL, because that will be processed by an offline cron script, resizing the
+      // photos and saving them to a known location with the entity ID as its base name.
+      set(origin, InputJsonKeys.VendorAPISource.Topics.id, dest, OutputJsonKeys.Sessions.photoUrl, Converters.SESSION_PHOTO_URL);
+    }
 
-        JsonElement mainTag = null;
-        JsonElement hashtag = null;
-        JsonElement mainTagColor = null;
-        JsonArray categories= origin.getAsJsonArray(InputJsonKeys.VendorAPISource.Topics.categoryids.name());
-        JsonArray tags = new JsonArray();
-        for (JsonElement category: categories) {
-          JsonObject tag = categoryToTagMap.get(category.getAsString());
-          if (tag != null) {
-            JsonElement tagName = get(tag, OutputJsonKeys.Tags.tag);
-            tags.add(tagName);
-            usedTags.add(tagName.getAsString());
-
-            if (mainTag == null) {
-              // check if the tag is from a "default" category. For example, if THEME is the default
-              // category, all sessions will have a "mainTag" property set to the first tag of type THEME
-              JsonElement tagCategory = get(tag, OutputJsonKeys.Tags.category); // THEME, TYPE or TOPIC
-              if (tagCategory.equals(mainCategory)) {
-                mainTag = tagName;
-                mainTagColor = get(tag, OutputJsonKeys.Tags.color);
-              }
-              if (hashtag == null && isHashtag(tag)) {
-                hashtag = get(tag, OutputJsonKeys.Tags.hashtag);
-                if (hashtag == null || hashtag.getAsString() == null || hashtag.getAsString().isEmpty()) {
-                  // If no hashtag set in the tagsconf file, we will convert the tagname to find one:
-                  hashtag = new JsonPrimitive(get(tag, OutputJsonKeys.Tags.name, Converters.TAG_NAME)
-                          .getAsString().toLowerCase());
-                }
-              }
+    setVideoPropertiesInSession(origin, dest);
+    setRelatedContent(origin, dest);
+
+    JsonElement mainTag = null;
+    JsonElement hashtag = null;
+    JsonElement mainTagColor = null;
+    JsonArray categories= origin.getAsJsonArray(InputJsonKeys.VendorAPISource.Topics.categoryids.name());
+    JsonArray tags = new JsonArray();
+    for (JsonElement category: categories) {
+      JsonObject tag = categoryToTagMap.get(category.getAsString());
+      if (tag != null) {
+        JsonElement tagName = get(tag, OutputJsonKeys.Tags.tag);
+        tags.add(tagName);
+        usedTags.add(tagName.getAsString());
+
+        if (mainTag == null) {
+          // check if the tag is from a "default" category. For example, if THEME is the default
+          // category, all sessions will have a "mainTag" property set to the first tag of type THEME
+          JsonElement tagCategory = get(tag, OutputJsonKeys.Tags.category); // THEME, TYPE or TOPIC
+          if (tagCategory.equals(mainCategory)) {
+            mainTag = tagName;
+            mainTagColor = get(tag, OutputJsonKeys.Tags.color);
+          }
+          if (hashtag == null && isHashtag(tag)) {
+            hashtag = get(tag, OutputJsonKeys.Tags.hashtag);
+            if (hashtag == null || hashtag.getAsString() == null || hashtag.getAsString().isEmpty()) {
+              // If no hashtag set in the tagsconf file, we will convert the tagname to find one:
+              hashtag = new JsonPrimitive(get(tag, OutputJsonKeys.Tags.name, Converters.TAG_NAME)
+                      .getAsString().toLowerCase());
             }
           }
         }
-        set(tags, dest, OutputJsonKeys.Sessions.tags);
-        if (mainTag != null) {
-          set(mainTag, dest, OutputJsonKeys.Sessions.mainTag);
-        }
-        if (mainTagColor != null) {
-          set(mainTagColor, dest, OutputJsonKeys.Sessions.color);
-        }
-        if (hashtag != null) {
-          set(hashtag, dest, OutputJsonKeys.Sessions.hashtag);
-        }
+      }
+    }
+    set(tags, dest, OutputJsonKeys.Sessions.tags);
+    if (mainTag != null) {
+      set(mainTag, dest, OutputJsonKeys.Sessions.mainTag);
+    }
+    if (mainTagColor != null) {
+      set(mainTagColor, dest, OutputJsonKeys.Sessions.color);
+    }
+    if (hashtag != null) {
+      set(hashtag, dest, OutputJsonKeys.Sessions.hashtag);
+    }
 
-        JsonArray speakers = getAsArray(origin, InputJsonKeys.VendorAPISource.Topics.speakerids);
-        if (speakers != null) for (JsonElement speaker: speakers) {
-            String speakerId = speaker.getAsString();
-            usedSpeakers.add(speakerId);
-        }
-        set(speakers, dest, OutputJsonKeys.Sessions.speakers);
-
-        JsonArray sessions= origin.getAsJsonArray(InputJsonKeys.VendorAPISource.Topics.sessions.name());
-        if (sessions != null && sessions.size()>0) {
-          String roomId = get(sessions.get(0).getAsJsonObject(), InputJsonKeys.VendorAPISource.Sessions.roomid).getAsString();
-          roomId = Config.ROOM_MAPPING.getRoomId(roomId);
-          set(new JsonPrimitive(roomId), dest, OutputJsonKeys.Sessions.room);
-
-          // captions URL is set based on the session room, so keep it here.
-          String captionsURL = Config.ROOM_MAPPING.getCaptions(roomId);
-          if (captionsURL != null) {
-            set(new JsonPrimitive(captionsURL), dest, OutputJsonKeys.Sessions.captionsUrl);
-          }
-        }
+    JsonArray speakers = getAsArray(origin, InputJsonKeys.VendorAPISource.Topics.speakerids);
+    if (speakers != null) for (JsonElement speaker: speakers) {
+        String speakerId = speaker.getAsString();
+        usedSpeakers.add(speakerId);
+    }
+    set(speakers, dest, OutputJsonKeys.Sessions.speakers);
+
+    JsonArray sessions= origin.getAsJsonArray(InputJsonKeys.VendorAPISource.Topics.sessions.name());
+    if (sessions != null && sessions.size()>0) {
+      String roomId = get(sessions.get(0).getAsJsonObject(), InputJsonKeys.VendorAPISource.Sessions.roomid).getAsString();
+      roomId = Config.ROOM_MAPPING.getRoomId(roomId);
+      set(new JsonPrimitive(roomId), dest, OutputJsonKeys.Sessions.room);
+
+      // captions URL is set based on the session room, so keep it here.
+      String captionsURL = Config.ROOM_MAPPING.getCaptions(roomId);
+      if (captionsURL != null) {
+        set(new JsonPrimitive(captionsURL), dest, OutputJsonKeys.Sessions.captionsUrl);
+      }
+    }
 
-        if (Config.DEBUG_FIX_DATA) {
-          DebugDataExtractorHelper.changeSession(dest, usedTags);
+    if (Config.DEBUG_FIX_DATA) {
+      DebugDataExtractorHelper.changeSession(dest, usedTags);
+    }
+    return dest;
+  }
+
+  public JsonArray extractVideoSessions(JsonDataSources sources) {
+    videoSessionsById = new HashMap<String, JsonObject>();
+    checkVideoSessionsPrerequisites();
+    JsonArray result = new JsonArray();
+    JsonDataSource source = sources.getSource(InputJsonKeys.VendorAPISource.MainTypes.topics.name());
+    if (source != null) {
+      for (JsonObject origin: source) {
+        JsonObject dest = extractVideoSession(origin);
+        if (dest != null) {
+          result.add(dest);
         }
-        result.add(dest);
       }
     }
     return result;
   }
 
-  public JsonArray extractVideoSessions(JsonDataSources sources) {
-    videoSessionsById = new HashMap<String, JsonObject>();
+  private void checkVideoSessionsPrerequisites() {
     if (categoryToTagMap == null) {
       throw new IllegalStateException("You need to extract tags before attempting to extract video sessions");
     }
     if (speakersById == null) {
       throw new IllegalStateException("You need to extract speakers before attempting to extract video sessions");
     }
+  }
 
-    JsonArray result = new JsonArray();
-    JsonDataSource source = sources.getSource(InputJsonKeys.VendorAPISource.MainTypes.topics.name());
-    if (source != null) {
-      for (JsonObject origin: source) {
-
-        if (!isVideoSession(origin)) {
-          continue;
-        }
-        if (isHiddenSession(origin)) {
-          // Sessions with a "Hidden from schedule" flag should be ignored
-          continue;
-        }
+  /**
+   * @return the video extracted from the given topic, or null if the topic is not a video
+   */
+  private JsonObject extractVideoSession(JsonObject origin) {
+    if (!isVideoSession(origin)) {
+      return null;
+    }
+    if (isHiddenSession(origin)) {
+      // Sessions with a "Hidden from schedule" flag should be ignored
+      return null;
+    }
 
-        JsonObject dest = new JsonObject();
+    JsonObject dest = new JsonObject();
 
-        JsonPrimitive vid = setVideoForVideoSession(origin, dest);
+    JsonPrimitive vid = setVideoForVideoSession(origin, dest);
 
-        JsonElement id = get(origin, InputJsonKeys.VendorAPISource.Topics.id);
-        // video library id must be the Youtube video id
-        set(vid, dest, OutputJsonKeys.VideoLibrary.id);
-        set(origin, InputJsonKeys.VendorAPISource.Topics.title, dest, OutputJsonKeys.VideoLibrary.title, obfuscate?Converters.OBFUSCATE:null);
-        set(origin, InputJsonKeys.VendorAPISource.Topics.description, dest, OutputJsonKeys.VideoLibrary.desc, obfuscate?Converters.OBFUSCATE:null);
-        set(new JsonPrimitive(Config.CONFERENCE_YEAR), dest, OutputJsonKeys.VideoLibrary.year);
+    JsonElement id = get(origin, InputJsonKeys.VendorAPISource.Topics.id);
+    // video library id must be the Youtube video id
+    set(vid, dest, OutputJsonKeys.VideoLibrary.id);
+    set(origin, InputJsonKeys.VendorAPISource.Topics.title, dest, OutputJsonKeys.VideoLibrary.title, obfuscate?Converters.OBFUSCATE:null);
+    set(origin, InputJsonKeys.VendorAPISource.Topics.description, dest, OutputJsonKeys.VideoLibrary.desc, obfuscate?Converters.OBFUSCATE:null);
+    set(new JsonPrimitive(Config.CONFERENCE_YEAR), dest, OutputJsonKeys.VideoLibrary.year);
 
 
-        JsonElement videoTopic = null;
-        JsonArray categories= origin.getAsJsonArray(InputJsonKeys.VendorAPISource.Topics.categoryids.name());
-        for (JsonElement category: categories) {
-          JsonObject tag = categoryToTagMap.get(category.getAsString());
-          if (tag != null) {
-            if (isHashtag(tag)) {
-              videoTopic = get(tag, OutputJsonKeys.Tags.name);
-              // by definition, the first tag that can be a hashtag (usually a TOPIC) is considered the video tag
-              break;
-            }
-          }
-        }
-        if (videoTopic != null) {
-          set(videoTopic, dest, OutputJsonKeys.VideoLibrary.topic);
+    JsonElement videoTopic = null;
+    JsonArray categories= origin.getAsJsonArray(InputJsonKeys.VendorAPISource.Topics.categoryids.name());
+    for (JsonElement category: categories) {
+      JsonObject tag = categoryToTagMap.get(category.getAsString());
+      if (tag != null) {
+        if (isHashtag(tag)) {
+          videoTopic = get(tag, OutputJsonKeys.Tags.name);
+          // by definition, the first tag that can be a hashtag (usually a TOPIC) is considered the video tag
+          break;
         }
+      }
+    }
+    if (videoTopic != null) {
+      set(videoTopic, dest, OutputJsonKeys.VideoLibrary.topic);
+    }
 
-        // Concatenate speakers:
-        JsonArray speakers = getAsArray(origin, InputJsonKeys.VendorAPISource.Topics.speakerids);
-        StringBuilder sb = new StringBuilder();
-        if (speakers != null) for (int i=0; i<speakers.size(); i++) {
-          String speakerId = speakers.get(i).getAsString();
-          usedSpeakers.add(speakerId);
-          JsonObject speaker = speakersById.get(speakerId);
-          if (speaker != null) {
-            sb.append(get(speaker, OutputJsonKeys.Speakers.name).getAsString());
-            if (i<speakers.size()-1) sb.append(", ");
-          }
-        }
-        set(new JsonPrimitive(sb.toString()), dest, OutputJsonKeys.VideoLibrary.speakers);
-        videoSessionsById.put(id.getAsString(), dest);
-        result.add(dest);
+    // Concatenate speakers:
+    JsonArray speakers = getAsArray(origin, InputJsonKeys.VendorAPISource.Topics.speakerids);
+    StringBuilder sb = new StringBuilder();
+    if (speakers != null) for (int i=0; i<speakers.size(); i++) {
+      String speakerId = speakers.get(i).getAsString();
+      usedSpeakers.add(speakerId);
+      JsonObject speaker = speakersById.get(speakerId);
+      if (speaker != null) {
+        sb.append(get(speaker, OutputJsonKeys.Speakers.name).getAsString());
+        if (i<speakers.size()-1) sb.append(", ");
       }
     }
-    return result;
+    set(new JsonPrimitive(sb.toString()), dest, OutputJsonKeys.VideoLibrary.speakers);
+    videoSessionsById.put(id.getAsString(), dest);
+    return dest;
   }
 
   private boolean isVideoSession(JsonObject sessionObj) {
@@ -15,6 +15,7 @@
  */
 package com.meetingcpp.sched.server.schedule.server;
 
+import com.google.appengine.api.ThreadManager;
 import com.google.appengine.api.datastore.Entity;
 import com.google.appengine.api.datastore.ShortBlob;
 import com.google.appengine.api.mail.MailService.Message;
@@ -32,9 +33,12 @@ import com.meetingcpp.sched.server.schedule.input.fetcher.RemoteFilesEntityFetch
 import com.meetingcpp.sched.server.schedule.model.DataCheck;
 import com.meetingcpp.sched.server.schedule.model.DataCheck.CheckFailure;
 import com.meetingcpp.sched.server.schedule.model.DataCheck.CheckResult;
+import com.meetingcpp.sched.server.schedule.model.DataDelta;
 import com.meetingcpp.sched.server.schedule.model.DataExtractor;
 import com.meetingcpp.sched.server.schedule.model.JsonDataSources;
 import com.meetingcpp.sched.server.schedule.server.cloudstorage.CloudFileManager;
+import com.meetingcpp.sched.server.schedule.server.cloudstorage.HashedJsonBuffer;
+import com.meetingcpp.sched.server.schedule.server.input.DataSourceInput;
 import com.meetingcpp.sched.server.schedule.server.input.ExtraInput;
 import com.meetingcpp.sched.server.schedule.server.input.VendorStaticInput;
 import com.meetingcpp.sched.server.schedule.server.input.fetcher.CloudStorageRemoteFilesEntityFetcher;
@@ -77,20 +81,26 @@ public class APIUpdater {
     CloudFileManager fileManager = new CloudFileManager();
 
     logger.startTimer();
-    JsonDataSources sources = new ExtraInput().fetchAllDataSources();
+    ExtraInput extraInput = new ExtraInput();
+    setupConcurrentFetch(extraInput, logger);
+    JsonDataSources sources = extraInput.fetchAllDataSources();
     logger.stopTimer("fetchExtraAPI");
 
     logger.startTimer();
-    sources.putAll(new VendorStaticInput().fetchAllDataSources());
+    VendorStaticInput vendorInput = new VendorStaticInput();
+    setupConcurrentFetch(vendorInput, logger);
+    sources.putAll(vendorInput.fetchAllDataSources());
     logger.stopTimer("fetchVendorStaticAPI");
 
+    // Extract straight into the serialized form: the same bytes are hashed now and uploaded
+    // later, if they changed. No-op runs never build the data tree. Runs with changes still
+    // parse it back, because the delta, DataCheck and the run log work on the tree.
     logger.startTimer();
-    JsonObject newData = new DataExtractor(obfuscate).extractFromDataSources(sources);
-    logger.stopTimer("extractOurData");
-
-    logger.startTimer();
-    byte[] newHash = CloudFileManager.calulateHash(newData);
-    logger.stopTimer("calculateHash");
+    HashedJsonBuffer serializedData = new HashedJsonBuffer();
+    JsonWriter dataWriter = serializedData.beginWrite();
+    new DataExtractor(obfuscate).extractFromDataSources(sources, dataWriter);
+    byte[] newHash = serializedData.endWrite(dataWriter).getHash();
+    logger.stopTimer("extractAndHashOurData");
 
     // compare current Vendor API log with the one from previous run:
     logger.startTimer();
@@ -100,6 +110,10 @@ public class APIUpdater {
     }
     logger.stopTimer("compareHash");
 
+    logger.startTimer();
+    JsonObject newData = serializedData.parse().getAsJsonObject();
+    logger.stopTimer("parseOurData");
+
     logger.startTimer();
     ManifestData dataProduction = extractManifestData(fileManager.readProductionManifest(), null);
     //ManifestData dataStaging = extractManifestData(fileManager.readStagingManifest(), dataProduction);
@@ -119,10 +133,21 @@ public class APIUpdater {
       optionalOutputWriter.flush();
     } else {
       // save data to the CloudStorage
-      fileManager.createOrUpdate(dataProduction.sessionsFilename, newData, false);
+      fileManager.createOrUpdate(dataProduction.sessionsFilename, serializedData, false);
     }
     logger.stopTimer("uploadNewSessionsFile");
 
+    // The bytes are no longer needed: let them be collected before the previous version is
+    // read for the delta, so that the buffer and both trees are never held at once.
+    serializedData = null;
+
+    JsonObject deltaReference = null;
+    if (optionalOutput == null) {
+      logger.startTimer();
+      deltaReference = uploadDeltaFromPreviousVersion(fileManager, dataProduction, newData);
+      logger.stopTimer("uploadDeltaFile");
+    }
+
     // Check data consistency
     logger.startTimer();
     DataCheck checker = new DataCheck(fileManager);
@@ -141,6 +166,11 @@ public class APIUpdater {
       JsonObject newProductionManifest = new JsonObject();
       newProductionManifest.add("format", new JsonPrimitive(Config.MANIFEST_FORMAT_VERSION));
       newProductionManifest.add("data_files", dataProduction.dataFiles);
+      if (deltaReference != null) {
+        JsonArray deltas = new JsonArray();
+        deltas.add(deltaReference);
+        newProductionManifest.add("deltas", deltas);
+      }
 
       JsonObject newStagingManifest = new JsonObject();
       newStagingManifest.add("format", new JsonPrimitive(Config.MANIFEST_FORMAT_VERSION));
@@ -165,6 +195,52 @@ public class APIUpdater {
 
   }
 
+  /**
+   * Publishes the changes between the previous sessions file and the new one, so that clients
+   * that have the previous version don't need to download the full file.
+   *
+   * @return the manifest entry that references the delta file, or null if no delta
+   *     could be created
+   */
+  private JsonObject uploadDeltaFromPreviousVersion(CloudFileManager fileManager,
+      ManifestData manifest, JsonObject newData) throws IOException {
+    if (manifest.previousSessionsFilename == null) {
+      return null;
+    }
+    Matcher matcher = Config.SESSIONS_PATTERN.matcher(manifest.previousSessionsFilename);
+    if (!matcher.matches()) {
+      return null;
+    }
+    JsonObject previousData = fileManager.readFileAsJsonObject(manifest.previousSessionsFilename);
+    if (previousData == null) {
+      return null;
+    }
+    JsonObject delta = DataDelta.compute(previousData, newData,
+        manifest.previousSessionsFilename, manifest.sessionsFilename);
+    if (delta == null) {
+      Logger.getLogger(APIUpdater.class.getName()).warning("Could not create a delta from "
+          + manifest.previousSessionsFilename + ", clients will download the full file.");
+      return null;
+    }
+    String deltaFilename = MessageFormat.format(Config.SESSIONS_DELTA_FORMAT,
+        manifest.majorVersion, Integer.parseInt(matcher.group(2)), manifest.minorVersion);
+    fileManager.createOrUpdate(deltaFilename, delta, false);
+
+    JsonObject reference = new JsonObject();
+    reference.add(DataDelta.KEY_BASE, new JsonPrimitive(manifest.previousSessionsFilename));
+    reference.add(DataDelta.KEY_TARGET, new JsonPrimitive(manifest.sessionsFilename));
+    reference.add("file", new JsonPrimitive(deltaFilename));
+    return reference;
+  }
+
+  private void setupConcurrentFetch(DataSourceInput<?> input, UpdateRunLogger logger) {
+    input.setConcurrency(Config.FETCH_CONCURRENCY);
+    input.setFetchTimeout(Config.FETCH_TIMEOUT_MILLIS);
+    // Threads started by a request must be created by the request thread factory on AppEngine.
+    input.setThreadFactory(ThreadManager.currentRequestThreadFactory());
+    input.setRunLogger(logger);
+  }
+
   private void reportDataCheckFailures(CheckResult result, OutputStream optionalOutput) throws IOException {
     StringBuilder errorMessage = new StringBuilder();
     errorMessage.append(
@@ -226,6 +302,7 @@ public class APIUpdater {
             if (copyFrom == null) {
               data.majorVersion = Integer.parseInt(matcher.group(1));
               data.minorVersion = Integer.parseInt(matcher.group(2));
+              data.previousSessionsFilename = filename;
             }
           } else {
             data.dataFiles.add(file);
@@ -26,6 +26,8 @@ public class ManifestData {
   public int minorVersion;
   public int majorVersion;
   public String sessionsFilename;
+  // sessions file of the manifest that is being replaced, if any
+  public String previousSessionsFilename;
   public JsonArray dataFiles;
 
   public void setFromDataFiles(JsonArray files) {
@@ -54,7 +54,15 @@ public class UpdateRunLogger {
   }
 
   public void stopTimer(String description) {
-    timers.put((timers.size()+1)+"_"+description, System.currentTimeMillis() - lastStart);
+    addTimer(description, System.currentTimeMillis() - lastStart);
+  }
+
+  /**
+   * Records a timing that was measured elsewhere, like the individual fetches
+   * of a {@link com.meetingcpp.sched.server.schedule.server.input.DataSourceInput}.
+   */
+  public void addTimer(String description, long elapsedMillis) {
+    timers.put((timers.size()+1)+"_"+description, elapsedMillis);
   }
 
   public Entity getLastRun() {
@@ -26,7 +26,6 @@ import com.google.appengine.tools.cloudstorage.GcsOutputChannel;
 import com.google.appengine.tools.cloudstorage.GcsService;
 import com.google.appengine.tools.cloudstorage.GcsServiceFactory;
 import com.google.appengine.tools.cloudstorage.RetryParams;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -34,14 +33,7 @@ import com.meetingcpp.sched.server.schedule.Config;
 import com.meetingcpp.sched.server.schedule.input.fetcher.RemoteJsonHelper;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.nio.channels.Channels;
-import java.nio.charset.Charset;
-import java.security.DigestOutputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.logging.Logger;
 
 /**
@@ -67,21 +59,7 @@ public class CloudFileManager {
   }
 
   static public byte[] calulateHash(JsonElement contents) {
-    MessageDigest md;
-    try {
-      md = MessageDigest.getInstance("MD5");
-    } catch (NoSuchAlgorithmException e) {
-      throw new InternalError("MD5 MessageDigest is not available");
-    }
-    OutputStream byteSink = new OutputStream() {
-      @Override
-      public void write(int b) throws IOException {
-        // ignore, since this is only used to calculate MD5
-      }
-    };
-    DigestOutputStream dis = new DigestOutputStream(byteSink, md);
-    new Gson().toJson(contents, new OutputStreamWriter(dis, Charset.forName(DEFAULT_CHARSET_NAME)));
-    return dis.getMessageDigest().digest();
+    return new HashedJsonBuffer().write(contents).getHash();
   }
 
   /**
@@ -94,6 +72,20 @@ public class CloudFileManager {
    */
   public void createOrUpdate(String filename, JsonElement contents, boolean shortCache)
       throws IOException {
+    createOrUpdate(filename, new HashedJsonBuffer().write(contents), shortCache);
+  }
+
+  /**
+   * Create or update a file in a GCC bucket with contents that have already been serialized,
+   * using the default ACL for the bucket.
+   *
+   * @param filename Name of file to create
+   * @param contents Serialized file contents
+   * @param shortCache If true, sets cache expiry to 0 sec. Otherwise, cache expiry is set to 6,000 sec.
+   * @throws IOException
+   */
+  public void createOrUpdate(String filename, HashedJsonBuffer contents, boolean shortCache)
+      throws IOException {
     GcsFilename file = new GcsFilename(defaultBucket, filename);
     GcsFileOptions options = new GcsFileOptions.Builder()
       .mimeType("application/json")
@@ -102,9 +94,7 @@ public class CloudFileManager {
     GcsOutputChannel writeChannel = null;
     try {
       writeChannel = gcsService.createOrReplace(file, options);
-      Writer writer = Channels.newWriter(writeChannel, DEFAULT_CHARSET_NAME);
-      new Gson().toJson(contents, writer);
-      writer.flush();
+      contents.writeTo(writeChannel);
     } finally {
       if (writeChannel != null) {
         writeChannel.close();
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.server.schedule.server.cloudstorage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Holds the UTF-8 serialization of a JSON element together with the MD5 hash of those same
+ * bytes, so that a file can be hashed and uploaded without serializing it twice.
+ *
+ * The buffer can be reused for several elements; each call to {@link #write(JsonElement)}
+ * replaces the previous contents.
+ */
+public class HashedJsonBuffer {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int DEFAULT_CAPACITY = 64 * 1024;
+
+  private final ExposedByteArrayOutputStream buffer;
+  private final MessageDigest md;
+  private byte[] hash;
+
+  public HashedJsonBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public HashedJsonBuffer(int initialCapacity) {
+    buffer = new ExposedByteArrayOutputStream(initialCapacity);
+    try {
+      md = MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new InternalError("MD5 MessageDigest is not available");
+    }
+  }
+
+  /**
+   * Serializes the element into this buffer, computing its hash on the way.
+   */
+  public HashedJsonBuffer write(JsonElement contents) {
+    JsonWriter writer = beginWrite();
+    new Gson().toJson(contents, writer);
+    try {
+      return endWrite(writer);
+    } catch (IOException e) {
+      // cannot happen when writing to memory
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * Discards the current contents and returns a writer for the new ones. The writer is set up
+   * like the ones Gson uses by default, so the bytes are the same as {@link #write(JsonElement)}
+   * would produce for the equivalent tree. Call {@link #endWrite(JsonWriter)} when done.
+   */
+  public JsonWriter beginWrite() {
+    buffer.reset();
+    md.reset();
+    hash = null;
+    JsonWriter writer = new JsonWriter(
+        new OutputStreamWriter(new DigestOutputStream(buffer, md), UTF8));
+    writer.setHtmlSafe(true);
+    writer.setSerializeNulls(false);
+    return writer;
+  }
+
+  /**
+   * Flushes the writer returned by {@link #beginWrite()} and computes the hash of its output.
+   */
+  public HashedJsonBuffer endWrite(JsonWriter writer) throws IOException {
+    writer.flush();
+    hash = md.digest();
+    return this;
+  }
+
+  /**
+   * Parses the contents of the buffer back into a tree.
+   */
+  public JsonElement parse() {
+    return new JsonParser().parse(new InputStreamReader(
+        new ByteArrayInputStream(buffer.array(), 0, buffer.size()), UTF8));
+  }
+
+  /**
+   * @return the MD5 hash of the bytes currently in the buffer
+   */
+  public byte[] getHash() {
+    return hash;
+  }
+
+  public int size() {
+    return buffer.size();
+  }
+
+  public void writeTo(OutputStream out) throws IOException {
+    buffer.writeTo(out);
+  }
+
+  public void writeTo(WritableByteChannel channel) throws IOException {
+    ByteBuffer bytes = ByteBuffer.wrap(buffer.array(), 0, buffer.size());
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
+
+  private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+    ExposedByteArrayOutputStream(int size) {
+      super(size);
+    }
+
+    byte[] array() {
+      return buf;
+    }
+  }
+}
@@ -22,8 +22,19 @@ import com.meetingcpp.sched.server.schedule.input.fetcher.EntityFetcher;
 import com.meetingcpp.sched.server.schedule.input.fetcher.VendorAPIEntityFetcher;
 import com.meetingcpp.sched.server.schedule.model.JsonDataSource;
 import com.meetingcpp.sched.server.schedule.model.JsonDataSources;
+import com.meetingcpp.sched.server.schedule.server.UpdateRunLogger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,6 +50,13 @@ public abstract class DataSourceInput<EnumType extends Enum<EnumType>> {
 
   private EntityFetcher fetcher;
 
+  private int concurrency = 1;
+  private long fetchTimeoutMillis = 0;
+  private ThreadFactory threadFactory = Executors.defaultThreadFactory();
+  private UpdateRunLogger runLogger;
+  // The pool of the outermost runConcurrently call in progress, shared by the nested ones
+  private volatile ExecutorService executor;
+
   public DataSourceInput(EntityFetcher fetcher) {
     this.fetcher = fetcher;
   }
@@ -51,18 +69,171 @@ public abstract class DataSourceInput<EnumType extends Enum<EnumType>> {
     this.fetcher = fetcher;
   }
 
+  /**
+   * Sets how many fetches (entity types in {@link #fetchAllDataSources()}, and pages of an
+   * entity type in subclasses that support paging) run at the same time. The limit applies to
+   * all of them together. A value of 1 (the default) fetches them serially on the calling
+   * thread.
+   */
+  public void setConcurrency(int concurrency) {
+    this.concurrency = Math.max(1, concurrency);
+  }
+
+  /**
+   * Sets the maximum time to wait for each fetch when fetching concurrently.
+   * Zero or negative values mean no timeout.
+   */
+  public void setFetchTimeout(long timeoutMillis) {
+    this.fetchTimeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Sets the factory for the fetching threads. On AppEngine, this must be
+   * a request thread factory (see {@code ThreadManager.currentRequestThreadFactory()}).
+   */
+  public void setThreadFactory(ThreadFactory threadFactory) {
+    this.threadFactory = threadFactory;
+  }
+
+  /**
+   * If set, the time taken by each entity type fetch is recorded in the given logger.
+   */
+  public void setRunLogger(UpdateRunLogger runLogger) {
+    this.runLogger = runLogger;
+  }
+
   public JsonDataSources fetchAllDataSources() throws IOException {
+    EnumType[] types = getType().getEnumConstants();
+    List<TimedFetch> fetches = new ArrayList<TimedFetch>(types.length);
+    for (EnumType type: types) {
+      fetches.add(new TimedFetch(type));
+    }
+
+    runConcurrently(fetches);
+
+    // Results are always collected in enum order, regardless of which fetch finished first,
+    // so that the resulting sources (and the timers) are the same as in a serial run.
     JsonDataSources sources = new JsonDataSources();
-    for (EnumType type: getType().getEnumConstants()) {
-      JsonArray data = fetch(type);
+    for (TimedFetch fetch: fetches) {
       if (LOG.isLoggable(Level.INFO)) {
-        LOG.info("result for "+type+": entities="+data.size());
+        LOG.info("result for "+fetch.type+": entities="+
+            (fetch.data == null ? 0 : fetch.data.size())+" in "+fetch.elapsedMillis+"ms");
       }
-      sources.addSource(new JsonDataSource(type, data));
+      if (runLogger != null) {
+        runLogger.addTimer("fetch_"+fetch.type, fetch.elapsedMillis);
+      }
+      sources.addSource(new JsonDataSource(fetch.type, fetch.data));
     }
     return sources;
   }
 
+  /**
+   * Runs the given tasks on at most {@link #setConcurrency(int) concurrency} threads, waiting
+   * for each of them at most the {@link #setFetchTimeout(long) fetch timeout}, and returns the
+   * results in the same order as the tasks. Tasks are run serially on the calling thread
+   * if concurrency is 1 or there is a single task.
+   *
+   * Calls made from one of the tasks share the pool of the outermost call, so the concurrency
+   * is a limit for all the fetches together. A nested call runs the tasks that no thread of the
+   * pool has started on its own thread, which is one of the pool's, instead of waiting for them
+   * while holding that thread.
+   */
+  protected <T> List<T> runConcurrently(List<? extends Callable<T>> tasks) throws IOException {
+    List<T> results = new ArrayList<T>(tasks.size());
+    if (concurrency <= 1 || tasks.size() <= 1) {
+      for (Callable<T> task: tasks) {
+        try {
+          results.add(task.call());
+        } catch (IOException e) {
+          throw e;
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new IOException("Error while fetching "+task, e);
+        }
+      }
+      return results;
+    }
+
+    ExecutorService pool = executor;
+    boolean nested = pool != null;
+    if (!nested) {
+      pool = Executors.newFixedThreadPool(concurrency, threadFactory);
+      executor = pool;
+    }
+    try {
+      List<FutureTask<T>> futures = new ArrayList<FutureTask<T>>(tasks.size());
+      for (Callable<T> task: tasks) {
+        FutureTask<T> future = new FutureTask<T>(task);
+        futures.add(future);
+        pool.execute(future);
+      }
+      if (nested) {
+        // Does nothing for the tasks that a thread of the pool has already started
+        for (FutureTask<T> future: futures) {
+          future.run();
+        }
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          if (fetchTimeoutMillis > 0) {
+            results.add(futures.get(i).get(fetchTimeoutMillis, TimeUnit.MILLISECONDS));
+          } else {
+            results.add(futures.get(i).get());
+          }
+        } catch (TimeoutException e) {
+          throw new IOException("Timeout after "+fetchTimeoutMillis+"ms while fetching "
+              +tasks.get(i)+". Entity fetcher is "+getFetcher(), e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while fetching "+tasks.get(i), e);
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException) cause;
+          } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IOException("Error while fetching "+tasks.get(i), cause);
+        }
+      }
+    } finally {
+      if (!nested) {
+        executor = null;
+        pool.shutdownNow();
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Fetches a single entity type and keeps the result and how long it took.
+   */
+  private class TimedFetch implements Callable<JsonArray> {
+    final EnumType type;
+    JsonArray data;
+    long elapsedMillis;
+
+    TimedFetch(EnumType type) {
+      this.type = type;
+    }
+
+    @Override
+    public JsonArray call() throws IOException {
+      long start = System.currentTimeMillis();
+      data = fetch(type);
+      elapsedMillis = System.currentTimeMillis() - start;
+      return data;
+    }
+
+    @Override
+    public String toString() {
+      return type.toString();
+    }
+  }
+
   public JsonArray fetch(EnumType entityType) throws IOException {
     JsonElement element = getFetcher().fetch(entityType, null);
     if (element == null) {
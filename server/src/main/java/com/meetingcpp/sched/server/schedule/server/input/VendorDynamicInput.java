@@ -25,7 +25,10 @@ import com.meetingcpp.sched.server.schedule.input.fetcher.VendorAPIEntityFetcher
 import com.meetingcpp.sched.server.schedule.model.InputJsonKeys;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Encapsulation of the VendorAPI fetcher.
@@ -58,7 +61,48 @@ public class VendorDynamicInput extends DataSourceInput<InputJsonKeys.VendorAPIS
 
   public JsonArray fetchArray(InputJsonKeys.VendorAPISource.MainTypes entityType,
       int page) throws IOException {
+    if (page == 0) {
+      page = 1;
+    }
+
+    JsonElement element = fetchPage(entityType, page);
+
+    if (element.isJsonArray()) {
+        return element.getAsJsonArray();
+    } else if (element.isJsonObject()) {
+      // check if there are extra pages requiring further fetching
+      JsonObject obj = element.getAsJsonObject();
+      checkPagingConsistency(entityType, page, obj);
+
+      int pageSize = obj.get("pagesize").getAsInt();
+      int totalEntities = obj.get("total").getAsInt();
+      JsonArray elements = getEntities(obj);
+      if (pageSize <= 0 || page*pageSize >= totalEntities) {
+        return elements;
+      }
+
+      // The first page tells how many pages there are, so fetch all the remaining
+      // ones at once and append them in page order.
+      int lastPage = (totalEntities + pageSize - 1) / pageSize;
+      List<PageFetch> pageFetches = new ArrayList<PageFetch>(lastPage - page);
+      for (int nextPage = page + 1; nextPage <= lastPage; nextPage++) {
+        pageFetches.add(new PageFetch(entityType, nextPage));
+      }
+      JsonArray result = new JsonArray();
+      result.addAll(elements);
+      for (JsonArray pageElements: runConcurrently(pageFetches)) {
+        result.addAll(pageElements);
+      }
+      return result;
+    } else {
+      throw new JsonParseException("Invalid response from Vendor API. Request should return "
+          + "either a JsonArray or a JsonObject, but returned "+element.getClass().getName()
+          +". Entity fetcher is "+getFetcher());
+    }
+  }
 
+  private JsonElement fetchPage(InputJsonKeys.VendorAPISource.MainTypes entityType,
+      int page) throws IOException {
     HashMap<String, String> params = null;
 
     if (entityType.equals(InputJsonKeys.VendorAPISource.MainTypes.topics) || entityType.equals(InputJsonKeys.VendorAPISource.MainTypes.speakers)) {
@@ -74,36 +118,44 @@ public class VendorDynamicInput extends DataSourceInput<InputJsonKeys.VendorAPIS
       }
     }
 
-    if (page == 0) {
-      page = 1;
-    } else if (page > 1) {
+    if (page > 1) {
       if (params == null) {
         params = new HashMap<String, String>();
       }
       params.put("page", Integer.toString(page));
     }
 
-    JsonElement element = getFetcher().fetch(entityType, params);
+    return getFetcher().fetch(entityType, params);
+  }
+
+  /**
+   * Fetches one of the pages that follow the first page of a paged result.
+   */
+  private class PageFetch implements Callable<JsonArray> {
+    final InputJsonKeys.VendorAPISource.MainTypes entityType;
+    final int page;
 
-    if (element.isJsonArray()) {
-        return element.getAsJsonArray();
-    } else if (element.isJsonObject()) {
-      // check if there are extra pages requiring further fetching
+    PageFetch(InputJsonKeys.VendorAPISource.MainTypes entityType, int page) {
+      this.entityType = entityType;
+      this.page = page;
+    }
+
+    @Override
+    public JsonArray call() throws IOException {
+      JsonElement element = fetchPage(entityType, page);
+      if (!element.isJsonObject()) {
+        throw new JsonParseException("Invalid response from Vendor API when"
+            + "paging "+entityType+" results. Expected a JsonObject for page "+page
+            +", but got "+element.getClass().getName());
+      }
       JsonObject obj = element.getAsJsonObject();
       checkPagingConsistency(entityType, page, obj);
+      return getEntities(obj);
+    }
 
-      int pageSize = obj.get("pagesize").getAsInt();
-      int totalEntities = obj.get("total").getAsInt();
-      JsonArray elements = getEntities(obj);
-      if (page*pageSize < totalEntities) {
-        // fetch the next page
-        elements.addAll(fetchArray(entityType, page+1));
-      }
-      return elements;
-    } else {
-      throw new JsonParseException("Invalid response from Vendor API. Request should return "
-          + "either a JsonArray or a JsonObject, but returned "+element.getClass().getName()
-          +". Entity fetcher is "+getFetcher());
+    @Override
+    public String toString() {
+      return entityType+" page "+page;
     }
   }
 
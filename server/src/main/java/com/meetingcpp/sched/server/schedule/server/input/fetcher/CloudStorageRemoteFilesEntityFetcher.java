@@ -19,55 +19,48 @@ import com.google.appengine.api.utils.SystemProperty;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.meetingcpp.sched.server.schedule.Config;
-import com.meetingcpp.sched.server.schedule.input.fetcher.EntityFetcher;
+import com.meetingcpp.sched.server.schedule.input.fetcher.ReadOnceFilesEntityFetcher;
 import com.meetingcpp.sched.server.schedule.input.fetcher.RemoteJsonHelper;
 import com.meetingcpp.sched.server.schedule.server.cloudstorage.CloudFileManager;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.logging.Logger;
 
 /**
  * EntityFetcher that fetches entities from a set of files stored in CloudStorage.
  */
-public class CloudStorageRemoteFilesEntityFetcher implements EntityFetcher {
+public class CloudStorageRemoteFilesEntityFetcher extends ReadOnceFilesEntityFetcher {
 
   private static final Logger LOGGER = Logger.getLogger(CloudStorageRemoteFilesEntityFetcher.class.getName());
 
-  private CloudFileManager fileManager;
-  private String[] filenames;
-  private JsonObject object;
+  private final String[] filenames;
 
   public CloudStorageRemoteFilesEntityFetcher(String... filenames) {
-    this.fileManager = new CloudFileManager();
     this.filenames = filenames;
   }
 
   @Override
-  public JsonElement fetch(Enum<?> entityType, Map<String, String> params)
-      throws IOException {
-    // On the first call, read all the files
-    if (object == null) {
-      object = new JsonObject();
-      for (String filename: filenames) {
-        JsonObject obj = fileManager.readFileAsJsonObject(filename);
-        if (obj == null &&
-            SystemProperty.environment.value() == SystemProperty.Environment.Value.Development) {
-          // In the development server, cloud storage files cannot be directly accessed.
-          obj = RemoteJsonHelper.fetchJsonFromPublicURL(Config.CLOUD_STORAGE_BASE_URL + filename);
-        }
-        if (obj == null) {
-          LOGGER.warning("Could not find file "+filename);
-        } else {
-          for (Entry<String, JsonElement> entry: obj.entrySet()) {
-            object.add(entry.getKey(), entry.getValue());
-          }
+  protected JsonObject readFiles() throws IOException {
+    CloudFileManager fileManager = new CloudFileManager();
+    JsonObject object = new JsonObject();
+    for (String filename: filenames) {
+      JsonObject obj = fileManager.readFileAsJsonObject(filename);
+      if (obj == null &&
+          SystemProperty.environment.value() == SystemProperty.Environment.Value.Development) {
+        // In the development server, cloud storage files cannot be directly accessed.
+        obj = RemoteJsonHelper.fetchJsonFromPublicURL(Config.CLOUD_STORAGE_BASE_URL + filename);
+      }
+      if (obj == null) {
+        LOGGER.warning("Could not find file "+filename);
+      } else {
+        for (Entry<String, JsonElement> entry: obj.entrySet()) {
+          object.add(entry.getKey(), entry.getValue());
         }
       }
     }
-    return object.get(entityType.name());
+    return object;
   }
 
   @Override
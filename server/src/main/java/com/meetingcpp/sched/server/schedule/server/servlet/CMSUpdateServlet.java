@@ -15,6 +15,7 @@
  */
 package com.meetingcpp.sched.server.schedule.server.servlet;
 
+import com.google.appengine.api.ThreadManager;
 import com.google.appengine.api.mail.MailService.Message;
 import com.google.appengine.api.mail.MailServiceFactory;
 import com.google.appengine.api.users.UserService;
@@ -92,7 +93,11 @@ public class CMSUpdateServlet extends HttpServlet {
     // everything ok, let's update
     StringBuilder summary = new StringBuilder();
     JsonObject contents = new JsonObject();
-    JsonDataSources sources = new VendorDynamicInput().fetchAllDataSources();
+    VendorDynamicInput vendorInput = new VendorDynamicInput();
+    vendorInput.setConcurrency(Config.FETCH_CONCURRENCY);
+    vendorInput.setFetchTimeout(Config.FETCH_TIMEOUT_MILLIS);
+    vendorInput.setThreadFactory(ThreadManager.currentRequestThreadFactory());
+    JsonDataSources sources = vendorInput.fetchAllDataSources();
     for (String entity: sources) {
       JsonArray array = new JsonArray();
       JsonDataSource source = sources.getSource(entity);
@@ -17,13 +17,17 @@ package com.meetingcpp.sched.server.schedule.input;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonReader;
 import com.meetingcpp.sched.server.schedule.input.fetcher.EntityFetcher;
 import com.meetingcpp.sched.server.schedule.model.InputJsonKeys.VendorAPISource.MainTypes;
+import com.meetingcpp.sched.server.schedule.model.JsonDataSource;
+import com.meetingcpp.sched.server.schedule.model.JsonDataSources;
 import com.meetingcpp.sched.server.schedule.server.input.VendorDynamicInput;
 import com.google.test.TestHelper;
 
@@ -35,6 +39,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class VendorInputTest {
 
@@ -77,6 +82,102 @@ public class VendorInputTest {
   }
 
 
+  @Test
+  public void testFetchPagesConcurrently() throws IOException {
+    final int pageSize = 10;
+    final int total = 95;
+    EntityFetcher pagedFetcher = new EntityFetcher() {
+
+      @Override
+      public JsonElement fetch(Enum<?> entityType, Map<String, String> params) throws IOException {
+        int page = 1;
+        if (params != null && params.get("page") != null) {
+          page = Integer.parseInt(params.get("page"));
+        }
+        JsonArray results = new JsonArray();
+        for (int i = (page-1)*pageSize; i < Math.min(page*pageSize, total); i++) {
+          JsonObject obj = new JsonObject();
+          obj.addProperty("id", Integer.toString(i));
+          results.add(obj);
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("page", page);
+        response.addProperty("pagesize", pageSize);
+        response.addProperty("total", total);
+        response.add("results", results);
+        return response;
+      }
+    };
+
+    VendorDynamicInput api = new VendorDynamicInput(pagedFetcher);
+    api.setConcurrency(4);
+    JsonArray topics = api.fetch(MainTypes.topics);
+
+    assertEquals(total, topics.size());
+    for (int i = 0; i < total; i++) {
+      assertEquals(Integer.toString(i), topics.get(i).getAsJsonObject().get("id").getAsString());
+    }
+  }
+
+  @Test
+  public void testFetchAllDataSourcesBoundsPageFetchesToo() throws IOException {
+    final int concurrency = 3;
+    final int pageSize = 10;
+    final int total = 95;
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    EntityFetcher pagedFetcher = new EntityFetcher() {
+
+      @Override
+      public JsonElement fetch(Enum<?> entityType, Map<String, String> params) throws IOException {
+        int current = inFlight.incrementAndGet();
+        int max;
+        do {
+          max = maxInFlight.get();
+        } while (current > max && !maxInFlight.compareAndSet(max, current));
+        try {
+          Thread.sleep(5);
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        try {
+          int page = 1;
+          if (params != null && params.get("page") != null) {
+            page = Integer.parseInt(params.get("page"));
+          }
+          JsonArray results = new JsonArray();
+          for (int i = (page-1)*pageSize; i < Math.min(page*pageSize, total); i++) {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("id", entityType.name()+i);
+            results.add(obj);
+          }
+          JsonObject response = new JsonObject();
+          response.addProperty("page", page);
+          response.addProperty("pagesize", pageSize);
+          response.addProperty("total", total);
+          response.add("results", results);
+          return response;
+        } finally {
+          inFlight.decrementAndGet();
+        }
+      }
+    };
+
+    VendorDynamicInput api = new VendorDynamicInput(pagedFetcher);
+    api.setConcurrency(concurrency);
+    JsonDataSources sources = api.fetchAllDataSources();
+
+    assertTrue("at most " + concurrency + " fetches at once, but there were " + maxInFlight.get(),
+        maxInFlight.get() <= concurrency);
+    for (MainTypes type: MainTypes.values()) {
+      JsonDataSource source = sources.getSource(type.name());
+      assertEquals(total, source.size());
+      for (int i = 0; i < total; i++) {
+        assertNotNull(source.getElementById(type.name()+i));
+      }
+    }
+  }
+
   /**
    *
    * This is the real remote fetch. Doesn't fit well as a unit test, though, but it's here to
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.server.schedule.input.fetcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReadOnceFilesEntityFetcherTest {
+
+  private enum EntityType { rooms, speakers, topics, categories }
+
+  @Test
+  public void testConcurrentFetchesReadOnce() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountingFetcher fetcher = new CountingFetcher(release, null);
+    ExecutorService executor = Executors.newFixedThreadPool(EntityType.values().length);
+    try {
+      List<Future<String>> results = new ArrayList<Future<String>>();
+      for (final EntityType type : EntityType.values()) {
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() throws IOException {
+            return fetcher.fetch(type, null).getAsString();
+          }
+        }));
+      }
+      // let the other fetches start while the first read is still going
+      Thread.sleep(50);
+      release.countDown();
+
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals(EntityType.values()[i].name(), results.get(i).get());
+      }
+      assertEquals(1, fetcher.reads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFailedReadFailsEveryFetch() throws Exception {
+    CountingFetcher fetcher = new CountingFetcher(null, new IOException("unreachable"));
+
+    for (EntityType type : EntityType.values()) {
+      try {
+        fetcher.fetch(type, null);
+        fail("Expected the read to fail");
+      } catch (IOException e) {
+        assertEquals("unreachable", e.getMessage());
+      }
+    }
+    assertEquals(1, fetcher.reads.get());
+  }
+
+  private static class CountingFetcher extends ReadOnceFilesEntityFetcher {
+    final AtomicInteger reads = new AtomicInteger();
+    private final CountDownLatch release;
+    private final IOException failure;
+
+    CountingFetcher(CountDownLatch release, IOException failure) {
+      this.release = release;
+      this.failure = failure;
+    }
+
+    @Override
+    protected JsonObject readFiles() throws IOException {
+      reads.incrementAndGet();
+      if (release != null) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return new JsonParser().parse(
+          "{'rooms':'rooms','speakers':'speakers','topics':'topics','categories':'categories'}")
+          .getAsJsonObject();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.meetingcpp.sched.server.schedule.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+public class DataDeltaTest {
+
+  private static final String BASE = "session_data_v1.4.json";
+  private static final String TARGET = "session_data_v1.5.json";
+
+  @Test
+  public void testAddedEntity() {
+    JsonObject delta = DataDelta.compute(
+        parse("{'rooms':[{'id':'r1','name':'One'}]}"),
+        parse("{'rooms':[{'id':'r1','name':'One'},{'id':'r2','name':'Two'}]}"),
+        BASE, TARGET);
+
+    JsonObject rooms = delta.getAsJsonObject("rooms");
+    assertEquals(parse("{'added':[{'id':'r2','name':'Two'}]}"), rooms);
+    assertEquals(BASE, delta.get(DataDelta.KEY_BASE).getAsString());
+    assertEquals(TARGET, delta.get(DataDelta.KEY_TARGET).getAsString());
+  }
+
+  @Test
+  public void testRemovedEntity() {
+    JsonObject delta = DataDelta.compute(
+        parse("{'sessions':[{'id':'s1'},{'id':'s2'}]}"),
+        parse("{'sessions':[{'id':'s2'}]}"),
+        BASE, TARGET);
+
+    assertEquals(parse("{'removed':['s1']}"), delta.getAsJsonObject("sessions"));
+  }
+
+  @Test
+  public void testChangedEntity() {
+    JsonObject delta = DataDelta.compute(
+        parse("{'tags':[{'tag':'TOPIC_A','name':'A'},{'tag':'TOPIC_B','name':'B'}]}"),
+        parse("{'tags':[{'tag':'TOPIC_A','name':'A'},{'tag':'TOPIC_B','name':'Bee'}]}"),
+        BASE, TARGET);
+
+    // tags are identified by their tag name, not an id
+    JsonArray changed = delta.getAsJsonObject("tags").getAsJsonArray(DataDelta.KEY_CHANGED);
+    assertEquals(new JsonParser().parse("[{'tag':'TOPIC_B','name':'Bee'}]"), changed);
+    assertFalse(delta.getAsJsonObject("tags").has(DataDelta.KEY_ADDED));
+    assertFalse(delta.getAsJsonObject("tags").has(DataDelta.KEY_REMOVED));
+  }
+
+  @Test
+  public void testUnchangedCollectionsLeftOut() {
+    String data = "{'rooms':[{'id':'r1'}],'speakers':[{'id':'p1','name':'P'}]}";
+
+    JsonObject delta = DataDelta.compute(parse(data), parse(data), BASE, TARGET);
+
+    assertFalse(delta.has("rooms"));
+    assertFalse(delta.has("speakers"));
+    assertEquals(3, delta.entrySet().size());
+  }
+
+  @Test
+  public void testMajorVersionMismatch() {
+    String data = "{'rooms':[{'id':'r1'}]}";
+
+    assertNull(DataDelta.compute(parse(data), parse(data), BASE, "session_data_v2.1.json"));
+  }
+
+  @Test
+  public void testEntityWithoutId() {
+    assertNull(DataDelta.compute(
+        parse("{'rooms':[{'id':'r1'}]}"), parse("{'rooms':[{'name':'No id'}]}"),
+        BASE, TARGET));
+  }
+
+  private static JsonObject parse(String json) {
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+}
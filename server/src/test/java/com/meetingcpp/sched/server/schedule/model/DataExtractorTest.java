@@ -15,6 +15,7 @@
  */
 package com.meetingcpp.sched.server.schedule.model;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -23,9 +24,11 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.meetingcpp.sched.server.schedule.input.fetcher.EntityFetcher;
 import com.meetingcpp.sched.server.schedule.input.fetcher.RemoteFilesEntityFetcherFactory;
 import com.meetingcpp.sched.server.schedule.input.fetcher.RemoteFilesEntityFetcherFactory.FetcherBuilder;
+import com.meetingcpp.sched.server.schedule.server.cloudstorage.HashedJsonBuffer;
 import com.meetingcpp.sched.server.schedule.server.input.ExtraInput;
 import com.meetingcpp.sched.server.schedule.server.input.VendorDynamicInput;
 import com.google.test.TestHelper;
@@ -33,6 +36,7 @@ import com.google.test.TestHelper;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -109,4 +113,28 @@ public class DataExtractorTest {
     assertFalse(hashtag.getAsString().startsWith("TYPE"));
   }
 
+  /**
+   * The streamed output must be byte for byte the serialization of the tree, so that the hashes
+   * of the update runs from before streaming stay comparable.
+   */
+  @Test
+  public void testStreamedOutputMatchesTreeSerialization() throws IOException {
+    HashedJsonBuffer tree = new HashedJsonBuffer()
+        .write(new DataExtractor(false).extractFromDataSources(sources));
+
+    HashedJsonBuffer streamed = new HashedJsonBuffer();
+    JsonWriter writer = streamed.beginWrite();
+    new DataExtractor(false).extractFromDataSources(sources, writer);
+    streamed.endWrite(writer);
+
+    assertArrayEquals(toByteArray(tree), toByteArray(streamed));
+    assertArrayEquals(tree.getHash(), streamed.getHash());
+  }
+
+  private static byte[] toByteArray(HashedJsonBuffer buffer) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(buffer.size());
+    buffer.writeTo(out);
+    return out.toByteArray();
+  }
+
 }